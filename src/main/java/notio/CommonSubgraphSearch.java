@@ -0,0 +1,799 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * A branch-and-bound search for a maximum common subgraph of two graphs, used by
+     * Graph.matchGraphs() for GR_MATCH_COMMON_SUBGRAPH.  The search follows the McSplit
+     * algorithm.  Concepts and relations are the vertices of a bipartite graph whose
+     * edges are the arcs, labelled by argument position.  The unmapped nodes are kept
+     * in classes, each pairing a set of first nodes with a set of second nodes that
+     * are joined in the same way to every pair mapped so far, so a first node can
+     * only be mapped to a second node in its own class.  Mapping a pair splits each
+     * class by the arcs to the new pair.  Since a class can add no more pairs than the
+     * smaller of its sets, the mapped pairs plus that minimum summed over the classes
+     * bound every mapping the search could still reach, and a branch whose bound does
+     * not beat the best mapping found is abandoned.
+     * <p>
+     * Node labels need not be equal to match here: types may match by subtype and
+     * referents may be compared, so the initial classes are the connected parts of the
+     * table of matching pairs, and pairs are still checked within a class.  When
+     * connected matching is required, a relation counts towards the common subgraph
+     * only once all its arguments are mapped, and it can only be mapped to a relation
+     * with the same arguments missing.  Otherwise arcs are ignored and the nodes are
+     * mapped freely.  The size of a common subgraph is its number of concepts plus its
+     * number of relations.  Folding is not supported, so nodes are mapped one to one.
+     * <p>
+     * If the scheme has a SearchBudget, each branch spends one choice point, and a
+     * search stopped by the budget returns the best mapping found so far.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchingScheme#GR_MATCH_COMMON_SUBGRAPH
+     */
+class CommonSubgraphSearch
+  {
+	  /** The largest number of arguments a relation may have to be mapped. **/
+  private static final int MAX_ARGUMENTS = 64;
+
+	  /** The graphs being matched. **/
+  private Graph firstGraph, secondGraph;
+
+	  /** The concepts of each graph.  Node numbers below the number of concepts are concepts. **/
+  private Concept firstConcepts[], secondConcepts[];
+
+	  /** The relations of each graph, numbered after the concepts. **/
+  private Relation firstRelations[], secondRelations[];
+
+	  /** The number of nodes of each graph. **/
+  private int numFirst, numSecond;
+
+	  /** Flag indicating that arcs must be preserved. **/
+  private boolean connected;
+
+	  /** The budget that limits the search, or null if it is not limited. **/
+  private SearchBudget searchBudget;
+
+	  /** Flags indicating which first nodes match which second nodes. **/
+  private boolean compatible[][];
+
+	  /** The results of concept pairs that carry nested mappings, or null. **/
+  private MatchResult conceptResults[][];
+
+	  /** The neighbours of each node, and the positions of the arcs joining them as bits. **/
+  private int firstNeighbours[][], secondNeighbours[][];
+  private long firstArcLabels[][], secondArcLabels[][];
+
+	  /** The argument node of each position of each relation, or -1 if it is missing. **/
+  private int firstArguments[][];
+
+	  /** Scratch labels of the nodes joined to the pair being mapped, zero elsewhere. **/
+  private long firstScratch[], secondScratch[];
+
+	  /** The second node onto which each first node is mapped, or -1. **/
+  private int images[];
+
+	  /** The mapping with the largest size found so far, and its size. **/
+  private int bestImages[];
+  private int bestSize = 0;
+
+	  /** Flag indicating that the budget stopped the search. **/
+  private boolean truncated = false;
+
+    /**
+     * A class of unmapped nodes: the first nodes may only be mapped to the second nodes.
+     */
+  private static class LabelClass
+    {
+    int firstNodes[];
+    int secondNodes[];
+
+    LabelClass(int newFirstNodes[], int newSecondNodes[])
+      {
+      firstNodes = newFirstNodes;
+      secondNodes = newSecondNodes;
+      }
+    }
+
+  /* Constructors */
+    /**
+     * Prepares a search for a maximum common subgraph of two graphs.
+     *
+     * @param newFirst  the first graph.
+     * @param newSecond  the second graph.
+     * @param matchingScheme  the matching scheme used to compare nodes.
+     */
+  CommonSubgraphSearch(Graph newFirst, Graph newSecond, MatchingScheme matchingScheme)
+    {
+    FrozenGraph firstForm, secondForm;
+
+    firstGraph = newFirst;
+    secondGraph = newSecond;
+    firstForm = firstGraph.freeze();
+    secondForm = secondGraph.freeze();
+    firstConcepts = firstForm.getConcepts();
+    secondConcepts = secondForm.getConcepts();
+    firstRelations = firstForm.getRelations();
+    secondRelations = secondForm.getRelations();
+    numFirst = firstConcepts.length + firstRelations.length;
+    numSecond = secondConcepts.length + secondRelations.length;
+    connected = matchingScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON;
+    searchBudget = matchingScheme.getSearchBudget();
+
+    findCompatiblePairs(matchingScheme);
+
+    firstArguments = findArguments(firstForm, firstConcepts, firstRelations);
+    firstNeighbours = new int[numFirst][];
+    firstArcLabels = new long[numFirst][];
+    findNeighbours(firstArguments, firstConcepts.length, firstNeighbours, firstArcLabels);
+
+    secondNeighbours = new int[numSecond][];
+    secondArcLabels = new long[numSecond][];
+    findNeighbours(findArguments(secondForm, secondConcepts, secondRelations),
+    	secondConcepts.length, secondNeighbours, secondArcLabels);
+
+    firstScratch = new long[numFirst];
+    secondScratch = new long[numSecond];
+    images = new int[numFirst];
+    Arrays.fill(images, -1);
+    bestImages = images.clone();
+    }
+
+    /**
+     * Compares every first node with every second node of the same kind.  When arcs
+     * are preserved, relations must also have the same arguments missing.
+     *
+     * @param matchingScheme  the matching scheme used to compare nodes.
+     */
+  private void findCompatiblePairs(MatchingScheme matchingScheme)
+    {
+    CompiledMatchingScheme compiledScheme;
+    MatchContext context;
+    MatchResult result;
+    int numFirstConcepts, numSecondConcepts;
+    Relation firstRelation, secondRelation;
+
+    compiledScheme = matchingScheme.compile();
+    context = MatchContext.createFor(matchingScheme);
+    numFirstConcepts = firstConcepts.length;
+    numSecondConcepts = secondConcepts.length;
+    compatible = new boolean[numFirst][numSecond];
+    conceptResults = new MatchResult[numFirstConcepts][numSecondConcepts];
+
+    for (int fcon = 0; fcon < numFirstConcepts; fcon++)
+    	for (int scon = 0; scon < numSecondConcepts; scon++)
+    		{
+    		result = compiledScheme.matchConcepts(firstConcepts[fcon], secondConcepts[scon], context);
+    		compatible[fcon][scon] = result.matchSucceeded();
+    		if (result.matchSucceeded() && (result.getMappings() != null))
+    			conceptResults[fcon][scon] = result;
+    		}
+
+    for (int frel = 0; frel < firstRelations.length; frel++)
+    	for (int srel = 0; srel < secondRelations.length; srel++)
+    		{
+    		firstRelation = firstRelations[frel];
+    		secondRelation = secondRelations[srel];
+
+    		if (connected && !sameArguments(firstRelation, secondRelation))
+    			continue;
+
+    		compatible[numFirstConcepts + frel][numSecondConcepts + srel] =
+    			compiledScheme.matchRelations(firstRelation, secondRelation, context);
+    		}
+    }
+
+    /**
+     * Returns true if two relations have the same number of arguments, few enough to
+     * be labelled, and the same arguments missing.
+     *
+     * @param first  the first relation.
+     * @param second  the second relation.
+     * @return true if the relations' arguments agree.
+     */
+  private static boolean sameArguments(Relation first, Relation second)
+    {
+    int valence;
+
+    valence = first.getValence();
+    if ((valence != second.getValence()) || (valence > MAX_ARGUMENTS))
+    	return false;
+
+    for (int arg = 0; arg < valence; arg++)
+    	if ((first.getArgument(arg) == null) != (second.getArgument(arg) == null))
+    		return false;
+
+    return true;
+    }
+
+    /**
+     * Returns the node number of each argument of each relation in a graph.
+     *
+     * @param form  the frozen form of the graph.
+     * @param concepts  the concepts of the graph.
+     * @param relations  the relations of the graph.
+     * @return an array holding the argument nodes of each relation, -1 where missing.
+     */
+  private static int[][] findArguments(FrozenGraph form, Concept concepts[], Relation relations[])
+    {
+    int arguments[][];
+    Concept argument;
+
+    arguments = new int[relations.length][];
+    for (int rel = 0; rel < relations.length; rel++)
+    	{
+    	arguments[rel] = new int[relations[rel].getValence()];
+    	for (int arg = 0; arg < arguments[rel].length; arg++)
+    		{
+    		argument = relations[rel].getArgument(arg);
+    		if (argument == null)
+    			arguments[rel][arg] = -1;
+    		else
+    			arguments[rel][arg] = form.getConceptId(argument);
+    		}
+    	}
+
+    return arguments;
+    }
+
+    /**
+     * Lists the neighbours of each node of a graph with the label of the arcs to each.
+     * The label of a relation and one of its arguments has a bit set for each position
+     * the argument fills.  Positions beyond the labelled ones are left out, since such
+     * relations are never mapped.
+     *
+     * @param arguments  the argument nodes of each relation.
+     * @param numConcepts  the number of concepts in the graph.
+     * @param neighbours  the array filled with the neighbours of each node.
+     * @param arcLabels  the array filled with the labels of the arcs to each neighbour.
+     */
+  private static void findNeighbours(int arguments[][], int numConcepts, int neighbours[][],
+  	long arcLabels[][])
+    {
+    Hashtable labels[];
+    Enumeration keys;
+    Integer neighbour;
+    Long label;
+    int relation, next;
+
+    labels = new Hashtable[numConcepts + arguments.length];
+    for (int node = 0; node < labels.length; node++)
+    	labels[node] = new Hashtable();
+
+    for (int rel = 0; rel < arguments.length; rel++)
+    	{
+    	relation = numConcepts + rel;
+    	for (int arg = 0; (arg < arguments[rel].length) && (arg < MAX_ARGUMENTS); arg++)
+    		if (arguments[rel][arg] != -1)
+    			{
+    			neighbour = new Integer(arguments[rel][arg]);
+    			label = (Long)labels[relation].get(neighbour);
+    			if (label == null)
+    				label = new Long(1L << arg);
+    			else
+    				label = new Long(label.longValue() | (1L << arg));
+    			labels[relation].put(neighbour, label);
+    			labels[arguments[rel][arg]].put(new Integer(relation), label);
+    			}
+    	}
+
+    for (int node = 0; node < labels.length; node++)
+    	{
+    	neighbours[node] = new int[labels[node].size()];
+    	arcLabels[node] = new long[labels[node].size()];
+    	next = 0;
+    	keys = labels[node].keys();
+    	while (keys.hasMoreElements())
+    		{
+    		neighbour = (Integer)keys.nextElement();
+    		neighbours[node][next] = neighbour.intValue();
+    		arcLabels[node][next] = ((Long)labels[node].get(neighbour)).longValue();
+    		next++;
+    		}
+    	}
+    }
+
+    /**
+     * Runs the search and returns the largest common subgraph found, or null if the
+     * graphs have no node in common.
+     *
+     * @return the mapping of the common subgraph or null.
+     */
+  NodeMapping findMaximum()
+    {
+    search(findInitialClasses(), 0);
+
+    if (bestSize == 0)
+    	return null;
+
+    return buildMapping();
+    }
+
+    /**
+     * Returns true if the last search was stopped by its budget, in which case the
+     * mapping returned may not be a maximum.
+     *
+     * @return true if the search was truncated.
+     */
+  boolean isTruncated()
+    {
+    return truncated;
+    }
+
+    /**
+     * Divides the nodes into the initial classes: the connected parts of the table of
+     * matching pairs.  Nodes that match nothing are left out.
+     *
+     * @return a vector of LabelClass instances.
+     */
+  private Vector findInitialClasses()
+    {
+    int parents[], root, numClasses, classOf[];
+    Vector firstMembers, secondMembers, classes;
+
+		// Union the first and second nodes of every matching pair.  Second nodes are
+		// numbered after the first nodes.
+    parents = new int[numFirst + numSecond];
+    for (int node = 0; node < parents.length; node++)
+    	parents[node] = node;
+
+    for (int fnode = 0; fnode < numFirst; fnode++)
+    	for (int snode = 0; snode < numSecond; snode++)
+    		if (compatible[fnode][snode])
+    			parents[findRoot(parents, fnode)] = findRoot(parents, numFirst + snode);
+
+    classOf = new int[parents.length];
+    Arrays.fill(classOf, -1);
+    firstMembers = new Vector();
+    secondMembers = new Vector();
+    numClasses = 0;
+
+    for (int node = 0; node < parents.length; node++)
+    	{
+    	root = findRoot(parents, node);
+    	if (root == node)
+    		continue;
+
+    	if (classOf[root] == -1)
+    		{
+    		classOf[root] = numClasses;
+    		numClasses++;
+    		firstMembers.addElement(new Vector());
+    		secondMembers.addElement(new Vector());
+    		}
+    	}
+
+		// Every node joined to another is in a class, including its root.
+    for (int node = 0; node < parents.length; node++)
+    	{
+    	root = findRoot(parents, node);
+    	if (classOf[root] == -1)
+    		continue;
+
+    	if (node < numFirst)
+    		((Vector)firstMembers.elementAt(classOf[root])).addElement(new Integer(node));
+    	else
+    		((Vector)secondMembers.elementAt(classOf[root])).addElement(new Integer(node - numFirst));
+    	}
+
+    classes = new Vector(numClasses);
+    for (int cls = 0; cls < numClasses; cls++)
+    	classes.addElement(new LabelClass(toArray((Vector)firstMembers.elementAt(cls)),
+    		toArray((Vector)secondMembers.elementAt(cls))));
+
+    return classes;
+    }
+
+    /**
+     * Returns the root of a node in a union-find forest, shortening the path to it.
+     *
+     * @param parents  the parent of each node.
+     * @param node  the node.
+     * @return the root of the node's tree.
+     */
+  private static int findRoot(int parents[], int node)
+    {
+    int root;
+
+    root = node;
+    while (parents[root] != root)
+    	root = parents[root];
+
+    while (parents[node] != root)
+    	{
+    	int next = parents[node];
+    	parents[node] = root;
+    	node = next;
+    	}
+
+    return root;
+    }
+
+    /**
+     * Returns the integers in a vector as an array.
+     *
+     * @param vec  a vector of Integer instances.
+     * @return an array of the integers, in order.
+     */
+  private static int[] toArray(Vector vec)
+    {
+    int arr[];
+
+    arr = new int[vec.size()];
+    for (int index = 0; index < arr.length; index++)
+    	arr[index] = ((Integer)vec.elementAt(index)).intValue();
+
+    return arr;
+    }
+
+    /**
+     * Searches for mappings that extend the current one using the unmapped nodes in
+     * the specified classes.
+     *
+     * @param classes  the classes of unmapped nodes, which are not modified.
+     * @param numMapped  the number of pairs currently mapped.
+     */
+  private void search(Vector classes, int numMapped)
+    {
+    LabelClass chosen;
+    int size, bound, chosenIndex, firstNode, secondNode;
+
+    if ((searchBudget != null) && !searchBudget.spend())
+    	{
+    	truncated = true;
+    	return;
+    	}
+
+    size = currentSize();
+    if (size > bestSize)
+    	{
+    	bestSize = size;
+    	System.arraycopy(images, 0, bestImages, 0, numFirst);
+    	}
+
+    if (classes.isEmpty() || (bound(classes, numMapped) <= bestSize))
+    	return;
+
+		// Branch on the class with the fewest choices, and on its most connected first node.
+    chosenIndex = chooseClass(classes);
+    chosen = (LabelClass)classes.elementAt(chosenIndex);
+    firstNode = chooseNode(chosen.firstNodes);
+
+    for (int index = 0; index < chosen.secondNodes.length; index++)
+    	{
+    	secondNode = chosen.secondNodes[index];
+    	if (!compatible[firstNode][secondNode])
+    		continue;
+
+    	images[firstNode] = secondNode;
+    	search(splitClasses(classes, firstNode, secondNode), numMapped + 1);
+    	images[firstNode] = -1;
+
+    	if (truncated || (bound(classes, numMapped) <= bestSize))
+    		return;
+    	}
+
+		// Finally, leave the first node out of the mapping.
+    search(withoutFirstNode(classes, chosenIndex, firstNode), numMapped);
+    }
+
+    /**
+     * Returns the size of the common subgraph given by the current mapping.  When arcs
+     * are preserved, only relations whose arguments are all mapped are counted.
+     *
+     * @return the size of the current common subgraph.
+     */
+  private int currentSize()
+    {
+    int size = 0, numConcepts;
+    boolean complete;
+
+    numConcepts = firstConcepts.length;
+    for (int node = 0; node < numFirst; node++)
+    	if (images[node] != -1)
+    		{
+    		if (connected && (node >= numConcepts))
+    			{
+    			complete = true;
+    			for (int arg = 0; arg < firstArguments[node - numConcepts].length; arg++)
+    				if ((firstArguments[node - numConcepts][arg] != -1) &&
+    					(images[firstArguments[node - numConcepts][arg]] == -1))
+    					complete = false;
+
+    			if (!complete)
+    				continue;
+    			}
+
+    		size++;
+    		}
+
+    return size;
+    }
+
+    /**
+     * Returns an upper bound on the number of pairs of any mapping that extends the
+     * current one using the specified classes.
+     *
+     * @param classes  the classes of unmapped nodes.
+     * @param numMapped  the number of pairs currently mapped.
+     * @return the bound.
+     */
+  private static int bound(Vector classes, int numMapped)
+    {
+    LabelClass cls;
+    int bound;
+
+    bound = numMapped;
+    for (int index = 0; index < classes.size(); index++)
+    	{
+    	cls = (LabelClass)classes.elementAt(index);
+    	bound += Math.min(cls.firstNodes.length, cls.secondNodes.length);
+    	}
+
+    return bound;
+    }
+
+    /**
+     * Returns the index of the class whose larger set is smallest.
+     *
+     * @param classes  the classes of unmapped nodes, of which there is at least one.
+     * @return the index of the chosen class.
+     */
+  private static int chooseClass(Vector classes)
+    {
+    LabelClass cls;
+    int chosen = 0, smallest = Integer.MAX_VALUE, size;
+
+    for (int index = 0; index < classes.size(); index++)
+    	{
+    	cls = (LabelClass)classes.elementAt(index);
+    	size = Math.max(cls.firstNodes.length, cls.secondNodes.length);
+    	if (size < smallest)
+    		{
+    		smallest = size;
+    		chosen = index;
+    		}
+    	}
+
+    return chosen;
+    }
+
+    /**
+     * Returns the first node with the most neighbours, taking the earliest of equals.
+     *
+     * @param nodes  the first nodes of a class.
+     * @return the chosen node.
+     */
+  private int chooseNode(int nodes[])
+    {
+    int chosen;
+
+    chosen = nodes[0];
+    for (int index = 1; index < nodes.length; index++)
+    	if (firstNeighbours[nodes[index]].length > firstNeighbours[chosen].length)
+    		chosen = nodes[index];
+
+    return chosen;
+    }
+
+    /**
+     * Returns the classes left once a pair is mapped.  The pair is removed, and each
+     * class is split into the nodes joined to the pair in the same way.  Nodes joined
+     * to the pair differently from every node of the other graph are left out.  When
+     * arcs are ignored, the classes are not split.
+     *
+     * @param classes  the classes of unmapped nodes, which are not modified.
+     * @param firstNode  the first node of the pair.
+     * @param secondNode  the second node of the pair.
+     * @return a vector of the new classes.
+     */
+  private Vector splitClasses(Vector classes, int firstNode, int secondNode)
+    {
+    Vector newClasses;
+    LabelClass cls;
+
+    if (connected)
+    	{
+    	for (int index = 0; index < firstNeighbours[firstNode].length; index++)
+    		firstScratch[firstNeighbours[firstNode][index]] = firstArcLabels[firstNode][index];
+    	for (int index = 0; index < secondNeighbours[secondNode].length; index++)
+    		secondScratch[secondNeighbours[secondNode][index]] = secondArcLabels[secondNode][index];
+    	}
+
+    newClasses = new Vector(classes.size() + 1);
+    for (int index = 0; index < classes.size(); index++)
+    	{
+    	cls = (LabelClass)classes.elementAt(index);
+    	splitClass(cls, firstNode, secondNode, newClasses);
+    	}
+
+    if (connected)
+    	{
+    	for (int index = 0; index < firstNeighbours[firstNode].length; index++)
+    		firstScratch[firstNeighbours[firstNode][index]] = 0;
+    	for (int index = 0; index < secondNeighbours[secondNode].length; index++)
+    		secondScratch[secondNeighbours[secondNode][index]] = 0;
+    	}
+
+    return newClasses;
+    }
+
+    /**
+     * Splits one class by the labels in the scratch arrays, leaving out the mapped
+     * pair, and adds the nonempty parts to a vector.
+     *
+     * @param cls  the class being split.
+     * @param firstNode  the first node of the mapped pair.
+     * @param secondNode  the second node of the mapped pair.
+     * @param newClasses  the vector to which the parts are added.
+     */
+  private void splitClass(LabelClass cls, int firstNode, int secondNode, Vector newClasses)
+    {
+    int firsts[], seconds[], numFirsts, numSeconds, node;
+    long label;
+    boolean done[];
+
+    firsts = new int[cls.firstNodes.length];
+    seconds = new int[cls.secondNodes.length];
+    done = new boolean[cls.firstNodes.length];
+
+		// Each distinct label among the first nodes gives one part.
+    for (int start = 0; start < cls.firstNodes.length; start++)
+    	{
+    	if (done[start] || (cls.firstNodes[start] == firstNode))
+    		continue;
+
+    	label = firstScratch[cls.firstNodes[start]];
+    	numFirsts = 0;
+    	for (int index = start; index < cls.firstNodes.length; index++)
+    		{
+    		node = cls.firstNodes[index];
+    		if ((node != firstNode) && (firstScratch[node] == label))
+    			{
+    			firsts[numFirsts] = node;
+    			numFirsts++;
+    			done[index] = true;
+    			}
+    		}
+
+    	numSeconds = 0;
+    	for (int index = 0; index < cls.secondNodes.length; index++)
+    		{
+    		node = cls.secondNodes[index];
+    		if ((node != secondNode) && (secondScratch[node] == label))
+    			{
+    			seconds[numSeconds] = node;
+    			numSeconds++;
+    			}
+    		}
+
+    	if (numSeconds > 0)
+    		newClasses.addElement(new LabelClass(copyOf(firsts, numFirsts),
+    			copyOf(seconds, numSeconds)));
+    	}
+    }
+
+    /**
+     * Returns the classes with a first node left out of the mapping.
+     *
+     * @param classes  the classes of unmapped nodes, which are not modified.
+     * @param classIndex  the index of the class holding the node.
+     * @param firstNode  the node left out.
+     * @return a vector of the new classes.
+     */
+  private static Vector withoutFirstNode(Vector classes, int classIndex, int firstNode)
+    {
+    Vector newClasses;
+    LabelClass cls;
+    int firsts[], numFirsts = 0;
+
+    newClasses = (Vector)classes.clone();
+    cls = (LabelClass)classes.elementAt(classIndex);
+    firsts = new int[cls.firstNodes.length - 1];
+    for (int index = 0; index < cls.firstNodes.length; index++)
+    	if (cls.firstNodes[index] != firstNode)
+    		{
+    		firsts[numFirsts] = cls.firstNodes[index];
+    		numFirsts++;
+    		}
+
+    if (numFirsts == 0)
+    	newClasses.removeElementAt(classIndex);
+    else
+    	newClasses.setElementAt(new LabelClass(firsts, cls.secondNodes), classIndex);
+
+    return newClasses;
+    }
+
+    /**
+     * Returns the first elements of an array in a new array.
+     *
+     * @param arr  the array.
+     * @param length  the number of elements copied.
+     * @return the new array.
+     */
+  private static int[] copyOf(int arr[], int length)
+    {
+    int copy[];
+
+    copy = new int[length];
+    System.arraycopy(arr, 0, copy, 0, length);
+    return copy;
+    }
+
+    /**
+     * Builds the node mapping for the best common subgraph found.  Relations whose
+     * arguments are not all mapped are left out when arcs are preserved.
+     *
+     * @return the node mapping.
+     */
+  private NodeMapping buildMapping()
+    {
+    Vector firstCons, secondCons, results, firstRels, secondRels;
+    Concept firstArr[], secondArr[];
+    Relation firstRelArr[], secondRelArr[];
+    MatchResult resultArr[];
+    int numConcepts, secondNumConcepts, rel;
+    boolean complete;
+
+    numConcepts = firstConcepts.length;
+    secondNumConcepts = secondConcepts.length;
+    firstCons = new Vector();
+    secondCons = new Vector();
+    results = new Vector();
+    firstRels = new Vector();
+    secondRels = new Vector();
+
+    for (int node = 0; node < numFirst; node++)
+    	{
+    	if (bestImages[node] == -1)
+    		continue;
+
+    	if (node < numConcepts)
+    		{
+    		firstCons.addElement(firstConcepts[node]);
+    		secondCons.addElement(secondConcepts[bestImages[node]]);
+    		results.addElement(conceptResults[node][bestImages[node]]);
+    		continue;
+    		}
+
+    	rel = node - numConcepts;
+    	complete = true;
+    	if (connected)
+    		for (int arg = 0; arg < firstArguments[rel].length; arg++)
+    			if ((firstArguments[rel][arg] != -1) && (bestImages[firstArguments[rel][arg]] == -1))
+    				complete = false;
+
+    	if (complete)
+    		{
+    		firstRels.addElement(firstRelations[rel]);
+    		secondRels.addElement(secondRelations[bestImages[node] - secondNumConcepts]);
+    		}
+    	}
+
+    firstArr = new Concept[firstCons.size()];
+    firstCons.copyInto(firstArr);
+    secondArr = new Concept[secondCons.size()];
+    secondCons.copyInto(secondArr);
+    resultArr = new MatchResult[results.size()];
+    results.copyInto(resultArr);
+    firstRelArr = new Relation[firstRels.size()];
+    firstRels.copyInto(firstRelArr);
+    secondRelArr = new Relation[secondRels.size()];
+    secondRels.copyInto(secondRelArr);
+
+    return new NodeMapping(firstGraph, secondGraph, firstArr, secondArr,
+    	firstRelArr, secondRelArr, resultArr);
+    }
+  }
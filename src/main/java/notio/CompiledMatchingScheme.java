@@ -0,0 +1,768 @@
+package notio;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+    /**
+     * A matching scheme compiled into comparison objects specialized to its flags.
+     * The static matching methods such as Concept.matchConcepts() read the scheme's
+     * flags and choose what to compare on every call.  A compiled scheme makes those
+     * choices once, when it is built, so each comparison calls straight into the one
+     * test the scheme requires.  For example, a scheme that matches concepts by type
+     * alone compiles to a concept matcher that only compares types, using a type
+     * matcher that only tests for a subtype.  The results are the same as those of
+     * the static methods.
+     * <p>
+     * Compiled schemes are immutable and may be shared between threads.  They are
+     * obtained from MatchingScheme.compile(), which builds one for each scheme and
+     * then reuses it.  A PreparedQuery compiles its own copy of a scheme with a cache
+     * of type comparisons, since it matches one query over the same hierarchies many
+     * times.  The cache is thread-safe, is limited in size and is dropped whenever the
+     * type order of its hierarchy changes.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchingScheme#compile
+     */
+public final class CompiledMatchingScheme
+  {
+  /** The result returned by matchers for a successful match without mappings. **/
+  private static final MatchResult MATCHED = new MatchResult(true);
+
+  /** The result returned by matchers for a failed match. **/
+  private static final MatchResult NOT_MATCHED = new MatchResult(false);
+
+	  /** The scheme from which this was compiled. **/
+  private final MatchingScheme matchScheme;
+
+	  /** Flag indicating that coreferent concepts must agree. **/
+  private final boolean corefAgreement;
+
+	  /** Compares two single concepts, ignoring coreference agreement. **/
+  private final ConceptMatcher conceptMatcher;
+
+	  /** Compares two concept types. **/
+  private final TypeMatcher conceptTypeMatcher;
+
+	  /** Compares two relation types. **/
+  private final TypeMatcher relationTypeMatcher;
+
+	  /** Compares two relations. **/
+  private final RelationMatcher relationMatcher;
+
+  /* Constructors */
+    /**
+     * Compiles the specified matching scheme.
+     *
+     * @param matchingScheme  the scheme to be compiled.
+     * @exception UnimplementedFeatureException  if a flag of the scheme is unknown.
+     */
+  CompiledMatchingScheme(MatchingScheme matchingScheme)
+    {
+    this(matchingScheme, false);
+    }
+
+    /**
+     * Compiles the specified matching scheme, optionally keeping the result of every
+     * comparison of types that needs a hierarchy lookup.
+     *
+     * @param matchingScheme  the scheme to be compiled.
+     * @param cacheTypes  true if type comparisons are to be cached.
+     * @exception UnimplementedFeatureException  if a flag of the scheme is unknown.
+     */
+  CompiledMatchingScheme(MatchingScheme matchingScheme, boolean cacheTypes)
+    {
+    matchScheme = matchingScheme;
+    corefAgreement =
+    	matchScheme.getCoreferenceAgreementFlag() != MatchingScheme.COREF_AGREE_OFF;
+    conceptTypeMatcher = compileTypeMatcher(matchScheme.getConceptTypeFlag() -
+    	MatchingScheme.CT_MATCH_INSTANCE, "ConceptType", cacheTypes);
+    relationTypeMatcher = compileTypeMatcher(matchScheme.getRelationTypeFlag() -
+    	MatchingScheme.RT_MATCH_INSTANCE, "RelationType", cacheTypes);
+    conceptMatcher = compileConceptMatcher();
+    relationMatcher = compileRelationMatcher(compileArcMatcher());
+    }
+
+    /**
+     * Returns the matching scheme from which this was compiled.
+     *
+     * @return the matching scheme from which this was compiled.
+     */
+  public MatchingScheme getMatchingScheme()
+    {
+    return matchScheme;
+    }
+
+    /**
+     * Compares two concepts to decide if they match, with the same result as
+     * Concept.matchConcepts() under the compiled scheme.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @return the result of the match.
+     */
+  public MatchResult matchConcepts(Concept first, Concept second)
+    {
+    return matchConcepts(first, second, null);
+    }
+
+    /**
+     * Compares two concepts to decide if they match, using and adding to the results
+     * held in a match context so that repeated comparisons of the same concepts within
+     * one match are not made again.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @param context  the context of the match, or null to compare the concepts afresh.
+     * @return the result of the match.
+     */
+  MatchResult matchConcepts(Concept first, Concept second, MatchContext context)
+    {
+    Concept firstSet[], secondSet[];
+    MatchResult result, singleResult = null;
+
+    // If coreference agreement is off then we only need to match the two concepts
+    // Otherwise we must match all coreferent concepts with each other.
+    if (!corefAgreement)
+    	return matchSingleConcepts(first, second, context);
+
+  	if (context == null)
+  		{
+    	firstSet = first.getCoreferentConcepts();
+  	  secondSet = second.getCoreferentConcepts();
+  	  }
+  	else
+  		{
+  		result = context.getAgreementResult(first, second);
+  		if (result != null)
+  			return result;
+
+    	firstSet = context.getCoreferentConcepts(first);
+  	  secondSet = context.getCoreferentConcepts(second);
+  	  }
+
+	  for (int fcon = 0; fcon < firstSet.length; fcon++)
+  	 	for (int scon = 0; scon < secondSet.length; scon++)
+  	 		{
+				result = matchSingleConcepts(firstSet[fcon], secondSet[scon], context);
+
+  	 		if ((firstSet[fcon] == first) && (secondSet[scon] == second))
+  	 			singleResult = result;
+
+  	 		if (!result.matchSucceeded())
+  	 			{
+  	 			if (context != null)
+  	 				context.putAgreementResult(first, second, NOT_MATCHED);
+  	 			return NOT_MATCHED;
+  	 			}
+				}
+
+	  if (context != null)
+	  	context.putAgreementResult(first, second, singleResult);
+
+	  return singleResult;
+    }
+
+    /**
+     * Compares two single concepts, taking the result from the match context if the
+     * pair has been compared before and recording it there otherwise.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @param context  the context of the match, or null to compare the concepts afresh.
+     * @return the result of the comparison.
+     */
+  private MatchResult matchSingleConcepts(Concept first, Concept second, MatchContext context)
+    {
+    MatchResult result;
+
+    if (context == null)
+    	return conceptMatcher.matchConcepts(first, second);
+
+    result = context.getSingleResult(first, second);
+    if (result == null)
+    	{
+    	result = conceptMatcher.matchConcepts(first, second);
+    	context.putSingleResult(first, second, result);
+    	}
+
+    return result;
+    }
+
+    /**
+     * Compares two relations to decide if they match, with the same result as
+     * Relation.matchRelations() under the compiled scheme.
+     *
+     * @param first  the first relation being matched.
+     * @param second  the second relation being matched.
+     * @return true if the relations match.
+     */
+  public boolean matchRelations(Relation first, Relation second)
+    {
+    return relationMatcher.matchRelations(first, second, null);
+    }
+
+    /**
+     * Compares two relations to decide if they match, comparing the concepts on their
+     * arcs through a match context.
+     *
+     * @param first  the first relation being matched.
+     * @param second  the second relation being matched.
+     * @param context  the context of the match, or null to compare concepts afresh.
+     * @return true if the relations match.
+     */
+  boolean matchRelations(Relation first, Relation second, MatchContext context)
+    {
+    return relationMatcher.matchRelations(first, second, context);
+    }
+
+    /**
+     * Compares two concept types to decide if they match, with the same result as
+     * ConceptType.matchConceptTypes() under the compiled scheme.
+     *
+     * @param first  the first concept type being matched.
+     * @param second  the second concept type being matched.
+     * @return true if the types match.
+     */
+  public boolean matchConceptTypes(ConceptType first, ConceptType second)
+    {
+    return conceptTypeMatcher.matchTypes(first, second);
+    }
+
+    /**
+     * Compares two relation types to decide if they match, with the same result as
+     * RelationType.matchRelationTypes() under the compiled scheme.
+     *
+     * @param first  the first relation type being matched.
+     * @param second  the second relation type being matched.
+     * @return true if the types match.
+     */
+  public boolean matchRelationTypes(RelationType first, RelationType second)
+    {
+    return relationTypeMatcher.matchTypes(first, second);
+    }
+
+    /**
+     * Returns the type matcher for a type flag.  The concept and relation type flags
+     * are in the same order, so the flag is given as an offset from the INSTANCE flag.
+     *
+     * Only the matchers that look types up in a hierarchy are cached.
+     *
+     * @param flagOffset  the type flag less the INSTANCE flag of its kind.
+     * @param kind  the name of the kind of type, used in error messages.
+     * @param cacheTypes  true if hierarchy lookups are to be cached.
+     * @return the type matcher.
+     * @exception UnimplementedFeatureException  if the flag is unknown.
+     */
+  private static TypeMatcher compileTypeMatcher(int flagOffset, String kind, boolean cacheTypes)
+    {
+    TypeMatcher matcher;
+
+    switch (flagOffset + MatchingScheme.CT_MATCH_INSTANCE)
+      {
+      case MatchingScheme.CT_MATCH_INSTANCE:
+      	return new InstanceTypeMatcher();
+
+      case MatchingScheme.CT_MATCH_LABEL:
+      	return new LabelTypeMatcher();
+
+      case MatchingScheme.CT_MATCH_SUBTYPE:
+      	matcher = new SubTypeMatcher();
+      	break;
+
+      case MatchingScheme.CT_MATCH_SUPERTYPE:
+      	matcher = new SuperTypeMatcher();
+      	break;
+
+      case MatchingScheme.CT_MATCH_EQUIVALENT:
+      	matcher = new EquivalentTypeMatcher();
+      	break;
+
+      case MatchingScheme.CT_MATCH_ANYTHING:
+      	return new AnyTypeMatcher();
+
+      default:
+        throw new UnimplementedFeatureException("Specified " + kind +
+        	" match control flag is unknown.");
+      }
+
+    if (cacheTypes)
+    	return new CachingTypeMatcher(matcher);
+    else
+    	return matcher;
+    }
+
+    /**
+     * Returns the concept matcher for the scheme.  Matching by referent alone or by
+     * coreference is left to Concept.matchSingleConcepts().
+     *
+     * @return the concept matcher.
+     * @exception UnimplementedFeatureException  if the concept flag is unknown.
+     */
+  private ConceptMatcher compileConceptMatcher()
+    {
+    switch (matchScheme.getConceptFlag())
+      {
+      case MatchingScheme.CN_MATCH_INSTANCE:
+      	return new InstanceConceptMatcher();
+
+      case MatchingScheme.CN_MATCH_TYPES:
+      	return new TypeConceptMatcher(conceptTypeMatcher);
+
+      case MatchingScheme.CN_MATCH_REFERENTS:
+      case MatchingScheme.CN_MATCH_COREFERENTS:
+      	return new SchemeConceptMatcher(matchScheme);
+
+      case MatchingScheme.CN_MATCH_ALL:
+      	return new FullConceptMatcher(conceptTypeMatcher, matchScheme);
+
+      case MatchingScheme.CN_MATCH_ANYTHING:
+      	return new AnyConceptMatcher();
+
+      default:
+        throw new UnimplementedFeatureException("Specified Concept match control flag is unknown.");
+      }
+    }
+
+    /**
+     * Returns the arc matcher for the scheme.
+     *
+     * @return the arc matcher.
+     * @exception UnimplementedFeatureException  if the arc flag is unknown.
+     */
+  private ArcMatcher compileArcMatcher()
+    {
+    switch (matchScheme.getArcFlag())
+      {
+      case MatchingScheme.ARC_MATCH_INSTANCE:
+      	return new InstanceArcMatcher();
+
+      case MatchingScheme.ARC_MATCH_CONCEPT:
+      	return new ConceptArcMatcher(this);
+
+      case MatchingScheme.ARC_MATCH_VALENCE:
+      	return new ValenceArcMatcher();
+
+      case MatchingScheme.ARC_MATCH_ANYTHING:
+      	return new AnyArcMatcher();
+
+      default:
+        throw new UnimplementedFeatureException("Specified Arc match control flag is unknown.");
+      }
+    }
+
+    /**
+     * Returns the relation matcher for the scheme.
+     *
+     * @param arcMatcher  the arc matcher for the scheme.
+     * @return the relation matcher.
+     * @exception UnimplementedFeatureException  if the relation flag is unknown.
+     */
+  private RelationMatcher compileRelationMatcher(ArcMatcher arcMatcher)
+    {
+    switch (matchScheme.getRelationFlag())
+      {
+      case MatchingScheme.RN_MATCH_INSTANCE:
+      	return new InstanceRelationMatcher();
+
+      case MatchingScheme.RN_MATCH_TYPES:
+      	return new TypeRelationMatcher(relationTypeMatcher);
+
+      case MatchingScheme.RN_MATCH_ARCS:
+      	return new ArcRelationMatcher(arcMatcher);
+
+      case MatchingScheme.RN_MATCH_ALL:
+      	return new FullRelationMatcher(relationTypeMatcher, arcMatcher);
+
+      case MatchingScheme.RN_MATCH_ANYTHING:
+      	return new AnyRelationMatcher();
+
+      default:
+        throw new UnimplementedFeatureException("Specified Relation match control flag is unknown.");
+      }
+    }
+
+  /* Matcher interfaces */
+    /**
+     * Compares two single concepts, ignoring coreference agreement.
+     */
+  interface ConceptMatcher
+    {
+    MatchResult matchConcepts(Concept first, Concept second);
+    }
+
+    /**
+     * Compares two concept types or two relation types.
+     */
+  interface TypeMatcher
+    {
+    boolean matchTypes(Type first, Type second);
+    }
+
+    /**
+     * Compares the arcs of two relations.
+     */
+  interface ArcMatcher
+    {
+    boolean matchArcs(Relation first, Relation second, MatchContext context);
+    }
+
+    /**
+     * Compares two relations.
+     */
+  interface RelationMatcher
+    {
+    boolean matchRelations(Relation first, Relation second, MatchContext context);
+    }
+
+  /* Type matchers */
+  private static final class InstanceTypeMatcher implements TypeMatcher
+    {
+    public boolean matchTypes(Type first, Type second)
+      {
+      return first == second;
+      }
+    }
+
+  private static final class LabelTypeMatcher implements TypeMatcher
+    {
+    public boolean matchTypes(Type first, Type second)
+      {
+      if (first == second)
+        return true;
+
+      if (first.getHierarchy().getCaseSensitiveLabels())
+        return first.getLabel().equals(second.getLabel());
+      else
+        return (first.getLabel().toLowerCase()).equals(second.getLabel().toLowerCase());
+      }
+    }
+
+  private static final class SubTypeMatcher implements TypeMatcher
+    {
+    public boolean matchTypes(Type first, Type second)
+      {
+      return second.getHierarchy().isSubTypeOf(first, second);
+      }
+    }
+
+  private static final class SuperTypeMatcher implements TypeMatcher
+    {
+    public boolean matchTypes(Type first, Type second)
+      {
+      return second.getHierarchy().isSuperTypeOf(first, second);
+      }
+    }
+
+  private static final class EquivalentTypeMatcher implements TypeMatcher
+    {
+    public boolean matchTypes(Type first, Type second)
+      {
+      return second.getHierarchy().isSuperTypeOf(first, second) ||
+      	second.getHierarchy().isSubTypeOf(first, second);
+      }
+    }
+
+  private static final class AnyTypeMatcher implements TypeMatcher
+    {
+    public boolean matchTypes(Type first, Type second)
+      {
+      return true;
+      }
+    }
+
+  private static final class CachingTypeMatcher implements TypeMatcher
+    {
+		  /** The most first types, and second types per first type, whose results are kept. **/
+    private static final int MAX_TYPES = 256;
+
+    private final TypeMatcher typeMatcher;
+
+		  /** The results, with the hierarchy and order version they were found in. **/
+    private volatile TypeResults cache = new TypeResults(null, 0);
+
+    CachingTypeMatcher(TypeMatcher newTypeMatcher)
+      {
+      typeMatcher = newTypeMatcher;
+      }
+
+    public boolean matchTypes(Type first, Type second)
+      {
+      TypeHierarchy hierarchy;
+      TypeResults current;
+      ConcurrentHashMap row;
+      Boolean result;
+      int version;
+
+      // The comparison is made in the second type's hierarchy, so its order decides
+      // whether the results kept are still valid.
+      hierarchy = second.getHierarchy();
+      if (hierarchy == null)
+      	return typeMatcher.matchTypes(first, second);
+
+      version = hierarchy.getOrderVersion();
+      current = cache;
+      if ((current.hierarchy != hierarchy) || (current.version != version))
+      	{
+      	current = new TypeResults(hierarchy, version);
+      	cache = current;
+      	}
+
+      row = (ConcurrentHashMap)current.results.get(first);
+      if (row == null)
+      	{
+      	if (current.results.size() >= MAX_TYPES)
+      		return typeMatcher.matchTypes(first, second);
+      	current.results.putIfAbsent(first, new ConcurrentHashMap());
+      	row = (ConcurrentHashMap)current.results.get(first);
+      	}
+
+      result = (Boolean)row.get(second);
+      if (result == null)
+      	{
+      	result = Boolean.valueOf(typeMatcher.matchTypes(first, second));
+      	if (row.size() < MAX_TYPES)
+      		row.put(second, result);
+      	}
+
+      return result.booleanValue();
+      }
+    }
+
+  private static final class TypeResults
+    {
+    final TypeHierarchy hierarchy;
+    final int version;
+
+		  /** Maps each first type to a map from second types to Boolean results. **/
+    final ConcurrentHashMap results = new ConcurrentHashMap();
+
+    TypeResults(TypeHierarchy newHierarchy, int newVersion)
+      {
+      hierarchy = newHierarchy;
+      version = newVersion;
+      }
+    }
+
+  /* Concept matchers */
+  private static final class InstanceConceptMatcher implements ConceptMatcher
+    {
+    public MatchResult matchConcepts(Concept first, Concept second)
+      {
+      return (first == second) ? MATCHED : NOT_MATCHED;
+      }
+    }
+
+  private static final class TypeConceptMatcher implements ConceptMatcher
+    {
+    private final TypeMatcher typeMatcher;
+
+    TypeConceptMatcher(TypeMatcher newTypeMatcher)
+      {
+      typeMatcher = newTypeMatcher;
+      }
+
+    public MatchResult matchConcepts(Concept first, Concept second)
+      {
+      ConceptType firstType, secondType;
+
+    	firstType = first.getType();
+    	secondType = second.getType();
+
+    	if ((firstType == null) || (secondType == null) ||
+    		typeMatcher.matchTypes(firstType, secondType))
+    		return MATCHED;
+    	else
+    		return NOT_MATCHED;
+      }
+    }
+
+  private static final class FullConceptMatcher implements ConceptMatcher
+    {
+    private final TypeMatcher typeMatcher;
+    private final MatchingScheme matchScheme;
+    private final boolean autoMatch;
+
+    FullConceptMatcher(TypeMatcher newTypeMatcher, MatchingScheme matchingScheme)
+      {
+      typeMatcher = newTypeMatcher;
+      matchScheme = matchingScheme;
+      autoMatch =
+      	matchScheme.getCoreferenceAutoMatchFlag() == MatchingScheme.COREF_AUTOMATCH_ON;
+      }
+
+    public MatchResult matchConcepts(Concept first, Concept second)
+      {
+      ConceptType firstType, secondType;
+
+    	if (autoMatch && Concept.testCoreference(first, second))
+    		return MATCHED;
+
+    	firstType = first.getType();
+    	secondType = second.getType();
+
+     	if ((firstType == null) || (secondType == null) ||
+     		typeMatcher.matchTypes(firstType, secondType))
+     		return Referent.matchReferents(first.getReferent(), second.getReferent(), matchScheme);
+     	else
+     		return NOT_MATCHED;
+      }
+    }
+
+  private static final class SchemeConceptMatcher implements ConceptMatcher
+    {
+    private final MatchingScheme matchScheme;
+
+    SchemeConceptMatcher(MatchingScheme matchingScheme)
+      {
+      matchScheme = matchingScheme;
+      }
+
+    public MatchResult matchConcepts(Concept first, Concept second)
+      {
+      return Concept.matchSingleConcepts(first, second, matchScheme);
+      }
+    }
+
+  private static final class AnyConceptMatcher implements ConceptMatcher
+    {
+    public MatchResult matchConcepts(Concept first, Concept second)
+      {
+      return MATCHED;
+      }
+    }
+
+  /* Arc matchers */
+  private static final class InstanceArcMatcher implements ArcMatcher
+    {
+    public boolean matchArcs(Relation first, Relation second, MatchContext context)
+      {
+      Concept firstArgs[], secondArgs[];
+
+      firstArgs = first.getArguments();
+      secondArgs = second.getArguments();
+      if (firstArgs.length != secondArgs.length)
+        return false;
+      for (int arc = 0; arc < firstArgs.length; arc++)
+        if (firstArgs[arc] != secondArgs[arc])
+          return false;
+      return true;
+      }
+    }
+
+  private static final class ConceptArcMatcher implements ArcMatcher
+    {
+    private final CompiledMatchingScheme compiledScheme;
+
+    ConceptArcMatcher(CompiledMatchingScheme newCompiledScheme)
+      {
+      compiledScheme = newCompiledScheme;
+      }
+
+    public boolean matchArcs(Relation first, Relation second, MatchContext context)
+      {
+      Concept firstArgs[], secondArgs[];
+
+      firstArgs = first.getArguments();
+      secondArgs = second.getArguments();
+      if (firstArgs.length != secondArgs.length)
+        return false;
+      for (int arc = 0; arc < firstArgs.length; arc++)
+        if (!compiledScheme.matchConcepts(firstArgs[arc], secondArgs[arc],
+        	context).matchSucceeded())
+          return false;
+      return true;
+      }
+    }
+
+  private static final class ValenceArcMatcher implements ArcMatcher
+    {
+    public boolean matchArcs(Relation first, Relation second, MatchContext context)
+      {
+      return first.getArguments().length == second.getArguments().length;
+      }
+    }
+
+  private static final class AnyArcMatcher implements ArcMatcher
+    {
+    public boolean matchArcs(Relation first, Relation second, MatchContext context)
+      {
+      return true;
+      }
+    }
+
+  /* Relation matchers */
+  private static final class InstanceRelationMatcher implements RelationMatcher
+    {
+    public boolean matchRelations(Relation first, Relation second, MatchContext context)
+      {
+      return first == second;
+      }
+    }
+
+  private static final class TypeRelationMatcher implements RelationMatcher
+    {
+    private final TypeMatcher typeMatcher;
+
+    TypeRelationMatcher(TypeMatcher newTypeMatcher)
+      {
+      typeMatcher = newTypeMatcher;
+      }
+
+    public boolean matchRelations(Relation first, Relation second, MatchContext context)
+      {
+      return typeMatcher.matchTypes(first.getType(), second.getType());
+      }
+    }
+
+  private static final class ArcRelationMatcher implements RelationMatcher
+    {
+    private final ArcMatcher arcMatcher;
+
+    ArcRelationMatcher(ArcMatcher newArcMatcher)
+      {
+      arcMatcher = newArcMatcher;
+      }
+
+    public boolean matchRelations(Relation first, Relation second, MatchContext context)
+      {
+      return arcMatcher.matchArcs(first, second, context);
+      }
+    }
+
+  private static final class FullRelationMatcher implements RelationMatcher
+    {
+    private final TypeMatcher typeMatcher;
+    private final ArcMatcher arcMatcher;
+
+    FullRelationMatcher(TypeMatcher newTypeMatcher, ArcMatcher newArcMatcher)
+      {
+      typeMatcher = newTypeMatcher;
+      arcMatcher = newArcMatcher;
+      }
+
+    public boolean matchRelations(Relation first, Relation second, MatchContext context)
+      {
+      return typeMatcher.matchTypes(first.getType(), second.getType()) &&
+      	arcMatcher.matchArcs(first, second, context);
+      }
+    }
+
+  private static final class AnyRelationMatcher implements RelationMatcher
+    {
+    public boolean matchRelations(Relation first, Relation second, MatchContext context)
+      {
+      return true;
+      }
+    }
+  }
@@ -338,12 +338,11 @@ public class Concept extends Node implements Serializable
      * concept does not belong to any graph (getEnclosingGraph() returns null).
      *
      * @return an array containing of the relations that relate this concept.
-     * @bug Should this method be in Graph instead?
+     *
+     * @see notio.Graph#getRelators(Concept)
      */
   public Relation[] getRelators()
   	{
-  	Relation relArr[], finalArr[];
-  	Vector relVec;
   	Graph graph;
 
   	graph = getEnclosingGraph();
@@ -351,17 +350,7 @@ public class Concept extends Node implements Serializable
   	if (graph == null)
 			return null;
 
-  	relArr = graph.getRelations();
-  	relVec = new Vector(relArr.length);
-
-  	for (int rel = 0; rel < relArr.length; rel++)
-  		if (relArr[rel].relatesConcept(this))
-  			relVec.addElement(relArr[rel]);
-
-  	finalArr = new Relation[relVec.size()];
-  	relVec.copyInto(finalArr);
-
-  	return finalArr;
+  	return graph.getRelators(this);
   	}
 
     /**
@@ -730,7 +719,7 @@ public class Concept extends Node implements Serializable
      * works.  This might need to be a matching scheme flag instead.
      * @bug Must change comments to reflect use of MatchResult.
      */
-  private static MatchResult matchSingleConcepts(Concept first, Concept second,
+  static MatchResult matchSingleConcepts(Concept first, Concept second,
     MatchingScheme matchingScheme)
     {
     ConceptType firstType, secondType;
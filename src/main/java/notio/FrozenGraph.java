@@ -0,0 +1,998 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * An immutable, compact snapshot of the structure of a graph, for use when a graph
+     * is read many times but rarely changed.  Concepts, relations and types are numbered
+     * densely from zero, and the node types, relation arguments, relators and type
+     * buckets are held in flat int arrays (offsets into a shared array for the
+     * variable-length lists) rather than in per-node Vectors and Hashtables.
+     * <p>
+     * Concepts and relations are numbered in the same order in which the graph returns
+     * them from getConcepts() and getRelations().  The snapshot refers to the graph's own
+     * nodes but does not follow later changes to the graph; Graph.freeze() returns a new
+     * snapshot once the graph has changed.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.Graph#freeze()
+     */
+
+public class FrozenGraph
+  {
+	  /** The graph of which this is a snapshot. **/
+  private Graph graph;
+
+	  /** The concepts, indexed by concept id. **/
+  private Concept concepts[];
+
+	  /** The relations, indexed by relation id. **/
+  private Relation relations[];
+
+	  /** Maps each concept and relation to its id. **/
+  private IdentityHashMap nodeIds;
+
+	  /** The distinct types used by the nodes, indexed by type id. **/
+  private Type types[];
+
+	  /** Maps each type to its type id. **/
+  private Hashtable typeIds;
+
+	  /** The type id of each concept, or -1 if it has no type. **/
+  private int conceptTypes[];
+
+	  /** The type id of each relation, or -1 if it has no type. **/
+  private int relationTypes[];
+
+	  /** The start of each relation's arguments in the arguments array, plus an end marker. **/
+  private int argumentOffsets[];
+
+	  /** The concept id of every relation argument, or -1 for a missing argument. **/
+  private int arguments[];
+
+	  /** The start of each concept's relators in the relators array, plus an end marker. **/
+  private int relatorOffsets[];
+
+	  /** The relation id of every relator, in the order the graph reports them. **/
+  private int relators[];
+
+	  /** The connected component number of each concept. **/
+  private int conceptComponents[];
+
+	  /** The number of connected components containing concepts. **/
+  private int numComponents;
+
+	  /** The start of each type's concepts in conceptsByType, untyped concepts first. **/
+  private int conceptBucketOffsets[];
+
+	  /** The concept ids grouped by type. **/
+  private int conceptsByType[];
+
+	  /** The start of each type's relations in relationsByType, untyped relations first. **/
+  private int relationBucketOffsets[];
+
+	  /** The relation ids grouped by type. **/
+  private int relationsByType[];
+
+	  /** Flag indicating that some relation has a missing argument. **/
+  private boolean missingArguments = false;
+
+	  /** The fingerprints computed so far, indexed by the options used, or 0 if not computed. **/
+  private volatile long fingerprints[] = new long[8];
+
+	  /** The invariants used to reject impossible matches. **/
+  private final GraphInvariants invariants;
+
+  /* Constructors */
+    /**
+     * Constructs a snapshot of the specified graph.
+     *
+     * @param newGraph  the graph to be frozen.
+     */
+  FrozenGraph(Graph newGraph)
+    {
+    Vector typeVec;
+    Concept arg;
+    int numArgs, numRelators;
+
+    graph = newGraph;
+    concepts = graph.getConcepts();
+    relations = graph.getRelations();
+
+    nodeIds = new IdentityHashMap(2 * (concepts.length + relations.length));
+    for (int con = 0; con < concepts.length; con++)
+    	nodeIds.put(concepts[con], new Integer(con));
+    for (int rel = 0; rel < relations.length; rel++)
+    	nodeIds.put(relations[rel], new Integer(rel));
+
+    // Number the types
+    typeVec = new Vector();
+    typeIds = new Hashtable();
+    conceptTypes = new int[concepts.length];
+    for (int con = 0; con < concepts.length; con++)
+    	conceptTypes[con] = numberType(concepts[con].getType(), typeVec);
+    relationTypes = new int[relations.length];
+    for (int rel = 0; rel < relations.length; rel++)
+    	relationTypes[rel] = numberType(relations[rel].getType(), typeVec);
+    types = new Type[typeVec.size()];
+    typeVec.copyInto(types);
+
+    // Store the arguments
+    argumentOffsets = new int[relations.length + 1];
+    numArgs = 0;
+    for (int rel = 0; rel < relations.length; rel++)
+    	{
+    	argumentOffsets[rel] = numArgs;
+    	numArgs += relations[rel].arguments.length;
+    	}
+    argumentOffsets[relations.length] = numArgs;
+
+    arguments = new int[numArgs];
+    for (int rel = 0; rel < relations.length; rel++)
+    	for (int pos = argumentOffsets[rel]; pos < argumentOffsets[rel + 1]; pos++)
+    		{
+    		arg = relations[rel].arguments[pos - argumentOffsets[rel]];
+    		if (arg == null)
+    			{
+    			arguments[pos] = -1;
+    			missingArguments = true;
+    			}
+    		else
+    			arguments[pos] = getConceptId(arg);
+    		}
+
+    // Store the relators
+    relatorOffsets = new int[concepts.length + 1];
+    numRelators = 0;
+    for (int con = 0; con < concepts.length; con++)
+    	{
+    	relatorOffsets[con] = numRelators;
+    	numRelators += graph.getNumberOfRelators(concepts[con]);
+    	}
+    relatorOffsets[concepts.length] = numRelators;
+
+    relators = new int[numRelators];
+    for (int con = 0; con < concepts.length; con++)
+    	for (int pos = relatorOffsets[con]; pos < relatorOffsets[con + 1]; pos++)
+    		relators[pos] = getRelationId(graph.relatorAt(concepts[con], pos - relatorOffsets[con]));
+
+    numberComponents();
+
+    conceptBucketOffsets = new int[types.length + 2];
+    conceptsByType = bucketByType(conceptTypes, conceptBucketOffsets);
+    relationBucketOffsets = new int[types.length + 2];
+    relationsByType = bucketByType(relationTypes, relationBucketOffsets);
+
+    invariants = new GraphInvariants(this);
+    }
+
+    /**
+     * Returns the id of a type, numbering it if it has not been seen before.
+     *
+     * @param type  the type to be numbered, possibly null.
+     * @param typeVec  the types numbered so far.
+     * @return the type id, or -1 for a null type.
+     */
+  private int numberType(Type type, Vector typeVec)
+    {
+    Integer typeId;
+
+    if (type == null)
+    	return -1;
+
+    typeId = (Integer)typeIds.get(type);
+    if (typeId == null)
+    	{
+    	typeId = new Integer(typeVec.size());
+    	typeIds.put(type, typeId);
+    	typeVec.addElement(type);
+    	}
+
+    return typeId.intValue();
+    }
+
+    /**
+     * Numbers the connected components of the graph that contain concepts.  The
+     * components are found from the stored arguments, so the graph's own component
+     * forest is neither read nor changed.
+     */
+  private void numberComponents()
+    {
+    int parents[], componentNums[], first, root;
+
+    parents = new int[concepts.length];
+    for (int con = 0; con < concepts.length; con++)
+    	parents[con] = con;
+
+    for (int rel = 0; rel < relations.length; rel++)
+    	{
+    	first = -1;
+    	for (int pos = argumentOffsets[rel]; pos < argumentOffsets[rel + 1]; pos++)
+    		if (arguments[pos] != -1)
+    			{
+    			if (first == -1)
+    				first = findRoot(parents, arguments[pos]);
+    			else
+    				{
+    				root = findRoot(parents, arguments[pos]);
+    				if (root != first)
+    					parents[root] = first;
+    				}
+    			}
+    	}
+
+    conceptComponents = new int[concepts.length];
+    componentNums = new int[concepts.length];
+    Arrays.fill(componentNums, -1);
+    for (int con = 0; con < concepts.length; con++)
+    	{
+    	root = findRoot(parents, con);
+    	if (componentNums[root] == -1)
+    		{
+    		componentNums[root] = numComponents;
+    		numComponents++;
+    		}
+    	conceptComponents[con] = componentNums[root];
+    	}
+    }
+
+    /**
+     * Returns the root of the tree containing a concept in a union-find forest,
+     * halving the path to it on the way.
+     *
+     * @param parents  the parent of each concept id, or the id itself for a root.
+     * @param conceptId  the id of the concept.
+     * @return the id of the root concept.
+     */
+  private static int findRoot(int parents[], int conceptId)
+    {
+    while (parents[conceptId] != conceptId)
+    	{
+    	parents[conceptId] = parents[parents[conceptId]];
+    	conceptId = parents[conceptId];
+    	}
+
+    return conceptId;
+    }
+
+    /**
+     * Groups node ids by type with a counting sort.  Bucket zero holds the untyped
+     * nodes and bucket t + 1 holds the nodes with type id t.
+     *
+     * @param nodeTypes  the type id of each node.
+     * @param offsets  an array, two longer than the number of types, to receive the start
+     * of each bucket and an end marker.
+     * @return the node ids ordered by bucket.
+     */
+  private int[] bucketByType(int nodeTypes[], int offsets[])
+    {
+    int sorted[], next[];
+
+    for (int node = 0; node < nodeTypes.length; node++)
+    	offsets[nodeTypes[node] + 1]++;
+
+    next = new int[offsets.length];
+    for (int bucket = 0, start = 0; bucket < offsets.length; bucket++)
+    	{
+    	start += offsets[bucket];
+    	offsets[bucket] = start - offsets[bucket];
+    	next[bucket] = offsets[bucket];
+    	}
+
+    sorted = new int[nodeTypes.length];
+    for (int node = 0; node < nodeTypes.length; node++)
+    	{
+    	sorted[next[nodeTypes[node] + 1]] = node;
+    	next[nodeTypes[node] + 1]++;
+    	}
+
+    return sorted;
+    }
+
+    /**
+     * Returns the graph of which this is a snapshot.
+     *
+     * @return the frozen graph.
+     */
+  public Graph getGraph()
+    {
+    return graph;
+    }
+
+  /* Nodes */
+
+    /**
+     * Returns the number of concepts in the snapshot.
+     *
+     * @return the number of concepts.
+     */
+  public int getNumberOfConcepts()
+    {
+    return concepts.length;
+    }
+
+    /**
+     * Returns the number of relations, including actors, in the snapshot.
+     *
+     * @return the number of relations.
+     */
+  public int getNumberOfRelations()
+    {
+    return relations.length;
+    }
+
+    /**
+     * Returns the concepts in the snapshot, indexed by concept id.
+     *
+     * @return a new array containing the concepts.
+     */
+  public Concept[] getConcepts()
+    {
+    Concept conArr[] = new Concept[concepts.length];
+
+    System.arraycopy(concepts, 0, conArr, 0, concepts.length);
+    return conArr;
+    }
+
+    /**
+     * Returns the relations in the snapshot, indexed by relation id.
+     *
+     * @return a new array containing the relations.
+     */
+  public Relation[] getRelations()
+    {
+    Relation relArr[] = new Relation[relations.length];
+
+    System.arraycopy(relations, 0, relArr, 0, relations.length);
+    return relArr;
+    }
+
+    /**
+     * Returns the concept with the specified id.
+     *
+     * @param conceptId  the id of the concept.
+     * @return the concept with that id.
+     */
+  public Concept getConcept(int conceptId)
+    {
+    return concepts[conceptId];
+    }
+
+    /**
+     * Returns the relation with the specified id.
+     *
+     * @param relationId  the id of the relation.
+     * @return the relation with that id.
+     */
+  public Relation getRelation(int relationId)
+    {
+    return relations[relationId];
+    }
+
+    /**
+     * Returns the id of the specified concept.
+     *
+     * @param concept  the concept whose id is required.
+     * @return the concept's id, or -1 if it was not in the graph when it was frozen.
+     */
+  public int getConceptId(Concept concept)
+    {
+    Integer conceptId;
+
+    conceptId = (Integer)nodeIds.get(concept);
+    if (conceptId == null)
+    	return -1;
+
+    return conceptId.intValue();
+    }
+
+    /**
+     * Returns the id of the specified relation.
+     *
+     * @param relation  the relation whose id is required.
+     * @return the relation's id, or -1 if it was not in the graph when it was frozen.
+     */
+  public int getRelationId(Relation relation)
+    {
+    Integer relationId;
+
+    relationId = (Integer)nodeIds.get(relation);
+    if (relationId == null)
+    	return -1;
+
+    return relationId.intValue();
+    }
+
+  /* Types */
+
+    /**
+     * Returns the number of distinct types used by the nodes in the snapshot.
+     *
+     * @return the number of types.
+     */
+  public int getNumberOfTypes()
+    {
+    return types.length;
+    }
+
+    /**
+     * Returns the type with the specified id.
+     *
+     * @param typeId  the id of the type.
+     * @return the type with that id.
+     */
+  public Type getType(int typeId)
+    {
+    return types[typeId];
+    }
+
+    /**
+     * Returns the type id of the specified concept.
+     *
+     * @param conceptId  the id of the concept.
+     * @return the id of the concept's type, or -1 if it has no type.
+     */
+  public int getConceptTypeId(int conceptId)
+    {
+    return conceptTypes[conceptId];
+    }
+
+    /**
+     * Returns the type id of the specified relation.
+     *
+     * @param relationId  the id of the relation.
+     * @return the id of the relation's type, or -1 if it has no type.
+     */
+  public int getRelationTypeId(int relationId)
+    {
+    return relationTypes[relationId];
+    }
+
+  /* Structure */
+
+    /**
+     * Returns the total number of arguments of all relations in the snapshot.
+     *
+     * @return the number of arguments.
+     */
+  public int getNumberOfArguments()
+    {
+    return arguments.length;
+    }
+
+    /**
+     * Returns true if any relation in the snapshot has a missing argument.
+     *
+     * @return true if some argument is missing.
+     */
+  public boolean hasMissingArguments()
+    {
+    return missingArguments;
+    }
+
+    /**
+     * Returns the number of arguments of the specified relation.
+     *
+     * @param relationId  the id of the relation.
+     * @return the number of arguments of the relation.
+     */
+  public int getNumberOfArguments(int relationId)
+    {
+    return argumentOffsets[relationId + 1] - argumentOffsets[relationId];
+    }
+
+    /**
+     * Returns the concept id of one argument of the specified relation.
+     *
+     * @param relationId  the id of the relation.
+     * @param index  the position of the argument, counting from zero.
+     * @return the id of the argument, or -1 if the argument is missing.
+     */
+  public int getArgumentId(int relationId, int index)
+    {
+    return arguments[argumentOffsets[relationId] + index];
+    }
+
+    /**
+     * Returns the number of relations that relate the specified concept.
+     *
+     * @param conceptId  the id of the concept.
+     * @return the number of relators of the concept.
+     */
+  public int getNumberOfRelators(int conceptId)
+    {
+    return relatorOffsets[conceptId + 1] - relatorOffsets[conceptId];
+    }
+
+    /**
+     * Returns the relation id of one of the relators of the specified concept, numbered
+     * in the same order as Graph.getRelators(Concept) returned them.
+     *
+     * @param conceptId  the id of the concept.
+     * @param index  the position of the relator, counting from zero.
+     * @return the id of the relator.
+     */
+  public int getRelatorId(int conceptId, int index)
+    {
+    return relators[relatorOffsets[conceptId] + index];
+    }
+
+    /**
+     * Returns the relations that relate the specified concept.
+     *
+     * @param concept  the concept whose relators are to be returned.
+     * @return an array, possibly empty, of the relators of the concept.
+     */
+  public Relation[] getRelators(Concept concept)
+    {
+    Relation relArr[];
+    int conceptId;
+
+    conceptId = getConceptId(concept);
+    if (conceptId == -1)
+    	return new Relation[0];
+
+    relArr = new Relation[getNumberOfRelators(conceptId)];
+    for (int rel = 0; rel < relArr.length; rel++)
+    	relArr[rel] = relations[relators[relatorOffsets[conceptId] + rel]];
+
+    return relArr;
+    }
+
+    /**
+     * Returns the number of connected components that contain concepts.
+     *
+     * @return the number of components.
+     */
+  public int getNumberOfComponents()
+    {
+    return numComponents;
+    }
+
+    /**
+     * Returns the number of the connected component containing the specified concept.
+     * Components are numbered from zero in the order their first concepts appear.
+     *
+     * @param conceptId  the id of the concept.
+     * @return the component number of the concept.
+     */
+  public int getComponentId(int conceptId)
+    {
+    return conceptComponents[conceptId];
+    }
+
+  /* Fingerprints */
+
+    /**
+     * Returns a structural fingerprint of the snapshot.  Graphs that are the same up to
+     * the identity of their nodes, with type labels compared without regard to case,
+     * always have the same fingerprint, so graphs with different fingerprints cannot
+     * match completely.  Graphs with the same fingerprint need not be alike.
+     * The fingerprint may be used as a hash key for storing graphs.
+     *
+     * @return the fingerprint of this snapshot.
+     */
+  public long getFingerprint()
+    {
+    return getFingerprint(true, true, true);
+    }
+
+    /**
+     * Returns a fingerprint of the snapshot that takes account only of the specified
+     * features.  The fingerprint is computed by repeatedly relabelling every node with
+     * its own label and the labels of its neighbours, in the manner of Weisfeiler and
+     * Lehman, until the number of distinct labels stops growing.  A relation's
+     * neighbours are its arguments in order, and a concept's neighbours are the
+     * relations it is an argument of together with the positions it fills.
+     *
+     * @param conceptLabels  true if concept type labels are to be used.
+     * @param relationLabels  true if relation type labels are to be used.
+     * @param structure  true if the arguments of relations are to be used.
+     * @return the requested fingerprint.
+     */
+  long getFingerprint(boolean conceptLabels, boolean relationLabels, boolean structure)
+    {
+    int option;
+    long conceptHashes[], relationHashes[], newConceptHashes[], newRelationHashes[];
+    long arcHashes[], swap[], newFingerprints[], result;
+    int numDistinct, lastDistinct, numArcs, firstRel, arg;
+
+    option = (conceptLabels ? 4 : 0) + (relationLabels ? 2 : 0) + (structure ? 1 : 0);
+    newFingerprints = fingerprints;
+    if (newFingerprints[option] != 0)
+    	return newFingerprints[option];
+
+    conceptHashes = new long[concepts.length];
+    for (int con = 0; con < concepts.length; con++)
+    	conceptHashes[con] = labelHash(conceptLabels, conceptTypes[con]);
+
+    relationHashes = new long[relations.length];
+    for (int rel = 0; rel < relations.length; rel++)
+    	{
+    	relationHashes[rel] = labelHash(relationLabels, relationTypes[rel]);
+    	if (structure)
+    		relationHashes[rel] = mix(relationHashes[rel], getNumberOfArguments(rel));
+    	}
+
+    if (structure)
+    	{
+    	newConceptHashes = new long[concepts.length];
+    	newRelationHashes = new long[relations.length];
+    	arcHashes = new long[arguments.length];
+    	lastDistinct = countDistinct(conceptHashes, relationHashes);
+
+    	for (int round = 0; round < concepts.length + relations.length; round++)
+    		{
+    		for (int rel = 0; rel < relations.length; rel++)
+    			{
+    			newRelationHashes[rel] = relationHashes[rel];
+    			for (int pos = argumentOffsets[rel]; pos < argumentOffsets[rel + 1]; pos++)
+    				if (arguments[pos] == -1)
+    					newRelationHashes[rel] = mix(newRelationHashes[rel], 0);
+    				else
+    					newRelationHashes[rel] = mix(newRelationHashes[rel], conceptHashes[arguments[pos]]);
+    			}
+
+    		for (int con = 0; con < concepts.length; con++)
+    			{
+    			numArcs = 0;
+    			for (int pos = relatorOffsets[con]; pos < relatorOffsets[con + 1]; pos++)
+    				{
+    				firstRel = relators[pos];
+    				for (arg = argumentOffsets[firstRel]; arg < argumentOffsets[firstRel + 1]; arg++)
+    					if (arguments[arg] == con)
+    						{
+    						arcHashes[numArcs] = mix(relationHashes[firstRel], arg - argumentOffsets[firstRel]);
+    						numArcs++;
+    						}
+    				}
+    			Arrays.sort(arcHashes, 0, numArcs);
+
+    			newConceptHashes[con] = mix(conceptHashes[con], numArcs);
+    			for (int arc = 0; arc < numArcs; arc++)
+    				newConceptHashes[con] = mix(newConceptHashes[con], arcHashes[arc]);
+    			}
+
+    		swap = conceptHashes;
+    		conceptHashes = newConceptHashes;
+    		newConceptHashes = swap;
+    		swap = relationHashes;
+    		relationHashes = newRelationHashes;
+    		newRelationHashes = swap;
+
+    		numDistinct = countDistinct(conceptHashes, relationHashes);
+    		if (numDistinct == lastDistinct)
+    			break;
+    		lastDistinct = numDistinct;
+    		}
+    	}
+
+    Arrays.sort(conceptHashes);
+    Arrays.sort(relationHashes);
+    result = mix(mix(option, concepts.length), relations.length);
+    for (int con = 0; con < conceptHashes.length; con++)
+    	result = mix(result, conceptHashes[con]);
+    for (int rel = 0; rel < relationHashes.length; rel++)
+    	result = mix(result, relationHashes[rel]);
+
+    // Zero marks a fingerprint that has not been computed.
+    if (result == 0)
+    	result = 1;
+
+    // A stored array is never changed, so threads sharing the snapshot see whole
+    // fingerprints.  Two threads storing at once may lose one, which is then recomputed.
+    newFingerprints = fingerprints.clone();
+    newFingerprints[option] = result;
+    fingerprints = newFingerprints;
+    return result;
+    }
+
+    /**
+     * Returns the initial hash of a node from its type.
+     *
+     * @param useLabel  true if the type label is to be used.
+     * @param typeId  the id of the node's type, or -1 if it has none.
+     * @return the initial hash.
+     */
+  private long labelHash(boolean useLabel, int typeId)
+    {
+    if (!useLabel || (typeId == -1))
+    	return 1;
+
+    return mix(2, types[typeId].getLabel().toLowerCase().hashCode());
+    }
+
+    /**
+     * Counts the distinct hashes among concepts and among relations.
+     *
+     * @param conceptHashes  the concept hashes.
+     * @param relationHashes  the relation hashes.
+     * @return the number of distinct concept hashes plus the number of distinct relation hashes.
+     */
+  private static int countDistinct(long conceptHashes[], long relationHashes[])
+    {
+    long sorted[];
+    int numDistinct = 0;
+
+    sorted = conceptHashes.clone();
+    Arrays.sort(sorted);
+    for (int hash = 0; hash < sorted.length; hash++)
+    	if ((hash == 0) || (sorted[hash] != sorted[hash - 1]))
+    		numDistinct++;
+
+    sorted = relationHashes.clone();
+    Arrays.sort(sorted);
+    for (int hash = 0; hash < sorted.length; hash++)
+    	if ((hash == 0) || (sorted[hash] != sorted[hash - 1]))
+    		numDistinct++;
+
+    return numDistinct;
+    }
+
+    /**
+     * Combines a value into a running hash.
+     *
+     * @param hash  the running hash.
+     * @param value  the value to be combined.
+     * @return the new hash.
+     */
+  private static long mix(long hash, long value)
+    {
+    hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+    return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Returns the summary of the snapshot used to reject impossible matches before
+     * searching.  It is computed when the snapshot is made.
+     *
+     * @return the invariants of the snapshot.
+     */
+  GraphInvariants getInvariants()
+    {
+    return invariants;
+    }
+
+    /**
+     * Returns true if some concept in the snapshot has no type.
+     *
+     * @return true if some concept is untyped.
+     */
+  public boolean hasUntypedConcepts()
+    {
+    return conceptBucketOffsets[1] > 0;
+    }
+
+    /**
+     * Returns true if some relation in the snapshot has no type.
+     *
+     * @return true if some relation is untyped.
+     */
+  public boolean hasUntypedRelations()
+    {
+    return relationBucketOffsets[1] > 0;
+    }
+
+  /* Type queries */
+
+    /**
+     * Returns all concepts in the snapshot with the specified type.
+     *
+     * @param conType  the concept type to be matched.
+     * @return an array, possibly empty, of the matching concepts.
+     */
+  public Concept[] getConceptsWithExactType(ConceptType conType)
+    {
+    return (Concept[])getNodesWithType(conType, true, 0);
+    }
+
+    /**
+     * Returns all concepts in the snapshot whose type is the specified type or one of its
+     * supertypes.
+     *
+     * @param conType  the concept type to be matched.
+     * @return an array, possibly empty, of the matching concepts.
+     */
+  public Concept[] getConceptsWithSuperType(ConceptType conType)
+    {
+    return (Concept[])getNodesWithType(conType, true, -1);
+    }
+
+    /**
+     * Returns all concepts in the snapshot whose type is the specified type or one of its
+     * subtypes.
+     *
+     * @param conType  the concept type to be matched.
+     * @return an array, possibly empty, of the matching concepts.
+     */
+  public Concept[] getConceptsWithSubType(ConceptType conType)
+    {
+    return (Concept[])getNodesWithType(conType, true, 1);
+    }
+
+    /**
+     * Returns all relations in the snapshot with the specified type.
+     *
+     * @param relType  the relation type to be matched.
+     * @return an array, possibly empty, of the matching relations.
+     */
+  public Relation[] getRelationsWithExactType(RelationType relType)
+    {
+    return (Relation[])getNodesWithType(relType, false, 0);
+    }
+
+    /**
+     * Returns all relations in the snapshot whose type is the specified type or one of its
+     * supertypes.
+     *
+     * @param relType  the relation type to be matched.
+     * @return an array, possibly empty, of the matching relations.
+     */
+  public Relation[] getRelationsWithSuperType(RelationType relType)
+    {
+    return (Relation[])getNodesWithType(relType, false, -1);
+    }
+
+    /**
+     * Returns all relations in the snapshot whose type is the specified type or one of its
+     * subtypes.
+     *
+     * @param relType  the relation type to be matched.
+     * @return an array, possibly empty, of the matching relations.
+     */
+  public Relation[] getRelationsWithSubType(RelationType relType)
+    {
+    return (Relation[])getNodesWithType(relType, false, 1);
+    }
+
+    /**
+     * Returns all nodes in the snapshot whose type matches the type specified, grouped
+     * by type in the same way as Graph.getNodesWithType().
+     *
+     * @param nodeType  the node type to be matched.
+     * @param forConcepts  true if concepts are to be returned, false for relations.
+     * @param matchType 0 for exact match, 1 for supertype, -1 for subtype.
+     * @return an array, possibly empty, of all nodes whose type matches.
+     */
+  private Node[] getNodesWithType(Type nodeType, boolean forConcepts, int matchType)
+    {
+    Vector bucketVec;
+    TypeHierarchy hier;
+    Set typeSet;
+    Enumeration typeEnum;
+    Node nodes[], finalArr[];
+    int offsets[], sorted[];
+    int bucket, numNodes;
+
+    if (forConcepts)
+    	{
+    	nodes = concepts;
+    	offsets = conceptBucketOffsets;
+    	sorted = conceptsByType;
+    	}
+    else
+    	{
+    	nodes = relations;
+    	offsets = relationBucketOffsets;
+    	sorted = relationsByType;
+    	}
+
+    bucketVec = new Vector();
+    bucketVec.addElement(new Integer(getBucket(nodeType)));
+
+		// Types outside any hierarchy can only match themselves.
+		hier = null;
+		if (nodeType != null)
+			hier = nodeType.getHierarchy();
+
+		typeSet = null;
+		switch (matchType)
+			{
+			case -1:
+				if (hier != null)
+					typeSet = hier.returnProperSuperTypesOf(nodeType);
+        break;
+
+			case 0:
+        break;
+
+			case 1:
+				if (hier != null)
+					typeSet = hier.returnProperSubTypesOf(nodeType);
+        break;
+
+      default:
+      	throw new Error("Bad matchFlag in FrozenGraph.getNodesWithType().");
+      }
+
+		if (typeSet != null)
+			for (typeEnum = typeSet.elements(); typeEnum.hasMoreElements(); )
+				bucketVec.addElement(new Integer(getBucket((Type)typeEnum.nextElement())));
+
+		numNodes = 0;
+		for (int buck = 0; buck < bucketVec.size(); buck++)
+			{
+			bucket = ((Integer)bucketVec.elementAt(buck)).intValue();
+			if (bucket != -1)
+				numNodes += offsets[bucket + 1] - offsets[bucket];
+			}
+
+		if (forConcepts)
+	    finalArr = new Concept[numNodes];
+		else
+	    finalArr = new Relation[numNodes];
+
+		numNodes = 0;
+		for (int buck = 0; buck < bucketVec.size(); buck++)
+			{
+			bucket = ((Integer)bucketVec.elementAt(buck)).intValue();
+			if (bucket != -1)
+				for (int pos = offsets[bucket]; pos < offsets[bucket + 1]; pos++)
+					{
+					finalArr[numNodes] = nodes[sorted[pos]];
+					numNodes++;
+					}
+			}
+
+    return finalArr;
+    }
+
+    /**
+     * Returns the ids, in increasing order, of the nodes with the specified type id.
+     *
+     * @param typeId  the type id, or -1 for untyped nodes.
+     * @param forConcepts  true for concept ids, false for relation ids.
+     * @return a new array of the node ids.
+     */
+  int[] getIdsWithTypeId(int typeId, boolean forConcepts)
+    {
+    int offsets[], sorted[], ids[];
+
+    if (forConcepts)
+    	{
+    	offsets = conceptBucketOffsets;
+    	sorted = conceptsByType;
+    	}
+    else
+    	{
+    	offsets = relationBucketOffsets;
+    	sorted = relationsByType;
+    	}
+
+    ids = new int[offsets[typeId + 2] - offsets[typeId + 1]];
+    System.arraycopy(sorted, offsets[typeId + 1], ids, 0, ids.length);
+    return ids;
+    }
+
+    /**
+     * Returns the bucket holding nodes of the specified type.
+     *
+     * @param nodeType  the type, possibly null.
+     * @return the bucket number, or -1 if no node has the type.
+     */
+  private int getBucket(Type nodeType)
+    {
+    Integer typeId;
+
+    if (nodeType == null)
+    	return 0;
+
+    typeId = (Integer)typeIds.get(nodeType);
+    if (typeId == null)
+    	return -1;
+
+    return typeId.intValue() + 1;
+    }
+  }
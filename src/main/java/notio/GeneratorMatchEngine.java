@@ -0,0 +1,98 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * The reference match engine.  Concept and relation mappings are enumerated
+     * separately by a NodeMappingGenerator, and when connected matching is required,
+     * mappings whose structures differ are discarded afterward.  This is the engine used
+     * by a MatchingScheme that names no other, and it handles every scheme the generator
+     * supports, including folding.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchEngine
+     */
+
+public class GeneratorMatchEngine implements MatchEngine
+  {
+    /**
+     * Returns an enumeration of the node mappings from the first graph into the second
+     * that satisfy the specified scheme.
+     *
+     * @param first  the graph being mapped from.
+     * @param second  the graph being mapped into.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return an enumeration of NodeMapping instances.
+     */
+  public Enumeration getMappings(Graph first, Graph second, MatchingScheme matchingScheme)
+    {
+    return new MappingEnumeration(new NodeMappingGenerator(first, second, matchingScheme),
+    	matchingScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON);
+    }
+
+    /**
+     * An enumeration that reads mappings from a generator one at a time, skipping those
+     * whose structures differ when connected matching is required.
+     */
+  private static class MappingEnumeration implements Enumeration
+    {
+		  /** The generator the mappings are read from. **/
+    private NodeMappingGenerator generator;
+
+		  /** Flag indicating that the structures of the mappings must be compared. **/
+    private boolean matchStructures;
+
+		  /** The next mapping to be returned, or null if it has not been found yet. **/
+    private NodeMapping nextMapping;
+
+		  /** Flag indicating that the generator is exhausted. **/
+    private boolean exhausted = false;
+
+    MappingEnumeration(NodeMappingGenerator newGenerator, boolean newMatchStructures)
+      {
+      generator = newGenerator;
+      matchStructures = newMatchStructures;
+      }
+
+    public boolean hasMoreElements()
+      {
+      NodeMapping mapping;
+
+      while ((nextMapping == null) && !exhausted)
+      	{
+      	mapping = generator.getNextMapping();
+      	if (mapping == null)
+      		exhausted = true;
+      	else
+      		if (!matchStructures || Graph.matchStructures(mapping))
+      			nextMapping = mapping;
+      	}
+
+      return nextMapping != null;
+      }
+
+    public Object nextElement()
+      {
+      NodeMapping mapping;
+
+      if (!hasMoreElements())
+      	throw new NoSuchElementException();
+
+      mapping = nextMapping;
+      nextMapping = null;
+      return mapping;
+      }
+    }
+  }
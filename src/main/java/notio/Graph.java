@@ -1,6 +1,8 @@
 package notio;
 
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -27,35 +29,41 @@ import java.io.Serializable;
      * @bug Must add default class-wide setting for allowIncompleteRelations.
      * @idea Add isolateGraph() method to remove coref links to other graphs but
      * not internal links?
-     * @idea How about maintaining a 'connected subgraph' ID for each node in the graph,
-     * which is set when it is added.  For concepts, check relators for IDs.  For relations,
-     * check arguments for IDs.  When two IDs are found the same, somehow identify them
-     * with each other.  Perhaps bitfields: bit for each new connected subgraph found.  
-     * Also use a set of masks to represent the real groups. 
-     * If two are later found to be connected, the masks are combined but the bitfield on 
-     * each node can remain the same.  Drag if we have to recompute the whole thing after
-     * disconnecting something.  Better to change everyone you are connected to.  Or, could
-     * create an int and point to it whenever a new subset is found.  If two different ints
-     * are found to be connected, one of them simply changes value to that of the other.
-     * @idea What about "graph references".  Could implement the same interface as Graph, but
-     * actual be a proxy class for most methods.  The reference would keep track of the
-     * context information.  This would allow sharing of graphs while maintaining context
-     * traversability.
-     * @idea Add Node[] findPaths(Node from, Node to, int maxLength, int maxPaths);
      * @idea What about simplify(RelationType, Concept[]) and simplify(Concept[])?
      */
 
 public class Graph implements Serializable
   {
 	  /** The concepts in this graph. **/
-  private Vector concepts = new Vector(1,2);
+  private NodeList concepts;
   
 	  /** The relations in this graph. **/
-  private Vector relations = new Vector(1,2);
+  private NodeList relations;
   
 	  /** The comments on this graph. **/
-  private Vector comments = new Vector(1,1);
-  
+  private Vector comments;
+
+	  /** Maps each related concept to a vector of the relations in this graph that relate it. **/
+  private Hashtable relatorIndex;
+
+	  /** Maps each concept type in use in this graph to the concepts of that type. **/
+  private Hashtable conceptTypeIndex;
+
+	  /** Maps each relation type in use in this graph to the relations of that type. **/
+  private Hashtable relationTypeIndex;
+
+	  /** The concepts in this graph that have no type. **/
+  private NodeList untypedConcepts;
+
+	  /** The relations in this graph that have no type. **/
+  private NodeList untypedRelations;
+
+	  /** Flag indicating whether the connected component forest reflects the current graph. **/
+  private transient boolean componentsCurrent = false;
+
+	  /** The compact snapshot of this graph, or null if the graph has changed since it was made. **/
+  private transient volatile FrozenGraph frozenForm = null;
+
 	  /** Flag indicating whether incomplete Relation nodes may be added. **/
   private boolean allowIncompleteRelations = false;
   
@@ -71,6 +79,30 @@ public class Graph implements Serializable
      */
   public Graph()
     {
+    this(true);
+    }
+
+    /**
+     * Constructs an empty graph, with or without storage for nodes.  A graph without
+     * storage is only useful as a GraphReference, which passes every operation on to
+     * its body.  Any operation that reaches the missing storage fails rather than
+     * acting on an empty graph.
+     *
+     * @param hasStorage  true if the graph is to hold nodes of its own.
+     */
+  Graph(boolean hasStorage)
+    {
+    if (!hasStorage)
+    	return;
+
+    concepts = new NodeList();
+    relations = new NodeList();
+    comments = new Vector(1,1);
+    relatorIndex = new Hashtable();
+    conceptTypeIndex = new Hashtable();
+    relationTypeIndex = new Hashtable();
+    untypedConcepts = new NodeList();
+    untypedRelations = new NodeList();
     }
 
   public JsonObject toJSON() {
@@ -108,11 +140,15 @@ public class Graph implements Serializable
     if ((gr != null) && (gr != this))
     	throw new ConceptAddError("Specified concept belongs to another graph already.");
 
-    if (concepts.contains(newConcept))
+    if (!concepts.addElement(newConcept))
       return;
 
-    concepts.addElement(newConcept);
     newConcept.setEnclosingGraph(this);
+    indexType(newConcept);
+    frozenForm = null;
+
+    if (componentsCurrent)
+    	makeComponent(newConcept);
     }
 
     /**
@@ -172,6 +208,18 @@ public class Graph implements Serializable
     relations.addElement(newRelation);
 
     newRelation.setEnclosingGraph(this);
+
+    indexRelators(newRelation);
+    indexType(newRelation);
+    frozenForm = null;
+
+    if (componentsCurrent)
+    	{
+    	makeComponent(newRelation);
+    	for (int arg = 0; arg < newArguments.length; arg++)
+    		if (newArguments[arg] != null)
+    			unionComponents(newRelation, newArguments[arg]);
+    	}
     }
 
     /**
@@ -197,6 +245,41 @@ public class Graph implements Serializable
         addRelation(newRelations[rel]);
     }
 
+    /**
+     * Adds concepts and relations that a GraphBuilder has already checked, without
+     * checking them again.  The arguments of every relation must be among the concepts
+     * given or already in this graph.  Nodes already in this graph are skipped.  The
+     * connected components are rebuilt when next needed rather than updated here.
+     *
+     * @param newConcepts  the concepts to be added.
+     * @param numConcepts  the number of concepts in the array to be added.
+     * @param newRelations  the relations to be added.
+     * @param numRelations  the number of relations in the array to be added.
+     *
+     * @see notio.GraphBuilder
+     */
+  void addCheckedNodes(Concept newConcepts[], int numConcepts, Relation newRelations[],
+  	int numRelations)
+    {
+    for (int con = 0; con < numConcepts; con++)
+    	if (concepts.addElement(newConcepts[con]))
+    		{
+    		newConcepts[con].setEnclosingGraph(this);
+    		indexType(newConcepts[con]);
+    		}
+
+    for (int rel = 0; rel < numRelations; rel++)
+    	if (relations.addElement(newRelations[rel]))
+    		{
+    		newRelations[rel].setEnclosingGraph(this);
+    		indexRelators(newRelations[rel]);
+    		indexType(newRelations[rel]);
+    		}
+
+    componentsCurrent = false;
+    frozenForm = null;
+    }
+
     /**
      * Replaces one concept with another in a graph.  The new concept fills
      * exactly the same role as the old concept with respect to relations 
@@ -212,20 +295,21 @@ public class Graph implements Serializable
      */
   public void replaceConcept(Concept oldConcept, Concept newConcept) throws ConceptReplaceException
     {
-    int indexOfConcept, numRelations;
+    int numRelations;
     Relation relArray[];
     CoreferenceSet corefSets[];
 
-    indexOfConcept = concepts.indexOf(oldConcept);
-
-    if (indexOfConcept == -1)
+    if (!concepts.removeElement(oldConcept))
       throw new ConceptReplaceException("Concept is not present in graph.");
 
-    concepts.removeElement(oldConcept);
     oldConcept.setEnclosingGraph(null);
+    unindexType(oldConcept, oldConcept.getNodeType());
+    frozenForm = null;
 
-    concepts.addElement(newConcept);
+    if (concepts.addElement(newConcept) && componentsCurrent)
+    	makeComponent(newConcept);
     newConcept.setEnclosingGraph(this);
+    indexType(newConcept);
     
 		// Replace in all coreferences sets
 		corefSets = oldConcept.getCoreferenceSets();
@@ -296,7 +380,9 @@ public class Graph implements Serializable
 				}
     	}
     	  
-    relArray = getRelations();
+    // Only the relators of the old concept need to be updated.  The index is changed
+    // as the arguments are replaced so we must work from a copy.
+    relArray = getRelators(oldConcept);
     numRelations = relArray.length;
 
     for (int rel = 0; rel < numRelations; rel++)
@@ -317,16 +403,16 @@ public class Graph implements Serializable
      */
   public void removeConcept(Concept deadConcept) throws ConceptRemoveException
     {
-    int indexOfConcept, numRelations, numArguments;
-    Relation relArray[];
-    Concept arguments[];
     CoreferenceSet corefSets[];
 
-    indexOfConcept = concepts.indexOf(deadConcept);
-
-    if (indexOfConcept == -1)
+    if (!concepts.contains(deadConcept))
       throw new ConceptRemoveException("Concept is not present in graph.");
 
+		// Check that the concept is not an argument of any relation before touching the
+		// coreference sets.
+    if (relatorIndex.containsKey(deadConcept))
+      throw new ConceptRemoveException("Concept is part of a relation in graph.");
+
 		// Remove all coreferences links from this concept
 		corefSets = deadConcept.getCoreferenceSets();
 		for (int set = 0; set < corefSets.length; set++)
@@ -353,22 +439,10 @@ public class Graph implements Serializable
 				throw new ConceptRemoveException("Removal of this concept results in an invalid coreference set.");
 				}
 
-		// Remove this concept from any relators it may have.
-    relArray = getRelations();
-    numRelations = relArray.length;
-
-    for (int rel = 0; rel < numRelations; rel++)
-      {
-      arguments = relArray[rel].getArguments();
-      numArguments = arguments.length;
-
-      for (int arg = 0; arg < numArguments; arg++)
-        if (arguments[arg] == deadConcept)
-          throw new ConceptRemoveException("Concept is part of a relation in graph.");
-      }
-
     deadConcept.setEnclosingGraph(null);
-    concepts.removeElementAt(indexOfConcept);
+    concepts.removeElement(deadConcept);
+    unindexType(deadConcept, deadConcept.getNodeType());
+    frozenForm = null;
     }
 
     /**
@@ -404,15 +478,129 @@ public class Graph implements Serializable
      */
   public void removeRelation(Relation deadRelation)
     {
-    int indexOfRelation;
+    if (!relations.contains(deadRelation))
+      return;
 
-    indexOfRelation = relations.indexOf(deadRelation);
+    unindexRelators(deadRelation);
 
-    if (indexOfRelation == -1)
-      return;
+    // Removing a relation may split a component, so the components must be rebuilt.
+    componentsCurrent = false;
 
     deadRelation.setEnclosingGraph(null);
-    relations.removeElementAt(indexOfRelation);
+    relations.removeElement(deadRelation);
+    unindexType(deadRelation, deadRelation.getNodeType());
+    frozenForm = null;
+    }
+
+    /**
+     * Adds the specified relation to the relator index entry of each of its arguments.
+     *
+     * @param relation  the relation being indexed.
+     */
+  private void indexRelators(Relation relation)
+    {
+    Concept arguments[];
+    int prev;
+
+    arguments = relation.arguments;
+    for (int arg = 0; arg < arguments.length; arg++)
+    	if (arguments[arg] != null)
+    		{
+    		// A concept that fills several arcs is only indexed once per relation.
+    		prev = 0;
+    		while ((prev < arg) && (arguments[prev] != arguments[arg]))
+    			prev++;
+
+    		if (prev == arg)
+	    		addRelator(arguments[arg], relation);
+	    	}
+    }
+
+    /**
+     * Removes the specified relation from the relator index entry of each of its arguments.
+     *
+     * @param relation  the relation being removed from the index.
+     */
+  private void unindexRelators(Relation relation)
+    {
+    Concept arguments[];
+
+    arguments = relation.arguments;
+    for (int arg = 0; arg < arguments.length; arg++)
+    	if (arguments[arg] != null)
+    		removeRelator(arguments[arg], relation);
+    }
+
+    /**
+     * Updates the relator index to reflect a change in one argument of a relation that
+     * belongs to this graph.  This is called by the relation after the argument has
+     * been changed.
+     *
+     * @param relation  the relation whose argument was changed.
+     * @param oldConcept  the concept that was previously the argument, possibly null.
+     * @param newConcept  the concept that is now the argument, possibly null.
+     */
+  void updateRelator(Relation relation, Concept oldConcept, Concept newConcept)
+    {
+    frozenForm = null;
+
+    // The old concept is only unrelated if this was its last occurrence.
+    if ((oldConcept != null) && (relation.countArgument(oldConcept) == 0))
+    	{
+    	removeRelator(oldConcept, relation);
+    	componentsCurrent = false;
+    	}
+
+    // The new concept is only newly related if this is its only occurrence.
+    if ((newConcept != null) && (relation.countArgument(newConcept) == 1))
+    	{
+    	addRelator(newConcept, relation);
+    	if (componentsCurrent)
+    		if (concepts.contains(newConcept))
+    			unionComponents(relation, newConcept);
+    		else
+    			componentsCurrent = false;
+    	}
+    }
+
+    /**
+     * Adds a relation to the relator index entry for a concept.
+     *
+     * @param concept  the related concept.
+     * @param relation  the relation that relates the concept.
+     */
+  private void addRelator(Concept concept, Relation relation)
+    {
+    Vector relators;
+
+    relators = (Vector)relatorIndex.get(concept);
+    if (relators == null)
+    	{
+    	relators = new Vector(1,2);
+    	relatorIndex.put(concept, relators);
+    	}
+
+    relators.addElement(relation);
+    }
+
+    /**
+     * Removes a relation from the relator index entry for a concept.  If the concept
+     * is no longer related by any relation, its entry is dropped.
+     *
+     * @param concept  the related concept.
+     * @param relation  the relation that no longer relates the concept.
+     */
+  private void removeRelator(Concept concept, Relation relation)
+    {
+    Vector relators;
+
+    relators = (Vector)relatorIndex.get(concept);
+    if (relators == null)
+    	return;
+
+    relators.removeElement(relation);
+    if (relators.size() == 0)
+    	relatorIndex.remove(concept);
     }
 
     /**
@@ -623,6 +811,216 @@ public class Graph implements Serializable
     return relationArr;
     }
 
+    /**
+     * Returns the concept at the specified position in this graph.  Concepts are
+     * numbered from zero in the same order in which getConcepts() returns them.
+     * Unlike getConcepts(), this does not allocate an array, and it does not change
+     * the graph.
+     *
+     * @param index  the position of the concept.
+     * @return the concept at the specified position.
+     * @exception ArrayIndexOutOfBoundsException  if the index is out of range.
+     */
+  public Concept conceptAt(int index)
+    {
+    return (Concept)concepts.get(index);
+    }
+
+    /**
+     * Returns the relation at the specified position in this graph.  Relations are
+     * numbered from zero in the same order in which getRelations() returns them.
+     * Unlike getRelations(), this does not allocate an array, and it does not change
+     * the graph.
+     *
+     * @param index  the position of the relation.
+     * @return the relation at the specified position.
+     * @exception ArrayIndexOutOfBoundsException  if the index is out of range.
+     */
+  public Relation relationAt(int index)
+    {
+    return (Relation)relations.get(index);
+    }
+
+    /**
+     * Returns a read-only live view of the concepts in this graph, in the same order
+     * as getConcepts().  Iterators obtained from the view throw a
+     * ConcurrentModificationException if concepts are added or removed while they
+     * are in use.
+     *
+     * @return a view of the concepts in this graph.
+     */
+  public Iterable<Concept> conceptView()
+    {
+    return new Iterable<Concept>()
+    	{
+    	public Iterator<Concept> iterator()
+    		{
+    		return concepts.iterator();
+    		}
+
+    	public Spliterator<Concept> spliterator()
+    		{
+    		return concepts.spliterator();
+    		}
+    	};
+    }
+
+    /**
+     * Returns a read-only live view of the relations in this graph, including actors,
+     * in the same order as getRelations().  Iterators obtained from the view throw a
+     * ConcurrentModificationException if relations are added or removed while they
+     * are in use.
+     *
+     * @return a view of the relations in this graph.
+     */
+  public Iterable<Relation> relationView()
+    {
+    return new Iterable<Relation>()
+    	{
+    	public Iterator<Relation> iterator()
+    		{
+    		return relations.iterator();
+    		}
+
+    	public Spliterator<Relation> spliterator()
+    		{
+    		return relations.spliterator();
+    		}
+    	};
+    }
+
+    /**
+     * Returns a read-only live view of the actors in this graph.
+     * The view fails fast in the same way as relationView().
+     *
+     * @return a view of the actors in this graph.
+     * @see notio.Graph#getActorRelations()
+     */
+  public Iterable<Actor> actorView()
+    {
+    return new Iterable<Actor>()
+    	{
+    	public Iterator<Actor> iterator()
+    		{
+    		return relations.iterator(Actor.class, true);
+    		}
+
+    	public Spliterator<Actor> spliterator()
+    		{
+    		return relations.spliterator(Actor.class, true);
+    		}
+    	};
+    }
+
+    /**
+     * Returns a read-only live view of the relations in this graph that are NOT actors.
+     * The view fails fast in the same way as relationView().
+     *
+     * @return a view of the non-actor relations in this graph.
+     * @see notio.Graph#getNormalRelations()
+     */
+  public Iterable<Relation> normalRelationView()
+    {
+    return new Iterable<Relation>()
+    	{
+    	public Iterator<Relation> iterator()
+    		{
+    		return relations.iterator(Actor.class, false);
+    		}
+
+    	public Spliterator<Relation> spliterator()
+    		{
+    		return relations.spliterator(Actor.class, false);
+    		}
+    	};
+    }
+
+    /**
+     * Returns a sequential stream over the concepts in this graph, in the same order
+     * as getConcepts().  The graph must not be modified while the stream is in use.
+     *
+     * @return a stream of the concepts in this graph.
+     */
+  public Stream<Concept> conceptStream()
+    {
+    return StreamSupport.stream(conceptView().spliterator(), false);
+    }
+
+    /**
+     * Returns a sequential stream over the relations in this graph, including actors,
+     * in the same order as getRelations().  The graph must not be modified while the
+     * stream is in use.
+     *
+     * @return a stream of the relations in this graph.
+     */
+  public Stream<Relation> relationStream()
+    {
+    return StreamSupport.stream(relationView().spliterator(), false);
+    }
+
+    /**
+     * Returns an array (possibly empty) of the relations in this graph that relate the
+     * specified concept.  The cost of this operation depends only on the number of
+     * relations that relate the concept, not on the size of the graph.
+     *
+     * @param concept  the concept whose relators are to be returned.
+     * @return an array containing the relations in this graph that relate the concept.
+     *
+     * @see notio.Concept#getRelators()
+     */
+  public Relation[] getRelators(Concept concept)
+    {
+    Vector relators;
+    Relation relArr[];
+
+    relators = (Vector)relatorIndex.get(concept);
+    if (relators == null)
+    	return new Relation[0];
+
+    relArr = new Relation[relators.size()];
+    relators.copyInto(relArr);
+
+    return relArr;
+    }
+
+    /**
+     * Returns one of the relations in this graph that relate the specified concept,
+     * numbered from zero in the same order as getRelators(Concept).
+     * Unlike getRelators(Concept), this does not allocate an array.
+     *
+     * @param concept  the concept whose relator is to be returned.
+     * @param index  the position of the relator.
+     * @return the relator at the specified position.
+     * @exception ArrayIndexOutOfBoundsException  if the index is out of range.
+     */
+  public Relation relatorAt(Concept concept, int index)
+    {
+    Vector relators;
+
+    relators = (Vector)relatorIndex.get(concept);
+    if (relators == null)
+    	throw new ArrayIndexOutOfBoundsException(index);
+
+    return (Relation)relators.elementAt(index);
+    }
+
+    /**
+     * Returns the number of relations in this graph that relate the specified concept.
+     *
+     * @param concept  the concept whose relators are to be counted.
+     * @return the number of relations in this graph that relate the concept.
+     */
+  public int getNumberOfRelators(Concept concept)
+    {
+    Vector relators;
+
+    relators = (Vector)relatorIndex.get(concept);
+    if (relators == null)
+    	return 0;
+
+    return relators.size();
+    }
+
     /**
      * Returns the number of relations in this graph.
      * This includes all relations including Actors rather than just Relations.
@@ -755,64 +1153,154 @@ public class Graph implements Serializable
     }
 
     /**
-     * Returns all nodes in the graph with exactly the type specified.
-     * Subtypes will not be included.
+     * Returns the bucket holding the concepts or relations of this graph that have
+     * the specified type.
+     *
+     * @param nodeType  the type of the nodes in the bucket, possibly null.
+     * @param forConcepts  true for a concept bucket, false for a relation bucket.
+     * @param create  true if a missing bucket should be created.
+     * @return the bucket, or null if there is none and create is false.
+     */
+  private NodeList getTypeBucket(Type nodeType, boolean forConcepts, boolean create)
+    {
+    Hashtable typeIndex;
+    NodeList bucket;
+
+    if (nodeType == null)
+    	if (forConcepts)
+    		return untypedConcepts;
+    	else
+    		return untypedRelations;
+
+    if (forConcepts)
+    	typeIndex = conceptTypeIndex;
+    else
+    	typeIndex = relationTypeIndex;
+
+    bucket = (NodeList)typeIndex.get(nodeType);
+    if ((bucket == null) && create)
+    	{
+    	bucket = new NodeList();
+    	typeIndex.put(nodeType, bucket);
+    	}
+
+    return bucket;
+    }
+
+    /**
+     * Adds the specified node to the bucket for its current type.
+     *
+     * @param node  the node being indexed.
+     */
+  private void indexType(Node node)
+    {
+    getTypeBucket(node.getNodeType(), node instanceof Concept, true).addElement(node);
+    }
+
+    /**
+     * Removes the specified node from the bucket for the given type.
+     * Buckets are discarded when they become empty.
+     *
+     * @param node  the node being removed from the index.
+     * @param nodeType  the type under which the node was indexed.
+     * @return true if the node was found in the bucket.
+     */
+  private boolean unindexType(Node node, Type nodeType)
+    {
+    NodeList bucket;
+
+    bucket = getTypeBucket(nodeType, node instanceof Concept, false);
+    if ((bucket == null) || !bucket.removeElement(node))
+    	return false;
+
+    if ((bucket.size() == 0) && (nodeType != null))
+    	if (node instanceof Concept)
+    		conceptTypeIndex.remove(nodeType);
+    	else
+    		relationTypeIndex.remove(nodeType);
+
+    return true;
+    }
+
+    /**
+     * Moves a node of this graph to the bucket for its new type.
+     * This is called by the node whenever its type is changed.
+     *
+     * @param node  the node whose type has changed.
+     * @param oldType  the previous type of the node.
+     */
+  void updateNodeType(Node node, Type oldType)
+    {
+    frozenForm = null;
+    if (unindexType(node, oldType))
+    	indexType(node);
+    }
+
+    /**
+     * Returns all nodes in the graph whose type matches the type specified.
+     * Only the type buckets of the qualifying types are examined so the cost
+     * depends on the number of nodes returned rather than the size of the graph.
      *
-     * @param nodeType  the node type to be matched exactly.
-     * @param nodeArr  the array of nodes to selected from.
+     * @param nodeType  the node type to be matched.
+     * @param forConcepts  true if concepts are to be returned, false for relations.
      * @param matchType 0 for exact match, 1 for supertype, -1 for subtype.
-     * @return an array of all nodes of the exactly the specified type
-     *         or null if no nodes of the specified type are present in
-     *         the graph.
+     * @return an array, possibly empty, of all nodes whose type matches.
      *
      * @impspec An easy way of centralizing this activity.
      */
-  Node[] getNodesWithType(Type nodeType, Node nodeArr[],
-  	int matchType)
+  Node[] getNodesWithType(Type nodeType, boolean forConcepts, int matchType)
     {
-    int numNodes;
     Node finalArr[];
-    Vector nodeVec;
-    Type tType;
+    Vector bucketVec;
+    NodeList bucket;
     TypeHierarchy hier;
+    Set typeSet;
+    Enumeration typeEnum;
+    int numNodes;
+
+    bucketVec = new Vector();
 
-    numNodes = nodeArr.length;
+    bucket = getTypeBucket(nodeType, forConcepts, false);
+    if (bucket != null)
+    	bucketVec.addElement(bucket);
 
-    nodeVec = new Vector(numNodes);
+		// Types outside any hierarchy can only match themselves.
+		hier = null;
+		if (nodeType != null)
+			hier = nodeType.getHierarchy();
 
 		switch (matchType)
 			{
 			case -1:
 				{
-				hier = nodeType.getHierarchy();
-
-		    for (int node = 0; node < numNodes; node++)
-		    	{
-		    	tType = nodeArr[node].getNodeType();
-    		  if (hier.isSuperTypeOf(tType, nodeType))
-        		nodeVec.addElement(nodeArr[node]);
-        	}
+				if (hier != null)
+					{
+					typeSet = hier.returnProperSuperTypesOf(nodeType);
+					for (typeEnum = typeSet.elements(); typeEnum.hasMoreElements(); )
+						{
+				    bucket = getTypeBucket((Type)typeEnum.nextElement(), forConcepts, false);
+				    if (bucket != null)
+				    	bucketVec.addElement(bucket);
+				    }
+				  }
         break;
         }
 
 			case 0:
-				{
-		    for (int node = 0; node < numNodes; node++)
-    		  if (nodeArr[node].getNodeType() == nodeType)
-        		nodeVec.addElement(nodeArr[node]);
         break;
-        }
 
 			case 1:
 				{
-				hier = nodeType.getHierarchy();
-
-		    for (int node = 0; node < numNodes; node++)
-		    	{
-		    	tType = nodeArr[node].getNodeType();
-    		  if (hier.isSubTypeOf(tType, nodeType))
-        		nodeVec.addElement(nodeArr[node]);
-        	}
+				if (hier != null)
+					{
+					typeSet = hier.returnProperSubTypesOf(nodeType);
+					for (typeEnum = typeSet.elements(); typeEnum.hasMoreElements(); )
+						{
+				    bucket = getTypeBucket((Type)typeEnum.nextElement(), forConcepts, false);
+				    if (bucket != null)
+				    	bucketVec.addElement(bucket);
+				    }
+				  }
         break;
         }
 
@@ -820,13 +1308,23 @@ public class Graph implements Serializable
       	throw new Error("Bad matchFlag in Graph.getNodesWithType().");
       }
 
+		numNodes = 0;
+		for (int buck = 0; buck < bucketVec.size(); buck++)
+			numNodes += ((NodeList)bucketVec.elementAt(buck)).size();
+
 		// Gruesome little hack to ensure that the array returned is of the correct type.
-		if (nodeArr instanceof Concept[])
-	    finalArr = new Concept[nodeVec.size()];
+		if (forConcepts)
+	    finalArr = new Concept[numNodes];
 		else
-	    finalArr = new Relation[nodeVec.size()];
-			
-    nodeVec.copyInto(finalArr);
+	    finalArr = new Relation[numNodes];
+
+		numNodes = 0;
+		for (int buck = 0; buck < bucketVec.size(); buck++)
+			{
+			bucket = (NodeList)bucketVec.elementAt(buck);
+			bucket.copyInto(finalArr, numNodes);
+			numNodes += bucket.size();
+			}
 
     return finalArr;
     }
@@ -842,7 +1340,7 @@ public class Graph implements Serializable
      */
   public Concept[] getConceptsWithExactType(ConceptType conType)
     {
-    return (Concept[])getNodesWithType(conType, getConcepts(), 0);
+    return (Concept[])getNodesWithType(conType, true, 0);
     }
 
     /**
@@ -855,7 +1353,7 @@ public class Graph implements Serializable
      */
   public Concept[] getConceptsWithSuperType(ConceptType conType)
     {
-    return (Concept[])getNodesWithType(conType, getConcepts(), 1);
+    return (Concept[])getNodesWithType(conType, true, 1);
     }
 
     /**
@@ -868,7 +1366,7 @@ public class Graph implements Serializable
      */
   public Concept[] getConceptsWithSubType(ConceptType conType)
     {
-    return (Concept[])getNodesWithType(conType, getConcepts(), -1);
+    return (Concept[])getNodesWithType(conType, true, -1);
     }
 
     /**
@@ -882,7 +1380,7 @@ public class Graph implements Serializable
      */
   public Relation[] getRelationsWithExactType(RelationType relType)
     {
-    return (Relation[])getNodesWithType(relType, getRelations(), 0);
+    return (Relation[])getNodesWithType(relType, false, 0);
     }
 
     /**
@@ -895,7 +1393,7 @@ public class Graph implements Serializable
      */
   public Relation[] getRelationsWithSuperType(RelationType relType)
     {
-    return (Relation[])getNodesWithType(relType, getRelations(), 1);
+    return (Relation[])getNodesWithType(relType, false, 1);
     }
 
     /**
@@ -908,7 +1406,7 @@ public class Graph implements Serializable
      */
   public Relation[] getRelationsWithSubType(RelationType relType)
     {
-    return (Relation[])getNodesWithType(relType, getRelations(), -1);
+    return (Relation[])getNodesWithType(relType, false, -1);
     }
 
   /* Expansion/Contraction Operations */
@@ -1056,24 +1554,565 @@ public class Graph implements Serializable
 		 */
   public boolean isComplete()
   	{
-  	Relation relArr[];
+  	int numRelations;
 
-  	relArr = getRelations();
-  	for (int rel = 0; rel < relArr.length; rel++)
-  		if (!relArr[rel].isComplete())
+  	numRelations = relations.size();
+  	for (int rel = 0; rel < numRelations; rel++)
+  		if (!relationAt(rel).isComplete())
   			return false;
 
   	return true;
   	}
 
-  /* Canonical Operations */
-  
-		/**
-     * Performs a copy operation on this graph according to the
-     * the specified CopyingScheme.
-     * This method will always produce a new Graph object and only nested graphs
-     * will be affect by the value of MatchingScheme.getGraphFlag().
-  	 *
+  /* Connectivity */
+
+    /**
+     * Makes the specified node the sole member of a new component.
+     *
+     * @param node  the node.
+     */
+  private void makeComponent(Node node)
+    {
+    node.componentParent = node;
+    node.componentRank = 0;
+    }
+
+    /**
+     * Returns the node that represents the component containing the specified node.
+     * The component forest must be current.
+     *
+     * @param node  a node in this graph.
+     * @return the representative of the node's component.
+     */
+  private Node findComponent(Node node)
+    {
+    Node parent;
+
+    // Path halving keeps the trees shallow without recursion.
+    parent = node.componentParent;
+    while (parent != node)
+    	{
+    	node.componentParent = parent.componentParent;
+    	node = node.componentParent;
+    	parent = node.componentParent;
+    	}
+
+    return node;
+    }
+
+    /**
+     * Merges the components containing the two specified nodes.
+     *
+     * @param first  a node in this graph.
+     * @param second  another node in this graph.
+     */
+  private void unionComponents(Node first, Node second)
+    {
+    first = findComponent(first);
+    second = findComponent(second);
+    if (first == second)
+    	return;
+
+    if (first.componentRank < second.componentRank)
+    	first.componentParent = second;
+    else
+    	{
+    	second.componentParent = first;
+    	if (first.componentRank == second.componentRank)
+    		first.componentRank++;
+    	}
+    }
+
+    /**
+     * Rebuilds the connected component forest if a removal has made it stale.
+     * Additions keep the forest current so it is only rebuilt after a
+     * relation has been removed or has lost an argument.
+     */
+  private void updateComponents()
+    {
+    Relation relation;
+    Concept arg;
+
+    if (componentsCurrent)
+    	return;
+
+    for (Iterator conEnum = concepts.iterator(); conEnum.hasNext(); )
+    	makeComponent((Node)conEnum.next());
+
+    for (Iterator relEnum = relations.iterator(); relEnum.hasNext(); )
+    	{
+    	relation = (Relation)relEnum.next();
+    	makeComponent(relation);
+    	for (int argNum = 0; argNum < relation.arguments.length; argNum++)
+    		{
+    		arg = relation.arguments[argNum];
+    		if (arg != null)
+    			unionComponents(relation, arg);
+    		}
+    	}
+
+    componentsCurrent = true;
+    }
+
+    /**
+     * Returns the node that represents the connected component of this graph containing the
+     * specified node.  Two nodes are in the same component exactly when they have the same
+     * representative.  The representative may change when the graph is modified.
+     *
+     * @param node  a node in this graph.
+     * @return the representative of the node's component, or null if the node is not part
+     * of this graph.
+     */
+  Node getComponentRepresentative(Node node)
+    {
+    if (!hasNode(node))
+    	return null;
+
+    updateComponents();
+    return findComponent(node);
+    }
+
+    /**
+     * Returns true if the specified node is a concept or relation in this graph.
+     *
+     * @param node  the node being checked for.
+     * @return true if the node is part of this graph.
+     */
+  private boolean hasNode(Node node)
+    {
+    if (node instanceof Concept)
+    	return concepts.contains(node);
+    else
+    	return relations.contains(node);
+    }
+
+    /**
+     * Returns true if the two specified nodes are connected to each other through the
+     * relations of this graph.  A node is always connected to itself.
+     *
+     * @param first  a node in this graph.
+     * @param second  another node in this graph.
+     * @return true if the nodes are in the same connected component, false if they are
+     * not or if either is not part of this graph.
+     */
+  public boolean areConnected(Node first, Node second)
+    {
+    if (!hasNode(first) || !hasNode(second))
+    	return false;
+
+    updateComponents();
+    return findComponent(first) == findComponent(second);
+    }
+
+    /**
+     * Returns the nodes of the connected component of this graph that contains the
+     * specified node.  Concepts are listed before relations, each in graph order.
+     *
+     * @param node  a node in this graph.
+     * @return an array of the nodes connected to the specified node, including itself,
+     * or null if the node is not part of this graph.
+     */
+  public Node[] getComponentOf(Node node)
+    {
+    Node rep, member;
+    Vector members;
+    Node memberArr[];
+
+    rep = getComponentRepresentative(node);
+    if (rep == null)
+    	return null;
+
+    members = new Vector();
+    for (Iterator conEnum = concepts.iterator(); conEnum.hasNext(); )
+    	{
+    	member = (Node)conEnum.next();
+    	if (findComponent(member) == rep)
+    		members.addElement(member);
+    	}
+
+    for (Iterator relEnum = relations.iterator(); relEnum.hasNext(); )
+    	{
+    	member = (Node)relEnum.next();
+    	if (findComponent(member) == rep)
+    		members.addElement(member);
+    	}
+
+    memberArr = new Node[members.size()];
+    members.copyInto(memberArr);
+    return memberArr;
+    }
+
+    /**
+     * Returns the connected components of this graph.  Each component is an array of
+     * its nodes with concepts listed before relations, each in graph order.  Components
+     * are listed in the order of their first node.
+     *
+     * @return an array, possibly empty, of the connected components of this graph.
+     */
+  public Node[][] getConnectedComponents()
+    {
+    IdentityHashMap componentTable;
+    Vector components, members;
+    Node member, rep, componentArr[][];
+
+    updateComponents();
+
+    componentTable = new IdentityHashMap();
+    components = new Vector();
+    for (int pass = 0; pass < 2; pass++)
+    	for (Iterator nodeEnum = (pass == 0) ? concepts.iterator() : relations.iterator(); 
+    		nodeEnum.hasNext(); )
+	    	{
+	    	member = (Node)nodeEnum.next();
+	    	rep = findComponent(member);
+	    	members = (Vector)componentTable.get(rep);
+	    	if (members == null)
+	    		{
+	    		members = new Vector();
+	    		componentTable.put(rep, members);
+	    		components.addElement(members);
+	    		}
+	    	members.addElement(member);
+	    	}
+
+    componentArr = new Node[components.size()][];
+    for (int comp = 0; comp < componentArr.length; comp++)
+    	{
+    	members = (Vector)components.elementAt(comp);
+    	componentArr[comp] = new Node[members.size()];
+    	members.copyInto(componentArr[comp]);
+    	}
+
+    return componentArr;
+    }
+
+  /* Paths */
+
+    /**
+     * Finds the paths between two nodes of this graph.  A path alternates between
+     * concepts and relations, and its length is the number of arcs it crosses, so a
+     * concept related to another by a single relation is at a distance of 2.  No node
+     * appears twice in a path.
+     *
+     * @param from  the node at which the paths start.
+     * @param to  the node at which the paths end.
+     * @param maxLength  the maximum length of the paths.
+     * @param maxPaths  the maximum number of paths to return, or 0 for no limit.
+     * @return an array, possibly empty, of paths, each an array of nodes from the first node
+     * to the second.
+     * @see notio.Graph#findPaths(Node, Node, int, int, RelationType)
+     */
+  public Node[][] findPaths(Node from, Node to, int maxLength, int maxPaths)
+    {
+    return findPaths(from, to, maxLength, maxPaths, null);
+    }
+
+    /**
+     * Finds the paths between two nodes of this graph that only pass through relations
+     * of the specified type or its subtypes.  The end points themselves are not filtered.
+     * <p>
+     * The search works from both ends.  A breadth-first sweep back from the second node
+     * marks each node within half of maxLength of it with its distance.  A depth-first
+     * walk out from the first node then only follows nodes that can still reach the second
+     * node within the remaining length, taking unmarked nodes to be just beyond the sweep.
+     * Each end is therefore only explored to half the path length, and the search stops
+     * as soon as maxPaths have been found.
+     * <p>
+     * Nodes are identified by their ids in the graph's frozen form, and whether the end
+     * points are connected is read from its component numbers.  The distances are kept
+     * in arrays held by the calling thread and reused by its later searches.  Once the
+     * graph is frozen, nothing is allocated for the nodes visited, and nothing is written
+     * to the graph or its nodes, so several threads may search the same graph at once.
+     *
+     * @param from  the node at which the paths start.
+     * @param to  the node at which the paths end.
+     * @param maxLength  the maximum length of the paths.
+     * @param maxPaths  the maximum number of paths to return, or 0 for no limit.
+     * @param relType  the type of relation that paths may pass through, or null for any.
+     * @return an array, possibly empty, of paths, each an array of nodes from the first node
+     * to the second.
+     */
+  public Node[][] findPaths(Node from, Node to, int maxLength, int maxPaths,
+  	RelationType relType)
+    {
+    Vector paths;
+    FrozenGraph form;
+    PathMarks marks;
+    Node pathArr[][], stack[], node, next, found[];
+    int cursors[], numConcepts, component, head, tail, depth, onPath, radius, distance;
+    int nodeId, nextId;
+
+    paths = new Vector();
+
+    if (!hasNode(from) || !hasNode(to) || (maxLength < 0))
+    	return new Node[0][];
+
+    if (from == to)
+    	{
+    	pathArr = new Node[1][1];
+    	pathArr[0][0] = from;
+    	return pathArr;
+    	}
+
+    form = freeze();
+    component = getPathComponent(form, from);
+    if ((component == -1) || (component != getPathComponent(form, to)))
+    	return new Node[0][];
+
+    // Sweep back from the target, marking every node within the radius with its distance.
+    numConcepts = form.getNumberOfConcepts();
+    marks = PathMarks.startSearch(numConcepts + form.getNumberOfRelations());
+    radius = maxLength / 2;
+    nodeId = getPathId(form, to);
+    marks.mark(nodeId, 0);
+    marks.queue[0] = nodeId;
+    head = 0;
+    tail = 1;
+    while (head < tail)
+    	{
+    	nodeId = marks.queue[head];
+    	head++;
+    	distance = marks.distances[nodeId];
+    	if (distance == radius)
+    		continue;
+
+    	if (nodeId < numConcepts)
+    		node = form.getConcept(nodeId);
+    	else
+    		node = form.getRelation(nodeId - numConcepts);
+    	for (int arc = 0; arc < countPathNeighbours(node); arc++)
+    		{
+    		next = getPathNeighbour(node, arc);
+    		if ((next == null) || ((next != from) && !isPathNode(next, relType)))
+    			continue;
+
+    		nextId = getPathId(form, next);
+    		if (marks.isMarked(nextId))
+    			continue;
+
+    		marks.mark(nextId, distance + 1);
+    		marks.queue[tail] = nextId;
+    		tail++;
+    		}
+    	}
+
+    // Walk out from the source, only following nodes that can still reach the target.
+    // A node left unmarked by the sweep is at least one step beyond its radius.
+    stack = new Node[maxLength + 1];
+    cursors = new int[maxLength + 1];
+    stack[0] = from;
+    cursors[0] = 0;
+    depth = 0;
+    while (depth >= 0)
+    	{
+    	node = stack[depth];
+    	if (cursors[depth] == countPathNeighbours(node))
+    		{
+    		depth--;
+    		continue;
+    		}
+
+    	next = getPathNeighbour(node, cursors[depth]);
+    	cursors[depth]++;
+    	if ((next == null) || ((next != to) && !isPathNode(next, relType)))
+    		continue;
+
+    	nextId = getPathId(form, next);
+    	if (marks.isMarked(nextId))
+    		distance = marks.distances[nextId];
+    	else
+    		distance = radius + 1;
+    	if (depth + 1 + distance > maxLength)
+    		continue;
+
+    	onPath = 0;
+    	while ((onPath <= depth) && (stack[onPath] != next))
+    		onPath++;
+    	if (onPath <= depth)
+    		continue;
+
+    	if (next == to)
+    		{
+    		found = new Node[depth + 2];
+    		System.arraycopy(stack, 0, found, 0, depth + 1);
+    		found[depth + 1] = to;
+    		paths.addElement(found);
+    		if (paths.size() == maxPaths)
+    			break;
+    		continue;
+    		}
+
+    	depth++;
+    	stack[depth] = next;
+    	cursors[depth] = 0;
+    	}
+
+    pathArr = new Node[paths.size()][];
+    paths.copyInto(pathArr);
+    return pathArr;
+    }
+
+    /**
+     * Returns the id of a node in the frozen form of this graph, numbering the
+     * relations after the concepts.
+     *
+     * @param form  the frozen form of this graph.
+     * @param node  a node in this graph.
+     * @return the node's id.
+     */
+  private static int getPathId(FrozenGraph form, Node node)
+    {
+    if (node instanceof Concept)
+    	return form.getConceptId((Concept)node);
+    else
+    	return form.getNumberOfConcepts() + form.getRelationId((Relation)node);
+    }
+
+    /**
+     * Returns the number of the connected component containing a node in the frozen
+     * form of this graph.  A relation belongs to the component of its arguments.
+     *
+     * @param form  the frozen form of this graph.
+     * @param node  a node in this graph.
+     * @return the component number, or -1 for a relation with no arguments.
+     */
+  private static int getPathComponent(FrozenGraph form, Node node)
+    {
+    Concept arguments[];
+
+    if (node instanceof Concept)
+    	return form.getComponentId(form.getConceptId((Concept)node));
+
+    arguments = ((Relation)node).arguments;
+    for (int arg = 0; arg < arguments.length; arg++)
+    	if (arguments[arg] != null)
+    		return form.getComponentId(form.getConceptId(arguments[arg]));
+
+    return -1;
+    }
+
+    /**
+     * Returns true if a path may pass through the specified node.  Concepts are always
+     * allowed, relations only if they are of the specified type or one of its subtypes.
+     *
+     * @param node  the node being considered.
+     * @param relType  the type of relation that paths may pass through, or null for any.
+     * @return true if the node may be part of a path.
+     */
+  private boolean isPathNode(Node node, RelationType relType)
+    {
+    Type nodeType;
+    TypeHierarchy hier;
+
+    if ((relType == null) || (node instanceof Concept))
+    	return true;
+
+    nodeType = node.getNodeType();
+    if (nodeType == relType)
+    	return true;
+
+    hier = relType.getHierarchy();
+    if ((nodeType == null) || (hier == null) || (nodeType.getHierarchy() != hier))
+    	return false;
+
+    return hier.isSubTypeOf(nodeType, relType);
+    }
+
+    /**
+     * Returns the number of arcs leaving the specified node.  For a concept this is the
+     * number of its relators and for a relation the number of its arguments.
+     *
+     * @param node  a node in this graph.
+     * @return the number of arcs that may be passed to getPathNeighbour().
+     */
+  private int countPathNeighbours(Node node)
+    {
+    if (node instanceof Concept)
+    	return getNumberOfRelators((Concept)node);
+    else
+    	return ((Relation)node).arguments.length;
+    }
+
+    /**
+     * Returns the node at the other end of the specified arc.  Null is returned for an
+     * empty argument and for an argument already returned for an earlier arc, so that
+     * each neighbour is only visited once.
+     *
+     * @param node  a node in this graph.
+     * @param arc  the number of the arc.
+     * @return the neighbouring node or null.
+     */
+  private Node getPathNeighbour(Node node, int arc)
+    {
+    Concept arguments[];
+    int prev;
+
+    if (node instanceof Concept)
+    	return relatorAt((Concept)node, arc);
+
+    arguments = ((Relation)node).arguments;
+    if (arguments[arc] == null)
+    	return null;
+
+    prev = 0;
+    while ((prev < arc) && (arguments[prev] != arguments[arc]))
+    	prev++;
+    if (prev < arc)
+    	return null;
+
+    return arguments[arc];
+    }
+
+  /* Frozen Form */
+
+    /**
+     * Returns an immutable, compact snapshot of the structure of this graph.  The snapshot
+     * is kept until the graph is next changed, so repeated calls on an unchanged graph
+     * return the same snapshot and cost nothing.  Graph matching uses the snapshot, so
+     * graphs that are matched many times are only indexed once.  The snapshot is built in
+     * full before it is published, so threads that match the same graph may share it.
+     *
+     * @return a snapshot of this graph.
+     *
+     * @see notio.FrozenGraph
+     */
+  public FrozenGraph freeze()
+    {
+    FrozenGraph form;
+
+    form = frozenForm;
+    if (form == null)
+    	{
+    	form = new FrozenGraph(this);
+    	frozenForm = form;
+    	}
+
+    return form;
+    }
+
+    /**
+     * Returns a structural fingerprint of this graph, computed from its frozen form and
+     * kept until the graph is next changed.  Graphs that are the same up to the identity
+     * of their nodes always have the same fingerprint, so it may be used as a hash key
+     * for storing graphs.
+     *
+     * @return the fingerprint of this graph.
+     *
+     * @see notio.FrozenGraph#getFingerprint()
+     */
+  public long getFingerprint()
+    {
+    return freeze().getFingerprint();
+    }
+
+  /* Canonical Operations */
+  
+		/**
+     * Performs a copy operation on this graph according to the
+     * the specified CopyingScheme.
+     * This method will always produce a new Graph object and only nested graphs
+     * will be affect by the value of MatchingScheme.getGraphFlag().
+  	 *
   	 * @param copyScheme  the copying scheme used to control the copy operation.
   	 * @return the result of the copy operation.
 		 */
@@ -1101,9 +2140,6 @@ public class Graph implements Serializable
 	public Graph copy(CopyingScheme copyScheme, Hashtable substitutionTable)
 		{
 		Graph newGraph;
-    Concept originalConcepts[], newConcepts[];
-    Relation originalRelations[], newRelations[];
-    int numConcepts, numRelations;
 
 		// Check for graph in substitution table and return its substitute if it exists.
 		newGraph = (Graph)substitutionTable.get(this);
@@ -1133,32 +2169,15 @@ public class Graph implements Serializable
 		// Copy the allowIncompleteRelations flag
 		newGraph.setAllowIncompleteRelations(getAllowIncompleteRelations());
 
-    originalConcepts = getConcepts();
-    numConcepts = originalConcepts.length;
-    originalRelations = getRelations();
-    numRelations = originalRelations.length;
-
     // Copy and add concepts
 
-    newConcepts = new Concept[numConcepts];
-
-    for (int con = 0; con < numConcepts; con++)
-      {
-      newConcepts[con] = originalConcepts[con].copy(copyScheme, substitutionTable);
-      }
-
-		newGraph.addConcepts(newConcepts);
+    for (Iterator conEnum = concepts.iterator(); conEnum.hasNext(); )
+      newGraph.addConcept(((Concept)conEnum.next()).copy(copyScheme, substitutionTable));
 
 		// Copy and add relations.
 
-		newRelations = new Relation[numRelations];
-
-    for (int rel = 0; rel < numRelations; rel++)
-      {
-      newRelations[rel] = originalRelations[rel].copy(copyScheme, substitutionTable);
-      }
-
-    newGraph.addRelations(newRelations);
+    for (Iterator relEnum = relations.iterator(); relEnum.hasNext(); )
+      newGraph.addRelation(((Relation)relEnum.next()).copy(copyScheme, substitutionTable));
 
     // Copy comments if the scheme requires it
     if (copyScheme.getCommentFlag() == CopyingScheme.COMM_COPY_ON)
@@ -1367,7 +2386,11 @@ public class Graph implements Serializable
     * joined.
     * @param N  the maximum number of graphs that will be produced.
     * @return up to N graphs that are maximal joins
-    *         or null if no join exists.
+    *         or null if no join exists.  If the scheme's SearchBudget runs out, only
+    *         the joins found so far are returned; the budget's isExhausted() method
+    *         tells whether this happened.  If the scheme's symmetry flag is
+    *         SYM_MATCH_DISTINCT, joins that differ only by a symmetry of the first
+    *         graph are built once.
     * @exception notio.JoinException
     *            if specified concepts are not part of the specified graphs
     *            and/or if the concepts do not form valid join points.
@@ -1414,7 +2437,8 @@ public class Graph implements Serializable
      */
 	public void simplify(Relation relation)
 		{
-		Relation relArr[], otherRel;
+		Relation otherRel;
+		int rel;
 		MatchingScheme simplifyScheme;
 
 		if (!hasRelation(relation))
@@ -1438,14 +2462,15 @@ public class Graph implements Serializable
 			null,
 			null);
 
-		relArr = getRelations();
-
-		for (int rel = 0; rel < relArr.length; rel++)
+		// Removal closes the gap, so only advance past relations that are kept.
+		rel = 0;
+		while (rel < relations.size())
 			{
-			otherRel = relArr[rel];
-			if (otherRel != relation)
-				if (Relation.matchRelations(relation, otherRel, simplifyScheme))
-					removeRelation(otherRel);
+			otherRel = relationAt(rel);
+			if ((otherRel != relation) && Relation.matchRelations(relation, otherRel, simplifyScheme))
+				removeRelation(otherRel);
+			else
+				rel++;
 			}
 		}
 
@@ -1456,9 +2481,9 @@ public class Graph implements Serializable
      */
 	public void simplify(RelationType relType)
 		{
-		Relation relArr[], rightArr[];
-		boolean handled[];
-		int rightCount;
+		NodeList bucket;
+		Relation relation, otherRel;
+		int other;
 		MatchingScheme simplifyScheme;
 
 		simplifyScheme = new MatchingScheme(
@@ -1479,36 +2504,24 @@ public class Graph implements Serializable
 			null,
 			null);
 
-		relArr = getRelations();
-		rightArr = new Relation[relArr.length];
+		// Work directly on the type bucket.  Removing a relation takes it out of the
+		// bucket and closes the gap, and the bucket is never emptied while one remains.
+		bucket = getTypeBucket(relType, false, false);
+		if (bucket == null)
+			return;
 
-		rightCount = 0;
-
-		for (int rel = 0; rel < relArr.length; rel++)
-			if (relArr[rel].getType() == relType)
-				{
-				rightArr[rightCount] = relArr[rel];
-				rightCount++;
-				}
-
-		handled = new boolean[rightCount];
-
-		for (int rel = 0; rel < rightCount; rel++)
+		for (int rel = 0; rel < bucket.size(); rel++)
 			{
-			if (!handled[rel])
+			relation = (Relation)bucket.get(rel);
+			other = rel + 1;
+			while (other < bucket.size())
 				{
-				handled[rel] = true;
-			
-				for (int other = rel + 1; other < rightCount; other++)
-					{
-					if (!handled[other])
-						if (Relation.matchRelations(rightArr[rel], rightArr[other], simplifyScheme))
-							{
-							removeRelation(rightArr[other]);
-							handled[other] = true;
-							}
-				  }
-				}
+				otherRel = (Relation)bucket.get(other);
+				if (Relation.matchRelations(relation, otherRel, simplifyScheme))
+					removeRelation(otherRel);
+				else
+					other++;
+			  }
 			}
 		}
 
@@ -1517,8 +2530,8 @@ public class Graph implements Serializable
      */
 	public void simplify()
 		{
-		Relation relArr[];
-		boolean handled[];
+		Relation relation, otherRel;
+		int other;
 		MatchingScheme simplifyScheme;
 
 		simplifyScheme = new MatchingScheme(
@@ -1539,26 +2552,19 @@ public class Graph implements Serializable
 			null,
 			null);
 
-		relArr = getRelations();
-
-		handled = new boolean[relArr.length];
-
-		for (int rel = 0; rel < relArr.length; rel++)
+		// Removal closes the gap, so only advance past relations that are kept.
+		for (int rel = 0; rel < relations.size(); rel++)
 			{
-			if (!handled[rel])
+			relation = relationAt(rel);
+			other = rel + 1;
+			while (other < relations.size())
 				{
-				handled[rel] = true;
-			
-				for (int other = rel + 1; other < relArr.length; other++)
-					{
-					if (!handled[other])
-						if (Relation.matchRelations(relArr[rel], relArr[other], simplifyScheme))
-							{
-							removeRelation(relArr[other]);
-							handled[other] = true;
-							}
-				  }
-				}
+				otherRel = relationAt(other);
+				if (Relation.matchRelations(relation, otherRel, simplifyScheme))
+					removeRelation(otherRel);
+				else
+					other++;
+			  }
 			}
 		}
 
@@ -1609,6 +2615,20 @@ public class Graph implements Serializable
     /**
      * Attempts to matches between the two specified graphs and returns the results in a 
      * MatchResult object.  Matching is governed by the specified MatchingScheme.
+     * Node mappings are found by the scheme's MatchEngine.  If the scheme has a
+     * SearchBudget and the search runs out of it, the result holds the mappings found
+     * so far and is marked as truncated.  Complete and subgraph matches that the numbers,
+     * type labels or degrees of the nodes rule out fail without any search, and the
+     * result gives the reason.
+     * <p>
+     * With GR_MATCH_EITHER_SUBGRAPH and GR_MATCH_EITHER_PROPER_SUBGRAPH, the first graph
+     * is matched into the second, and if that fails, the second into the first, so the
+     * mappings returned may map the second graph into the first.  The result's
+     * isReversed() method tells which.  With GR_MATCH_COMMON_SUBGRAPH, a single mapping
+     * of a maximum common subgraph is returned, its size being its number of concepts
+     * plus its number of relations.  If the search runs out of budget, the largest common
+     * subgraph found so far is returned.  Folding and the maximum number of matches are
+     * ignored for common subgraphs.
      *
      * @param first  the first graph being matched.
      * @param second  the second graph being matched.
@@ -1620,6 +2640,31 @@ public class Graph implements Serializable
   public static MatchResult matchGraphs(Graph first, Graph second, 
   	MatchingScheme matchingScheme)
     {
+    NestedMatchCache cache;
+
+    // The descriptors compared anywhere within this match share one cache of results.
+    cache = NestedMatchCache.acquire();
+    try
+    	{
+    	return findGraphMatches(first, second, matchingScheme);
+    	}
+    finally
+    	{
+    	cache.release();
+    	}
+    }
+
+    /**
+     * Matches two graphs as described for matchGraphs().
+     *
+     * @param first  the first graph being matched.
+     * @param second  the second graph being matched.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return the MatchResult object describing the details of the match.
+     */
+  private static MatchResult findGraphMatches(Graph first, Graph second,
+  	MatchingScheme matchingScheme)
+    {
     switch (matchingScheme.getGraphFlag())
       {
       case MatchingScheme.GR_MATCH_ANYTHING:
@@ -1654,9 +2699,11 @@ public class Graph implements Serializable
       case MatchingScheme.GR_MATCH_PROPER_SUBGRAPH:
         {
         int maxMatches;
-        NodeMappingGenerator gen;
-        NodeMapping mapping, results[];
+        Enumeration mappings;
+        NodeMapping results[];
 		    Vector matches;
+		    SearchBudget budget;
+		    String rejection;
         
         if (first == null)
         	if (second == null)
@@ -1664,35 +2711,188 @@ public class Graph implements Serializable
         	else
         		return new MatchResult(true);
         
+        // A match is impossible if the graphs differ in invariants that every match under
+        // the scheme preserves, which can be compared without any search.
+        rejection = GraphInvariants.findRejection(first, second, matchingScheme);
+        if (rejection != null)
+        	return new MatchResult(false, rejection);
+
         maxMatches = matchingScheme.getMaxMatches();
         
 		    matches = new Vector(maxMatches);
 
-        gen = new NodeMappingGenerator(first, second, matchingScheme);
+        mappings = matchingScheme.getMatchEngine().getMappings(first, second, matchingScheme);
 
-        mapping = gen.getNextMapping();
-				while ((mapping != null) && ((maxMatches == 0) || (matches.size() < maxMatches)))
-        	{
-          if (matchingScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON)
-          	{
-	          if (matchStructures(mapping))
-  	        	matches.addElement(mapping);
-  	        }
-					else
-						matches.addElement(mapping);
-
-          mapping = gen.getNextMapping();
-          }
+				while (((maxMatches == 0) || (matches.size() < maxMatches)) &&
+					mappings.hasMoreElements())
+        	matches.addElement(mappings.nextElement());
 
         results = new NodeMapping[matches.size()];
         matches.copyInto(results);
 
-        return new MatchResult(results);
+        budget = matchingScheme.getSearchBudget();
+        return new MatchResult(results, (budget != null) && budget.isExhausted());
         }
 
+      case MatchingScheme.GR_MATCH_EITHER_SUBGRAPH:
+      case MatchingScheme.GR_MATCH_EITHER_PROPER_SUBGRAPH:
+      	{
+      	MatchingScheme oneWayScheme;
+      	MatchResult result;
+
+      	// A null graph is a subgraph of any graph, and a proper one of any other graph.
+      	if ((first == null) || (second == null))
+      		return new MatchResult((first != second) ||
+      			(matchingScheme.getGraphFlag() == MatchingScheme.GR_MATCH_EITHER_SUBGRAPH));
+
+      	if (matchingScheme.getGraphFlag() == MatchingScheme.GR_MATCH_EITHER_SUBGRAPH)
+      		oneWayScheme = new MatchingScheme(matchingScheme, MatchingScheme.GR_MATCH_SUBGRAPH,
+      			matchingScheme.getSearchBudget());
+      	else
+      		oneWayScheme = new MatchingScheme(matchingScheme, MatchingScheme.GR_MATCH_PROPER_SUBGRAPH,
+      			matchingScheme.getSearchBudget());
+
+      	// If the first graph is not in the second, the mappings returned map the second
+      	// graph into the first, and the result says so.
+      	result = matchGraphs(first, second, oneWayScheme);
+      	if (result.matchSucceeded())
+      		return result;
+
+      	result = matchGraphs(second, first, oneWayScheme);
+      	if (result.matchSucceeded())
+      		return new MatchResult(result, true);
+
+      	return result;
+      	}
+
+      case MatchingScheme.GR_MATCH_COMMON_SUBGRAPH:
+      	{
+      	CommonSubgraphSearch search;
+      	NodeMapping mapping;
+
+      	if ((first == null) || (second == null))
+      		return new MatchResult(false);
+
+      	search = new CommonSubgraphSearch(first, second, matchingScheme);
+      	mapping = search.findMaximum();
+      	if (mapping == null)
+      		return new MatchResult(new NodeMapping[0], search.isTruncated());
+
+      	return new MatchResult(new NodeMapping[] { mapping }, search.isTruncated());
+      	}
+
+      default:
+        throw new UnimplementedFeatureException("Specified Graph match control flag is unknown.");
+      }
+    }
+
+    /**
+     * Returns a lazy stream of the node mappings between the two specified graphs,
+     * in the same order as matchGraphs() would return them.  Mappings are found only
+     * as the stream is consumed, so findFirst() or limit() stop the search early and
+     * the mappings need not all be held at once.  How lazy the search is depends on
+     * the scheme's MatchEngine.  If the scheme sets a maximum number of matches, the
+     * stream ends there.  Matches that involve no node mappings, such as any match
+     * with a null graph, produce an empty stream; matchGraphs() should be used to
+     * test whether such a match succeeds.  The graphs must not be modified while the
+     * stream is in use.  Matches in either direction and common subgraph matches are
+     * found in full before the stream is returned.  A mapping found in either direction
+     * may map the second graph into the first, as its getFirstGraph() method shows.
+     * If the engine searches in the background, closing the stream stops the search.
+     *
+     * @param first  the first graph being matched.
+     * @param second  the second graph being matched.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return a stream of the node mappings between the graphs.
+     * @exception UnimplementedFeatureException  if the scheme's graph flag is unknown.
+     */
+  public static Stream<NodeMapping> streamMatches(Graph first, Graph second,
+  	MatchingScheme matchingScheme)
+    {
+    Enumeration mappings;
+    Stream<NodeMapping> stream;
+
+    switch (matchingScheme.getGraphFlag())
+      {
+      case MatchingScheme.GR_MATCH_ANYTHING:
+      case MatchingScheme.GR_MATCH_INSTANCE:
+      	return Stream.empty();
+
+      case MatchingScheme.GR_MATCH_COMPLETE:
+      case MatchingScheme.GR_MATCH_SUBGRAPH:
+      case MatchingScheme.GR_MATCH_PROPER_SUBGRAPH:
+      	break;
+
+      case MatchingScheme.GR_MATCH_EITHER_SUBGRAPH:
+      case MatchingScheme.GR_MATCH_EITHER_PROPER_SUBGRAPH:
+      case MatchingScheme.GR_MATCH_COMMON_SUBGRAPH:
+      	{
+      	NodeMapping found[];
+
+      	if ((first == null) || (second == null))
+      		return Stream.empty();
+
+      	found = matchGraphs(first, second, matchingScheme).getMappings();
+      	if (found == null)
+      		return Stream.empty();
+
+      	return Arrays.stream(found);
+      	}
+
       default:
         throw new UnimplementedFeatureException("Specified Graph match control flag is unknown.");
       }
+
+    if ((first == null) || (second == null))
+    	return Stream.empty();
+
+    if (GraphInvariants.findRejection(first, second, matchingScheme) != null)
+    	return Stream.empty();
+
+    mappings = matchingScheme.getMatchEngine().getMappings(first, second, matchingScheme);
+    stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(mappings.asIterator(),
+    	Spliterator.ORDERED | Spliterator.NONNULL), false);
+
+    // An engine searching in the background stops when the stream is closed.
+    if (mappings instanceof AutoCloseable)
+    	{
+    	final AutoCloseable resource = (AutoCloseable)mappings;
+
+    	stream = stream.onClose(new Runnable()
+    		{
+    		public void run()
+    			{
+    			try
+    				{
+    				resource.close();
+    				}
+    			catch (Exception e)
+    				{
+    				throw new IllegalStateException(e.getMessage());
+    				}
+    			}
+    		});
+    	}
+
+    if (matchingScheme.getMaxMatches() > 0)
+    	stream = stream.limit(matchingScheme.getMaxMatches());
+
+    return stream;
+    }
+
+    /**
+     * Prepares a query graph for matching against many graphs under the specified
+     * scheme.  The work that depends only on the query and scheme is done once and
+     * reused for every graph the prepared query is matched against.
+     *
+     * @param query  the graph to be matched into each target.
+     * @param matchingScheme  the matching scheme that determines how matches are performed.
+     * @return the prepared query.
+     * @see notio.PreparedQuery
+     */
+  public static PreparedQuery prepareMatch(Graph query, MatchingScheme matchingScheme)
+    {
+    return new PreparedQuery(query, matchingScheme);
     }
 
     /**
@@ -1701,17 +2901,18 @@ public class Graph implements Serializable
      *
      * @param mapping  the node mapping used to compare the graphs.
      * @return true  if the graph structures match given the specifide node mapping.
+     * A relation or argument that the mapping gives no image does not match.
      *
      * @bug Currently forces arcs to be in order.
      */
-  private static boolean matchStructures(NodeMapping mapping)
+  static boolean matchStructures(NodeMapping mapping)
     {
     Graph firstGraph, secondGraph;
     Concept firstConcepts[], secondConcepts[];
     Relation firstRelations[], secondRelations[];
     Actor firstActors[], secondActors[];
     Hashtable conceptHash = new Hashtable();
-    Concept firstArgs[], secondArgs[];
+    Concept firstArgs[], secondArgs[], image;
 
     firstGraph = mapping.getFirstGraph();
     secondGraph = mapping.getSecondGraph();
@@ -1723,16 +2924,35 @@ public class Graph implements Serializable
     if ((firstRelations == null) && (secondRelations == null))
     	return true;
 
-    for (int con = 0; con < firstConcepts.length; con++)
-      conceptHash.put(firstConcepts[con], secondConcepts[con]);
+    if (firstConcepts != null)
+      for (int con = 0; con < firstConcepts.length; con++)
+        if ((firstConcepts[con] != null) && (secondConcepts[con] != null))
+          conceptHash.put(firstConcepts[con], secondConcepts[con]);
 
     for (int rel = 0; rel < firstRelations.length; rel++)
       {
+      if ((firstRelations[rel] == null) || (secondRelations[rel] == null))
+        return false;
+
       firstArgs = firstRelations[rel].getArguments();
       secondArgs = secondRelations[rel].getArguments();
+      if (firstArgs.length != secondArgs.length)
+        return false;
+
       for (int arg  = 0; arg < firstArgs.length; arg++)
-        if (!conceptHash.get(firstArgs[arg]).equals(secondArgs[arg]))
-          return false;
+        {
+        if (firstArgs[arg] == null)
+          {
+          if (secondArgs[arg] != null)
+            return false;
+          }
+        else
+          {
+          image = (Concept)conceptHash.get(firstArgs[arg]);
+          if ((image == null) || !image.equals(secondArgs[arg]))
+            return false;
+          }
+        }
       }
 
     return true;
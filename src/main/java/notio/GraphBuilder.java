@@ -0,0 +1,439 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * A class used to build a graph, or add to one, in a single step.  Concepts,
+     * relations and coreference links are collected in flat buffers, with concepts
+     * referred to by the integer ids the builder assigns.  When build() is called,
+     * everything is checked before the graph is touched and then linked in one pass,
+     * so either all of the nodes are added or, if an error is thrown, none of them are.
+     * <p>
+     * A builder may only be built once.  The ids it assigned remain valid afterward and
+     * may be used to retrieve the nodes.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+
+public class GraphBuilder
+  {
+	  /** The concepts added, indexed by concept id. **/
+  private Concept concepts[] = new Concept[16];
+
+	  /** The number of concepts added. **/
+  private int numConcepts = 0;
+
+	  /** The coreference forest: the parent of each concept id, or itself for a root. **/
+  private int corefParents[] = new int[16];
+
+	  /** The relations added as objects, or null for those to be created from ids. **/
+  private Relation relations[] = new Relation[16];
+
+	  /** The types of relations to be created from ids. **/
+  private RelationType relationTypes[] = new RelationType[16];
+
+	  /** The start of each relation's argument ids, plus an end marker. **/
+  private int argumentOffsets[] = new int[17];
+
+	  /** The argument ids of relations to be created, -1 for a missing argument. **/
+  private int arguments[] = new int[32];
+
+	  /** The number of relations added. **/
+  private int numRelations = 0;
+
+	  /** The comments to be added to the graph. **/
+  private Vector comments = new Vector(1, 1);
+
+	  /** Flag indicating that the builder has been built. **/
+  private boolean built = false;
+
+  /* Constructors */
+    /**
+     * Constructs an empty builder.
+     */
+  public GraphBuilder()
+    {
+    }
+
+  /* Collecting */
+
+    /**
+     * Adds an existing concept to the builder.
+     *
+     * @param newConcept  the concept to be added.
+     * @return the id of the concept within this builder.
+     */
+  public int addConcept(Concept newConcept)
+    {
+    Concept newConcepts[];
+    int newParents[];
+
+    if (newConcept == null)
+    	throw new IllegalArgumentException("Concept can not be null.");
+
+    checkNotBuilt();
+
+    if (numConcepts == concepts.length)
+    	{
+    	newConcepts = new Concept[concepts.length * 2];
+    	System.arraycopy(concepts, 0, newConcepts, 0, numConcepts);
+    	concepts = newConcepts;
+    	newParents = new int[corefParents.length * 2];
+    	System.arraycopy(corefParents, 0, newParents, 0, numConcepts);
+    	corefParents = newParents;
+    	}
+
+    concepts[numConcepts] = newConcept;
+    corefParents[numConcepts] = numConcepts;
+    numConcepts++;
+    return numConcepts - 1;
+    }
+
+    /**
+     * Creates a new concept of the specified type and adds it to the builder.
+     *
+     * @param conType  the type of the new concept.
+     * @return the id of the new concept within this builder.
+     */
+  public int addConcept(ConceptType conType)
+    {
+    return addConcept(new Concept(conType));
+    }
+
+    /**
+     * Adds an existing relation or actor to the builder.  Any arguments of the relation
+     * that are not in the graph being built will be added to it.
+     *
+     * @param newRelation  the relation to be added.
+     * @return the id of the relation within this builder.
+     */
+  public int addRelation(Relation newRelation)
+    {
+    if (newRelation == null)
+    	throw new IllegalArgumentException("Relation can not be null.");
+
+    return storeRelation(newRelation, null, new int[0]);
+    }
+
+    /**
+     * Adds a new relation of the specified type, whose arguments are concepts already
+     * added to this builder.  The relation itself is created when the builder is built.
+     *
+     * @param relType  the type of the new relation.
+     * @param argumentIds  the ids of the arguments, in order, with -1 for a missing argument.
+     * @return the id of the new relation within this builder.
+     */
+  public int addRelation(RelationType relType, int argumentIds[])
+    {
+    for (int arg = 0; arg < argumentIds.length; arg++)
+    	if ((argumentIds[arg] < -1) || (argumentIds[arg] >= numConcepts))
+    		throw new IllegalArgumentException("Argument id out of range: " + argumentIds[arg]);
+
+    return storeRelation(null, relType, argumentIds);
+    }
+
+    /**
+     * Stores a relation, or the description of one, in the relation buffers.
+     *
+     * @param newRelation  the relation, or null if one is to be created.
+     * @param relType  the type of the relation to be created.
+     * @param argumentIds  the argument ids of the relation to be created.
+     * @return the id of the relation within this builder.
+     */
+  private int storeRelation(Relation newRelation, RelationType relType, int argumentIds[])
+    {
+    Relation newRelations[];
+    RelationType newTypes[];
+    int newOffsets[], newArguments[];
+    int numArguments;
+
+    checkNotBuilt();
+
+    if (numRelations == relations.length)
+    	{
+    	newRelations = new Relation[relations.length * 2];
+    	System.arraycopy(relations, 0, newRelations, 0, numRelations);
+    	relations = newRelations;
+    	newTypes = new RelationType[relationTypes.length * 2];
+    	System.arraycopy(relationTypes, 0, newTypes, 0, numRelations);
+    	relationTypes = newTypes;
+    	newOffsets = new int[relations.length + 1];
+    	System.arraycopy(argumentOffsets, 0, newOffsets, 0, numRelations + 1);
+    	argumentOffsets = newOffsets;
+    	}
+
+    numArguments = argumentOffsets[numRelations];
+    if (numArguments + argumentIds.length > arguments.length)
+    	{
+    	newArguments = new int[Math.max(arguments.length * 2, numArguments + argumentIds.length)];
+    	System.arraycopy(arguments, 0, newArguments, 0, numArguments);
+    	arguments = newArguments;
+    	}
+
+    System.arraycopy(argumentIds, 0, arguments, numArguments, argumentIds.length);
+    relations[numRelations] = newRelation;
+    relationTypes[numRelations] = relType;
+    argumentOffsets[numRelations + 1] = numArguments + argumentIds.length;
+    numRelations++;
+    return numRelations - 1;
+    }
+
+    /**
+     * Records that two concepts added to this builder are coreferent.  Each group of
+     * concepts linked in this way becomes a new coreference set in the built graph.
+     *
+     * @param firstId  the id of the first concept.
+     * @param secondId  the id of the second concept.
+     */
+  public void addCoreference(int firstId, int secondId)
+    {
+    if ((firstId < 0) || (firstId >= numConcepts) || (secondId < 0) || (secondId >= numConcepts))
+    	throw new IllegalArgumentException("Concept id out of range.");
+
+    checkNotBuilt();
+
+    firstId = findCorefRoot(firstId);
+    secondId = findCorefRoot(secondId);
+
+    // Link to the lower id so each set's members are found in the order they were added.
+    if (firstId < secondId)
+    	corefParents[secondId] = firstId;
+    else
+    	corefParents[firstId] = secondId;
+    }
+
+    /**
+     * Returns the root of the coreference tree containing the specified concept,
+     * halving the path to it as it goes.
+     *
+     * @param conceptId  the id of the concept.
+     * @return the id of the root.
+     */
+  private int findCorefRoot(int conceptId)
+    {
+    while (corefParents[conceptId] != conceptId)
+    	{
+    	corefParents[conceptId] = corefParents[corefParents[conceptId]];
+    	conceptId = corefParents[conceptId];
+    	}
+
+    return conceptId;
+    }
+
+    /**
+     * Adds a comment to be added to the graph.
+     *
+     * @param newComment  the comment.
+     */
+  public void addComment(String newComment)
+    {
+    checkNotBuilt();
+    comments.addElement(newComment);
+    }
+
+  /* Building */
+
+    /**
+     * Builds a new graph containing everything collected.
+     *
+     * @return the new graph.
+     * @exception ConceptAddError  if a concept belongs to another graph.
+     * @exception RelationAddError  if a relation belongs to another graph or is incomplete.
+     * @exception CorefAddException  if a linked concept already belongs to a coreference set.
+     */
+  public Graph build() throws CorefAddException
+    {
+    Graph newGraph = new Graph();
+
+    build(newGraph);
+    return newGraph;
+    }
+
+    /**
+     * Adds everything collected to the specified graph.  Nodes already in the graph are
+     * left as they are.  If an error is thrown, the graph is unchanged.
+     *
+     * @param graph  the graph to be added to.
+     * @exception ConceptAddError  if a concept belongs to another graph.
+     * @exception RelationAddError  if a relation belongs to another graph or, when the
+     * graph does not allow them, is incomplete.
+     * @exception CorefAddException  if a linked concept already belongs to a coreference set.
+     */
+  public void build(Graph graph) throws CorefAddException
+    {
+    IdentityHashMap seen;
+    Concept allConcepts[], args[];
+    Relation allRelations[], relation;
+    Graph gr;
+    int numAll, root, groupSizes[];
+    CoreferenceSet corefSets[];
+
+    checkNotBuilt();
+
+    // Nodes belong to the body of a reference, not to the reference itself.
+    if (graph instanceof GraphReference)
+    	graph = ((GraphReference)graph).getBody();
+
+    // Check and create everything before the graph is changed.
+    seen = new IdentityHashMap(2 * (numConcepts + numRelations));
+    allRelations = new Relation[numRelations];
+    for (int rel = 0; rel < numRelations; rel++)
+    	{
+    	relation = relations[rel];
+    	if (relation == null)
+    		{
+    		args = new Concept[argumentOffsets[rel + 1] - argumentOffsets[rel]];
+    		for (int arg = 0; arg < args.length; arg++)
+    			if (arguments[argumentOffsets[rel] + arg] != -1)
+    				args[arg] = concepts[arguments[argumentOffsets[rel] + arg]];
+    		relation = new Relation(relationTypes[rel], args);
+    		}
+    	else
+    		{
+    		gr = relation.getEnclosingGraph();
+    		if ((gr != null) && (gr != graph))
+    			throw new RelationAddError("Relation already belongs to another graph.");
+    		}
+
+    	if (!graph.getAllowIncompleteRelations() && !relation.isComplete())
+    		throw new RelationAddError("Addition of incomplete relations is not allowed in this graph.");
+
+    	allRelations[rel] = relation;
+    	}
+
+    // Arguments of existing relations that were not added explicitly follow the others.
+    numAll = numConcepts;
+    for (int rel = 0; rel < numRelations; rel++)
+    	if (relations[rel] != null)
+    		numAll += relations[rel].arguments.length;
+    allConcepts = new Concept[numAll];
+    System.arraycopy(concepts, 0, allConcepts, 0, numConcepts);
+    numAll = numConcepts;
+    for (int con = 0; con < numConcepts; con++)
+    	seen.put(concepts[con], Boolean.TRUE);
+    for (int rel = 0; rel < numRelations; rel++)
+    	if (relations[rel] != null)
+    		{
+    		args = relations[rel].arguments;
+    		for (int arg = 0; arg < args.length; arg++)
+    			if ((args[arg] != null) && (seen.put(args[arg], Boolean.TRUE) == null))
+    				{
+    				allConcepts[numAll] = args[arg];
+    				numAll++;
+    				}
+    		}
+
+    for (int con = 0; con < numAll; con++)
+    	{
+    	gr = allConcepts[con].getEnclosingGraph();
+    	if ((gr != null) && (gr != graph))
+    		throw new ConceptAddError("Specified concept belongs to another graph already.");
+    	}
+
+    // Every linked concept will be a dominant member of a new set, so none may already
+    // belong to a set.
+    groupSizes = new int[numConcepts];
+    for (int con = 0; con < numConcepts; con++)
+    	groupSizes[findCorefRoot(con)]++;
+    for (int con = 0; con < numConcepts; con++)
+    	if ((groupSizes[findCorefRoot(con)] > 1) && (concepts[con].getCoreferenceSets().length > 0))
+    		throw new CorefAddException("Specified concept would be dominant and is already a member of one or more other coreference sets.");
+
+    // Link everything in one pass.
+    built = true;
+    graph.addCheckedNodes(allConcepts, numAll, allRelations, numRelations);
+
+    for (int rel = 0; rel < numRelations; rel++)
+    	relations[rel] = allRelations[rel];
+
+    for (Enumeration comEnum = comments.elements(); comEnum.hasMoreElements(); )
+    	graph.addComment((String)comEnum.nextElement());
+
+    corefSets = new CoreferenceSet[numConcepts];
+    for (int con = 0; con < numConcepts; con++)
+    	{
+    	root = findCorefRoot(con);
+    	if (root != con)
+    		{
+    		if (corefSets[root] == null)
+    			{
+    			corefSets[root] = new CoreferenceSet();
+    			corefSets[root].addCoreferentConcept(concepts[root]);
+    			}
+    		if (!corefSets[root].hasConcept(concepts[con]))
+	    		corefSets[root].addCoreferentConcept(concepts[con]);
+    		}
+    	}
+    }
+
+    /**
+     * Throws an exception if this builder has already been built.
+     */
+  private void checkNotBuilt()
+    {
+    if (built)
+    	throw new IllegalStateException("GraphBuilder has already been built.");
+    }
+
+  /* Results */
+
+    /**
+     * Returns the concept with the specified id.
+     *
+     * @param conceptId  the id of the concept.
+     * @return the concept with that id.
+     */
+  public Concept getConcept(int conceptId)
+    {
+    if ((conceptId < 0) || (conceptId >= numConcepts))
+    	throw new ArrayIndexOutOfBoundsException(conceptId);
+
+    return concepts[conceptId];
+    }
+
+    /**
+     * Returns the relation with the specified id.  Relations to be created from ids are
+     * only available once the builder has been built.
+     *
+     * @param relationId  the id of the relation.
+     * @return the relation with that id, or null if it has not been created yet.
+     */
+  public Relation getRelation(int relationId)
+    {
+    if ((relationId < 0) || (relationId >= numRelations))
+    	throw new ArrayIndexOutOfBoundsException(relationId);
+
+    return relations[relationId];
+    }
+
+    /**
+     * Returns the number of concepts added to this builder.
+     *
+     * @return the number of concepts.
+     */
+  public int getNumberOfConcepts()
+    {
+    return numConcepts;
+    }
+
+    /**
+     * Returns the number of relations added to this builder.
+     *
+     * @return the number of relations.
+     */
+  public int getNumberOfRelations()
+    {
+    return numRelations;
+    }
+  }
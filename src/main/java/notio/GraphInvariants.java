@@ -0,0 +1,347 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * A summary of the features of a graph that any match must preserve, used to reject
+     * impossible matches before any search is made.  The summary holds the numbers of
+     * concepts and relations, the number of nodes with each type label, and histograms
+     * of the number of arguments of each relation and the number of relators of each
+     * concept.  It is computed once for each frozen form of a graph and kept with it,
+     * so a query matched against many graphs is only summarized once.
+     * <p>
+     * The checks are made in layers, from the cheapest to the most telling, and each
+     * takes time linear in the size of the graphs.  Under GR_MATCH_COMPLETE, every node
+     * of each graph is the image of exactly one node of the other, so the counts must be
+     * equal.  Under GR_MATCH_SUBGRAPH and GR_MATCH_PROPER_SUBGRAPH, the first graph's
+     * counts must be contained in the second's.  Each relation must map onto one with at
+     * least as many arguments, and each concept onto one with at least as many relators,
+     * when connected matching is required, so for each size the second graph must have at
+     * least as many nodes of that size or larger as the first.  No checks are made when
+     * folding is on, since nodes may then share images.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchResult#getRejectionReason
+     */
+class GraphInvariants
+  {
+	  /** The number of concepts and relations in the graph. **/
+  private final int numConcepts, numRelations;
+
+	  /** The number of typed concepts and relations with each type label. **/
+  private final Hashtable conceptLabelCounts, relationLabelCounts;
+
+	  /** The number of relations with each number of arguments. **/
+  private final int arityCounts[];
+
+	  /** The number of concepts with each number of relators. **/
+  private final int degreeCounts[];
+
+  /* Constructors */
+    /**
+     * Summarizes the frozen form of a graph.
+     *
+     * @param form  the frozen form of the graph.
+     */
+  GraphInvariants(FrozenGraph form)
+    {
+    int maxArity, maxDegree;
+
+    numConcepts = form.getNumberOfConcepts();
+    numRelations = form.getNumberOfRelations();
+
+    conceptLabelCounts = countLabels(form, true);
+    relationLabelCounts = countLabels(form, false);
+
+    maxArity = 0;
+    for (int rel = 0; rel < numRelations; rel++)
+    	maxArity = Math.max(maxArity, form.getNumberOfArguments(rel));
+    arityCounts = new int[maxArity + 1];
+    for (int rel = 0; rel < numRelations; rel++)
+    	arityCounts[form.getNumberOfArguments(rel)]++;
+
+    maxDegree = 0;
+    for (int con = 0; con < numConcepts; con++)
+    	maxDegree = Math.max(maxDegree, form.getNumberOfRelators(con));
+    degreeCounts = new int[maxDegree + 1];
+    for (int con = 0; con < numConcepts; con++)
+    	degreeCounts[form.getNumberOfRelators(con)]++;
+    }
+
+    /**
+     * Returns a table giving the number of typed concepts or relations with each type
+     * label.  The nodes are counted by type first, so each label is looked up once for
+     * each type rather than once for each node.
+     *
+     * @param form  the frozen form of the graph.
+     * @param forConcepts  true to count the concepts, false to count the relations.
+     * @return a table of Integer counts keyed by label.
+     */
+  private static Hashtable countLabels(FrozenGraph form, boolean forConcepts)
+    {
+    Hashtable counts;
+    Integer oldCount;
+    String label;
+    int typeCounts[], typeId, numNodes;
+
+    typeCounts = new int[form.getNumberOfTypes()];
+    numNodes = forConcepts ? form.getNumberOfConcepts() : form.getNumberOfRelations();
+    for (int node = 0; node < numNodes; node++)
+    	{
+    	typeId = forConcepts ? form.getConceptTypeId(node) : form.getRelationTypeId(node);
+    	if (typeId != -1)
+    		typeCounts[typeId]++;
+    	}
+
+    counts = new Hashtable();
+    for (int type = 0; type < typeCounts.length; type++)
+    	if (typeCounts[type] > 0)
+    		{
+    		label = form.getType(type).getLabel();
+    		oldCount = (Integer)counts.get(label);
+    		counts.put(label, new Integer(typeCounts[type] +
+    			((oldCount == null) ? 0 : oldCount.intValue())));
+    		}
+
+    return counts;
+    }
+
+    /**
+     * Returns the reason a match between two graphs under the specified scheme is
+     * impossible, or null if the invariants do not rule it out.  The scheme's graph
+     * flag must be GR_MATCH_COMPLETE, GR_MATCH_SUBGRAPH or GR_MATCH_PROPER_SUBGRAPH,
+     * and neither graph may be null.
+     *
+     * @param first  the first graph being matched.
+     * @param second  the second graph being matched.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return a description of the invariant that rules out the match, or null.
+     */
+  static String findRejection(Graph first, Graph second, MatchingScheme matchingScheme)
+    {
+    FrozenGraph firstForm, secondForm;
+    GraphInvariants firstInvariants, secondInvariants;
+    boolean complete, conceptLabels, relationLabels, structure;
+    String reason;
+
+    if (matchingScheme.getFoldingFlag() == MatchingScheme.FOLD_MATCH_ON)
+    	return null;
+
+    complete = (matchingScheme.getGraphFlag() == MatchingScheme.GR_MATCH_COMPLETE);
+    firstForm = first.freeze();
+    secondForm = second.freeze();
+    firstInvariants = firstForm.getInvariants();
+    secondInvariants = secondForm.getInvariants();
+
+    // Sizes
+    reason = compareCounts("concepts", firstInvariants.numConcepts,
+    	secondInvariants.numConcepts, complete);
+    if (reason == null)
+    	reason = compareCounts("relations", firstInvariants.numRelations,
+    		secondInvariants.numRelations, complete);
+    if ((reason == null) &&
+    	(matchingScheme.getGraphFlag() == MatchingScheme.GR_MATCH_PROPER_SUBGRAPH) &&
+    	(firstInvariants.numConcepts + firstInvariants.numRelations >=
+    	secondInvariants.numConcepts + secondInvariants.numRelations))
+    	reason = "The first graph has as many nodes as the second, so it cannot be a proper subgraph.";
+    if (reason != null)
+    	return reason;
+
+    // Type labels
+    conceptLabels = usesConceptLabels(firstForm, secondForm, matchingScheme);
+    if (conceptLabels)
+    	{
+    	reason = compareLabels("concepts", firstInvariants.conceptLabelCounts,
+    		secondInvariants.conceptLabelCounts, complete);
+    	if (reason != null)
+    		return reason;
+    	}
+
+    relationLabels = usesRelationLabels(firstForm, secondForm, matchingScheme);
+    if (relationLabels)
+    	{
+    	reason = compareLabels("relations", firstInvariants.relationLabelCounts,
+    		secondInvariants.relationLabelCounts, complete);
+    	if (reason != null)
+    		return reason;
+    	}
+
+    // Valences and degrees, which only the structure check constrains
+    if ((matchingScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) &&
+    	!firstForm.hasMissingArguments() && !secondForm.hasMissingArguments())
+    	{
+    	reason = compareHistograms("relations", "arguments", firstInvariants.arityCounts,
+    		secondInvariants.arityCounts);
+    	if (reason == null)
+    		reason = compareHistograms("concepts", "relators", firstInvariants.degreeCounts,
+    			secondInvariants.degreeCounts);
+    	if (reason != null)
+    		return reason;
+    	}
+
+    // Fingerprints, which compare the neighbourhoods of the nodes in complete matches
+    if (complete)
+    	{
+			// The structure check only constrains the first graph's arguments, so arguments
+			// can only be compared when both graphs have the same number of them.
+	    structure = (matchingScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) &&
+	    	!firstForm.hasMissingArguments() && !secondForm.hasMissingArguments() &&
+	    	(firstForm.getNumberOfArguments() == secondForm.getNumberOfArguments());
+
+    	if (firstForm.getFingerprint(conceptLabels, relationLabels, structure) !=
+    		secondForm.getFingerprint(conceptLabels, relationLabels, structure))
+    		return "The graphs have different fingerprints.";
+    	}
+
+    return null;
+    }
+
+    /**
+     * Returns true if every concept mapping under the scheme must preserve type labels.
+     * Untyped concepts match any type, and coreference can make otherwise different
+     * concepts match.
+     *
+     * @param firstForm  the frozen form of the first graph.
+     * @param secondForm  the frozen form of the second graph.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return true if concept type labels must be preserved.
+     */
+  private static boolean usesConceptLabels(FrozenGraph firstForm, FrozenGraph secondForm,
+  	MatchingScheme matchingScheme)
+    {
+    int conceptFlag, typeFlag;
+
+    conceptFlag = matchingScheme.getConceptFlag();
+    typeFlag = matchingScheme.getConceptTypeFlag();
+    return ((conceptFlag == MatchingScheme.CN_MATCH_TYPES) ||
+    	((conceptFlag == MatchingScheme.CN_MATCH_ALL) &&
+    	(matchingScheme.getCoreferenceAutoMatchFlag() == MatchingScheme.COREF_AUTOMATCH_OFF))) &&
+    	((typeFlag == MatchingScheme.CT_MATCH_INSTANCE) || (typeFlag == MatchingScheme.CT_MATCH_LABEL)) &&
+    	(matchingScheme.getCoreferenceAgreementFlag() == MatchingScheme.COREF_AGREE_OFF) &&
+    	!firstForm.hasUntypedConcepts() && !secondForm.hasUntypedConcepts();
+    }
+
+    /**
+     * Returns true if every relation mapping under the scheme must preserve type labels.
+     *
+     * @param firstForm  the frozen form of the first graph.
+     * @param secondForm  the frozen form of the second graph.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return true if relation type labels must be preserved.
+     */
+  private static boolean usesRelationLabels(FrozenGraph firstForm, FrozenGraph secondForm,
+  	MatchingScheme matchingScheme)
+    {
+    int relationFlag, typeFlag;
+
+    relationFlag = matchingScheme.getRelationFlag();
+    typeFlag = matchingScheme.getRelationTypeFlag();
+    return ((relationFlag == MatchingScheme.RN_MATCH_TYPES) ||
+    	(relationFlag == MatchingScheme.RN_MATCH_ALL)) &&
+    	((typeFlag == MatchingScheme.RT_MATCH_INSTANCE) || (typeFlag == MatchingScheme.RT_MATCH_LABEL)) &&
+    	!firstForm.hasUntypedRelations() && !secondForm.hasUntypedRelations();
+    }
+
+    /**
+     * Compares the numbers of nodes of one kind in two graphs.
+     *
+     * @param kind  the kind of node counted, used in the reason.
+     * @param firstCount  the number in the first graph.
+     * @param secondCount  the number in the second graph.
+     * @param complete  true if the numbers must be equal, false if the first must be no larger.
+     * @return the reason the counts rule out a match, or null if they do not.
+     */
+  private static String compareCounts(String kind, int firstCount, int secondCount,
+  	boolean complete)
+    {
+    if (complete && (firstCount != secondCount))
+    	return "The graphs have different numbers of " + kind + ".";
+
+    if (firstCount > secondCount)
+    	return "The first graph has more " + kind + " than the second.";
+
+    return null;
+    }
+
+    /**
+     * Compares the numbers of nodes of one kind with each type label in two graphs.
+     *
+     * @param kind  the kind of node counted, used in the reason.
+     * @param firstCounts  the counts for the first graph, keyed by label.
+     * @param secondCounts  the counts for the second graph, keyed by label.
+     * @param complete  true if the counts must be equal, false if the first's must be no larger.
+     * @return the reason the counts rule out a match, or null if they do not.
+     */
+  private static String compareLabels(String kind, Hashtable firstCounts, Hashtable secondCounts,
+  	boolean complete)
+    {
+    Enumeration labels;
+    Integer secondCount;
+    String label, reason;
+
+    labels = firstCounts.keys();
+    while (labels.hasMoreElements())
+    	{
+    	label = (String)labels.nextElement();
+    	secondCount = (Integer)secondCounts.get(label);
+    	reason = compareCounts(kind + " of type " + label,
+    		((Integer)firstCounts.get(label)).intValue(),
+    		(secondCount == null) ? 0 : secondCount.intValue(), complete);
+    	if (reason != null)
+    		return reason;
+    	}
+
+    // Labels found only in the second graph show up as a difference in the number of labels.
+    if (complete && (firstCounts.size() != secondCounts.size()))
+    	return "The graphs have " + kind + " of different types.";
+
+    return null;
+    }
+
+    /**
+     * Compares histograms of the sizes of the nodes of one kind in two graphs.  Each node
+     * of the first graph must map to a distinct node of the second of at least its size,
+     * so for each size the second graph must have at least as many nodes that large or
+     * larger.
+     *
+     * @param kind  the kind of node counted, used in the reason.
+     * @param sizeName  the name of the things whose number is the size, used in the reason.
+     * @param firstCounts  the number of nodes of each size in the first graph.
+     * @param secondCounts  the number of nodes of each size in the second graph.
+     * @return the reason the histograms rule out a match, or null if they do not.
+     */
+  private static String compareHistograms(String kind, String sizeName, int firstCounts[],
+  	int secondCounts[])
+    {
+    int firstLarger, secondLarger;
+
+    firstLarger = 0;
+    secondLarger = 0;
+    for (int size = secondCounts.length - 1; size >= firstCounts.length; size--)
+    	secondLarger += secondCounts[size];
+
+    for (int size = firstCounts.length - 1; size > 0; size--)
+    	{
+    	firstLarger += firstCounts[size];
+    	if (size < secondCounts.length)
+    		secondLarger += secondCounts[size];
+    	if (firstLarger > secondLarger)
+    		return "The second graph has fewer " + kind + " with " + size + " or more " +
+    			sizeName + " than the first.";
+    	}
+
+    return null;
+    }
+  }
@@ -0,0 +1,435 @@
+package notio;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import com.google.gson.JsonObject;
+
+    /** 
+     * A reference to a graph that allows one graph to be shared by several contexts
+     * without copying it.  A reference holds its own context information (the referent
+     * that encloses it) and passes every other operation on to the graph it refers to,
+     * its body.  Changes made through any reference are seen by all references to the
+     * same body.
+     * <p>
+     * Nodes belong to the body rather than to any reference, so Node.getEnclosingGraph()
+     * returns the body and context can only be traversed downward through a reference.
+     * A reference to a reference refers directly to the body of the latter.  A
+     * reference holds no nodes of its own, so every public operation on graphs other
+     * than those concerning context must be passed on here.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.CopyingScheme#GR_COPY_REFERENCE
+     */
+
+public class GraphReference extends Graph
+  {
+	  /** The graph to which this reference refers. **/
+  private Graph body;
+
+  /* Constructors */
+    /**
+     * Constructs a reference to the specified graph.
+     *
+     * @param newBody  the graph to be referred to.
+     */
+  public GraphReference(Graph newBody)
+    {
+    super(false);
+
+    if (newBody == null)
+    	throw new IllegalArgumentException("A graph reference must refer to a graph.");
+
+    if (newBody instanceof GraphReference)
+    	body = ((GraphReference)newBody).getBody();
+    else
+    	body = newBody;
+    }
+
+    /**
+     * Returns the graph to which this reference refers.
+     *
+     * @return the graph to which this reference refers.
+     */
+  public Graph getBody()
+    {
+    return body;
+    }
+
+  public JsonObject toJSON()
+    {
+    JsonObject result;
+
+    result = body.toJSON();
+    if (getEnclosingReferent() != null)
+    	result.add("enclosingReferent", getEnclosingReferent().toJSON());
+    return result;
+    }
+
+  /* Graph building operations */
+
+  public void addConcept(Concept newConcept) throws ConceptAddError
+    {
+    body.addConcept(newConcept);
+    }
+
+  public void addConcepts(Concept newConcepts[]) throws ConceptAddError
+    {
+    body.addConcepts(newConcepts);
+    }
+
+  public void addRelation(Relation newRelation) throws RelationAddError, ConceptAddError
+    {
+    body.addRelation(newRelation);
+    }
+
+  public void addRelations(Relation newRelations[]) throws RelationAddError, ConceptAddError
+    {
+    body.addRelations(newRelations);
+    }
+
+  public void replaceConcept(Concept oldConcept, Concept newConcept) throws ConceptReplaceException
+    {
+    body.replaceConcept(oldConcept, newConcept);
+    }
+
+  public void removeConcept(Concept deadConcept) throws ConceptRemoveException
+    {
+    body.removeConcept(deadConcept);
+    }
+
+  public void removeConcepts(Concept deadConcepts[]) throws ConceptRemoveException
+    {
+    body.removeConcepts(deadConcepts);
+    }
+
+  public void removeRelation(Relation deadRelation)
+    {
+    body.removeRelation(deadRelation);
+    }
+
+  public void removeRelations(Relation deadRelations[])
+    {
+    body.removeRelations(deadRelations);
+    }
+
+  /* Query Operations */
+
+  public Concept[] getConcepts()
+    {
+    return body.getConcepts();
+    }
+
+  public int getNumberOfConcepts()
+    {
+    return body.getNumberOfConcepts();
+    }
+
+  public Relation[] getRelations()
+    {
+    return body.getRelations();
+    }
+
+  public Concept conceptAt(int index)
+    {
+    return body.conceptAt(index);
+    }
+
+  public Relation relationAt(int index)
+    {
+    return body.relationAt(index);
+    }
+
+  public Iterable<Concept> conceptView()
+    {
+    return body.conceptView();
+    }
+
+  public Iterable<Relation> relationView()
+    {
+    return body.relationView();
+    }
+
+  public Iterable<Actor> actorView()
+    {
+    return body.actorView();
+    }
+
+  public Iterable<Relation> normalRelationView()
+    {
+    return body.normalRelationView();
+    }
+
+  public Stream<Concept> conceptStream()
+    {
+    return body.conceptStream();
+    }
+
+  public Stream<Relation> relationStream()
+    {
+    return body.relationStream();
+    }
+
+  public Relation[] getRelators(Concept concept)
+    {
+    return body.getRelators(concept);
+    }
+
+  public Relation relatorAt(Concept concept, int index)
+    {
+    return body.relatorAt(concept, index);
+    }
+
+  public int getNumberOfRelators(Concept concept)
+    {
+    return body.getNumberOfRelators(concept);
+    }
+
+  public int getNumberOfRelations()
+    {
+    return body.getNumberOfRelations();
+    }
+
+  public Actor[] getActorRelations()
+    {
+    return body.getActorRelations();
+    }
+
+  public Relation[] getNormalRelations()
+    {
+    return body.getNormalRelations();
+    }
+
+  public boolean hasConcept(Concept concept)
+    {
+    return body.hasConcept(concept);
+    }
+
+  public boolean hasConcepts(Concept conceptArr[])
+    {
+    return body.hasConcepts(conceptArr);
+    }
+
+  public boolean hasRelation(Relation relation)
+    {
+    return body.hasRelation(relation);
+    }
+
+  public boolean hasRelations(Relation relationArr[])
+    {
+    return body.hasRelations(relationArr);
+    }
+
+  Node[] getNodesWithType(Type nodeType, boolean forConcepts, int matchType)
+    {
+    return body.getNodesWithType(nodeType, forConcepts, matchType);
+    }
+
+  public Concept[] getConceptsWithExactType(ConceptType conType)
+    {
+    return body.getConceptsWithExactType(conType);
+    }
+
+  public Concept[] getConceptsWithSuperType(ConceptType conType)
+    {
+    return body.getConceptsWithSuperType(conType);
+    }
+
+  public Concept[] getConceptsWithSubType(ConceptType conType)
+    {
+    return body.getConceptsWithSubType(conType);
+    }
+
+  public Relation[] getRelationsWithExactType(RelationType relType)
+    {
+    return body.getRelationsWithExactType(relType);
+    }
+
+  public Relation[] getRelationsWithSuperType(RelationType relType)
+    {
+    return body.getRelationsWithSuperType(relType);
+    }
+
+  public Relation[] getRelationsWithSubType(RelationType relType)
+    {
+    return body.getRelationsWithSubType(relType);
+    }
+
+  /* Expansion/Contraction Operations */
+
+  public void expandConceptType(Concept concept) throws TypeExpansionException
+    {
+    body.expandConceptType(concept);
+    }
+
+  public void expandConceptType(Concept concepts[]) throws TypeExpansionException
+    {
+    body.expandConceptType(concepts);
+    }
+
+  public void expandConceptType(ConceptType conceptType) throws TypeExpansionException
+    {
+    body.expandConceptType(conceptType);
+    }
+
+  public void expandRelationType(Relation relation) throws TypeExpansionException
+    {
+    body.expandRelationType(relation);
+    }
+
+  public void expandRelationType(Relation relations[]) throws TypeExpansionException
+    {
+    body.expandRelationType(relations);
+    }
+
+  public void expandRelationType(RelationType relationType) throws TypeExpansionException
+    {
+    body.expandRelationType(relationType);
+    }
+
+  public boolean isBlank()
+    {
+    return body.isBlank();
+    }
+
+  public boolean isComplete()
+    {
+    return body.isComplete();
+    }
+
+  /* Connectivity */
+
+  Node getComponentRepresentative(Node node)
+    {
+    return body.getComponentRepresentative(node);
+    }
+
+  public boolean areConnected(Node first, Node second)
+    {
+    return body.areConnected(first, second);
+    }
+
+  public Node[] getComponentOf(Node node)
+    {
+    return body.getComponentOf(node);
+    }
+
+  public Node[][] getConnectedComponents()
+    {
+    return body.getConnectedComponents();
+    }
+
+  /* Paths */
+
+  public Node[][] findPaths(Node from, Node to, int maxLength, int maxPaths)
+    {
+    return body.findPaths(from, to, maxLength, maxPaths);
+    }
+
+  public Node[][] findPaths(Node from, Node to, int maxLength, int maxPaths,
+  	RelationType relType)
+    {
+    return body.findPaths(from, to, maxLength, maxPaths, relType);
+    }
+
+  /* Frozen Form */
+
+  public FrozenGraph freeze()
+    {
+    return body.freeze();
+    }
+
+  public long getFingerprint()
+    {
+    return body.getFingerprint();
+    }
+
+  /* Canonical Operations */
+
+	public Graph copy(CopyingScheme copyScheme)
+		{
+		return copy(copyScheme, new Hashtable());
+		}
+
+		/**
+     * Performs a copy operation on this reference according to the specified CopyingScheme.
+     * If the scheme's graph flag is GR_COPY_REFERENCE, the result is a new reference to
+     * the same body.  Otherwise it is a new reference to a copy of the body, so
+     * references that shared a body before the copy share its copy afterward.
+  	 *
+  	 * @param copyScheme  the copying scheme used to control the copy operation.
+  	 * @param substitutionTable  a hashtable containing copied objects available due to 
+     * earlier copy operations.
+  	 * @return the result of the copy operation.
+		 */
+	public Graph copy(CopyingScheme copyScheme, Hashtable substitutionTable)
+		{
+		Graph newGraph;
+
+		newGraph = (Graph)substitutionTable.get(this);
+		if (newGraph != null)
+			return newGraph;
+
+		if (copyScheme.getGraphFlag() == CopyingScheme.GR_COPY_REFERENCE)
+			newGraph = new GraphReference(body);
+		else
+			newGraph = new GraphReference(body.copy(copyScheme, substitutionTable));
+
+    substitutionTable.put(this, newGraph);
+    return newGraph;
+		}
+
+	public void simplify(Relation relation)
+		{
+		body.simplify(relation);
+		}
+
+	public void simplify(RelationType relType)
+		{
+		body.simplify(relType);
+		}
+
+	public void simplify()
+		{
+		body.simplify();
+		}
+
+  /* Comments */
+
+  public void addComment(String newComment)
+    {
+    body.addComment(newComment);
+    }
+
+  public void removeComment(String deadComment)
+    {
+    body.removeComment(deadComment);
+    }
+
+  public String[] getComments()
+    {
+    return body.getComments();
+    }
+
+	public void setAllowIncompleteRelations(boolean flag)
+		{
+		body.setAllowIncompleteRelations(flag);
+		}
+
+	public boolean getAllowIncompleteRelations()
+		{
+		return body.getAllowIncompleteRelations();
+		}
+  }
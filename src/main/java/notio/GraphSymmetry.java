@@ -0,0 +1,634 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * The symmetries of a graph under a matching scheme, expressed as constraints that
+     * let a match engine return one mapping from each set of mappings that differ only
+     * by a symmetry.  Two nodes are interchangeable when the scheme cannot tell them
+     * apart, and an automorphism is a permutation of interchangeable nodes that maps
+     * each relation's arguments onto the arguments of its image.  If a mapping is
+     * valid, so is the mapping found by applying any automorphism of the first graph
+     * first, and the two describe the same match.
+     * <p>
+     * The constraints are found as Grochow and Kellis propose.  The smallest node with
+     * another node in its orbit is chosen, its image is required to be smaller than the
+     * images of the other nodes in its orbit, and the search continues among the
+     * automorphisms that fix it, until every orbit has one node.  Exactly one mapping
+     * from each set then satisfies every constraint, comparing images by their ids in
+     * the frozen second graph.  Each orbit is found by searching for automorphisms that
+     * move the chosen node to each candidate, refining the colours of the nodes as in
+     * a canonical labelling search, so nodes the colours tell apart are never tried.
+     * <p>
+     * Symmetry is only broken when folding is off, since the constraints rely on no two
+     * nodes sharing an image.  A concept that the scheme compares by its referent or
+     * its coreferents is only interchangeable with itself if it has either.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchingScheme#SYM_MATCH_DISTINCT
+     */
+class GraphSymmetry
+  {
+	  /** The frozen form of the graph. **/
+  private FrozenGraph form;
+
+	  /** The number of concepts, which are numbered before the relations. **/
+  private int numConcepts;
+
+	  /** The total number of nodes. **/
+  private int numNodes;
+
+	  /** The colour of each node, refined from the nodes' labels alone. **/
+  private int baseColours[];
+
+	  /** The nodes whose images must be smaller and larger than each node's image. **/
+  private int lowerNodes[][], higherNodes[][];
+
+	  /** The number of constraints found. **/
+  private int numConstraints = 0;
+
+  /* Constructors */
+    /**
+     * Finds the symmetries of a graph under a matching scheme.
+     *
+     * @param newForm  the frozen form of the graph.
+     * @param matchingScheme  the matching scheme that decides which nodes are interchangeable.
+     */
+  private GraphSymmetry(FrozenGraph newForm, MatchingScheme matchingScheme)
+    {
+    Vector lower[], higher[];
+
+    form = newForm;
+    numConcepts = form.getNumberOfConcepts();
+    numNodes = numConcepts + form.getNumberOfRelations();
+
+    baseColours = findLabelColours(matchingScheme);
+    refine(baseColours, baseColours.clone());
+
+    lower = new Vector[numNodes];
+    higher = new Vector[numNodes];
+    for (int node = 0; node < numNodes; node++)
+    	{
+    	lower[node] = new Vector();
+    	higher[node] = new Vector();
+    	}
+
+    findConstraints(lower, higher);
+
+    lowerNodes = new int[numNodes][];
+    higherNodes = new int[numNodes][];
+    for (int node = 0; node < numNodes; node++)
+    	{
+    	lowerNodes[node] = toArray(lower[node]);
+    	higherNodes[node] = toArray(higher[node]);
+    	}
+    }
+
+    /**
+     * Returns the symmetry constraints of a graph under the specified scheme, or null
+     * if the scheme does not ask for them, folding is on, or the graph has no symmetry.
+     *
+     * @param form  the frozen form of the graph.
+     * @param matchingScheme  the matching scheme used for mapping.
+     * @return the constraints or null.
+     */
+  static GraphSymmetry findSymmetry(FrozenGraph form, MatchingScheme matchingScheme)
+    {
+    GraphSymmetry symmetry;
+
+    if ((matchingScheme.getSymmetryFlag() != MatchingScheme.SYM_MATCH_DISTINCT) ||
+    	(matchingScheme.getFoldingFlag() == MatchingScheme.FOLD_MATCH_ON))
+    	return null;
+
+    symmetry = new GraphSymmetry(form, matchingScheme);
+    if (symmetry.numConstraints == 0)
+    	return null;
+
+    return symmetry;
+    }
+
+    /**
+     * Returns true if a first concept may be mapped onto a second concept given the
+     * concepts already mapped.
+     *
+     * @param firstCon  the id of the first concept.
+     * @param secondCon  the id of the second concept.
+     * @param conceptImages  the id of the image of each first concept, or -1 if unmapped.
+     * @return true if no constraint is broken.
+     */
+  boolean allowsConcept(int firstCon, int secondCon, int conceptImages[])
+    {
+    return allows(firstCon, secondCon, conceptImages, 0);
+    }
+
+    /**
+     * Returns true if a first relation may be mapped onto a second relation given the
+     * relations already mapped.
+     *
+     * @param firstRel  the id of the first relation.
+     * @param secondRel  the id of the second relation.
+     * @param relationImages  the id of the image of each first relation, or -1 if unmapped.
+     * @return true if no constraint is broken.
+     */
+  boolean allowsRelation(int firstRel, int secondRel, int relationImages[])
+    {
+    return allows(numConcepts + firstRel, secondRel, relationImages, numConcepts);
+    }
+
+    /**
+     * Returns true if a node may be mapped onto a second node of the same kind.
+     *
+     * @param node  the node number.
+     * @param image  the id of the second node.
+     * @param images  the id of the image of each first node of the kind, or -1.
+     * @param offset  the number of the first node of the kind.
+     * @return true if no constraint is broken.
+     */
+  private boolean allows(int node, int image, int images[], int offset)
+    {
+    int other;
+
+    for (int index = 0; index < lowerNodes[node].length; index++)
+    	{
+    	other = images[lowerNodes[node][index] - offset];
+    	if ((other != -1) && (other >= image))
+    		return false;
+    	}
+
+    for (int index = 0; index < higherNodes[node].length; index++)
+    	{
+    	other = images[higherNodes[node][index] - offset];
+    	if ((other != -1) && (other <= image))
+    		return false;
+    	}
+
+    return true;
+    }
+
+    /**
+     * Colours the nodes so that nodes with the same colour are interchangeable.
+     * Relations must also have the same number of arguments, missing in the same places.
+     *
+     * @param matchingScheme  the matching scheme that decides which nodes are interchangeable.
+     * @return the colour of each node.
+     */
+  private int[] findLabelColours(MatchingScheme matchingScheme)
+    {
+    Concept concepts[];
+    Relation relations[];
+    Hashtable keys = new Hashtable();
+    IdentityHashMap types = new IdentityHashMap();
+    int colours[], conceptFlag, relationFlag, numArgs;
+    boolean compareReferents, compareCoreferents, compareArcs;
+    StringBuffer key;
+
+    concepts = form.getConcepts();
+    relations = form.getRelations();
+    conceptFlag = matchingScheme.getConceptFlag();
+    relationFlag = matchingScheme.getRelationFlag();
+    compareReferents = (conceptFlag == MatchingScheme.CN_MATCH_REFERENTS) ||
+    	(conceptFlag == MatchingScheme.CN_MATCH_COREFERENTS) ||
+    	(conceptFlag == MatchingScheme.CN_MATCH_ALL);
+    compareCoreferents = (conceptFlag == MatchingScheme.CN_MATCH_COREFERENTS) ||
+    	(matchingScheme.getCoreferenceAutoMatchFlag() == MatchingScheme.COREF_AUTOMATCH_ON) ||
+    	(matchingScheme.getCoreferenceAgreementFlag() == MatchingScheme.COREF_AGREE_ON);
+    compareArcs = ((relationFlag == MatchingScheme.RN_MATCH_ARCS) ||
+    	(relationFlag == MatchingScheme.RN_MATCH_ALL)) &&
+    	(matchingScheme.getArcFlag() == MatchingScheme.ARC_MATCH_INSTANCE);
+
+    colours = new int[numNodes];
+    for (int node = 0; node < numNodes; node++)
+    	{
+    	key = new StringBuffer();
+
+    	if (node < numConcepts)
+    		{
+    		if ((conceptFlag == MatchingScheme.CN_MATCH_INSTANCE) ||
+    			(compareReferents && (concepts[node].getReferent() != null)) ||
+    			(compareCoreferents && (concepts[node].getCoreferenceSets().length > 0)))
+    			key.append("U").append(node);
+    		else
+    			key.append("C").append(typeIndex(types, concepts[node].getType()));
+    		}
+    	else
+    		{
+    		if ((relationFlag == MatchingScheme.RN_MATCH_INSTANCE) || compareArcs)
+    			key.append("U").append(node);
+    		else
+    			{
+    			key.append("R").append(typeIndex(types, relations[node - numConcepts].getType()));
+    			numArgs = form.getNumberOfArguments(node - numConcepts);
+    			for (int arg = 0; arg < numArgs; arg++)
+    				key.append((form.getArgumentId(node - numConcepts, arg) == -1) ? "-" : "+");
+    			}
+    		}
+
+    	colours[node] = colourOf(keys, key.toString());
+    	}
+
+    return colours;
+    }
+
+    /**
+     * Returns a number for a type, the same for each use of the same type instance.
+     *
+     * @param types  the numbers of the types seen so far.
+     * @param type  the type, which may be null.
+     * @return the type's number, or -1 for a null type.
+     */
+  private static int typeIndex(IdentityHashMap types, Object type)
+    {
+    Integer index;
+
+    if (type == null)
+    	return -1;
+
+    index = (Integer)types.get(type);
+    if (index == null)
+    	{
+    	index = new Integer(types.size());
+    	types.put(type, index);
+    	}
+
+    return index.intValue();
+    }
+
+    /**
+     * Returns the colour for a key, numbering new keys in the order they are seen.
+     *
+     * @param keys  the colours of the keys seen so far.
+     * @param key  the key.
+     * @return the key's colour.
+     */
+  private static int colourOf(Hashtable keys, String key)
+    {
+    Integer colour;
+
+    colour = (Integer)keys.get(key);
+    if (colour == null)
+    	{
+    	colour = new Integer(keys.size());
+    	keys.put(key, colour);
+    	}
+
+    return colour.intValue();
+    }
+
+    /**
+     * Finds the constraints, one chosen node at a time.
+     *
+     * @param lower  the vector of nodes whose images must be smaller than each node's image.
+     * @param higher  the vector of nodes whose images must be larger than each node's image.
+     */
+  private void findConstraints(Vector lower[], Vector higher[])
+    {
+    int fixed[], numFixed, colours[], parents[], perm[], chosen;
+    boolean trivial[];
+    Integer chosenNode, otherNode;
+
+    fixed = new int[numNodes];
+    numFixed = 0;
+    trivial = new boolean[numNodes];
+    parents = new int[numNodes];
+
+    while (true)
+    	{
+    	colours = individualize(baseColours, fixed, numFixed, -1);
+    	refine(colours, colours.clone());
+    	for (int node = 0; node < numNodes; node++)
+    		parents[node] = node;
+
+			// A node that is alone in its orbit is alone in the orbits of every smaller group.
+    	chosen = -1;
+    	for (int node = 0; (node < numNodes) && (chosen == -1); node++)
+    		{
+    		if (trivial[node])
+    			continue;
+
+    		for (int other = node + 1; other < numNodes; other++)
+    			if ((colours[other] == colours[node]) &&
+    				(findRoot(parents, other) != findRoot(parents, node)))
+    				{
+    				perm = findAutomorphism(fixed, numFixed, node, other);
+    				if (perm != null)
+    					for (int moved = 0; moved < numNodes; moved++)
+    						parents[findRoot(parents, moved)] = findRoot(parents, perm[moved]);
+    				}
+
+    		for (int other = node + 1; (other < numNodes) && (chosen == -1); other++)
+    			if (findRoot(parents, other) == findRoot(parents, node))
+    				chosen = node;
+
+    		if (chosen == -1)
+    			trivial[node] = true;
+    		}
+
+    	if (chosen == -1)
+    		return;
+
+			// Every other node in the chosen node's orbit is larger than it.
+    	chosenNode = new Integer(chosen);
+    	for (int other = chosen + 1; other < numNodes; other++)
+    		if (findRoot(parents, other) == findRoot(parents, chosen))
+    			{
+    			otherNode = new Integer(other);
+    			higher[chosen].addElement(otherNode);
+    			lower[other].addElement(chosenNode);
+    			numConstraints++;
+    			}
+
+    	fixed[numFixed] = chosen;
+    	numFixed++;
+    	trivial[chosen] = true;
+    	}
+    }
+
+    /**
+     * Returns an automorphism that fixes the specified nodes and moves one node onto
+     * another, or null if there is none.
+     *
+     * @param fixed  the nodes fixed.
+     * @param numFixed  the number of nodes fixed.
+     * @param node  the node moved.
+     * @param image  the node it is moved onto.
+     * @return the image of each node under the automorphism, or null.
+     */
+  private int[] findAutomorphism(int fixed[], int numFixed, int node, int image)
+    {
+    int firstColours[], secondColours[];
+
+    firstColours = individualize(baseColours, fixed, numFixed, node);
+    secondColours = individualize(baseColours, fixed, numFixed, image);
+    return extend(firstColours, secondColours);
+    }
+
+    /**
+     * Returns a copy of a colouring in which each fixed node, and then the moved node,
+     * has a colour of its own.
+     *
+     * @param colours  the colouring.
+     * @param fixed  the nodes fixed.
+     * @param numFixed  the number of nodes fixed.
+     * @param moved  the node moved, or -1 for none.
+     * @return the new colouring.
+     */
+  private int[] individualize(int colours[], int fixed[], int numFixed, int moved)
+    {
+    int newColours[], next;
+
+    newColours = colours.clone();
+    next = numNodes;
+    for (int index = 0; index < numFixed; index++)
+    	{
+    	newColours[fixed[index]] = next;
+    	next++;
+    	}
+
+    if (moved != -1)
+    	newColours[moved] = next;
+
+    return newColours;
+    }
+
+    /**
+     * Searches for an automorphism that maps each node of the first colouring onto
+     * the node of the same colour in the second.  Colours are refined, and while some
+     * colour is shared, a node of that colour is given a colour of its own in the
+     * first colouring and each node of that colour in turn in the second.
+     *
+     * @param firstColours  the first colouring, which is changed.
+     * @param secondColours  the second colouring, which is changed.
+     * @return the image of each node under the automorphism, or null.
+     */
+  private int[] extend(int firstColours[], int secondColours[])
+    {
+    int counts[], shared, node, fresh, perm[], found[];
+
+    if (!refine(firstColours, secondColours))
+    	return null;
+
+    counts = new int[numNodes + 1];
+    for (int index = 0; index < numNodes; index++)
+    	counts[firstColours[index]]++;
+
+    shared = -1;
+    node = -1;
+    for (int index = 0; (index < numNodes) && (shared == -1); index++)
+    	if (counts[firstColours[index]] > 1)
+    		{
+    		shared = firstColours[index];
+    		node = index;
+    		}
+
+    if (shared == -1)
+    	{
+			// Every colour is used once, so the colourings give a single permutation.
+    	perm = new int[numNodes];
+    	found = new int[numNodes + 1];
+    	for (int index = 0; index < numNodes; index++)
+    		found[secondColours[index]] = index;
+    	for (int index = 0; index < numNodes; index++)
+    		perm[index] = found[firstColours[index]];
+
+    	return isAutomorphism(perm) ? perm : null;
+    	}
+
+    fresh = numNodes;
+    for (int other = 0; other < numNodes; other++)
+    	if (secondColours[other] == shared)
+    		{
+    		int newFirst[] = firstColours.clone();
+    		int newSecond[] = secondColours.clone();
+
+    		newFirst[node] = fresh;
+    		newSecond[other] = fresh;
+    		perm = extend(newFirst, newSecond);
+    		if (perm != null)
+    			return perm;
+    		}
+
+    return null;
+    }
+
+    /**
+     * Refines two colourings together until neither splits further, giving nodes the
+     * same new colour when they had the same colour and their neighbours had the same
+     * colours in the same places.  New colours are numbered from zero.
+     *
+     * @param firstColours  the first colouring, which is replaced by its refinement.
+     * @param secondColours  the second colouring, which is replaced by its refinement.
+     * @return false if the colourings differ in the number of nodes of some colour.
+     */
+  private boolean refine(int firstColours[], int secondColours[])
+    {
+    Hashtable keys;
+    int newFirst[], newSecond[], counts[], numColours = -1;
+
+    newFirst = new int[numNodes];
+    newSecond = new int[numNodes];
+    counts = new int[2 * numNodes + 1];
+
+    while (true)
+    	{
+    	keys = new Hashtable();
+    	for (int node = 0; node < numNodes; node++)
+    		newFirst[node] = colourOf(keys, signature(firstColours, node));
+    	for (int node = 0; node < numNodes; node++)
+    		newSecond[node] = colourOf(keys, signature(secondColours, node));
+
+    	Arrays.fill(counts, 0);
+    	for (int node = 0; node < numNodes; node++)
+    		{
+    		counts[newFirst[node]]++;
+    		counts[newSecond[node]]--;
+    		}
+    	for (int colour = 0; colour < keys.size(); colour++)
+    		if (counts[colour] != 0)
+    			return false;
+
+    	System.arraycopy(newFirst, 0, firstColours, 0, numNodes);
+    	System.arraycopy(newSecond, 0, secondColours, 0, numNodes);
+
+    	if (keys.size() == numColours)
+    		return true;
+    	numColours = keys.size();
+    	}
+    }
+
+    /**
+     * Returns a string describing a node's colour and the colours of its neighbours.
+     * A relation lists its arguments in order, and a concept lists the positions it
+     * fills in each of its relations.
+     *
+     * @param colours  the colouring.
+     * @param node  the node.
+     * @return the node's signature.
+     */
+  private String signature(int colours[], int node)
+    {
+    StringBuffer sig;
+    String arcs[];
+    int rel, numArgs, argument, next, numRelators;
+
+    sig = new StringBuffer();
+    sig.append(colours[node]).append('|');
+
+    if (node >= numConcepts)
+    	{
+    	rel = node - numConcepts;
+    	numArgs = form.getNumberOfArguments(rel);
+    	for (int arg = 0; arg < numArgs; arg++)
+    		{
+    		argument = form.getArgumentId(rel, arg);
+    		sig.append((argument == -1) ? -1 : colours[argument]).append(',');
+    		}
+    	return sig.toString();
+    	}
+
+    numRelators = form.getNumberOfRelators(node);
+    arcs = new String[Math.max(numRelators, 1)];
+    next = 0;
+    for (int relator = 0; relator < numRelators; relator++)
+    	{
+    	rel = form.getRelatorId(node, relator);
+    	numArgs = form.getNumberOfArguments(rel);
+    	for (int arg = 0; arg < numArgs; arg++)
+    		if (form.getArgumentId(rel, arg) == node)
+    			{
+    			if (next == arcs.length)
+    				{
+    				String larger[] = new String[2 * arcs.length];
+    				System.arraycopy(arcs, 0, larger, 0, next);
+    				arcs = larger;
+    				}
+    			arcs[next] = arg + ":" + colours[numConcepts + rel];
+    			next++;
+    			}
+    	}
+
+    Arrays.sort(arcs, 0, next);
+    for (int index = 0; index < next; index++)
+    	sig.append(arcs[index]).append(',');
+
+    return sig.toString();
+    }
+
+    /**
+     * Returns true if a permutation of the nodes maps the arguments of every relation
+     * onto the arguments of its image, in the same places.
+     *
+     * @param perm  the image of each node.
+     * @return true if the permutation is an automorphism.
+     */
+  private boolean isAutomorphism(int perm[])
+    {
+    int rel, image, numArgs, argument, imageArgument;
+
+    for (int node = numConcepts; node < numNodes; node++)
+    	{
+    	rel = node - numConcepts;
+    	image = perm[node] - numConcepts;
+    	numArgs = form.getNumberOfArguments(rel);
+    	if ((image < 0) || (form.getNumberOfArguments(image) != numArgs))
+    		return false;
+
+    	for (int arg = 0; arg < numArgs; arg++)
+    		{
+    		argument = form.getArgumentId(rel, arg);
+    		imageArgument = form.getArgumentId(image, arg);
+    		if (((argument == -1) != (imageArgument == -1)) ||
+    			((argument != -1) && (perm[argument] != imageArgument)))
+    			return false;
+    		}
+    	}
+
+    return true;
+    }
+
+    /**
+     * Returns the root of a node in a union-find forest.
+     *
+     * @param parents  the parent of each node.
+     * @param node  the node.
+     * @return the root of the node's tree.
+     */
+  private static int findRoot(int parents[], int node)
+    {
+    while (parents[node] != node)
+    	{
+    	parents[node] = parents[parents[node]];
+    	node = parents[node];
+    	}
+
+    return node;
+    }
+
+    /**
+     * Returns the integers in a vector as an array.
+     *
+     * @param vec  a vector of Integer instances.
+     * @return an array of the integers, in order.
+     */
+  private static int[] toArray(Vector vec)
+    {
+    int arr[];
+
+    arr = new int[vec.size()];
+    for (int index = 0; index < arr.length; index++)
+    	arr[index] = ((Integer)vec.elementAt(index)).intValue();
+
+    return arr;
+    }
+  }
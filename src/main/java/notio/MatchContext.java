@@ -0,0 +1,195 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * Remembers the results of concept comparisons made during one match, so that
+     * the same pair of concepts is compared only once however many times the matching
+     * code asks about it.  With coreference agreement on, each comparison of two
+     * concepts compares every concept coreferent to the first with every concept
+     * coreferent to the second, and the candidate and arc checks repeat the same
+     * pairs many times.  The context caches the coreferent concepts of each concept,
+     * the result of each single comparison and the result of each agreement check,
+     * all keyed by node identity.
+     * <p>
+     * A context is only valid for one matching scheme and must not outlive the match
+     * it was made for, since it does not follow later changes to the graphs.  It is
+     * not safe for use by several threads at once.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.CompiledMatchingScheme
+     */
+class MatchContext
+  {
+	  /** Maps each concept to the array of its coreferent concepts. **/
+  private IdentityHashMap coreferentConcepts = new IdentityHashMap();
+
+	  /** Maps each first concept to a map from second concepts to single comparison results. **/
+  private IdentityHashMap singleResults = new IdentityHashMap();
+
+	  /** Maps each first concept to a map from second concepts to agreement results. **/
+  private IdentityHashMap agreementResults = new IdentityHashMap();
+
+  /* Constructors */
+    /**
+     * Constructs an empty context.
+     */
+  MatchContext()
+    {
+    }
+
+    /**
+     * Returns a new context if the scheme makes the matching code compare the same
+     * pairs of concepts repeatedly, or null if every pair is compared at most once
+     * and caching the results would only cost memory.  Pairs are repeated when
+     * coreference agreement is on, or when relations are matched by comparing the
+     * concepts on their arcs.
+     *
+     * @param matchingScheme  the matching scheme used for every comparison.
+     * @return a new context or null if none is needed.
+     */
+  static MatchContext createFor(MatchingScheme matchingScheme)
+    {
+    int relationFlag;
+
+    if (matchingScheme.getCoreferenceAgreementFlag() != MatchingScheme.COREF_AGREE_OFF)
+    	return new MatchContext();
+
+    relationFlag = matchingScheme.getRelationFlag();
+    if (((relationFlag == MatchingScheme.RN_MATCH_ARCS) ||
+    	(relationFlag == MatchingScheme.RN_MATCH_ALL)) &&
+    	(matchingScheme.getArcFlag() == MatchingScheme.ARC_MATCH_CONCEPT))
+    	return new MatchContext();
+
+    return null;
+    }
+
+    /**
+     * Returns the concepts coreferent to the specified concept, as given by
+     * Concept.getCoreferentConcepts(), finding them only on the first request.
+     * The array returned is shared and must not be modified.
+     *
+     * @param concept  the concept whose coreferent concepts are required.
+     * @return an array of the concepts coreferent to the concept.
+     */
+  Concept[] getCoreferentConcepts(Concept concept)
+    {
+    Concept concepts[];
+
+    concepts = (Concept[])coreferentConcepts.get(concept);
+    if (concepts == null)
+    	{
+    	concepts = concept.getCoreferentConcepts();
+    	coreferentConcepts.put(concept, concepts);
+    	}
+
+    return concepts;
+    }
+
+    /**
+     * Returns the result recorded for the specified pair in a result table, or null
+     * if there is none.
+     *
+     * @param table  the table of results.
+     * @param first  the first concept of the pair.
+     * @param second  the second concept of the pair.
+     * @return the recorded result or null.
+     */
+  private static MatchResult getResult(IdentityHashMap table, Concept first, Concept second)
+    {
+    IdentityHashMap row;
+
+    row = (IdentityHashMap)table.get(first);
+    if (row == null)
+    	return null;
+
+    return (MatchResult)row.get(second);
+    }
+
+    /**
+     * Records the result for the specified pair in a result table.
+     *
+     * @param table  the table of results.
+     * @param first  the first concept of the pair.
+     * @param second  the second concept of the pair.
+     * @param result  the result to be recorded.
+     */
+  private static void putResult(IdentityHashMap table, Concept first, Concept second,
+  	MatchResult result)
+    {
+    IdentityHashMap row;
+
+    row = (IdentityHashMap)table.get(first);
+    if (row == null)
+    	{
+    	row = new IdentityHashMap();
+    	table.put(first, row);
+    	}
+
+    row.put(second, result);
+    }
+
+    /**
+     * Returns the result of comparing two single concepts, ignoring coreference,
+     * recorded by an earlier call to putSingleResult(), or null if there is none.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @return the recorded result or null.
+     */
+  MatchResult getSingleResult(Concept first, Concept second)
+    {
+    return getResult(singleResults, first, second);
+    }
+
+    /**
+     * Records the result of comparing two single concepts, ignoring coreference.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @param result  the result of the comparison.
+     */
+  void putSingleResult(Concept first, Concept second, MatchResult result)
+    {
+    putResult(singleResults, first, second, result);
+    }
+
+    /**
+     * Returns the result of comparing two concepts and all the concepts coreferent
+     * to them, recorded by an earlier call to putAgreementResult(), or null if there
+     * is none.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @return the recorded result or null.
+     */
+  MatchResult getAgreementResult(Concept first, Concept second)
+    {
+    return getResult(agreementResults, first, second);
+    }
+
+    /**
+     * Records the result of comparing two concepts and all the concepts coreferent
+     * to them.
+     *
+     * @param first  the first concept being matched.
+     * @param second  the second concept being matched.
+     * @param result  the result of the comparison.
+     */
+  void putAgreementResult(Concept first, Concept second, MatchResult result)
+    {
+    putResult(agreementResults, first, second, result);
+    }
+  }
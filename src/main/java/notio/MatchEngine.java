@@ -0,0 +1,58 @@
+package notio;
+
+import java.util.*;
+
+    /** 
+     * Interface for match engines.  A match engine finds the node mappings between two
+     * graphs that satisfy a matching scheme.  Graph.matchGraphs() deals with null graphs,
+     * the graph flags that need no mapping, and the maximum number of matches, and asks
+     * the scheme's engine for the mappings themselves.  Applications may provide their
+     * own engine as part of a MatchingScheme.  The engines provided are:
+  	 * <UL>
+  	 *   <LI>GeneratorMatchEngine, which maps concepts and relations separately and then
+  	 *   discards mappings whose structures differ.  This is the reference engine and is
+  	 *   used when a scheme names no engine.
+  	 *   <LI>StateSpaceMatchEngine, which checks arguments as each relation is mapped,
+  	 *   optionally mapping the most constrained relations first.
+  	 *   <LI>ProjectionMatchEngine, which finds projections, subgraph matches with folding,
+  	 *   by keeping the candidates of every first node arc consistent.
+  	 * </UL>
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchingScheme
+     * @see notio.Graph#matchGraphs
+     */
+
+public interface MatchEngine
+  {
+  	/**
+  	 * Returns an enumeration of the node mappings from the first graph into the second
+  	 * that satisfy the specified scheme.  Only the GR_MATCH_COMPLETE, GR_MATCH_SUBGRAPH
+  	 * and GR_MATCH_PROPER_SUBGRAPH graph flags are passed to an engine, and neither
+  	 * graph is null.  If connected matching is required, every mapping returned must
+  	 * preserve the arguments of the first graph's relations.  If the scheme's symmetry
+  	 * flag is SYM_MATCH_DISTINCT, only one of the mappings that differ by a symmetry of
+  	 * the first graph should be returned.  Mappings should be found as the enumeration
+  	 * is read, so a caller that stops early does not pay for the rest.  An enumeration
+  	 * that searches in the background should also be AutoCloseable, so that closing
+  	 * a stream from Graph.streamMatches() stops the search.
+  	 *
+  	 * @param first  the graph being mapped from.
+  	 * @param second  the graph being mapped into.
+  	 * @param matchingScheme  the matching scheme that determines how the match is performed.
+  	 * @return an enumeration of NodeMapping instances.
+  	 */  	 
+  public Enumeration getMappings(Graph first, Graph second, MatchingScheme matchingScheme);
+  }
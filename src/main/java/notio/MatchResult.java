@@ -30,6 +30,15 @@ public class MatchResult
   /** An array of NodeMappings that describe the matches found. **/
   private NodeMapping mappings[];
 
+	/** Flag indicating that the search was stopped by its budget before it was complete. **/
+  private boolean truncated;
+
+	/** The reason the match was rejected before any search was made, or null. **/
+  private String rejectionReason;
+
+	/** Flag indicating that the mappings map the second graph into the first. **/
+  private boolean reversed;
+
     /**
      * Constructs a new MatchResult with the specified result flag.
      *
@@ -40,6 +49,19 @@ public class MatchResult
   	matchSucceeded = resultFlag;
   	}
 
+    /**
+     * Constructs a new MatchResult for a match that failed before any search was made,
+     * giving the reason it was rejected.
+     *
+     * @param resultFlag  a boolean value indicating whether the match was successful or not.
+     * @param newRejectionReason  a description of why the match was rejected, or null.
+     */
+  public MatchResult(boolean resultFlag, String newRejectionReason)
+  	{
+  	matchSucceeded = resultFlag;
+  	rejectionReason = newRejectionReason;
+  	}
+
     /**
      * Constructs a new MatchResult with the specified mappings.
      * The array of mappings must not be null although it could be empty.
@@ -49,6 +71,22 @@ public class MatchResult
      */
   public MatchResult(NodeMapping newMappings[])
   	{
+  	this(newMappings, false);
+  	}
+
+    /**
+     * Constructs a new MatchResult with the specified mappings, found by a search that
+     * may have been stopped by its budget before all mappings were found.
+     * The array of mappings must not be null although it could be empty.
+     *
+     * @param newMappings  an array of node mappings that describe the
+     * matches found.
+     * @param newTruncated  true if the search was stopped before it was complete.
+     */
+  public MatchResult(NodeMapping newMappings[], boolean newTruncated)
+  	{
+  	truncated = newTruncated;
+
   	if (newMappings == null)
   		throw new IllegalArgumentException("NodeMappings array cannot be null.");
 
@@ -70,6 +108,59 @@ public class MatchResult
 		return matchSucceeded;
 		}
   	
+		/**
+		 * Constructs a copy of the specified MatchResult whose mappings map the graphs in
+		 * the order given by the specified flag.
+		 * @param result  the result to be copied.
+		 * @param newReversed  true if the mappings map the second graph into the first.
+		 */
+	MatchResult(MatchResult result, boolean newReversed)
+		{
+		matchSucceeded = result.matchSucceeded;
+		mappings = result.mappings;
+		truncated = result.truncated;
+		rejectionReason = result.rejectionReason;
+		reversed = newReversed;
+		}
+
+		/**
+		 * Returns true if the search was stopped by its budget before it was complete,
+		 * so that there may be matches that were not found.  A truncated result with no
+		 * matches does not show that the match fails.
+		 *
+		 * @return true if the search was truncated.
+		 * @see notio.SearchBudget
+		 */
+	public boolean isTruncated()
+		{
+		return truncated;
+		}
+
+		/**
+		 * Returns a description of why the match was rejected before any search was made,
+		 * such as a difference in the number of concepts of some type, or null if it was
+		 * not.  This is intended for diagnostics.
+		 *
+		 * @return the reason the match was rejected, or null.
+		 */
+	public String getRejectionReason()
+		{
+		return rejectionReason;
+		}
+
+		/**
+		 * Returns true if the mappings map the second graph of the match into the first
+		 * rather than the first into the second.  This can only happen with
+		 * GR_MATCH_EITHER_SUBGRAPH and GR_MATCH_EITHER_PROPER_SUBGRAPH, when the first graph
+		 * is not a subgraph of the second but the second is one of the first.
+		 * @return true if the mappings run from the second graph to the first.
+		 * @see notio.Graph#matchGraphs
+		 */
+	public boolean isReversed()
+		{
+		return reversed;
+		}
+  	
   	/**
   	 * Returns the number of matches (mappings) found.
   	 * If no mappings were involved in the match operation, a 1 is returned.
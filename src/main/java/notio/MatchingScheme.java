@@ -176,6 +176,11 @@ public class MatchingScheme
   /** Marker matching control flag: markers always match. **/
   public final static int MARKER_MATCH_ANYTHING = 122;
 
+  /** Symmetry control flag: every mapping is returned.  **/
+  public final static int SYM_MATCH_ALL = 130;
+  /** Symmetry control flag: of the mappings that differ only by a symmetry of the first graph, one is returned.  **/
+  public final static int SYM_MATCH_DISTINCT = 131;
+
   /** The flag for matching graphs. **/
   private int graphFlag;
   /** The flag for matching concepts. **/
@@ -202,12 +207,20 @@ public class MatchingScheme
   private int foldingFlag;
   /** The flag for matching with unconnected graphs. **/
   private int connectedFlag;
+  /** The flag for returning mappings that differ only by a symmetry. **/
+  private int symmetryFlag = SYM_MATCH_ALL;
   /** The number of maximum number of graph matches to generated in the current context. **/
   private int maxMatches;
   /** The nested matching scheme. **/
   private MatchingScheme nestedScheme;
   /** The optional MarkerComparator. **/
   private MarkerComparator markerComparator;
+  /** The engine used to find graph mappings. **/
+  private MatchEngine matchEngine;
+  /** The budget that limits the searches made with this scheme, or null. **/
+  private SearchBudget searchBudget;
+  /** The compiled form of this scheme, built when first requested. **/
+  private volatile CompiledMatchingScheme compiledScheme;
 
     /**
      * Constructs a matching scheme with the specified control flags.
@@ -244,6 +257,50 @@ public class MatchingScheme
   	MarkerComparator newMarkerComparator,
   	MatchingScheme newNestedScheme)
     {
+    this(newGraphFlag, newConceptFlag, newRelationFlag, newConceptTypeFlag,
+    	newRelationTypeFlag, newQuantifierFlag, newDesignatorFlag, newMarkerFlag,
+    	newArcFlag, newCorefAutoMatchFlag, newCorefAgreementFlag, newFoldingFlag,
+    	newConnectedFlag, newMaxMatches, newMarkerComparator, newNestedScheme, null);
+    }
+
+    /**
+     * Constructs a matching scheme with the specified control flags and match engine.
+     *
+     * @param newGraphFlag  Matching flag for graphs.
+     * @param newConceptFlag  Matching flag for concepts.
+     * @param newRelationFlag  Matching flag for relations.
+     * @param newConceptTypeFlag  Matching flag for concept types.
+     * @param newRelationTypeFlag  Matching flag for relation types.
+     * @param newQuantifierFlag  Matching flag for quantifiers.
+     * @param newDesignatorFlag  Matching flag for designators.
+     * @param newMarkerFlag  Matching flag for markers.
+     * @param newArcFlag  Matching flag for arcs.
+     * @param newCorefAutoMatchFlag  Flag for automatching coreference concepts.
+     * @param newCorefAgreementFlag  Flag for forcing agreement with corefernt concepts.
+     * @param newFoldingFlag  Matching flag for folding.
+     * @param newConnectedFlag  Matching flag for connected graphs.
+     * @param newMaxMatches  The maximum number of graph matches to generate in this context.
+     * A zero indicates that all possible matches should be generated.
+     * @param newMarkerComparator a MarkerComparator to be used for matching Markers 
+     * (must be null if the marker matching flag does not call for a comparator).
+     * @param newNestedScheme  A nested matching scheme to be used
+     * for matching nested graphs (null means use present scheme).
+     * @param newMatchEngine  The engine used to find graph mappings (null means use
+     * a GeneratorMatchEngine).
+     */
+  public MatchingScheme(int newGraphFlag, 
+  	int newConceptFlag, int newRelationFlag,
+  	int newConceptTypeFlag, int newRelationTypeFlag,
+  	int newQuantifierFlag, int newDesignatorFlag,
+  	int newMarkerFlag,
+  	int newArcFlag, int newCorefAutoMatchFlag, 
+  	int newCorefAgreementFlag, int newFoldingFlag,
+  	int newConnectedFlag, 
+  	int newMaxMatches, 
+  	MarkerComparator newMarkerComparator,
+  	MatchingScheme newNestedScheme,
+  	MatchEngine newMatchEngine)
+    {
     if ((newGraphFlag < GR_MATCH_INSTANCE) || (newGraphFlag > GR_MATCH_ANYTHING))
     	throw new IllegalArgumentException("Invalid graph matching flag: " + newGraphFlag);
 
@@ -314,6 +371,98 @@ public class MatchingScheme
     nestedScheme = newNestedScheme;
 
     markerComparator = newMarkerComparator;
+
+    if (newMatchEngine == null)
+    	matchEngine = new GeneratorMatchEngine();
+    else
+    	matchEngine = newMatchEngine;
+    }
+
+    /**
+     * Constructs a matching scheme with the same control flags, comparator, nested scheme
+     * and match engine as the specified scheme, but limited by the specified search
+     * budget.  Since a budget is normally made for a single request, this lets a
+     * request share a scheme built once in advance.  If the nested scheme is null, the
+     * new scheme and its budget are used for nested graphs too.
+     *
+     * @param scheme  the scheme to be copied.
+     * @param newSearchBudget  the budget that limits searches made with the new scheme,
+     * or null for no limit.
+     */
+  public MatchingScheme(MatchingScheme scheme, SearchBudget newSearchBudget)
+    {
+    this(scheme, scheme.graphFlag, newSearchBudget);
+    }
+
+    /**
+     * Constructs a matching scheme like the specified scheme but with a different graph
+     * flag and search budget.  Every other field, including the nested scheme, is copied
+     * unchanged.
+     *
+     * @param scheme  the scheme to be copied.
+     * @param newGraphFlag  the graph matching flag of the new scheme.
+     * @param newSearchBudget  the budget that limits searches made with the new scheme,
+     * or null for no limit.
+     */
+  MatchingScheme(MatchingScheme scheme, int newGraphFlag, SearchBudget newSearchBudget)
+    {
+    this(scheme, newGraphFlag, scheme.symmetryFlag, newSearchBudget);
+    }
+
+    /**
+     * Constructs a matching scheme like the specified scheme but with a different
+     * symmetry flag.  With SYM_MATCH_DISTINCT, mappings that differ only by an
+     * automorphism of the first graph, a permutation of nodes the scheme cannot tell
+     * apart that preserves every relation's arguments, describe the same match, and
+     * only one of them is returned.  This is useful when the first graph has several
+     * interchangeable nodes, which would otherwise give every permutation of their
+     * images.  Symmetry is not broken when folding is allowed.
+     *
+     * @param scheme  the scheme to be copied.
+     * @param newSymmetryFlag  the symmetry flag of the new scheme.
+     * @exception IllegalArgumentException  if the symmetry flag is not valid.
+     */
+  public MatchingScheme(MatchingScheme scheme, int newSymmetryFlag)
+    {
+    this(scheme, scheme.graphFlag, newSymmetryFlag, scheme.searchBudget);
+    }
+
+    /**
+     * Constructs a matching scheme like the specified scheme but with a different graph
+     * flag, symmetry flag and search budget.
+     *
+     * @param scheme  the scheme to be copied.
+     * @param newGraphFlag  the graph matching flag of the new scheme.
+     * @param newSymmetryFlag  the symmetry flag of the new scheme.
+     * @param newSearchBudget  the budget that limits searches made with the new scheme,
+     * or null for no limit.
+     * @exception IllegalArgumentException  if the symmetry flag is not valid.
+     */
+  private MatchingScheme(MatchingScheme scheme, int newGraphFlag, int newSymmetryFlag,
+  	SearchBudget newSearchBudget)
+    {
+    if ((newSymmetryFlag < SYM_MATCH_ALL) || (newSymmetryFlag > SYM_MATCH_DISTINCT))
+    	throw new IllegalArgumentException("Invalid symmetry flag: " + newSymmetryFlag);
+
+    graphFlag = newGraphFlag;
+    conceptFlag = scheme.conceptFlag;
+    relationFlag = scheme.relationFlag;
+    conceptTypeFlag = scheme.conceptTypeFlag;
+    relationTypeFlag = scheme.relationTypeFlag;
+    quantifierFlag = scheme.quantifierFlag;
+    designatorFlag = scheme.designatorFlag;
+    markerFlag = scheme.markerFlag;
+    arcFlag = scheme.arcFlag;
+    corefAutoMatchFlag = scheme.corefAutoMatchFlag;
+    corefAgreementFlag = scheme.corefAgreementFlag;
+    foldingFlag = scheme.foldingFlag;
+    connectedFlag = scheme.connectedFlag;
+    symmetryFlag = newSymmetryFlag;
+    maxMatches = scheme.maxMatches;
+    nestedScheme = scheme.nestedScheme;
+    markerComparator = scheme.markerComparator;
+    matchEngine = scheme.matchEngine;
+    searchBudget = newSearchBudget;
     }
 
     /**
@@ -477,4 +626,70 @@ public class MatchingScheme
     {
     return markerComparator;
     }
+
+    /**
+     * Returns the MatchEngine used to find graph mappings in this scheme.
+     *
+     * @return the MatchEngine used to find graph mappings in this scheme.
+     */
+  public MatchEngine getMatchEngine()
+    {
+    return matchEngine;
+    }
+
+    /**
+     * Returns the symmetry control flag for this scheme.
+     *
+     * @return the symmetry control flag for this scheme.
+     */
+  public int getSymmetryFlag()
+    {
+    return symmetryFlag;
+    }
+
+    /**
+     * Returns the budget that limits the searches made with this scheme, if any.
+     *
+     * @return the search budget of this scheme or null if searches are not limited.
+     */
+  public SearchBudget getSearchBudget()
+    {
+    return searchBudget;
+    }
+
+    /**
+     * Returns this scheme compiled into comparison objects specialized to its flags,
+     * which give the same results as the static matching methods without reading the
+     * flags on every comparison.  The compiled scheme is built on the first call and
+     * returned again by later calls.  Since both the scheme and its compiled form are
+     * immutable, a race between threads can at worst build it twice.
+     *
+     * @return the compiled form of this scheme.
+     */
+  public CompiledMatchingScheme compile()
+    {
+    CompiledMatchingScheme compiled;
+
+    compiled = compiledScheme;
+    if (compiled == null)
+    	{
+    	compiled = new CompiledMatchingScheme(this);
+    	compiledScheme = compiled;
+    	}
+
+    return compiled;
+    }
+
+    /**
+     * Compiles this scheme with a cache of type comparisons, replacing any compiled
+     * form already built.  This is only used on private copies of schemes, such as
+     * the one held by a PreparedQuery, which match over the same hierarchies many
+     * times.  The cache is dropped whenever the type order of a hierarchy changes.
+     *
+     * @see notio.PreparedQuery
+     */
+  void compileWithTypeCache()
+    {
+    compiledScheme = new CompiledMatchingScheme(this, true);
+    }
   }
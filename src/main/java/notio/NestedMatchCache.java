@@ -0,0 +1,189 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * Remembers the results of matching nested graphs during one outer match, so that
+     * the same pair of descriptors is matched only once however many times the outer
+     * search asks about it.  Comparing two concepts with descriptors matches their
+     * descriptors in full, and when descriptors are shared by several concepts, as
+     * they are in graphs copied by reference, every level of nesting multiplies the
+     * number of times the same inner pairs are matched.
+     * <p>
+     * Results are keyed by the identities of the two graphs and of the scheme used to
+     * match them.  A graph and a reference to it are different keys, since the mappings
+     * in a result name the graphs that were matched.  At most MAX_RESULTS results are
+     * kept, and the least recently used are dropped first.  Results cut short by a
+     * search budget are not kept.
+     * <p>
+     * The cache belongs to the thread making the outer match.  It is made when
+     * Graph.matchGraphs() or Referent.matchReferents() is entered on a thread that has
+     * none, and dropped when that call returns, so it does not follow changes made to
+     * the graphs between matches.  Since a result depends only on its key, matches run
+     * on the same thread while the cache is held may share it.  Only the sequential
+     * path is cached as a whole.  Comparisons made on other threads, such as by the
+     * tasks of ParallelMatchEngine or of PreparedQuery.matchAll() with a pool, use a
+     * cache of their own thread.  The mappings of a stream from Graph.streamMatches()
+     * are found after the call that made the stream has returned, so each comparison
+     * made while the stream is read starts with an empty cache.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.Referent#matchReferents
+     */
+class NestedMatchCache
+  {
+	  /** The largest number of results kept. **/
+  static final int MAX_RESULTS = 1024;
+
+	  /** The cache held by each thread, if it is making a match. **/
+  private static final ThreadLocal current = new ThreadLocal();
+
+	  /** Maps each key to its result, in order of use, or null if nothing is recorded yet. **/
+  private ResultTable results;
+
+	  /** The number of calls on the thread that are using the cache. **/
+  private int users = 0;
+
+  /* Constructors */
+    /**
+     * Constructs an empty cache.
+     */
+  private NestedMatchCache()
+    {
+    }
+
+    /**
+     * Returns the cache held by the current thread, making one if it holds none, and
+     * counts the caller as one of its users.  Every call must be followed by a call
+     * to release() when the caller's match is complete.
+     *
+     * @return the cache for the current thread.
+     */
+  static NestedMatchCache acquire()
+    {
+    NestedMatchCache cache;
+
+    cache = (NestedMatchCache)current.get();
+    if (cache == null)
+    	{
+    	cache = new NestedMatchCache();
+    	current.set(cache);
+    	}
+
+    cache.users++;
+    return cache;
+    }
+
+    /**
+     * Stops the caller using this cache, and drops the cache when it has no more users.
+     */
+  void release()
+    {
+    users--;
+    if (users == 0)
+    	current.remove();
+    }
+
+    /**
+     * Returns the result recorded for matching two graphs under a scheme, or null if
+     * there is none.
+     *
+     * @param first  the first graph being matched.
+     * @param second  the second graph being matched.
+     * @param matchingScheme  the matching scheme used for the match.
+     * @return the recorded result or null.
+     */
+  MatchResult getResult(Graph first, Graph second, MatchingScheme matchingScheme)
+    {
+    if (results == null)
+    	return null;
+
+    return (MatchResult)results.get(new Key(first, second, matchingScheme));
+    }
+
+    /**
+     * Records the result of matching two graphs under a scheme, unless the search that
+     * found it was cut short.
+     *
+     * @param first  the first graph being matched.
+     * @param second  the second graph being matched.
+     * @param matchingScheme  the matching scheme used for the match.
+     * @param result  the result of the match.
+     */
+  void putResult(Graph first, Graph second, MatchingScheme matchingScheme, MatchResult result)
+    {
+    if (result.isTruncated())
+    	return;
+
+    if (results == null)
+    	results = new ResultTable();
+
+    results.put(new Key(first, second, matchingScheme), result);
+    }
+
+    /**
+     * A pair of graphs and a scheme, compared by identity.
+     */
+  private static final class Key
+    {
+		  /** The graphs being matched. **/
+    private Graph first, second;
+
+		  /** The scheme used for the match. **/
+    private MatchingScheme matchScheme;
+
+    Key(Graph newFirst, Graph newSecond, MatchingScheme matchingScheme)
+      {
+      first = newFirst;
+      second = newSecond;
+      matchScheme = matchingScheme;
+      }
+
+    public boolean equals(Object other)
+      {
+      Key otherKey;
+
+      if (!(other instanceof Key))
+      	return false;
+
+      otherKey = (Key)other;
+      return (first == otherKey.first) && (second == otherKey.second) &&
+      	(matchScheme == otherKey.matchScheme);
+      }
+
+    public int hashCode()
+      {
+      return (31 * System.identityHashCode(first) + System.identityHashCode(second)) * 31 +
+      	System.identityHashCode(matchScheme);
+      }
+    }
+
+    /**
+     * A table of results in order of use that drops the least recently used result
+     * once it holds more than MAX_RESULTS.
+     */
+  private static final class ResultTable extends LinkedHashMap
+    {
+    ResultTable()
+      {
+      super(16, 0.75f, true);
+      }
+
+    protected boolean removeEldestEntry(Map.Entry eldest)
+      {
+      return size() > MAX_RESULTS;
+      }
+    }
+  }
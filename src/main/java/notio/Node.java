@@ -29,6 +29,10 @@ abstract public class Node implements java.io.Serializable
   private Graph enclosingGraph;
   /** The comment associated with this node. **/
   private String comment;
+  /** The parent of this node in the connected component forest of its enclosing graph. **/
+  transient Node componentParent;
+  /** The rank of this node in the connected component forest of its enclosing graph. **/
+  transient int componentRank;
 
   	/**
   	 * Returns the type for this node.
@@ -50,7 +54,14 @@ abstract public class Node implements java.io.Serializable
   	 */
   void setNodeType(Type newType)
   	{
+  	Type oldType;
+
+  	oldType = type;
   	type = newType;
+
+  	// Keep the enclosing graph's type buckets current.
+  	if ((enclosingGraph != null) && (oldType != newType))
+  		enclosingGraph.updateNodeType(this, oldType);
   	}
   
     /**
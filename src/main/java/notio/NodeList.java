@@ -0,0 +1,398 @@
+package notio;
+
+import java.util.*;
+import java.io.Serializable;
+
+    /**
+     * An insertion-ordered collection of nodes used to hold the concepts or
+     * relations of a graph.  Membership is tracked by identity in a hash table
+     * so that adding, removing and testing for a node are constant-time operations,
+     * while enumeration still follows the order in which nodes were added.
+     * Removed nodes leave an empty slot that is reclaimed when the slots become
+     * mostly empty, so removal does not shift the remaining nodes.
+     * <p>
+     * Reading the list never changes it.  While empty slots remain, a node is found
+     * by position through a tree that counts the empty slots, in time logarithmic in
+     * the number of slots; once the slots are compacted it is found directly.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it
+		 *	under the terms of the GNU Library General Public License as published
+		 *	by the Free Software Foundation; either version 2 of the License, or
+		 *	(at your option) any later version.  This program is distributed in the
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+		 *	See the GNU Library General Public License for more details.  You should
+		 *	have received a copy of the GNU Library General Public License along
+		 *	with this program; if not, write to the Free Software Foundation, Inc.,
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+
+class NodeList implements Serializable
+  {
+	  /** The smallest number of slots the list will bother to compact. **/
+  private static final int MIN_COMPACT = 16;
+
+	  /** The node slots in insertion order.  Removed nodes leave a null slot. **/
+  private Node slots[];
+
+	  /** The number of slots in use, including empty ones. **/
+  private int end = 0;
+
+	  /** The number of nodes in the list. **/
+  private int count = 0;
+
+	  /** Maps each node in the list to its slot. **/
+  private IdentityHashMap slotIndex = new IdentityHashMap();
+
+	  /** Incremented whenever a node is added or removed, so iterators can fail fast. **/
+  private int modCount = 0;
+
+	  /** A Fenwick tree counting the empty slots before end, or null if there are none. **/
+  private int holeTree[] = null;
+
+  /* Constructors */
+    /**
+     * Constructs an empty node list.
+     */
+  NodeList()
+    {
+    slots = new Node[2];
+    }
+
+    /**
+     * Returns the number of nodes in this list.
+     *
+     * @return the number of nodes in this list.
+     */
+  int size()
+    {
+    return count;
+    }
+
+    /**
+     * Returns true if the specified node is in this list.
+     *
+     * @param node  the node being checked for.
+     * @return true if the node is in this list.
+     */
+  boolean contains(Node node)
+    {
+    return slotIndex.containsKey(node);
+    }
+
+    /**
+     * Adds a node to the end of this list.  If the node is already in the
+     * list, nothing is changed.
+     *
+     * @param node  the node to be added.
+     * @return true if the node was added, false if it was already present.
+     */
+  boolean addElement(Node node)
+    {
+    Node newSlots[];
+
+    if (slotIndex.containsKey(node))
+    	return false;
+
+    if (end == slots.length)
+    	{
+    	// Reclaim empty slots before growing if they make up most of the array.
+    	if ((end - count) > (end >> 1))
+    		compact();
+    	else
+    		{
+	    	newSlots = new Node[slots.length * 2];
+	    	System.arraycopy(slots, 0, newSlots, 0, end);
+	    	slots = newSlots;
+	    	if (holeTree != null)
+	    		rebuildHoleTree();
+	    	}
+    	}
+
+    slots[end] = node;
+    slotIndex.put(node, new Integer(end));
+    end++;
+    count++;
+    modCount++;
+    return true;
+    }
+
+    /**
+     * Removes a node from this list.  The order of the remaining nodes is
+     * unchanged.
+     *
+     * @param node  the node to be removed.
+     * @return true if the node was removed, false if it was not present.
+     */
+  boolean removeElement(Node node)
+    {
+    Integer slot;
+
+    slot = (Integer)slotIndex.remove(node);
+    if (slot == null)
+    	return false;
+
+    slots[slot.intValue()] = null;
+    count--;
+    modCount++;
+
+    if (count == 0)
+    	{
+    	end = 0;
+    	holeTree = null;
+    	}
+    else
+	    if ((end >= MIN_COMPACT) && (count < (end >> 2)))
+	    	compact();
+	    else
+	    	addHole(slot.intValue());
+
+    return true;
+    }
+
+    /**
+     * Copies the nodes in this list, in order, into the specified array.
+     * The array must be at least as long as the list.
+     *
+     * @param nodeArr  the array into which the nodes are copied.
+     */
+  void copyInto(Object nodeArr[])
+    {
+    copyInto(nodeArr, 0);
+    }
+
+    /**
+     * Copies the nodes in this list, in order, into the specified array
+     * starting at the given position.
+     *
+     * @param nodeArr  the array into which the nodes are copied.
+     * @param offset  the position in the array of the first node copied.
+     */
+  void copyInto(Object nodeArr[], int offset)
+    {
+    int next;
+
+    if (count == end)
+    	{
+    	System.arraycopy(slots, 0, nodeArr, offset, end);
+    	return;
+    	}
+
+    next = offset;
+    for (int slot = 0; slot < end; slot++)
+    	if (slots[slot] != null)
+    		{
+    		nodeArr[next] = slots[slot];
+    		next++;
+    		}
+    }
+
+    /**
+     * Returns the node at the specified position in this list.  The list is not
+     * changed, so several threads may read it at once.
+     *
+     * @param index  the position of the node, counting from zero.
+     * @return the node at the specified position.
+     * @exception ArrayIndexOutOfBoundsException  if the index is out of range.
+     */
+  Node get(int index)
+    {
+    int slot, remaining, live;
+
+    if ((index < 0) || (index >= count))
+    	throw new ArrayIndexOutOfBoundsException(index);
+
+    if (holeTree == null)
+    	return slots[index];
+
+    // Descend the tree to the last slot with no more than index nodes before it.
+    // Each step covers a range of step slots holding step - holeTree[slot + step] nodes.
+    slot = 0;
+    remaining = index + 1;
+    for (int step = slots.length; step > 0; step >>= 1)
+    	if (slot + step <= slots.length)
+    		{
+    		live = step - holeTree[slot + step];
+    		if (live < remaining)
+    			{
+    			slot += step;
+    			remaining -= live;
+    			}
+    		}
+
+    return slots[slot];
+    }
+
+    /**
+     * Returns a read-only iterator over the nodes in this list, in order.
+     * The iterator throws a ConcurrentModificationException if the list is
+     * modified while it is in use.
+     *
+     * @return an iterator over the nodes in this list.
+     */
+  Iterator iterator()
+    {
+    return new NodeIterator(null, true);
+    }
+
+    /**
+     * Returns a read-only iterator over those nodes in this list that are, or
+     * are not, instances of the specified class.
+     *
+     * @param nodeClass  the class used to select nodes.
+     * @param include  true to return instances of the class, false to return all others.
+     * @return an iterator over the selected nodes in this list.
+     */
+  Iterator iterator(Class nodeClass, boolean include)
+    {
+    return new NodeIterator(nodeClass, include);
+    }
+
+    /**
+     * Returns an ordered spliterator over the nodes in this list.
+     *
+     * @return a spliterator over the nodes in this list.
+     */
+  Spliterator spliterator()
+    {
+    return Spliterators.spliterator(iterator(), count,
+    	Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    /**
+     * Returns an ordered spliterator over those nodes in this list that are, or
+     * are not, instances of the specified class.
+     *
+     * @param nodeClass  the class used to select nodes.
+     * @param include  true to return instances of the class, false to return all others.
+     * @return a spliterator over the selected nodes in this list.
+     */
+  Spliterator spliterator(Class nodeClass, boolean include)
+    {
+    return Spliterators.spliteratorUnknownSize(iterator(nodeClass, include),
+    	Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    /**
+     * Moves all nodes to the front of the slot array, discarding empty slots,
+     * and updates the slot index accordingly.
+     */
+  private void compact()
+    {
+    int next;
+
+    next = 0;
+    for (int slot = 0; slot < end; slot++)
+    	if (slots[slot] != null)
+    		{
+    		if (slot != next)
+    			{
+	    		slots[next] = slots[slot];
+	    		slots[slot] = null;
+	    		slotIndex.put(slots[next], new Integer(next));
+	    		}
+    		next++;
+    		}
+
+    end = next;
+    holeTree = null;
+    }
+
+    /**
+     * Records that a slot has become empty in the tree of empty slots, creating
+     * the tree if this is the first.
+     *
+     * @param slot  the slot that is now empty.
+     */
+  private void addHole(int slot)
+    {
+    if (holeTree == null)
+    	holeTree = new int[slots.length + 1];
+
+    for (int pos = slot + 1; pos <= slots.length; pos += pos & -pos)
+    	holeTree[pos]++;
+    }
+
+    /**
+     * Rebuilds the tree of empty slots after the slot array has grown.
+     */
+  private void rebuildHoleTree()
+    {
+    holeTree = null;
+    for (int slot = 0; slot < end; slot++)
+    	if (slots[slot] == null)
+    		addHole(slot);
+    }
+
+    /**
+     * A fail-fast iterator that walks the slots directly, optionally selecting
+     * nodes by class.
+     */
+  private class NodeIterator implements Iterator
+    {
+		  /** The class used to select nodes, or null to select all nodes. **/
+    private Class nodeClass;
+
+		  /** True to select instances of nodeClass, false to select all others. **/
+    private boolean include;
+
+		  /** The slot from which the search for the next node starts. **/
+    private int cursor = 0;
+
+		  /** The slot holding the next node to be returned, or -1 if not yet found. **/
+    private int nextSlot = -1;
+
+		  /** The modification count the list is expected to have. **/
+    private int expectedModCount;
+
+    NodeIterator(Class newNodeClass, boolean newInclude)
+      {
+      nodeClass = newNodeClass;
+      include = newInclude;
+      expectedModCount = modCount;
+      }
+
+    public boolean hasNext()
+      {
+      Node node;
+
+      if (modCount != expectedModCount)
+      	throw new ConcurrentModificationException();
+
+      if (nextSlot != -1)
+      	return true;
+
+      while (cursor < end)
+      	{
+      	node = slots[cursor];
+      	cursor++;
+      	if ((node != null) && ((nodeClass == null) || (nodeClass.isInstance(node) == include)))
+      		{
+      		nextSlot = cursor - 1;
+      		return true;
+      		}
+      	}
+
+      return false;
+      }
+
+    public Object next()
+      {
+      Node node;
+
+      if (!hasNext())
+      	throw new NoSuchElementException();
+
+      node = slots[nextSlot];
+      nextSlot = -1;
+      return node;
+      }
+
+    public void remove()
+      {
+      throw new UnsupportedOperationException("Graph node views are read-only.");
+      }
+    }
+  }
@@ -24,7 +24,6 @@ import java.util.*;
      * @bug Folding probably requires that folded nodes match.  The current method is
      * that they just have to match the same node in another graph but they should match
      * each other too, I think.
-     * @bug Need to test folding.
      * @bug Need to add common subgraph stuff.
      * @bug Need to fix proper subgraph implementation and restrictions.
      * @bug Some types of relation matching might preclude the need for mapping related
@@ -62,6 +61,8 @@ class NodeMappingGenerator
   private Graph firstGraph;
   /** Second graph. **/
   private Graph secondGraph;
+  /** Frozen forms of the first and second graphs. **/
+  private FrozenGraph firstForm, secondForm;
   /** The matching scheme used for mapping. **/
   private MatchingScheme matchScheme;
   /** The concepts from the first graph. **/
@@ -80,12 +81,14 @@ class NodeMappingGenerator
   private int numFirstRelations;
   /** The number of relation in the second graph. **/
   private int numSecondRelations;
-  /** The matching concept pairs. **/
-  private int conceptCandidates[][];
-  /** The matching relation pairs. **/
-  private int relationCandidates[][];
-	/** The MatchResult associated with each of the concept pairs. **/
-	private MatchResult conceptMatchResults[][];
+  /** The matching concept pairs, as a row of bits over the second concepts for each first concept. **/
+  private long conceptCandidates[][];
+  /** The matching relation pairs, as a row of bits over the second relations for each first relation. **/
+  private long relationCandidates[][];
+  /** The word of second node ids at which each row of concept or relation candidates starts. **/
+  private int conceptCandidateOffsets[], relationCandidateOffsets[];
+	/** The MatchResults carrying node mappings for each first concept, keyed by second concept id. **/
+	private Hashtable conceptMatchResults[];
 
   /** Flags indicating whether or not the first and second graphs may be folded. **/
   private boolean foldFirst, foldSecond;
@@ -103,6 +106,25 @@ class NodeMappingGenerator
 	/** Comparison operation to be performed for the second mapping requirements. **/
 	private int secondComparator;
 
+	/** Flag indicating that concepts connected in the first graph must map to connected concepts. **/
+	private boolean pruneComponents;
+	/** Connected component numbers of the first and second concepts. **/
+	private int firstConceptComponents[], secondConceptComponents[];
+	/** The second component into which each first component is currently mapped. **/
+	private int componentImages[];
+	/** The number of currently mapped concepts from each first component. **/
+	private int componentUsage[];
+
+	/** Flag indicating that concepts must map consistently with the current relation mapping. **/
+	private boolean pruneArguments;
+	/** The second relation id onto which each first relation is currently mapped. **/
+	private int relationImages[];
+
+	/** The symmetry constraints on the images of the first nodes, or null if there are none. **/
+	private GraphSymmetry symmetry;
+	/** The second node id onto which each first node is mapped by the current choices, or -1. **/
+	private int chosenConceptImages[], chosenRelationImages[];
+
 
 
 
@@ -127,10 +149,12 @@ class NodeMappingGenerator
 	private int usedFirstConcepts[], usedSecondConcepts[];
 	/** Usage counters for relation nodes. **/
 	private int usedFirstRelations[], usedSecondRelations[];
+	/** Bits marking the second concepts and relations that are currently used. **/
+	private long usedSecondConceptSet[], usedSecondRelationSet[];
 
-	/** Pair index stacks for concepts. **/
+	/** Stacks of the first and second concept ids chosen at each choice point. **/
 	private int firstConceptPairIndices[], secondConceptPairIndices[];
-	/** Pair index stacks for relations. **/
+	/** Stacks of the first and second relation ids chosen at each choice point. **/
 	private int firstRelationPairIndices[], secondRelationPairIndices[];
 
 	/** Currently selected concept nodes for mapping from first to second. **/
@@ -140,6 +164,9 @@ class NodeMappingGenerator
 
 	/** MatchResults corresponding to selected concept pairs. **/
 	private MatchResult chosenMatchResults[];
+
+	/** The budget that limits the search, or null if it is not limited. **/
+	private SearchBudget searchBudget;
 	
     /**
      * Constructs a generator of node mappings from the first graph to the second.
@@ -169,16 +196,20 @@ class NodeMappingGenerator
     boolean foldingAllowed = false;
     boolean matchAllFirst = false;
     boolean matchAllSecond = false;
+    MatchContext matchContext;
 
     mapConcepts = mapConceptNodes;
     mapRelations = mapRelationNodes;
     firstGraph = newFirst;
     secondGraph = newSecond;
     matchScheme = matchingScheme;
-    firstConcepts = firstGraph.getConcepts();
-    secondConcepts = secondGraph.getConcepts();
-    firstRelations = firstGraph.getRelations();
-    secondRelations = secondGraph.getRelations();
+    searchBudget = matchingScheme.getSearchBudget();
+    firstForm = firstGraph.freeze();
+    secondForm = secondGraph.freeze();
+    firstConcepts = firstForm.getConcepts();
+    secondConcepts = secondForm.getConcepts();
+    firstRelations = firstForm.getRelations();
+    secondRelations = secondForm.getRelations();
 
 		numFirstConcepts = firstConcepts.length;
 		numSecondConcepts = secondConcepts.length;
@@ -187,11 +218,10 @@ class NodeMappingGenerator
 
     foldingAllowed = matchScheme.getFoldingFlag() == MatchingScheme.FOLD_MATCH_ON;
 
+    // Under folding several first nodes may share an image, but each first node is still
+    // mapped exactly once, so only the first graph folds.
     if (foldingAllowed)
-    	{
     	foldFirst = true;
-    	foldSecond = true;
-    	}
 
     switch (matchingScheme.getGraphFlag())
       {
@@ -271,12 +301,16 @@ class NodeMappingGenerator
     	return;
     	};
 
+    // Relation candidates may compare the same concepts again on their arcs.
+    matchContext = MatchContext.createFor(matchScheme);
+
     // Find all candidate concept mappings from first to second
     if (mapConcepts)
       {
       // If we're not allowing subgraph matches, we set the matchAllFirst flag to true.
+      conceptCandidateOffsets = new int[numFirstConcepts];
       conceptCandidates = findNodeMatches(firstConcepts, secondConcepts, matchScheme, 
-      	matchAllFirst, matchAllSecond);
+      	matchAllFirst, matchAllSecond, matchContext, conceptCandidateOffsets);
 
       if (conceptCandidates == null)
       	{
@@ -285,14 +319,22 @@ class NodeMappingGenerator
 				}
 
 			initializeConceptMappings();
+
+			// When connected matching is required and every first relation is to be mapped,
+			// concepts connected in the first graph can only map to concepts connected in the
+			// second, so we can refuse other choices before the structures are compared.
+			if ((matchScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) && mapRelations &&
+				!foldFirst && !foldSecond)
+				initializeComponents();
       }
 
     // Find all candidate relation mappings from first to second
     if (mapRelations)
       {
       // If we're not allowing subgraph matches, we set the matchAllFirst flag to true.
+      relationCandidateOffsets = new int[numFirstRelations];
       relationCandidates = findNodeMatches(firstRelations, secondRelations, matchScheme,
-      	matchAllFirst, matchAllSecond);
+      	matchAllFirst, matchAllSecond, matchContext, relationCandidateOffsets);
 
       if (relationCandidates == null)
       	{
@@ -303,6 +345,27 @@ class NodeMappingGenerator
 			initializeRelationMappings();
       }
 
+		// Under connected matching, the arguments of each mapped relation must map onto the
+		// arguments of its image.  Since relations are mapped before concepts, concept choices
+		// that disagree with the current relation mapping can be refused immediately.
+		if ((matchScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) && mapConcepts &&
+			mapRelations && !foldFirst && !foldSecond)
+			{
+			relationImages = new int[numFirstRelations];
+			pruneArguments = true;
+			}
+
+		// If only one of each set of mappings that differ by a symmetry of the first graph
+		// is wanted, interchangeable first nodes must have images in the order it requires.
+		symmetry = GraphSymmetry.findSymmetry(firstForm, matchScheme);
+		if (symmetry != null)
+			{
+			chosenConceptImages = new int[numFirstConcepts];
+			chosenRelationImages = new int[numFirstRelations];
+			Arrays.fill(chosenConceptImages, -1);
+			Arrays.fill(chosenRelationImages, -1);
+			}
+
   // Complete match (no folding)
   	// One pair for each of first and second, no reusing nodes.
   // Complete match (folding)
@@ -329,6 +392,92 @@ class NodeMappingGenerator
 
     }
 
+		/**
+		 * Numbers the connected components of the two graphs for component pruning.
+		 */
+	private void initializeComponents()
+		{
+		int numFirstComponents;
+
+		firstConceptComponents = new int[numFirstConcepts];
+		for (int con = 0; con < numFirstConcepts; con++)
+			firstConceptComponents[con] = firstForm.getComponentId(con);
+		secondConceptComponents = new int[numSecondConcepts];
+		for (int con = 0; con < numSecondConcepts; con++)
+			secondConceptComponents[con] = secondForm.getComponentId(con);
+		numFirstComponents = firstForm.getNumberOfComponents();
+
+		componentImages = new int[numFirstComponents];
+		componentUsage = new int[numFirstComponents];
+		pruneComponents = true;
+		}
+
+		/**
+		 * Records the second relation onto which each first relation is mapped by the
+		 * relation mapping just generated.
+		 */
+	private void updateRelationImages()
+		{
+		for (int choice = 0; choice < numFirstRelations; choice++)
+			relationImages[firstRelationPairIndices[choice]] = secondRelationPairIndices[choice];
+		}
+
+		/**
+		 * Returns the only second concept onto which the specified first concept may be
+		 * mapped under the current relation mapping, or -1 if the relations do not decide
+		 * one.  The image is taken from the first relation and position in which the
+		 * concept appears, and must still be checked against the others.
+		 *
+		 * @param firstCon  the id of the first concept.
+		 * @return the id of the second concept, or -1 if the relations do not decide it.
+		 */
+	private int argumentImage(int firstCon)
+		{
+		int firstRel, secondRel, numArgs;
+
+		if (firstForm.getNumberOfRelators(firstCon) == 0)
+			return -1;
+
+		firstRel = firstForm.getRelatorId(firstCon, 0);
+		secondRel = relationImages[firstRel];
+		numArgs = Math.min(firstForm.getNumberOfArguments(firstRel),
+			secondForm.getNumberOfArguments(secondRel));
+		for (int arg = 0; arg < numArgs; arg++)
+			if (firstForm.getArgumentId(firstRel, arg) == firstCon)
+				return secondForm.getArgumentId(secondRel, arg);
+
+		return -1;
+		}
+
+		/**
+		 * Returns true if mapping the specified first concept onto the specified second
+		 * concept agrees with the current relation mapping.  Wherever the first concept
+		 * is an argument of a first relation, the second concept must be the argument in
+		 * the same position of that relation's image.
+		 *
+		 * @param firstCon  the id of the first concept.
+		 * @param secondCon  the id of the second concept.
+		 * @return true if the concepts may be mapped.
+		 */
+	private boolean argumentsAgree(int firstCon, int secondCon)
+		{
+		int firstRel, secondRel, numArgs;
+
+		for (int relator = firstForm.getNumberOfRelators(firstCon) - 1; relator >= 0; relator--)
+			{
+			firstRel = firstForm.getRelatorId(firstCon, relator);
+			secondRel = relationImages[firstRel];
+			numArgs = firstForm.getNumberOfArguments(firstRel);
+			for (int arg = 0; arg < numArgs; arg++)
+				if (firstForm.getArgumentId(firstRel, arg) == firstCon)
+					if ((arg >= secondForm.getNumberOfArguments(secondRel)) ||
+						(secondForm.getArgumentId(secondRel, arg) != secondCon))
+						return false;
+			}
+
+		return true;
+		}
+
 		/**
 		 * Returns false if the number of nodes in the graphs makes a mapping impossible.
 		 *
@@ -357,6 +506,12 @@ class NodeMappingGenerator
 	        {
 	        return true;
 	        }
+
+				// Every first node is mapped, and at least one second node of each kind must
+				// be left out, so the second graph needs more nodes of each kind the first has.
+	      if (((numFirstConcepts > 0) && (numFirstConcepts >= numSecondConcepts)) ||
+	      	((numFirstRelations > 0) && (numFirstRelations >= numSecondRelations)))
+	      	return true;
 	      }
 	    else
 	    	{
@@ -368,6 +523,14 @@ class NodeMappingGenerator
 	        }
 	      }
 	    }
+		else if (subgraph)
+			{
+			// A folding first graph may map onto a single node of each type, but the second
+			// graph must still have one of each type that the first has.
+			if (((numFirstConcepts > 0) && (numSecondConcepts == 0)) ||
+				((numFirstRelations > 0) && (numSecondRelations == 0)))
+				return true;
+			}
 		else
 			{
 			// Complete graph matches have restrictions if neither fold or if the larger
@@ -397,8 +560,10 @@ class NodeMappingGenerator
 
     /**
      * Returns a table in which, for each of the first nodes, the matching second nodes
-     * indices are listed.  If the matchAllFirst flag is true, a match must be found for
-     * all of the first nodes or this method will return null.
+     * are marked in a row of bits.  Each row holds only the words from the one containing
+     * its lowest candidate to the one containing its highest, and the position of its
+     * first word is stored in the offsets array.  If the matchAllFirst flag is true, a
+     * match must be found for all of the first nodes or this method will return null.
      *
      * @param firstNodes the array of nodes being mapped from.
      * @param secondNodes  the array of Nodes being mapped into.
@@ -407,62 +572,86 @@ class NodeMappingGenerator
      * this method returns null.
      * @param matchAllSecond  requires that all concepts in the second array be matched or
      * this method returns null.
+     * @param matchContext  the context of the match, or null if comparisons are not kept.
+     * @param offsets  an array, as long as the first array, that receives the word of the
+     * second node ids at which each row starts.
      * @return the desired table or null if the matchAllFirst flag is true and matches could
      * not be found for all of the concepts in the first array.
      */
-	private int[][] findNodeMatches(Node firstNodes[], Node secondNodes[],
-		MatchingScheme matchScheme, boolean matchAllFirst, boolean matchAllSecond)
+	private long[][] findNodeMatches(Node firstNodes[], Node secondNodes[],
+		MatchingScheme matchScheme, boolean matchAllFirst, boolean matchAllSecond,
+		MatchContext matchContext, int offsets[])
 		{
 		int numFirst, numSecond;
 		Node firstNode, secondNode;
 		int candidates[];
-		int candidateTable[][];
-		int numCand;
+		long candidateTable[][], row[];
+		int typeCandidates[][], secondIds[];
+		int numCand, numSecondIds, snode, firstWord;
 		boolean usedSecond[] = null;
 		// These are used only for concept matches
 		MatchResult matchResult;
-		MatchResult matchResults[] = null, matchResultTable[][] = null;
+		Hashtable matchResultTable[] = null;
+		CompiledMatchingScheme compiledScheme;
 
 		numFirst = firstNodes.length;
 		numSecond = secondNodes.length;
+		compiledScheme = matchScheme.compile();
 
-		candidateTable = new int[numFirst][];
+		candidateTable = new long[numFirst][];
     candidates = new int[numSecond];
 
-		// Initialize these if we are dealing with concepts
+		// Initialize this if we are dealing with concepts
 		if (firstNodes instanceof Concept[])
-			{
-	    matchResultTable = new MatchResult[numFirst][];
-  	  matchResults = new MatchResult[numSecond];
-  	  }
+	    matchResultTable = new Hashtable[numFirst];
 
 		if (matchAllSecond)
 			usedSecond = new boolean[numSecond];
 
+		// Where the scheme lets types rule out pairs, only the type compatible second
+		// nodes need to be compared in full.
+		typeCandidates = findTypeCandidates(firstForm, secondForm, firstNodes instanceof Concept[],
+			matchScheme);
+		secondIds = null;
+		numSecondIds = numSecond;
+
 		for (int fnode = 0; fnode < numFirst; fnode++)
 			{
 			firstNode = firstNodes[fnode];
 			numCand = 0;
 
-			for (int snode = 0; snode < numSecond; snode++)
+			if (typeCandidates != null)
+				{
+				secondIds = typeCandidates[fnode];
+				numSecondIds = secondIds.length;
+				}
+
+			for (int sindex = 0; sindex < numSecondIds; sindex++)
 				{
+				if (secondIds == null)
+					snode = sindex;
+				else
+					snode = secondIds[sindex];
+
 				secondNode = secondNodes[snode];
 
 				// Comparison for Concepts
 				if (firstNode instanceof Concept)
 					{
-					matchResult = Concept.matchConcepts((Concept)firstNode, (Concept)secondNode, 
-						matchScheme);
+					matchResult = compiledScheme.matchConcepts((Concept)firstNode, (Concept)secondNode,
+						matchContext);
 						
 					if (matchResult.matchSucceeded())
 						{
 						candidates[numCand] = snode;
 						
 						// Must associate this MatchResult with the pair if it contains node mappings.
-						if (matchResult.getMappings() == null)
-							matchResults[numCand] = null;
-						else
-							matchResults[numCand] = matchResult;
+						if (matchResult.getMappings() != null)
+							{
+							if (matchResultTable[fnode] == null)
+								matchResultTable[fnode] = new Hashtable();
+							matchResultTable[fnode].put(new Integer(snode), matchResult);
+							}
 						
 						numCand++;
 
@@ -473,7 +662,8 @@ class NodeMappingGenerator
 					
 				// Comparison for Relations
 				if (firstNode instanceof Relation)
-					if (Relation.matchRelations((Relation)firstNode, (Relation)secondNode, matchScheme))
+					if (compiledScheme.matchRelations((Relation)firstNode, (Relation)secondNode,
+						matchContext))
 						{
 						candidates[numCand] = snode;
 						numCand++;
@@ -486,15 +676,18 @@ class NodeMappingGenerator
 			if (matchAllFirst && (numCand == 0))
 				return null;
 
-			candidateTable[fnode] = new int[numCand];
-			System.arraycopy(candidates, 0, candidateTable[fnode], 0, numCand);
-			
-			// Add matchResultTable entry, if appropriate
-			if (matchResults != null)
+			// The candidates are found in increasing order, so the first and last bound the row.
+			if (numCand == 0)
+				row = new long[0];
+			else
 				{
-				matchResultTable[fnode] = new MatchResult[numCand];
-				System.arraycopy(matchResults, 0, matchResultTable[fnode], 0, numCand);
+				firstWord = candidates[0] >> 6;
+				row = new long[(candidates[numCand - 1] >> 6) - firstWord + 1];
+				for (int cand = 0; cand < numCand; cand++)
+					row[(candidates[cand] >> 6) - firstWord] |= 1L << candidates[cand];
+				offsets[fnode] = firstWord;
 				}
+			candidateTable[fnode] = row;
 			}
 
 		// Check to see if we found a match all nodes in the second list (if required)
@@ -511,6 +704,152 @@ class NodeMappingGenerator
 		return candidateTable;
 		}
 
+    /**
+     * Returns a table in which, for each of the first nodes, the indices of the second
+     * nodes whose types could match its type are listed in increasing order.  Types are
+     * compared once for each pair of distinct types, using the type buckets of the frozen
+     * forms, so the table costs about the number of compatible pairs to build.  Untyped
+     * second concepts are listed for every first concept, and an untyped first concept
+     * lists all of the second concepts, since a missing type matches any type.
+     * If the scheme does not decide matches by type, null is returned and every pair
+     * must be compared.
+     *
+     * @param firstForm  the frozen form of the graph being mapped from.
+     * @param secondForm  the frozen form of the graph being mapped into.
+     * @param forConcepts  true to list concept candidates, false to list relation candidates.
+     * @param matchScheme  the matching scheme to be used in deciding mappings.
+     * @return the candidate table or null if all pairs must be compared.
+     */
+	static int[][] findTypeCandidates(FrozenGraph firstForm, FrozenGraph secondForm,
+		boolean forConcepts, MatchingScheme matchScheme)
+		{
+		int numFirst, numSecond, numTypes, typeId, numCand;
+		int typeTable[][], buckets[][], bucket[], candidates[], candidateTable[][];
+		int allSeconds[] = null;
+		Type firstType, secondType;
+		boolean compatible;
+		CompiledMatchingScheme compiledScheme;
+
+		if (forConcepts)
+			{
+			if (matchScheme.getConceptTypeFlag() == MatchingScheme.CT_MATCH_ANYTHING)
+				return null;
+
+			// Coreference can make concepts of unrelated types match.
+			if (matchScheme.getCoreferenceAgreementFlag() != MatchingScheme.COREF_AGREE_OFF)
+				return null;
+
+			switch (matchScheme.getConceptFlag())
+				{
+				case MatchingScheme.CN_MATCH_TYPES:
+					break;
+
+				case MatchingScheme.CN_MATCH_ALL:
+					if (matchScheme.getCoreferenceAutoMatchFlag() == MatchingScheme.COREF_AUTOMATCH_ON)
+						return null;
+					break;
+
+				default:
+					return null;
+				}
+
+			numFirst = firstForm.getNumberOfConcepts();
+			numSecond = secondForm.getNumberOfConcepts();
+			}
+		else
+			{
+			if (matchScheme.getRelationTypeFlag() == MatchingScheme.RT_MATCH_ANYTHING)
+				return null;
+
+			if ((matchScheme.getRelationFlag() != MatchingScheme.RN_MATCH_TYPES) &&
+				(matchScheme.getRelationFlag() != MatchingScheme.RN_MATCH_ALL))
+				return null;
+
+			// Untyped relations are left to be compared in full.
+			if (firstForm.hasUntypedRelations() || secondForm.hasUntypedRelations())
+				return null;
+
+			numFirst = firstForm.getNumberOfRelations();
+			numSecond = secondForm.getNumberOfRelations();
+			}
+
+		// Collect the second nodes by type, skipping types no second node of this kind has.
+		compiledScheme = matchScheme.compile();
+		numTypes = secondForm.getNumberOfTypes();
+		buckets = new int[numTypes][];
+		for (int type = 0; type < numTypes; type++)
+			{
+			bucket = secondForm.getIdsWithTypeId(type, forConcepts);
+			if (bucket.length > 0)
+				buckets[type] = bucket;
+			}
+
+		typeTable = new int[firstForm.getNumberOfTypes()][];
+		candidateTable = new int[numFirst][];
+		candidates = new int[numSecond];
+
+		for (int fnode = 0; fnode < numFirst; fnode++)
+			{
+			if (forConcepts)
+				typeId = firstForm.getConceptTypeId(fnode);
+			else
+				typeId = firstForm.getRelationTypeId(fnode);
+
+			// Untyped first concepts may match any second concept.
+			if (typeId == -1)
+				{
+				if (allSeconds == null)
+					{
+					allSeconds = new int[numSecond];
+					for (int snode = 0; snode < numSecond; snode++)
+						allSeconds[snode] = snode;
+					}
+				candidateTable[fnode] = allSeconds;
+				continue;
+				}
+
+			if (typeTable[typeId] == null)
+				{
+				firstType = firstForm.getType(typeId);
+
+				numCand = 0;
+				if (forConcepts)
+					{
+					bucket = secondForm.getIdsWithTypeId(-1, true);
+					System.arraycopy(bucket, 0, candidates, 0, bucket.length);
+					numCand = bucket.length;
+					}
+
+				for (int type = 0; type < numTypes; type++)
+					if (buckets[type] != null)
+						{
+						secondType = secondForm.getType(type);
+
+						if (forConcepts)
+							compatible = compiledScheme.matchConceptTypes((ConceptType)firstType,
+								(ConceptType)secondType);
+						else
+							compatible = compiledScheme.matchRelationTypes((RelationType)firstType,
+								(RelationType)secondType);
+
+						if (compatible)
+							{
+							System.arraycopy(buckets[type], 0, candidates, numCand, buckets[type].length);
+							numCand += buckets[type].length;
+							}
+						}
+
+				typeTable[typeId] = new int[numCand];
+				System.arraycopy(candidates, 0, typeTable[typeId], 0, numCand);
+				Arrays.sort(typeTable[typeId]);
+				}
+
+			candidateTable[fnode] = typeTable[typeId];
+			}
+
+		return candidateTable;
+		}
+
     /**
      * Returns the next mapping from this generator or null if no more mappings exist.
      * This method is used for generating fixed size matches (complete or subgraph matches).
@@ -536,14 +875,18 @@ class NodeMappingGenerator
 	      	noMappings();
 					return false;
 					}
+
+				if (pruneArguments)
+					updateRelationImages();
 				}
 
 			// Since a relation mapping is already in place, try to generate a concept mapping.
 			while (!nextConceptMapping(fixedFirstConceptsRequired, fixedSecondConceptsRequired))
 				{
 				// If we failed to find a concept mapping and no previous mappings were found,
-				// then no mapping is possible
-				if (numConceptMappings == 0)
+				// then no mapping is possible, unless the concepts were refused because of the
+				// current relation mapping
+				if ((numConceptMappings == 0) && !pruneArguments)
 					{
 	      	noMappings();
 					return false;
@@ -563,6 +906,9 @@ class NodeMappingGenerator
 					// We have found a new relation mapping so we must reset the concept mappings
 					// so they start from the beginning
 					resetConceptMappings();
+
+					if (pruneArguments)
+						updateRelationImages();
 					}
 				}
 
@@ -682,11 +1028,11 @@ class NodeMappingGenerator
   		counters[2] = mappedSecondConcepts;
 
   		returnValue = nextNodeMapping(firstConcepts, secondConcepts,
-  			conceptCandidates,
+  			conceptCandidates, conceptCandidateOffsets,
   			firstConceptPairIndices, secondConceptPairIndices,
   			counters,
   			numConceptMappings,
-  			usedFirstConcepts, usedSecondConcepts,
+  			usedFirstConcepts, usedSecondConcepts, usedSecondConceptSet,
   			chosenFirstConcepts, chosenSecondConcepts,
   			requiredFirstConcepts, requiredSecondConcepts,
   			foldFirst, foldSecond);
@@ -723,11 +1069,11 @@ class NodeMappingGenerator
   		counters[2] = mappedSecondRelations;
 
   		returnValue = nextNodeMapping(firstRelations, secondRelations,
-  			relationCandidates,
+  			relationCandidates, relationCandidateOffsets,
   			firstRelationPairIndices, secondRelationPairIndices,
   			counters,
   			numRelationMappings,
-  			usedFirstRelations, usedSecondRelations,
+  			usedFirstRelations, usedSecondRelations, usedSecondRelationSet,
   			chosenFirstRelations, chosenSecondRelations,
   			requiredFirstRelations, requiredSecondRelations,
   			foldFirst, foldSecond);
@@ -748,9 +1094,10 @@ class NodeMappingGenerator
 		 *
 		 * @param nodesA  an array containing the nodes from A.
 		 * @param nodesB  an array containing the nodes from B.
-		 * @param pairs  a table with a list of indices into B for each A that form valid mappings.
-		 * @param pairIndicesA  a stack of A indices into the pairs array for each choice point.
-		 * @param pairIndicesB  a stack of B indices into the pairs array for each choice point.
+		 * @param pairs  a table with a row of bits for each A marking the B that form valid mappings.
+		 * @param pairOffsets  the word of B indices at which each row of the pairs table starts.
+		 * @param pairIndicesA  a stack of the A index chosen at each choice point.
+		 * @param pairIndicesB  a stack of the B index chosen at each choice point.
 		 * @param counters  an array of three integers: the choice point counter, the number of
 		 * nodes mapped from A, the number of nodes mapped from B.
 		 * @param numMappings  the number of mappings that have been generated thus far.
@@ -758,6 +1105,8 @@ class NodeMappingGenerator
 		 * element of nodesA has been mapped.
 		 * @param usedB  an array of counters indicating the number of times the corresponding
 		 * element of nodesB has been mapped.
+		 * @param usedSetB  the bits marking the elements of nodesB whose usage counters are
+		 * not zero.
 		 * @param chosenNodesA  an array containing the currently mapped nodes from A.
 		 * @param chosenNodesB  an array containing the currently mapped nodes from B.
 		 * @param requiredA  the number of nodes from A that must be mapped into B.
@@ -770,11 +1119,11 @@ class NodeMappingGenerator
 		 * level control.
 		 */
   private boolean nextNodeMapping(Node nodesA[], Node nodesB[],
-  	int pairs[][],
+  	long pairs[][], int pairOffsets[],
   	int pairIndicesA[], int pairIndicesB[],
   	int counters[],
   	int numMappings,
-  	int usedA[], int usedB[],
+  	int usedA[], int usedB[], long usedSetB[],
 		Node chosenNodesA[], Node chosenNodesB[],
   	int requiredA, int requiredB,
   	boolean foldA, boolean foldB)
@@ -791,6 +1140,10 @@ class NodeMappingGenerator
     boolean mappingsExhausted;
     // Temporary variables for quick access to the pair indices.
     int pairIndexA, pairIndexB;
+    // The next B to be tried at the current A, or -1 if none remain.
+    int nextB;
+    // The only B allowed for the current A by the relation mapping, or -1 if not decided.
+    int imageB;
     // The current number of choices that have been made (the choicepoint counter)
     // (taken from counters array)
 		int numChoices;
@@ -834,6 +1187,14 @@ class NodeMappingGenerator
 	   	int choiceA = -1;
 	   	int choiceB = -1;
 
+			// Each pass of the point loop is one choice point.  If the budget has run out,
+			// the search ends as though the mappings were exhausted.
+			if ((searchBudget != null) && !searchBudget.spend())
+				{
+				mappingsExhausted = true;
+				break;
+				}
+
 			// ** Choice Loop **
 			// Loop through choices at current choice point until we have found a valid choice
 			// or run out of choices.
@@ -845,11 +1206,34 @@ class NodeMappingGenerator
 			do
 	    	{
 
-  	  	// Increment B pair index
-				pairIndexB++;
+				// If every A has been passed, there is nothing left to choose at this point
+				if (pairIndexA == numA)
+					{
+					choicesExhausted = true;
+					break;
+					}
+
+  	  	// Find the next B after the current B pair index.  If folding of A is not allowed,
+  	  	// B cannot have been used before this, so the used B are masked out of the row.
+  	  	// When arguments are being pruned, a concept that is an argument of a relation has
+  	  	// only one possible image, which is tested directly.
+  	  	imageB = -1;
+  	  	if (pruneArguments && (nodesA == firstConcepts))
+  	  		imageB = argumentImage(pairIndexA);
+
+  	  	nextB = -1;
+  	  	if (imageB != -1)
+  	  		{
+  	  		if ((imageB > pairIndexB) &&
+  	  			isCandidate(pairs[pairIndexA], pairOffsets[pairIndexA], foldA ? null : usedSetB, imageB))
+  	  			nextB = imageB;
+  	  		}
+  	  	else
+  	  		nextB = nextCandidate(pairs[pairIndexA], pairOffsets[pairIndexA],
+  	  			foldA ? null : usedSetB, pairIndexB + 1);
 
   	  	// Determine if we have run out of B selections at the current A pair index
-  	  	if (pairIndexB == pairs[pairIndexA].length)
+  	  	if (nextB == -1)
   	  		{
 					// If we are required to map every node of A, and we haven't mapped A to anything
 					// yet, then we must backtrack
@@ -859,6 +1243,13 @@ class NodeMappingGenerator
 						// Check to see if we have already mapped A by looking in usedA
 						if (usedA[pairIndexA] == 0)
 							choicesExhausted = true;
+						else
+							{
+							// A has been mapped, which can only happen here if it may be mapped
+							// more than once, and need not be mapped again.
+							pairIndexA++;
+							pairIndexB = -1;
+							}
 						}
 					else
 						{
@@ -873,27 +1264,46 @@ class NodeMappingGenerator
   		  			choicesExhausted = true;
   	 	  		}
   	  		}
-
-				if (!choicesExhausted)
+				else
   	  		{
   	  		// Store indices from A and B for easy access
+  	  		pairIndexB = nextB;
 					choiceA = pairIndexA;
-					choiceB = pairs[pairIndexA][pairIndexB];
+					choiceB = pairIndexB;
 
   	  		// Choices were not exhausted so now we check to see if this choice is valid
   	  		// Start by assuming it is valid and then contradict if necessary
   	  		choiceSatisfied = true;
 
-  	  		// If folding of A is not allowed then choiceB cannot have been used before this
-  	  		if (!foldA)
-  	  			if (usedB[choiceB] > 0)
-  	  				choiceSatisfied = false;
-
   	  		// If folding of B is not allowed then choiceA cannot have been used before this
   	  		// WE CAN PROBABLY SKIP THIS SINCE WE CAN ENSURE THAT an A pair index is never reused trivially
   	  		if (!foldB)
   	  			if (usedA[choiceA] > 0)
   	  				choiceSatisfied = false;
+
+  	  		// If components are being pruned, a concept may not map outside the component
+  	  		// already chosen for other concepts connected to it
+  	  		if (choiceSatisfied && pruneComponents && (nodesA == firstConcepts))
+  	  			{
+  	  			int comp = firstConceptComponents[choiceA];
+  	  			if ((componentUsage[comp] > 0) &&
+  	  				(componentImages[comp] != secondConceptComponents[choiceB]))
+  	  				choiceSatisfied = false;
+  	  			}
+
+  	  		// If arguments are being pruned, a concept may only map to the concept in the
+  	  		// same position of the images of the relations it is an argument of
+  	  		if (choiceSatisfied && pruneArguments && (nodesA == firstConcepts))
+  	  			if (!argumentsAgree(choiceA, choiceB))
+  	  				choiceSatisfied = false;
+
+  	  		// If symmetry is being broken, the choice must respect the order of the images
+  	  		// of interchangeable nodes already chosen
+  	  		if (choiceSatisfied && (symmetry != null))
+  	  			if ((nodesA == firstConcepts) ?
+  	  				!symmetry.allowsConcept(choiceA, choiceB, chosenConceptImages) :
+  	  				!symmetry.allowsRelation(choiceA, choiceB, chosenRelationImages))
+  	  				choiceSatisfied = false;
   	  		}
 
   	  	// For some cases, one of the choices is nothing but if
@@ -920,7 +1330,11 @@ class NodeMappingGenerator
 				// should.
 				if (nodesA instanceof Concept[])
 					{
-					chosenMatchResults[numChoices] = conceptMatchResults[pairIndexA][pairIndexB];
+					if (conceptMatchResults[choiceA] == null)
+						chosenMatchResults[numChoices] = null;
+					else
+						chosenMatchResults[numChoices] =
+							(MatchResult)conceptMatchResults[choiceA].get(new Integer(choiceB));
 					}
 
 				// Increment choice point counter
@@ -942,7 +1356,27 @@ class NodeMappingGenerator
 				// Increment B's usage count and mappedB (if this is the first time we've mapped B)
 				usedB[choiceB]++;
 				if (usedB[choiceB] == 1)
+					{
+					usedSetB[choiceB >> 6] |= 1L << choiceB;
 					mappedB++;
+					}
+
+				// Record the component into which A's component is now mapped
+				if (pruneComponents && (nodesA == firstConcepts))
+					{
+					int comp = firstConceptComponents[choiceA];
+					if (componentUsage[comp] == 0)
+						componentImages[comp] = secondConceptComponents[choiceB];
+					componentUsage[comp]++;
+					}
+
+				if (symmetry != null)
+					{
+					if (nodesA == firstConcepts)
+						chosenConceptImages[choiceA] = choiceB;
+					else
+						chosenRelationImages[choiceA] = choiceB;
+					}
 
 				// Check whether we have reached the requirements for this mapping and
 				// set mappingSatisfied correspondingly
@@ -989,7 +1423,7 @@ class NodeMappingGenerator
 	 	  		// Store indices from A and B for easy access (not needed later but makes the next
  		  		// couple of steps easier to read)
 					choiceA = pairIndexA;
-					choiceB = pairs[pairIndexA][pairIndexB];
+					choiceB = pairIndexB;
 
 					// Decrement A's usage counter and mappedA (if A is no longer mapped)
 					usedA[choiceA]--;
@@ -999,7 +1433,21 @@ class NodeMappingGenerator
 					// Decrement B's usage counter and mappedB (if B is no longer mapped)
 					usedB[choiceB]--;
 					if (usedB[choiceB] == 0)
+						{
+						usedSetB[choiceB >> 6] &= ~(1L << choiceB);
 						mappedB--;
+						}
+
+					if (pruneComponents && (nodesA == firstConcepts))
+						componentUsage[firstConceptComponents[choiceA]]--;
+
+					if (symmetry != null)
+						{
+						if (nodesA == firstConcepts)
+							chosenConceptImages[choiceA] = -1;
+						else
+							chosenRelationImages[choiceA] = -1;
+						}
 
 					// BACKTRACKING COMPLETE
 					}
@@ -1025,6 +1473,64 @@ class NodeMappingGenerator
     }
 
 
+		/**
+		 * Returns the lowest B index, at or after the given one, that is marked in the row of
+		 * candidates and not marked in the excluded bits.  The row and the excluded bits are
+		 * combined a word at a time.
+		 *
+		 * @param row  the row of candidate bits.
+		 * @param offset  the word of B indices at which the row starts.
+		 * @param excluded  the bits marking B indices that may not be chosen, or null if none.
+		 * @param from  the lowest B index that may be returned.
+		 * @return the B index found, or -1 if there is none.
+		 */
+	private static int nextCandidate(long row[], int offset, long excluded[], int from)
+		{
+		int word;
+		long mask, bits;
+
+		// Start at the word holding from, ignoring the bits below it
+		word = (from >> 6) - offset;
+		mask = -1L << from;
+		if (word < 0)
+			{
+			word = 0;
+			mask = -1L;
+			}
+
+		for (; word < row.length; word++)
+			{
+			bits = row[word] & mask;
+			if (excluded != null)
+				bits &= ~excluded[word + offset];
+			if (bits != 0)
+				return ((word + offset) << 6) + Long.numberOfTrailingZeros(bits);
+			mask = -1L;
+			}
+
+		return -1;
+		}
+
+		/**
+		 * Returns true if the given B index is marked in the row of candidates and not marked
+		 * in the excluded bits.
+		 *
+		 * @param row  the row of candidate bits.
+		 * @param offset  the word of B indices at which the row starts.
+		 * @param excluded  the bits marking B indices that may not be chosen, or null if none.
+		 * @param index  the B index being tested.
+		 * @return true if the B index may be chosen.
+		 */
+	private static boolean isCandidate(long row[], int offset, long excluded[], int index)
+		{
+		int word = (index >> 6) - offset;
+
+		if ((word < 0) || (word >= row.length) || ((row[word] & (1L << index)) == 0))
+			return false;
+
+		return (excluded == null) || ((excluded[index >> 6] & (1L << index)) == 0);
+		}
+
 		/**
 		 * Performs a comparison between two integers according to the specified operator.
 		 *
@@ -1089,6 +1595,7 @@ class NodeMappingGenerator
   	// Initialize node usage counters.
   	usedFirstConcepts = new int[numA];
   	usedSecondConcepts = new int[numB];
+  	usedSecondConceptSet = new long[(numB + 63) >> 6];
 
 		// Determine the maximum number of possible choices that need to be made
 		// Should probably be done in the calling function.
@@ -1139,6 +1646,15 @@ class NodeMappingGenerator
   	for (int node = 0; node < numSecondConcepts; node++)
   		usedSecondConcepts[node] = 0;
 
+  	Arrays.fill(usedSecondConceptSet, 0L);
+
+		if (pruneComponents)
+			for (int comp = 0; comp < componentUsage.length; comp++)
+				componentUsage[comp] = 0;
+
+		if (symmetry != null)
+			Arrays.fill(chosenConceptImages, -1);
+
   	// Reset mapped node counters
   	mappedFirstConcepts = 0;
   	mappedSecondConcepts = 0;
@@ -1166,6 +1682,7 @@ class NodeMappingGenerator
   	// Initialize node usage counters.
   	usedFirstRelations = new int[numA];
   	usedSecondRelations = new int[numB];
+  	usedSecondRelationSet = new long[(numB + 63) >> 6];
 
 		// Determine the maximum number of possible choices that need to be made
 		// Should probably be done in the calling function.
@@ -1213,6 +1730,11 @@ class NodeMappingGenerator
   	for (int node = 0; node < numSecondRelations; node++)
   		usedSecondRelations[node] = 0;
 
+  	Arrays.fill(usedSecondRelationSet, 0L);
+
+		if (symmetry != null)
+			Arrays.fill(chosenRelationImages, -1);
+
   	// Reset mapped node counters
   	mappedFirstRelations = 0;
   	mappedSecondRelations = 0;
@@ -1251,6 +1773,8 @@ class NodeMappingGenerator
     // Allow resources to be garbage collected since we will never use them.
     firstGraph = null;
     secondGraph = null;
+    firstForm = null;
+    secondForm = null;
 
     firstConcepts = null;
     secondConcepts = null;
@@ -1260,11 +1784,16 @@ class NodeMappingGenerator
 
     conceptCandidates = null;
     relationCandidates = null;
+    conceptCandidateOffsets = null;
+    relationCandidateOffsets = null;
+    conceptMatchResults = null;
 
     usedFirstConcepts = null;
     usedSecondConcepts = null;
     usedFirstRelations = null;
     usedSecondRelations = null;
+    usedSecondConceptSet = null;
+    usedSecondRelationSet = null;
 
     firstConceptPairIndices = null;
     secondConceptPairIndices = null;
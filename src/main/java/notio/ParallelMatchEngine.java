@@ -0,0 +1,471 @@
+package notio;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.lang.ref.Cleaner;
+
+    /**
+     * A match engine that runs the state-space search on a ForkJoinPool.  The first
+     * levels of the search are expanded into prefixes, and the mappings beginning with
+     * each prefix are found by a separate task with its own search state.  Enough
+     * levels are expanded to give several tasks for each thread in the pool.
+     * <p>
+     * Each task hands its mappings over through a buffer of at most BUFFER_SIZE
+     * mappings, and stops when its buffer is full until some are read, so the mappings
+     * are not all held at once.  If the engine is ordered, the mappings are returned in
+     * the order the sequential search would return them, each as soon as it is found
+     * and every task before it has finished.  Otherwise each mapping is returned as soon
+     * as any task finds it, so the order may vary.  Only schemes with no maximum number
+     * of matches are run in parallel, since the sequential search finds the first
+     * mappings soonest.  Others are searched sequentially.
+     * <p>
+     * The enumeration returned is AutoCloseable.  Closing it, or closing a stream from
+     * Graph.streamMatches() built on it, cancels the tasks still searching.  An
+     * enumeration that is dropped without being closed has its tasks cancelled once it
+     * is garbage collected.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.StateSpaceMatchEngine
+     */
+
+public class ParallelMatchEngine extends StateSpaceMatchEngine
+  {
+	  /** The number of tasks the engine tries to create for each thread in the pool. **/
+  private static final int TASKS_PER_THREAD = 4;
+
+	  /** The largest number of mappings a task holds before it waits for them to be read. **/
+  static final int BUFFER_SIZE = 64;
+
+	  /** Cancels the tasks of enumerations dropped without being closed. **/
+  private static final Cleaner cleaner = Cleaner.create();
+
+	  /** The pool the tasks are run on. **/
+  private ForkJoinPool pool;
+
+	  /** Flag indicating that mappings are returned in sequential order. **/
+  private boolean ordered;
+
+    /**
+     * Constructs an ordered engine that runs on the common pool.
+     */
+  public ParallelMatchEngine()
+    {
+    this(ForkJoinPool.commonPool(), true);
+    }
+
+    /**
+     * Constructs an engine that runs on the common pool.
+     *
+     * @param newOrdered  true if mappings must be returned in sequential order.
+     */
+  public ParallelMatchEngine(boolean newOrdered)
+    {
+    this(ForkJoinPool.commonPool(), newOrdered);
+    }
+
+    /**
+     * Constructs an engine that runs on the specified pool.
+     *
+     * @param newPool  the pool the tasks are run on.
+     * @param newOrdered  true if mappings must be returned in sequential order.
+     * @exception IllegalArgumentException  if the pool is null.
+     */
+  public ParallelMatchEngine(ForkJoinPool newPool, boolean newOrdered)
+    {
+    if (newPool == null)
+    	throw new IllegalArgumentException("Pool must not be null.");
+
+    pool = newPool;
+    ordered = newOrdered;
+    }
+
+    /**
+     * Returns true if this engine returns mappings in sequential order.
+     *
+     * @return true if this engine returns mappings in sequential order.
+     */
+  public boolean isOrdered()
+    {
+    return ordered;
+    }
+
+    /**
+     * Returns an enumeration of the mappings found by the specified search, splitting the
+     * search into tasks when the scheme asks for every match.
+     *
+     * @param search  the search over the mappings, not yet started.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return an enumeration of NodeMapping instances.
+     */
+  Enumeration enumerateMappings(MappingSearch search, MatchingScheme matchingScheme)
+    {
+    Vector prefixes;
+    int length, wanted;
+    SearchTask tasks[];
+    TaskGroup group;
+
+    if ((matchingScheme.getMaxMatches() != 0) || (search.getNumberOfLevels() < 2))
+    	return search;
+
+		// Expand levels until there are enough prefixes, or only the last level is left.
+    wanted = pool.getParallelism() * TASKS_PER_THREAD;
+    length = 1;
+    prefixes = search.findPrefixes(length);
+    while ((prefixes.size() > 0) && (prefixes.size() < wanted) &&
+    	(length < search.getNumberOfLevels() - 1))
+    	{
+    	length++;
+    	prefixes = search.findPrefixes(length);
+    	}
+
+    tasks = new SearchTask[prefixes.size()];
+    group = new TaskGroup(pool, tasks);
+    for (int task = 0; task < tasks.length; task++)
+    	tasks[task] = new SearchTask(search.restrictTo((int[])prefixes.elementAt(task)), group);
+
+    synchronized (group)
+    	{
+    	for (int task = 0; task < tasks.length; task++)
+    		group.resume(tasks[task]);
+    	}
+
+    return new TaskEnumeration(group, ordered);
+    }
+
+    /**
+     * The tasks searching for the mappings of one enumeration.  The group is also the
+     * lock guarding the tasks' buffers and flags, and is notified whenever a task finds
+     * a mapping or finishes.  Running the group cancels its tasks.
+     */
+  private static class TaskGroup implements Runnable
+    {
+		  /** The pool the tasks are run on. **/
+    private ForkJoinPool pool;
+
+		  /** The tasks, in search order. **/
+    private SearchTask tasks[];
+
+		  /** Flag indicating that the tasks have been cancelled. **/
+    private boolean cancelled = false;
+
+    TaskGroup(ForkJoinPool newPool, SearchTask newTasks[])
+      {
+      pool = newPool;
+      tasks = newTasks;
+      }
+
+    	/**
+    	 * Runs a task if it is not already queued or running and its search has not
+    	 * ended.  The caller must hold the group's lock.
+    	 *
+    	 * @param task  the task to be resumed.
+    	 */
+    void resume(SearchTask task)
+      {
+      if (cancelled || task.scheduled || task.finished)
+      	return;
+
+      task.scheduled = true;
+      pool.execute(task);
+      }
+
+    	/**
+    	 * Cancels the tasks.  Tasks not running are never run again, and running tasks
+    	 * stop at their next choice point.  Mappings not yet read are dropped.
+    	 */
+    public void run()
+      {
+      synchronized (this)
+      	{
+      	cancelled = true;
+      	for (int task = 0; task < tasks.length; task++)
+      		tasks[task].buffer.removeAllElements();
+      	notifyAll();
+      	}
+
+      for (int task = 0; task < tasks.length; task++)
+      	tasks[task].search.cancel();
+      }
+    }
+
+    /**
+     * A task that finds the mappings of a restricted search and places them in its
+     * buffer.  It stops when its buffer is full and is run again once mappings have been
+     * read from it.  When it finishes, successfully or not, it notifies its group.
+     */
+  private static class SearchTask implements Runnable
+    {
+		  /** The search whose mappings are found. **/
+    private MappingSearch search;
+
+		  /** The group the task belongs to, whose lock guards the fields below. **/
+    private TaskGroup group;
+
+		  /** The mappings found but not yet read. **/
+    private Vector buffer = new Vector();
+
+		  /** Flag indicating that the task is queued or running. **/
+    private boolean scheduled = false;
+
+		  /** Flag indicating that the search has ended. **/
+    private boolean finished = false;
+
+		  /** The exception that ended the search, or null. **/
+    private Throwable failure;
+
+    SearchTask(MappingSearch newSearch, TaskGroup newGroup)
+      {
+      search = newSearch;
+      group = newGroup;
+      }
+
+    public void run()
+      {
+      Object mapping;
+
+      try
+      	{
+	      while (true)
+	      	{
+	      	synchronized (group)
+	      		{
+	      		if (group.cancelled || (buffer.size() == BUFFER_SIZE))
+	      			{
+	      			scheduled = false;
+	      			return;
+	      			}
+	      		}
+
+	      	if (!search.hasMoreElements())
+	      		{
+	      		finish(null);
+	      		return;
+	      		}
+
+	      	mapping = search.nextElement();
+	      	synchronized (group)
+	      		{
+	      		if (!group.cancelled)
+	      			buffer.addElement(mapping);
+	      		group.notifyAll();
+	      		}
+	      	}
+	      }
+	    catch (Throwable e)
+	    	{
+	    	finish(e);
+	    	}
+      }
+
+    	/**
+    	 * Marks the task as finished and notifies its group.
+    	 *
+    	 * @param newFailure  the exception that ended the search, or null if it was exhausted.
+    	 */
+    private void finish(Throwable newFailure)
+      {
+      synchronized (group)
+      	{
+      	failure = newFailure;
+      	finished = true;
+      	scheduled = false;
+      	group.notifyAll();
+      	}
+      }
+    }
+
+    /**
+     * An enumeration over the mappings found by a group of tasks.  Ordered enumerations
+     * read the tasks in turn.  Others take a mapping from any task that has one.
+     */
+  private static class TaskEnumeration implements Enumeration, AutoCloseable
+    {
+		  /** The tasks whose mappings are returned. **/
+    private TaskGroup group;
+
+		  /** Flag indicating that the tasks are read in search order. **/
+    private boolean ordered;
+
+		  /** The number of tasks whose mappings have all been read, if ordered. **/
+    private int numRead = 0;
+
+		  /** The next mapping to be returned, or null if it has not been taken yet. **/
+    private Object nextMapping;
+
+		  /** Cancels the tasks when the enumeration is closed or collected. **/
+    private Cleaner.Cleanable cleanable;
+
+    TaskEnumeration(TaskGroup newGroup, boolean newOrdered)
+      {
+      group = newGroup;
+      ordered = newOrdered;
+      cleanable = cleaner.register(this, group);
+      }
+
+    public boolean hasMoreElements()
+      {
+      if (nextMapping == null)
+      	nextMapping = takeMapping();
+
+      return nextMapping != null;
+      }
+
+    public Object nextElement()
+      {
+      Object mapping;
+
+      if (!hasMoreElements())
+      	throw new NoSuchElementException();
+
+      mapping = nextMapping;
+      nextMapping = null;
+      return mapping;
+      }
+
+    	/**
+    	 * Cancels the tasks still searching.  Once closed, the enumeration has no more
+    	 * elements.
+    	 */
+    public void close()
+      {
+      cleanable.clean();
+      }
+
+    	/**
+    	 * Waits for the next mapping and takes it from its task's buffer, running the
+    	 * task again if it was waiting for room and half its buffer is empty.  If the thread is interrupted while
+    	 * waiting, it continues to wait and is interrupted again afterward.
+    	 *
+    	 * @return the next mapping, or null if there are no more.
+    	 * @exception RuntimeException  or Error if a task's search failed.
+    	 */
+    private Object takeMapping()
+      {
+      SearchTask task;
+      boolean interrupted = false;
+      Object mapping = null;
+
+      synchronized (group)
+      	{
+      	while (!group.cancelled)
+      		{
+      		task = findReadyTask();
+      		if (task != null)
+      			{
+      			if (task.buffer.isEmpty())
+      				rethrow(task.failure);
+
+      			mapping = task.buffer.elementAt(0);
+      			task.buffer.removeElementAt(0);
+
+      			// A full task waits until half its buffer is read, so it is not
+      			// rescheduled for every mapping.
+      			if (task.buffer.size() <= BUFFER_SIZE / 2)
+      				group.resume(task);
+      			break;
+      			}
+
+      		if (isExhausted())
+      			break;
+
+      		try
+      			{
+      			group.wait();
+      			}
+      		catch (InterruptedException e)
+      			{
+      			interrupted = true;
+      			}
+      		}
+      	}
+
+      if (interrupted)
+      	Thread.currentThread().interrupt();
+
+      return mapping;
+      }
+
+    	/**
+    	 * Returns a task with a mapping to be read, or whose search failed once its
+    	 * mappings were read, or null if there is none yet.  An ordered enumeration only
+    	 * considers the first task not yet read in full.  The caller must hold the
+    	 * group's lock.
+    	 *
+    	 * @return the task to be read, or null.
+    	 */
+    private SearchTask findReadyTask()
+      {
+      SearchTask tasks[], task;
+
+      tasks = group.tasks;
+      if (ordered)
+      	{
+      	while ((numRead < tasks.length) && tasks[numRead].finished &&
+      		tasks[numRead].buffer.isEmpty() && (tasks[numRead].failure == null))
+      		numRead++;
+
+      	if (numRead == tasks.length)
+      		return null;
+
+      	task = tasks[numRead];
+      	if (!task.buffer.isEmpty() || (task.failure != null))
+      		return task;
+      	return null;
+      	}
+
+      for (int next = 0; next < tasks.length; next++)
+      	{
+      	task = tasks[next];
+      	if (!task.buffer.isEmpty() || (task.failure != null))
+      		return task;
+      	}
+
+      return null;
+      }
+
+    	/**
+    	 * Returns true if every mapping has been read.  The caller must hold the group's
+    	 * lock and have found no task ready to be read.
+    	 *
+    	 * @return true if the tasks have all finished and their mappings have been read.
+    	 */
+    private boolean isExhausted()
+      {
+      SearchTask tasks[];
+
+      tasks = group.tasks;
+      if (ordered)
+      	return numRead == tasks.length;
+
+      for (int next = 0; next < tasks.length; next++)
+      	if (!tasks[next].finished)
+      		return false;
+
+      return true;
+      }
+
+    	/**
+    	 * Throws the exception that ended a task's search.
+    	 *
+    	 * @param failure  the exception, which is unchecked.
+    	 */
+    private static void rethrow(Throwable failure)
+      {
+      if (failure instanceof Error)
+      	throw (Error)failure;
+      throw (RuntimeException)failure;
+      }
+    }
+  }
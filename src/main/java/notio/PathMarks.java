@@ -0,0 +1,115 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * The distance marks used by Graph.findPaths(), held by each thread and reused
+     * from one search to the next.  Nodes are identified by the dense ids of the
+     * graph's frozen form, concepts first and then relations.  Each search is given a
+     * new number, and a node's distance is only current if the node is stamped with
+     * that number, so starting a search does not clear the marks of the last one and
+     * a search touches only the nodes it visits.
+     * <p>
+     * The arrays grow to fit the largest graph searched on the thread and are kept
+     * while the thread lives.  They hold only ints, so no graph is kept alive by them.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.Graph#findPaths(Node, Node, int, int, RelationType)
+     */
+class PathMarks
+  {
+	  /** The marks held by each thread. **/
+  private static final ThreadLocal current = new ThreadLocal();
+
+	  /** The number of the search that last marked each node, by node id. **/
+  int stamps[] = new int[0];
+
+	  /** The distance of each marked node from the end of the path, by node id. **/
+  int distances[] = new int[0];
+
+	  /** The ids of the nodes waiting to be swept, in breadth-first order. **/
+  int queue[] = new int[0];
+
+	  /** The number of the current search. **/
+  int search = 0;
+
+  /* Constructors */
+    /**
+     * Constructs an empty set of marks.
+     */
+  private PathMarks()
+    {
+    }
+
+    /**
+     * Returns the marks held by the current thread, ready for a new search of a graph
+     * with the specified number of nodes.  No node is marked by the new search.
+     *
+     * @param numNodes  the number of concepts and relations in the graph to be searched.
+     * @return the marks for the current thread.
+     */
+  static PathMarks startSearch(int numNodes)
+    {
+    PathMarks marks;
+
+    marks = (PathMarks)current.get();
+    if (marks == null)
+    	{
+    	marks = new PathMarks();
+    	current.set(marks);
+    	}
+
+    if (marks.stamps.length < numNodes)
+    	{
+    	marks.stamps = new int[numNodes];
+    	marks.distances = new int[numNodes];
+    	marks.queue = new int[numNodes];
+    	marks.search = 0;
+    	}
+
+    // Zero marks no search, so the stamps are cleared when the count wraps round to it.
+    marks.search++;
+    if (marks.search == 0)
+    	{
+    	Arrays.fill(marks.stamps, 0);
+    	marks.search = 1;
+    	}
+
+    return marks;
+    }
+
+    /**
+     * Marks a node with its distance in the current search.
+     *
+     * @param nodeId  the id of the node.
+     * @param distance  the node's distance from the end of the path.
+     */
+  void mark(int nodeId, int distance)
+    {
+    stamps[nodeId] = search;
+    distances[nodeId] = distance;
+    }
+
+    /**
+     * Returns true if a node has been marked in the current search.
+     *
+     * @param nodeId  the id of the node.
+     * @return true if the node is marked.
+     */
+  boolean isMarked(int nodeId)
+    {
+    return stamps[nodeId] == search;
+    }
+  }
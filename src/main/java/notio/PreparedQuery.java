@@ -0,0 +1,197 @@
+package notio;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+    /**
+     * A query graph prepared for matching against many graphs under one scheme.
+     * Graph.matchGraphs() starts each match from scratch, so testing one query
+     * against a large set of stored graphs repeats the work that depends only on the
+     * query and scheme.  A prepared query does that work once: the query's frozen form
+     * is built in advance, and the query holds its own copy of the scheme, compiled
+     * with a cache of type comparisons that is reused for every graph matched.  Most
+     * of the cost of matching small graphs lies in these hierarchy lookups.
+     * <p>
+     * Results are the same as those of Graph.matchGraphs().  Neither the query nor the
+     * type hierarchies may be changed while the prepared query is in use.  If the
+     * scheme has a SearchBudget, it limits all the matches made together.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.Graph#prepareMatch
+     */
+public class PreparedQuery
+  {
+	  /** The number of tasks matchAll() tries to create for each thread in the pool. **/
+  private static final int TASKS_PER_THREAD = 4;
+
+	  /** The query graph, which is matched into each target. **/
+  private Graph query;
+
+	  /** The scheme given when the query was prepared. **/
+  private MatchingScheme matchScheme;
+
+	  /** The private copy of the scheme, compiled with a type cache. **/
+  private MatchingScheme preparedScheme;
+
+  /* Constructors */
+    /**
+     * Prepares the specified query for matching under the specified scheme.
+     *
+     * @param newQuery  the graph to be matched into each target, which may be null.
+     * @param matchingScheme  the matching scheme that determines how matches are performed.
+     * @exception IllegalArgumentException  if the scheme is null.
+     */
+  public PreparedQuery(Graph newQuery, MatchingScheme matchingScheme)
+    {
+    if (matchingScheme == null)
+    	throw new IllegalArgumentException("Matching scheme must not be null.");
+
+    query = newQuery;
+    matchScheme = matchingScheme;
+    preparedScheme = new MatchingScheme(matchingScheme, matchingScheme.getSearchBudget());
+    preparedScheme.compileWithTypeCache();
+
+    if (query != null)
+    	query.freeze();
+    }
+
+    /**
+     * Returns the query graph.
+     *
+     * @return the query graph.
+     */
+  public Graph getQuery()
+    {
+    return query;
+    }
+
+    /**
+     * Returns the matching scheme the query was prepared with.
+     *
+     * @return the matching scheme.
+     */
+  public MatchingScheme getMatchingScheme()
+    {
+    return matchScheme;
+    }
+
+    /**
+     * Matches the query against the specified graph.
+     *
+     * @param target  the graph being matched.
+     * @return the MatchResult object describing the details of the match, as given by
+     * Graph.matchGraphs().
+     */
+  public MatchResult match(Graph target)
+    {
+    return Graph.matchGraphs(query, target, preparedScheme);
+    }
+
+    /**
+     * Matches the query against each of the specified graphs in turn.
+     *
+     * @param targets  a collection of the graphs being matched.
+     * @return an array holding the result of each match, in the collection's order.
+     */
+  public MatchResult[] matchAll(Collection targets)
+    {
+    Graph targetArr[];
+    MatchResult results[];
+
+    targetArr = (Graph[])targets.toArray(new Graph[targets.size()]);
+    results = new MatchResult[targetArr.length];
+    for (int target = 0; target < targetArr.length; target++)
+    	results[target] = match(targetArr[target]);
+
+    return results;
+    }
+
+    /**
+     * Matches the query against each of the specified graphs, dividing the graphs
+     * among tasks run on the specified pool.  The graphs are frozen before the tasks
+     * start, so the tasks only read the graphs.  Each graph is matched with the
+     * scheme's own MatchEngine, which may itself be parallel.
+     *
+     * @param targets  a collection of the graphs being matched.
+     * @param pool  the pool the tasks are run on.
+     * @return an array holding the result of each match, in the collection's order.
+     * @exception IllegalArgumentException  if the pool is null.
+     */
+  public MatchResult[] matchAll(Collection targets, ForkJoinPool pool)
+    {
+    Graph targetArr[];
+    MatchResult results[];
+    int grain;
+
+    if (pool == null)
+    	throw new IllegalArgumentException("Pool must not be null.");
+
+    targetArr = (Graph[])targets.toArray(new Graph[targets.size()]);
+    results = new MatchResult[targetArr.length];
+    for (int target = 0; target < targetArr.length; target++)
+    	if (targetArr[target] != null)
+    		targetArr[target].freeze();
+
+    grain = Math.max(1, targetArr.length / (pool.getParallelism() * TASKS_PER_THREAD));
+    pool.invoke(new MatchTask(targetArr, results, 0, targetArr.length, grain));
+
+    return results;
+    }
+
+    /**
+     * A task that matches the query against a range of the targets, splitting the
+     * range in half until it is no longer than the grain.
+     */
+  private class MatchTask extends RecursiveAction
+    {
+		  /** The graphs being matched. **/
+    private Graph targets[];
+
+		  /** The array in which the results are placed. **/
+    private MatchResult results[];
+
+		  /** The first target in the range, and the target after the last. **/
+    private int start, end;
+
+		  /** The largest range matched without splitting. **/
+    private int grain;
+
+    MatchTask(Graph newTargets[], MatchResult newResults[], int newStart, int newEnd,
+    	int newGrain)
+      {
+      targets = newTargets;
+      results = newResults;
+      start = newStart;
+      end = newEnd;
+      grain = newGrain;
+      }
+
+    protected void compute()
+      {
+      int middle;
+
+      if (end - start <= grain)
+      	{
+      	for (int target = start; target < end; target++)
+      		results[target] = match(targets[target]);
+      	return;
+      	}
+
+      middle = (start + end) >>> 1;
+      invokeAll(new MatchTask(targets, results, start, middle, grain),
+      	new MatchTask(targets, results, middle, end, grain));
+      }
+    }
+  }
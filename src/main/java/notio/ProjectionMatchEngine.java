@@ -0,0 +1,808 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * A match engine for projection, the subgraph match with folding.  A projection maps
+     * every first concept and relation onto exactly one second node, and different first
+     * nodes may share an image.  When connected matching is required, each argument of a
+     * first relation must map onto the argument in the same position of its image.
+     * <p>
+     * The search treats each first node as a variable whose domain, a bit set of second
+     * node ids, holds the nodes it may still be mapped onto.  Before the search starts,
+     * and again after each choice, the domains are made arc consistent: a second concept
+     * stays in a first concept's domain only if, for every arc of the first concept, some
+     * second relation in the domain of the arc's relation has it in the same position,
+     * and a second relation stays only if each of its arguments is in the domain of the
+     * corresponding first argument.  The variable with the fewest values left is always
+     * chosen next, so a single large graph is narrowed to a few candidates before any
+     * choice is made.
+     * <p>
+     * A scheme must name this engine for it to be used.  It passes every match other
+     * than a projection to GeneratorMatchEngine.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchEngine
+     * @see notio.GeneratorMatchEngine
+     */
+
+public class ProjectionMatchEngine implements MatchEngine
+  {
+	  /** The engine used for the matches this engine does not handle. **/
+  private MatchEngine referenceEngine = new GeneratorMatchEngine();
+
+    /**
+     * Returns an enumeration of the node mappings from the first graph into the second
+     * that satisfy the specified scheme.
+     *
+     * @param first  the graph being mapped from.
+     * @param second  the graph being mapped into.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return an enumeration of NodeMapping instances.
+     */
+  public Enumeration getMappings(Graph first, Graph second, MatchingScheme matchingScheme)
+    {
+    if (!isProjection(matchingScheme))
+    	return referenceEngine.getMappings(first, second, matchingScheme);
+
+    return new ProjectionSearch(first, second, matchingScheme);
+    }
+
+    /**
+     * Returns true if the specified scheme asks for projections: subgraph matches with
+     * folding.
+     *
+     * @param matchingScheme  the matching scheme being checked.
+     * @return true if the scheme's matches are projections.
+     */
+  private static boolean isProjection(MatchingScheme matchingScheme)
+    {
+    return (matchingScheme.getFoldingFlag() == MatchingScheme.FOLD_MATCH_ON) &&
+    	(matchingScheme.getGraphFlag() == MatchingScheme.GR_MATCH_SUBGRAPH);
+    }
+
+    /**
+     * A depth first search over the projections of one graph into another that
+     * maintains arc consistent domains.  Each level chooses a variable, the first
+     * concepts being numbered before the first relations, and tries each value left in
+     * its domain in increasing order.  Domains are never changed once installed; a
+     * narrowed domain replaces the old one, which is kept on a trail the first time it
+     * is replaced after each choice so that the choice can be undone.
+     */
+  private static class ProjectionSearch implements Enumeration
+    {
+		  /** The graphs being mapped from and into. **/
+    private Graph firstGraph, secondGraph;
+
+		  /** The frozen forms of the graphs being mapped from and into. **/
+    private FrozenGraph firstForm, secondForm;
+
+		  /** The matching scheme used for mapping. **/
+    private MatchingScheme matchScheme;
+
+		  /** The nodes of the first and second graphs. **/
+    private Concept firstConcepts[], secondConcepts[];
+    private Relation firstRelations[], secondRelations[];
+
+		  /** Flags indicating whether concepts and relations are mapped. **/
+    private boolean mapConcepts, mapRelations;
+
+		  /** Flag indicating that the arguments of mapped relations must agree. **/
+    private boolean checkArguments;
+
+		  /** The number of concept variables, which come before the relation variables. **/
+    private int numConceptVars;
+
+		  /** The total number of variables. **/
+    private int numVars;
+
+		  /** The ids of the second nodes onto which each variable may still be mapped. **/
+    private BitSet domains[];
+
+		  /** For each first concept, the MatchResults that carry nested mappings, keyed by second id. **/
+    private Hashtable conceptResults[];
+
+		  /** The variables waiting to be revised, as a circular queue. **/
+    private int queue[];
+
+		  /** The position of the head of the queue and the number of variables in it. **/
+    private int queueHead, queueSize;
+
+		  /** Flags indicating which variables are in the queue. **/
+    private boolean queued[];
+
+		  /** The variable chosen at each level and the value last tried for it. **/
+    private int levelVars[], levelValues[];
+
+		  /** The size of the trail when each level's variable was chosen. **/
+    private int levelTrails[];
+
+		  /** Flags indicating which variables have been chosen at some level. **/
+    private boolean chosen[];
+
+		  /** The variables whose domains were replaced, and the domains they replaced. **/
+    private int trailVars[];
+    private BitSet trailDomains[];
+
+		  /** The number of entries on the trail. **/
+    private int trailSize = 0;
+
+		  /** The choice at which each variable's domain was last put on the trail. **/
+    private int savedChoices[];
+
+		  /** A number identifying the current choice. **/
+    private int choice = 0;
+
+		  /** Flags indicating that the search has started, and that it is exhausted. **/
+    private boolean started = false, exhausted = false;
+
+		  /** The next mapping to be returned, or null if it has not been found yet. **/
+    private NodeMapping nextMapping;
+
+		  /** The budget that limits the search, or null if it is not limited. **/
+    private SearchBudget searchBudget;
+
+    	/**
+    	 * Constructs a search over the projections of one graph into another, and makes
+    	 * the starting domains arc consistent.
+    	 *
+    	 * @param newFirst  the graph being mapped from.
+    	 * @param newSecond  the graph being mapped into.
+    	 * @param matchingScheme  the matching scheme used for mapping.
+    	 */
+    ProjectionSearch(Graph newFirst, Graph newSecond, MatchingScheme matchingScheme)
+      {
+      int numFirstConcepts, numSecondConcepts, numFirstRelations, numSecondRelations;
+      MatchContext context;
+
+      firstGraph = newFirst;
+      secondGraph = newSecond;
+      firstForm = firstGraph.freeze();
+      secondForm = secondGraph.freeze();
+      matchScheme = matchingScheme;
+      searchBudget = matchingScheme.getSearchBudget();
+
+      firstConcepts = firstForm.getConcepts();
+      secondConcepts = secondForm.getConcepts();
+      firstRelations = firstForm.getRelations();
+      secondRelations = secondForm.getRelations();
+
+      numFirstConcepts = firstConcepts.length;
+      numSecondConcepts = secondConcepts.length;
+      numFirstRelations = firstRelations.length;
+      numSecondRelations = secondRelations.length;
+
+      mapConcepts = (numFirstConcepts > 0) && (numSecondConcepts > 0);
+      mapRelations = (numFirstRelations > 0) && (numSecondRelations > 0);
+
+			// Every first node must have an image, but images may be shared, so only a
+			// second graph lacking a kind of node the first has rules a projection out.
+      if (((numFirstConcepts > 0) && (numSecondConcepts == 0)) ||
+      	((numFirstRelations > 0) && (numSecondRelations == 0)) || (!mapConcepts && !mapRelations))
+      	{
+      	exhausted = true;
+      	return;
+      	}
+
+      checkArguments = (matchScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) &&
+      	mapConcepts && mapRelations;
+
+      numConceptVars = mapConcepts ? numFirstConcepts : 0;
+      numVars = numConceptVars + (mapRelations ? numFirstRelations : 0);
+      domains = new BitSet[numVars];
+
+      // Relation candidates may compare the same concepts again on their arcs.
+      context = MatchContext.createFor(matchScheme);
+
+      queue = new int[numVars];
+      queued = new boolean[numVars];
+      levelVars = new int[numVars];
+      levelValues = new int[numVars];
+      levelTrails = new int[numVars];
+      chosen = new boolean[numVars];
+      savedChoices = new int[numVars];
+      trailVars = new int[2 * numVars];
+      trailDomains = new BitSet[2 * numVars];
+
+			// Comparing nodes is the costly step, so when arguments are checked the structure
+			// narrows the domains first.  Relations start with the second relations of
+			// matching type and concepts with the second concepts their arcs support; the
+			// concepts left are compared, the structure narrows the relations again, and the
+			// relations left are compared.  No choice has been made yet, so the domains
+			// narrowed here are not put on the trail; they are never restored.
+      if (checkArguments)
+      	{
+      	seedRelationDomains();
+      	for (int con = 0; con < numConceptVars; con++)
+      		domains[con] = findSupport(con);
+
+      	if (!propagateAll())
+      		{
+      		exhausted = true;
+      		return;
+      		}
+      	}
+
+      if ((mapConcepts && !compareDomains(true, context)) || (checkArguments && !propagateAll()) ||
+      	(mapRelations && !compareDomains(false, context)) || !propagateAll())
+      	exhausted = true;
+      }
+
+    	/**
+    	 * Gives each relation variable a domain of the second relations whose types could
+    	 * match the first relation's type, without comparing the relations themselves.
+    	 */
+    private void seedRelationDomains()
+      {
+      int typeCandidates[][];
+      BitSet domain;
+
+      typeCandidates = NodeMappingGenerator.findTypeCandidates(firstForm, secondForm,
+      	false, matchScheme);
+
+      for (int rel = 0; rel < firstRelations.length; rel++)
+      	{
+      	domain = new BitSet(secondRelations.length);
+      	if (typeCandidates == null)
+      		domain.set(0, secondRelations.length);
+      	else
+      		for (int sindex = 0; sindex < typeCandidates[rel].length; sindex++)
+      			domain.set(typeCandidates[rel][sindex]);
+
+      	domains[numConceptVars + rel] = domain;
+      	}
+      }
+
+    	/**
+    	 * Replaces the domains of the concept or relation variables with the second nodes
+    	 * each first node matches under the scheme.  A first node that already has a
+    	 * domain is only compared with the second nodes in it, and otherwise with those
+    	 * whose types could match.  For concepts, the MatchResult of each pair that
+    	 * carries nested mappings is recorded as well.
+    	 *
+    	 * @param forConcepts  true to compare the concept domains, false for the relation domains.
+    	 * @param context  the context of the match, or null if comparisons are not kept.
+    	 * @return false if some first node matches no second node.
+    	 */
+    private boolean compareDomains(boolean forConcepts, MatchContext context)
+      {
+      int typeCandidates[][] = null, numFirst, numSecond, var;
+      boolean typesFound = false;
+      BitSet previous;
+      CompiledMatchingScheme compiledScheme;
+
+      if (forConcepts)
+      	{
+      	numFirst = firstConcepts.length;
+      	numSecond = secondConcepts.length;
+      	conceptResults = new Hashtable[numFirst];
+      	}
+      else
+      	{
+      	numFirst = firstRelations.length;
+      	numSecond = secondRelations.length;
+      	}
+
+      compiledScheme = matchScheme.compile();
+
+      for (int fnode = 0; fnode < numFirst; fnode++)
+      	{
+      	var = forConcepts ? fnode : numConceptVars + fnode;
+      	previous = domains[var];
+      	domains[var] = new BitSet(numSecond);
+
+      	if (previous != null)
+      		for (int snode = previous.nextSetBit(0); snode >= 0;
+      			snode = previous.nextSetBit(snode + 1))
+      			compareNodes(forConcepts, fnode, snode, compiledScheme, context);
+      	else
+      		{
+      		if (!typesFound)
+      			{
+      			typeCandidates = NodeMappingGenerator.findTypeCandidates(firstForm, secondForm,
+      				forConcepts, matchScheme);
+      			typesFound = true;
+      			}
+
+      		if (typeCandidates == null)
+      			for (int snode = 0; snode < numSecond; snode++)
+      				compareNodes(forConcepts, fnode, snode, compiledScheme, context);
+      		else
+      			for (int sindex = 0; sindex < typeCandidates[fnode].length; sindex++)
+      				compareNodes(forConcepts, fnode, typeCandidates[fnode][sindex], compiledScheme,
+      					context);
+      		}
+
+      	if (domains[var].isEmpty())
+      		return false;
+      	}
+
+      return true;
+      }
+
+    	/**
+    	 * Adds a second node to the domain of a first node of the same kind if the two
+    	 * match.  For concepts, their MatchResult is recorded if it carries nested mappings.
+    	 *
+    	 * @param forConcepts  true if the nodes are concepts, false if they are relations.
+    	 * @param fnode  the id of the first node.
+    	 * @param snode  the id of the second node.
+    	 * @param compiledScheme  the compiled scheme used to compare the nodes.
+    	 * @param context  the context of the match, or null if comparisons are not kept.
+    	 */
+    private void compareNodes(boolean forConcepts, int fnode, int snode,
+    	CompiledMatchingScheme compiledScheme, MatchContext context)
+      {
+      MatchResult matchResult;
+
+      if (!forConcepts)
+      	{
+      	// A relation cannot be the image of one with more arguments.
+      	if (checkArguments && (firstForm.getNumberOfArguments(fnode) >
+      		secondForm.getNumberOfArguments(snode)))
+      		return;
+
+      	if (compiledScheme.matchRelations(firstRelations[fnode], secondRelations[snode], context))
+      		domains[numConceptVars + fnode].set(snode);
+      	return;
+      	}
+
+      matchResult = compiledScheme.matchConcepts(firstConcepts[fnode], secondConcepts[snode],
+      	context);
+      if (!matchResult.matchSucceeded())
+      	return;
+
+      domains[fnode].set(snode);
+
+      // Only results that carry nested mappings are kept with the pair.
+      if (matchResult.getMappings() != null)
+      	{
+      	if (conceptResults[fnode] == null)
+      		conceptResults[fnode] = new Hashtable();
+      	conceptResults[fnode].put(new Integer(snode), matchResult);
+      	}
+      }
+
+    	/**
+    	 * Adds a variable to the queue of those to be revised, unless it is already there.
+    	 *
+    	 * @param var  the variable to be revised.
+    	 */
+    private void enqueue(int var)
+      {
+      if (queued[var])
+      	return;
+
+      queued[var] = true;
+      queue[(queueHead + queueSize) % numVars] = var;
+      queueSize++;
+      }
+
+    	/**
+    	 * Adds the variables that share an arc with the specified variable to the queue.
+    	 *
+    	 * @param var  the variable whose domain has changed.
+    	 */
+    private void enqueueNeighbours(int var)
+      {
+      int argument;
+
+      if (!checkArguments)
+      	return;
+
+      if (var < numConceptVars)
+      	{
+      	for (int relator = firstForm.getNumberOfRelators(var) - 1; relator >= 0; relator--)
+      		enqueue(numConceptVars + firstForm.getRelatorId(var, relator));
+      	return;
+      	}
+
+      for (int arg = firstForm.getNumberOfArguments(var - numConceptVars) - 1; arg >= 0; arg--)
+      	{
+      	argument = firstForm.getArgumentId(var - numConceptVars, arg);
+      	if (argument != -1)
+      		enqueue(argument);
+      	}
+      }
+
+    	/**
+    	 * Revises every variable, and those whose neighbours change, until every domain is
+    	 * arc consistent or some domain is empty.
+    	 *
+    	 * @return false if some domain became empty.
+    	 */
+    private boolean propagateAll()
+      {
+      for (int var = 0; var < numVars; var++)
+      	enqueue(var);
+
+      return propagate();
+      }
+
+    	/**
+    	 * Revises the variables in the queue until every domain is arc consistent, or
+    	 * until some domain is empty, in which case the queue is emptied.
+    	 *
+    	 * @return false if some domain became empty.
+    	 */
+    private boolean propagate()
+      {
+      int var;
+      boolean consistent = true;
+
+      while (queueSize > 0)
+      	{
+      	var = queue[queueHead];
+      	queueHead = (queueHead + 1) % numVars;
+      	queueSize--;
+      	queued[var] = false;
+
+      	if (consistent && revise(var))
+      		{
+      		if (domains[var].isEmpty())
+      			consistent = false;
+      		else
+      			enqueueNeighbours(var);
+      		}
+      	}
+
+      return consistent;
+      }
+
+    	/**
+    	 * Removes from a variable's domain the values that no value of a neighbouring
+    	 * variable supports.
+    	 *
+    	 * @param var  the variable being revised.
+    	 * @return true if the domain was narrowed.
+    	 */
+    private boolean revise(int var)
+      {
+      if (!checkArguments)
+      	return false;
+
+      if (var < numConceptVars)
+      	return reviseConcept(var);
+      else
+      	return reviseRelation(var - numConceptVars);
+      }
+
+    	/**
+    	 * Keeps in a first concept's domain only those second concepts that, for every arc
+    	 * of the first concept, are the argument in the same position of some second
+    	 * relation in the domain of the arc's relation.
+    	 *
+    	 * @param con  the id of the first concept.
+    	 * @return true if the domain was narrowed.
+    	 */
+    private boolean reviseConcept(int con)
+      {
+      BitSet narrowed;
+
+      narrowed = findSupport(con);
+      if (narrowed == null)
+      	return false;
+
+      narrowed.and(domains[con]);
+      if (narrowed.cardinality() == domains[con].cardinality())
+      	return false;
+
+      replaceDomain(con, narrowed);
+      return true;
+      }
+
+    	/**
+    	 * Returns the second concepts that, for every arc of a first concept, are the
+    	 * argument in the same position of some second relation in the domain of the
+    	 * arc's relation.
+    	 *
+    	 * @param con  the id of the first concept.
+    	 * @return the supported second concepts, or null if the first concept has no arcs.
+    	 */
+    private BitSet findSupport(int con)
+      {
+      BitSet support = null, arcSupport, relationDomain;
+      int rel, argument;
+
+      for (int relator = firstForm.getNumberOfRelators(con) - 1; relator >= 0; relator--)
+      	{
+      	rel = firstForm.getRelatorId(con, relator);
+      	relationDomain = domains[numConceptVars + rel];
+
+      	for (int arg = firstForm.getNumberOfArguments(rel) - 1; arg >= 0; arg--)
+      		if (firstForm.getArgumentId(rel, arg) == con)
+      			{
+      			arcSupport = new BitSet(secondConcepts.length);
+      			for (int srel = relationDomain.nextSetBit(0); srel >= 0;
+      				srel = relationDomain.nextSetBit(srel + 1))
+      				{
+      				argument = secondForm.getArgumentId(srel, arg);
+      				if (argument != -1)
+      					arcSupport.set(argument);
+      				}
+
+      			if (support == null)
+      				support = arcSupport;
+      			else
+      				support.and(arcSupport);
+      			}
+      	}
+
+      return support;
+      }
+
+    	/**
+    	 * Keeps in a first relation's domain only those second relations each of whose
+    	 * arguments is in the domain of the argument in the same position of the first.
+    	 *
+    	 * @param rel  the id of the first relation.
+    	 * @return true if the domain was narrowed.
+    	 */
+    private boolean reviseRelation(int rel)
+      {
+      BitSet domain, narrowed = null;
+      int numArgs, firstArgument, secondArgument;
+
+      domain = domains[numConceptVars + rel];
+      numArgs = firstForm.getNumberOfArguments(rel);
+
+      for (int srel = domain.nextSetBit(0); srel >= 0; srel = domain.nextSetBit(srel + 1))
+      	for (int arg = 0; arg < numArgs; arg++)
+      		{
+      		firstArgument = firstForm.getArgumentId(rel, arg);
+      		if (firstArgument == -1)
+      			continue;
+
+      		secondArgument = secondForm.getArgumentId(srel, arg);
+      		if ((secondArgument == -1) || !domains[firstArgument].get(secondArgument))
+      			{
+      			if (narrowed == null)
+      				narrowed = (BitSet)domain.clone();
+      			narrowed.clear(srel);
+      			break;
+      			}
+      		}
+
+      if (narrowed == null)
+      	return false;
+
+      replaceDomain(numConceptVars + rel, narrowed);
+      return true;
+      }
+
+    	/**
+    	 * Replaces a variable's domain, putting the old domain on the trail if it has not
+    	 * been put there since the current choice was made.
+    	 *
+    	 * @param var  the variable whose domain is replaced.
+    	 * @param newDomain  the new domain.
+    	 */
+    private void replaceDomain(int var, BitSet newDomain)
+      {
+      int newTrailVars[];
+      BitSet newTrailDomains[];
+
+      if (savedChoices[var] != choice)
+      	{
+      	if (trailSize == trailVars.length)
+      		{
+      		newTrailVars = new int[2 * trailSize];
+      		newTrailDomains = new BitSet[2 * trailSize];
+      		System.arraycopy(trailVars, 0, newTrailVars, 0, trailSize);
+      		System.arraycopy(trailDomains, 0, newTrailDomains, 0, trailSize);
+      		trailVars = newTrailVars;
+      		trailDomains = newTrailDomains;
+      		}
+
+      	trailVars[trailSize] = var;
+      	trailDomains[trailSize] = domains[var];
+      	trailSize++;
+      	savedChoices[var] = choice;
+      	}
+
+      domains[var] = newDomain;
+      }
+
+    	/**
+    	 * Restores the domains replaced since the trail had the specified size.
+    	 *
+    	 * @param size  the size to which the trail is returned.
+    	 */
+    private void restoreTrail(int size)
+      {
+      while (trailSize > size)
+      	{
+      	trailSize--;
+      	domains[trailVars[trailSize]] = trailDomains[trailSize];
+      	trailDomains[trailSize] = null;
+      	}
+      }
+
+    public boolean hasMoreElements()
+      {
+      if ((nextMapping == null) && findNextMapping())
+      	nextMapping = buildMapping();
+
+      return nextMapping != null;
+      }
+
+    public Object nextElement()
+      {
+      NodeMapping mapping;
+
+      if (!hasMoreElements())
+      	throw new NoSuchElementException();
+
+      mapping = nextMapping;
+      nextMapping = null;
+      return mapping;
+      }
+
+    	/**
+    	 * Advances the search to the next projection.
+    	 *
+    	 * @return true if a projection was found, false if they are exhausted.
+    	 */
+    private boolean findNextMapping()
+      {
+      int level;
+
+      if (exhausted)
+      	return false;
+
+      if (started)
+      	// Resume from the last projection found by trying the next value at its deepest level.
+      	level = numVars - 1;
+      else
+      	{
+      	started = true;
+      	level = 0;
+      	chooseVariable(level);
+      	}
+
+      while (true)
+      	{
+				// Each step is one choice point.  A spent budget ends the search early.
+      	if ((searchBudget != null) && !searchBudget.spend())
+      		{
+      		exhausted = true;
+      		return false;
+      		}
+
+      	if (advance(level))
+      		{
+      		level++;
+      		if (level == numVars)
+      			return true;
+      		chooseVariable(level);
+      		}
+      	else
+      		{
+      		chosen[levelVars[level]] = false;
+      		level--;
+      		if (level < 0)
+      			{
+      			exhausted = true;
+      			return false;
+      			}
+      		}
+      	}
+      }
+
+    	/**
+    	 * Chooses the variable for the specified level: the unchosen variable with the
+    	 * fewest values left, or the first of those with the fewest.
+    	 *
+    	 * @param level  the level whose variable is chosen.
+    	 */
+    private void chooseVariable(int level)
+      {
+      int best = -1, bestSize = Integer.MAX_VALUE, size;
+
+      for (int var = 0; var < numVars; var++)
+      	if (!chosen[var])
+      		{
+      		size = domains[var].cardinality();
+      		if (size < bestSize)
+      			{
+      			best = var;
+      			bestSize = size;
+      			}
+      		}
+
+      chosen[best] = true;
+      levelVars[level] = best;
+      levelValues[level] = -1;
+      levelTrails[level] = trailSize;
+      }
+
+    	/**
+    	 * Undoes the value last tried at the specified level and tries the next values in
+    	 * turn until one leaves every domain non-empty after propagation.
+    	 *
+    	 * @param level  the level at which a value is tried.
+    	 * @return true if a value was found, false if the level's values are exhausted.
+    	 */
+    private boolean advance(int level)
+      {
+      BitSet domain, single;
+      int var;
+
+      restoreTrail(levelTrails[level]);
+      var = levelVars[level];
+      domain = domains[var];
+
+      for (int value = domain.nextSetBit(levelValues[level] + 1); value >= 0;
+      	value = domain.nextSetBit(value + 1))
+      	{
+      	levelValues[level] = value;
+      	choice++;
+
+      	single = new BitSet(value + 1);
+      	single.set(value);
+      	replaceDomain(var, single);
+
+      	enqueueNeighbours(var);
+      	if (propagate())
+      		return true;
+
+      	restoreTrail(levelTrails[level]);
+      	}
+
+      return false;
+      }
+
+    	/**
+    	 * Returns a node mapping for the value chosen for every variable.
+    	 *
+    	 * @return the current node mapping.
+    	 */
+    private NodeMapping buildMapping()
+      {
+      Concept chosenFirstConcepts[] = null, chosenSecondConcepts[] = null;
+      Relation chosenFirstRelations[] = null, chosenSecondRelations[] = null;
+      MatchResult chosenResults[] = null;
+      int image;
+
+      if (mapConcepts)
+      	{
+      	chosenFirstConcepts = firstConcepts;
+      	chosenSecondConcepts = new Concept[firstConcepts.length];
+      	chosenResults = new MatchResult[firstConcepts.length];
+      	for (int con = 0; con < firstConcepts.length; con++)
+      		{
+      		image = domains[con].nextSetBit(0);
+      		chosenSecondConcepts[con] = secondConcepts[image];
+      		if (conceptResults[con] != null)
+      			chosenResults[con] = (MatchResult)conceptResults[con].get(new Integer(image));
+      		}
+      	}
+
+      if (mapRelations)
+      	{
+      	chosenFirstRelations = firstRelations;
+      	chosenSecondRelations = new Relation[firstRelations.length];
+      	for (int rel = 0; rel < firstRelations.length; rel++)
+      		chosenSecondRelations[rel] =
+      			secondRelations[domains[numConceptVars + rel].nextSetBit(0)];
+      	}
+
+      return new NodeMapping(firstGraph, secondGraph,
+      	chosenFirstConcepts, chosenSecondConcepts,
+      	chosenFirstRelations, chosenSecondRelations,
+      	chosenResults);
+      }
+    }
+  }
@@ -409,7 +409,10 @@ public class Referent implements java.io.Serializable
 		    	
 		    orgDescriptor = getDescriptor();
 		    if (orgDescriptor != null)
-			    newReferent.setDescriptor(orgDescriptor.copy(copyScheme, substitutionTable));
+		    	if (copyScheme.getGraphFlag() == CopyingScheme.GR_COPY_REFERENCE)
+		    		newReferent.setDescriptor(new GraphReference(orgDescriptor));
+		    	else
+				    newReferent.setDescriptor(orgDescriptor.copy(copyScheme, substitutionTable));
 
 				// Add pair to substitution table
 				substitutionTable.put(this, newReferent);
@@ -429,7 +432,9 @@ public class Referent implements java.io.Serializable
 		
     /**
      * Compares two referents to decide if they match.  The exact semantics of matching
-     * are determined by the matching scheme.  
+     * are determined by the matching scheme.  During one outer match, each pair of
+     * descriptors is matched only once, and the result is reused whenever the pair is
+     * compared again.
      *
      * @param first  the first referent being matched.
      * @param second  the second referent being matched.
@@ -447,6 +452,7 @@ public class Referent implements java.io.Serializable
   	MatchResult designatorResult;
     MatchResult descriptorResult;
     MatchingScheme nestedScheme;        
+    NestedMatchCache cache;
 
 		// If a referent is null, then pass it on as a single null designator,
 		
@@ -482,7 +488,24 @@ public class Referent implements java.io.Serializable
     else    
 	    secondDescriptor = second.getDescriptor();        
         
-    descriptorResult = Graph.matchGraphs(firstDescriptor, secondDescriptor, nestedScheme);
+    // Matches with a missing descriptor need no search.
+    if ((firstDescriptor == null) || (secondDescriptor == null))
+    	return Graph.matchGraphs(firstDescriptor, secondDescriptor, nestedScheme);
+
+    cache = NestedMatchCache.acquire();
+    try
+    	{
+	    descriptorResult = cache.getResult(firstDescriptor, secondDescriptor, nestedScheme);
+	    if (descriptorResult == null)
+	    	{
+		    descriptorResult = Graph.matchGraphs(firstDescriptor, secondDescriptor, nestedScheme);
+		    cache.putResult(firstDescriptor, secondDescriptor, nestedScheme, descriptorResult);
+		    }
+	    }
+    finally
+    	{
+    	cache.release();
+    	}
           
     return descriptorResult;
     }
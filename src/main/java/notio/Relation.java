@@ -266,6 +266,20 @@ public class Relation extends Node implements Serializable
 
     return arr;
     }
+
+    /**
+     * Returns the concept filling the specified argument of this relation,
+     * without copying the whole argument array.
+     *
+     * @param index  the index of the argument, counting inputs before outputs.
+     * @return the concept filling the argument, possibly null.
+     * @exception ArrayIndexOutOfBoundsException  if the index is out of range.
+     * @see notio.Relation#getArguments()
+     */
+  public Concept getArgument(int index)
+    {
+    return arguments[index];
+    }
     
     /**
      * Returns the input arguments for this relation.
@@ -357,7 +371,7 @@ public class Relation extends Node implements Serializable
     for(int arg = 0; arg < numArgs; arg++)
       if (arguments[arg] == oldConcept)
         {
-        arguments[arg] = newConcept;
+        storeArgument(arg, newConcept);
         }
     }
 
@@ -377,7 +391,7 @@ public class Relation extends Node implements Serializable
     for(int arg = 0; arg < outputStartIndex; arg++)
       if (arguments[arg] == oldConcept)
         {
-        arguments[arg] = newConcept;
+        storeArgument(arg, newConcept);
         }
     }
     
@@ -400,7 +414,7 @@ public class Relation extends Node implements Serializable
     for(int arg = outputStartIndex; arg < numArgs; arg++)
       if (arguments[arg] == oldConcept)
         {
-        arguments[arg] = newConcept;
+        storeArgument(arg, newConcept);
         return;
         }
     }
@@ -437,11 +451,59 @@ public class Relation extends Node implements Serializable
 		// Increase or decrease the length of the arguments array to match the type's valence.
 		newArgs = new Concept[valence];
 		System.arraycopy(arguments, 0, newArgs, 0, Math.min(valence, arguments.length));
+
+		// Any arguments dropped from the end must also be dropped from the graph's index.
+		for (int arg = valence; arg < numArgs; arg++)
+			storeArgument(arg, null);
+
 		arguments = newArgs;
 		
 		return true;
 		}
 
+    /**
+     * Stores the specified concept in the specified argument slot.  If this relation
+     * belongs to a graph, the graph's index of relators is updated to reflect the change.
+     * All changes to the arguments of a relation that may already be part of a
+     * graph should be made through this method.
+     *
+     * @param index  the index of the argument being stored.
+     * @param newConcept  the concept to be stored, possibly null.
+     */
+  private void storeArgument(int index, Concept newConcept)
+    {
+    Concept oldConcept;
+    Graph graph;
+
+    oldConcept = arguments[index];
+    arguments[index] = newConcept;
+
+    if (oldConcept == newConcept)
+    	return;
+
+    graph = getEnclosingGraph();
+    if (graph != null)
+    	graph.updateRelator(this, oldConcept, newConcept);
+    }
+
+    /**
+     * Returns the number of times the specified concept occurs as an argument of 
+     * this relation.
+     *
+     * @param concept  the concept being counted.
+     * @return the number of arguments that are the specified concept.
+     */
+  int countArgument(Concept concept)
+    {
+    int count = 0;
+
+    for (int arg = 0; arg < arguments.length; arg++)
+    	if (arguments[arg] == concept)
+    		count++;
+
+    return count;
+    }
+
     /**
      * Sets the specified argument to the specified concept.
      * The index of the first argument (often labelled "1" in diagrams) is zero.
@@ -504,7 +566,7 @@ public class Relation extends Node implements Serializable
    		adjustToMatchTypeValence();
    		}
     		
-    arguments[index] = newConcept;
+    storeArgument(index, newConcept);
     }
     
     /**
@@ -837,7 +899,7 @@ public class Relation extends Node implements Serializable
 
     numArgs = arguments.length;
     for(int arg = 0; arg < numArgs; arg++)
-      arguments[arg] = (Concept)substitutionTable.get(arguments[arg]);
+      storeArgument(arg, (Concept)substitutionTable.get(arguments[arg]));
     }
 
      /**
@@ -0,0 +1,180 @@
+package notio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+    /**
+     * A limit on the work done by graph matching searches, used to stop a search that
+     * would otherwise run for too long.  A budget may limit the number of choice points
+     * the searches visit and the wall-clock time by which they must finish, and it may
+     * be cancelled at any time from another thread.  Once any of these stops a search,
+     * the budget is exhausted and every later search that uses it stops at its next
+     * choice point.
+     * <p>
+     * A budget is given to a search through MatchingScheme.  The choice points are
+     * counted over every search that uses the budget, including matches of nested
+     * graphs and the parallel tasks of a ParallelMatchEngine, so a budget is normally
+     * made for one request and not reused.  A MatchResult from a search stopped by its
+     * budget reports that it is truncated.  Candidate nodes are found before the search
+     * begins and are not counted.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchingScheme#getSearchBudget
+     * @see notio.MatchResult#isTruncated
+     */
+public class SearchBudget
+  {
+  /** The clock is read once for every this many choice points, plus one. **/
+  private static final long CLOCK_MASK = 0xFF;
+
+	  /** The largest number of choice points allowed, or 0 for no limit. **/
+  private long maxChoicePoints;
+
+	  /** The time, in milliseconds, by which searches must finish, or 0 for no limit. **/
+  private long deadline;
+
+	  /** The number of choice points visited so far. **/
+  private AtomicLong choicePoints = new AtomicLong();
+
+	  /** Flag indicating that the budget has been cancelled. **/
+  private volatile boolean cancelled = false;
+
+	  /** Flag indicating that a search has been stopped by this budget. **/
+  private volatile boolean exhausted = false;
+
+  /* Constructors */
+    /**
+     * Constructs a budget with no limits, which stops searches only if cancelled.
+     */
+  public SearchBudget()
+    {
+    this(0, 0);
+    }
+
+    /**
+     * Constructs a budget with the specified limits.
+     *
+     * @param newMaxChoicePoints  the largest number of choice points the searches may
+     * visit, or 0 for no limit.
+     * @param newDeadline  the time, as given by System.currentTimeMillis(), by which the
+     * searches must finish, or 0 for no limit.
+     * @exception IllegalArgumentException  if either limit is negative.
+     */
+  public SearchBudget(long newMaxChoicePoints, long newDeadline)
+    {
+    if ((newMaxChoicePoints < 0) || (newDeadline < 0))
+    	throw new IllegalArgumentException("Search budget limits cannot be negative.");
+
+    maxChoicePoints = newMaxChoicePoints;
+    deadline = newDeadline;
+    }
+
+    /**
+     * Returns the largest number of choice points the searches may visit.
+     *
+     * @return the largest number of choice points, or 0 if there is no limit.
+     */
+  public long getMaxChoicePoints()
+    {
+    return maxChoicePoints;
+    }
+
+    /**
+     * Returns the time by which the searches must finish.
+     *
+     * @return the deadline in milliseconds, or 0 if there is no limit.
+     */
+  public long getDeadline()
+    {
+    return deadline;
+    }
+
+    /**
+     * Returns the number of choice points visited so far by the searches using this
+     * budget.
+     *
+     * @return the number of choice points visited.
+     */
+  public long getChoicePointsUsed()
+    {
+    return choicePoints.get();
+    }
+
+    /**
+     * Cancels this budget, so that the searches using it stop at their next choice
+     * point.  This may be called from any thread.
+     */
+  public void cancel()
+    {
+    cancelled = true;
+    }
+
+    /**
+     * Returns true if this budget has been cancelled.
+     *
+     * @return true if this budget has been cancelled.
+     */
+  public boolean isCancelled()
+    {
+    return cancelled;
+    }
+
+    /**
+     * Returns true if a search has been stopped by this budget, because it was
+     * cancelled or one of its limits was reached.
+     *
+     * @return true if this budget is exhausted.
+     */
+  public boolean isExhausted()
+    {
+    return exhausted;
+    }
+
+    /**
+     * Records a visit to a choice point and returns false if the search must stop.
+     * The deadline is checked on the first visit and then every few hundred visits,
+     * so that the clock is not read at every choice point.
+     *
+     * @return true if the search may continue, false if the budget is exhausted.
+     */
+  boolean spend()
+    {
+    long spent;
+
+    if (exhausted)
+    	return false;
+
+    if (cancelled)
+    	{
+    	exhausted = true;
+    	return false;
+    	}
+
+    spent = choicePoints.incrementAndGet();
+    if ((maxChoicePoints > 0) && (spent > maxChoicePoints))
+    	{
+    	exhausted = true;
+    	return false;
+    	}
+
+    if ((deadline > 0) && ((spent & CLOCK_MASK) == 1) &&
+    	(System.currentTimeMillis() >= deadline))
+    	{
+    	exhausted = true;
+    	return false;
+    	}
+
+    return true;
+    }
+  }
@@ -0,0 +1,943 @@
+package notio;
+
+import java.util.*;
+
+    /**
+     * A match engine that searches the space of partial mappings directly and checks
+     * arguments at each step.  Relations are mapped first, in the order of the first
+     * graph, and when connected matching is required, mapping a relation binds each of
+     * its arguments to the argument in the same position of its image.  A partial mapping
+     * that binds a concept to two different concepts, binds two concepts to the same
+     * concept, or binds a concept to one it does not match is abandoned as soon as the
+     * relation is mapped, instead of after every concept has been mapped and the
+     * structures compared.  Concepts are then mapped in the order of the first graph,
+     * and a concept bound by a relation has only the one choice.
+     * <p>
+     * Mappings are returned in the same order as GeneratorMatchEngine would return them.
+     * Matches with folding, and graphs with missing arguments, are passed to that engine.
+     * <p>
+     * The engine may instead be built to map the most constrained nodes first.  Each
+     * relation is then chosen to have as many arguments as possible already bound by the
+     * relations before it, and of those, the fewest candidates, so a wrong choice is found
+     * out at the next relation rather than many levels later.  Concepts that no relation
+     * binds are mapped last, fewest candidates first.  The same mappings are found, but
+     * not in the order of GeneratorMatchEngine.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     *
+     * @see notio.MatchEngine
+     * @see notio.GeneratorMatchEngine
+     */
+
+public class StateSpaceMatchEngine implements MatchEngine
+  {
+	  /** The engine used for the matches this engine does not handle. **/
+  private MatchEngine referenceEngine = new GeneratorMatchEngine();
+
+	  /** Flag indicating that the most constrained nodes are mapped first. **/
+  private boolean constrainedOrder;
+
+  /* Constructors */
+    /**
+     * Constructs an engine that maps nodes in the order of the first graph, returning
+     * mappings in the same order as GeneratorMatchEngine.
+     */
+  public StateSpaceMatchEngine()
+    {
+    this(false);
+    }
+
+    /**
+     * Constructs an engine that maps nodes either in the order of the first graph or
+     * most constrained first.
+     *
+     * @param newConstrainedOrder  true if the most constrained nodes are mapped first,
+     * in which case mappings are not returned in the order of GeneratorMatchEngine.
+     */
+  public StateSpaceMatchEngine(boolean newConstrainedOrder)
+    {
+    constrainedOrder = newConstrainedOrder;
+    }
+
+    /**
+     * Returns true if this engine maps the most constrained nodes first.
+     *
+     * @return true if the most constrained nodes are mapped first.
+     */
+  public boolean isConstrainedOrder()
+    {
+    return constrainedOrder;
+    }
+
+    /**
+     * Returns an enumeration of the node mappings from the first graph into the second
+     * that satisfy the specified scheme.
+     *
+     * @param first  the graph being mapped from.
+     * @param second  the graph being mapped into.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return an enumeration of NodeMapping instances.
+     */
+  public Enumeration getMappings(Graph first, Graph second, MatchingScheme matchingScheme)
+    {
+    FrozenGraph firstForm, secondForm;
+
+    switch (matchingScheme.getGraphFlag())
+    	{
+    	case MatchingScheme.GR_MATCH_COMPLETE:
+    	case MatchingScheme.GR_MATCH_SUBGRAPH:
+    	case MatchingScheme.GR_MATCH_PROPER_SUBGRAPH:
+    		break;
+
+    	default:
+    		return referenceEngine.getMappings(first, second, matchingScheme);
+    	}
+
+    firstForm = first.freeze();
+    secondForm = second.freeze();
+
+    if ((matchingScheme.getFoldingFlag() == MatchingScheme.FOLD_MATCH_ON) ||
+    	firstForm.hasMissingArguments() || secondForm.hasMissingArguments())
+    	return referenceEngine.getMappings(first, second, matchingScheme);
+
+		// The reference engine's structure check cannot handle relations mapped without
+		// their arguments.
+    if ((matchingScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) &&
+    	(firstForm.getNumberOfRelations() > 0) && (secondForm.getNumberOfRelations() > 0) &&
+    	((firstForm.getNumberOfConcepts() == 0) || (secondForm.getNumberOfConcepts() == 0)))
+    	return referenceEngine.getMappings(first, second, matchingScheme);
+
+    return enumerateMappings(new MappingSearch(first, second, firstForm, secondForm,
+    	matchingScheme, constrainedOrder), matchingScheme);
+    }
+
+    /**
+     * Returns an enumeration of the mappings found by the specified search.  The search
+     * itself is returned, so the mappings are found as they are read.
+     *
+     * @param search  the search over the mappings, not yet started.
+     * @param matchingScheme  the matching scheme that determines how the match is performed.
+     * @return an enumeration of NodeMapping instances.
+     */
+  Enumeration enumerateMappings(MappingSearch search, MatchingScheme matchingScheme)
+    {
+    return search;
+    }
+
+    /**
+     * A depth first search over the mappings of two graphs that finds each mapping as
+     * it is read.  There is one level for each first relation followed by one for each
+     * first concept, each level mapping the node given by the search order.  The position of the choice made at each level, in that node's
+     * candidate list, is kept so the search can resume from the last mapping returned.
+     * A search may be restricted to a prefix, a fixed choice at each of the first few
+     * levels, so that separate parts of the search can be run independently.
+     */
+  static class MappingSearch implements Enumeration
+    {
+		  /** The graphs being mapped from and into. **/
+    private Graph firstGraph, secondGraph;
+
+		  /** The frozen forms of the graphs being mapped from and into. **/
+    private FrozenGraph firstForm, secondForm;
+
+		  /** The matching scheme used for mapping. **/
+    private MatchingScheme matchScheme;
+
+		  /** The nodes of the first and second graphs. **/
+    private Concept firstConcepts[], secondConcepts[];
+    private Relation firstRelations[], secondRelations[];
+
+		  /** Flags indicating whether concepts and relations are mapped. **/
+    private boolean mapConcepts, mapRelations;
+
+		  /** Flag indicating that relation arguments bind concepts as relations are mapped. **/
+    private boolean checkArguments;
+
+		  /** The ids of the second nodes each first node matches, in increasing order. **/
+    private int conceptCandidates[][], relationCandidates[][];
+
+		  /** The MatchResult for each concept candidate, or null if it has no mappings. **/
+    private MatchResult conceptResults[][];
+
+		  /** The number of relation levels and the total number of levels. **/
+    private int numRelationLevels, numLevels;
+
+		  /** The id of the first relation or concept mapped at each level. **/
+    private int levelNodes[];
+
+		  /** The candidate position chosen at each level, or -1 if none has been tried. **/
+    private int positions[];
+
+		  /** The positions the first levels are restricted to, or null if unrestricted. **/
+    private int prefix[];
+
+		  /** The level at which the search is complete. **/
+    private int goalLevel;
+
+		  /** The second relation onto which each first relation is mapped. **/
+    private int relationImages[];
+
+		  /** Flags indicating which second relations are mapped. **/
+    private boolean usedSecondRelations[];
+
+		  /** The second concept onto which each first concept is mapped, or -1. **/
+    private int conceptImages[];
+
+		  /** The first concept mapped onto each second concept, or -1. **/
+    private int conceptPreimages[];
+
+		  /** The number of mapped relations that bind each first concept. **/
+    private int conceptBindings[];
+
+		  /** Flags indicating that the search has started, and that it is exhausted. **/
+    private boolean started = false, exhausted = false;
+
+		  /** The next mapping to be returned, or null if it has not been found yet. **/
+    private NodeMapping nextMapping;
+
+		  /** The budget that limits the search, or null if it is not limited. **/
+    private SearchBudget searchBudget;
+
+		  /** Flag indicating that the search has been stopped by another thread. **/
+    private volatile boolean cancelled = false;
+
+		  /** The symmetry constraints on the images of the first nodes, or null if there are none. **/
+    private GraphSymmetry symmetry;
+
+    	/**
+    	 * Constructs a search over the mappings of two graphs.
+    	 *
+    	 * @param newFirst  the graph being mapped from.
+    	 * @param newSecond  the graph being mapped into.
+    	 * @param newFirstForm  the frozen form of the first graph.
+    	 * @param newSecondForm  the frozen form of the second graph.
+    	 * @param matchingScheme  the matching scheme used for mapping.
+    	 * @param constrainedOrder  true if the most constrained nodes are mapped first,
+    	 * false if nodes are mapped in the order of the first graph.
+    	 */
+    MappingSearch(Graph newFirst, Graph newSecond, FrozenGraph newFirstForm,
+    	FrozenGraph newSecondForm, MatchingScheme matchingScheme, boolean constrainedOrder)
+      {
+      int numFirstConcepts, numSecondConcepts, numFirstRelations, numSecondRelations;
+      int numFirst, numSecond;
+      MatchContext context;
+
+      firstGraph = newFirst;
+      secondGraph = newSecond;
+      firstForm = newFirstForm;
+      secondForm = newSecondForm;
+      matchScheme = matchingScheme;
+      searchBudget = matchingScheme.getSearchBudget();
+
+      firstConcepts = firstForm.getConcepts();
+      secondConcepts = secondForm.getConcepts();
+      firstRelations = firstForm.getRelations();
+      secondRelations = secondForm.getRelations();
+
+      numFirstConcepts = firstConcepts.length;
+      numSecondConcepts = secondConcepts.length;
+      numFirstRelations = firstRelations.length;
+      numSecondRelations = secondRelations.length;
+      numFirst = numFirstConcepts + numFirstRelations;
+      numSecond = numSecondConcepts + numSecondRelations;
+
+      mapConcepts = (numFirstConcepts > 0) && (numSecondConcepts > 0);
+      mapRelations = (numFirstRelations > 0) && (numSecondRelations > 0);
+
+			// Apply the same size restrictions as the generator.  Every first node must be
+			// mapped, so a proper subgraph must leave out at least one second concept and
+			// one second relation.
+      switch (matchScheme.getGraphFlag())
+      	{
+      	case MatchingScheme.GR_MATCH_COMPLETE:
+      		if ((numFirstConcepts != numSecondConcepts) ||
+      			(numFirstRelations != numSecondRelations))
+      			exhausted = true;
+      		break;
+
+      	case MatchingScheme.GR_MATCH_SUBGRAPH:
+      		if (((numFirstConcepts > 0) && (numSecondConcepts == 0)) ||
+      			((numFirstRelations > 0) && (numSecondRelations == 0)) || (numFirst > numSecond))
+      			exhausted = true;
+      		break;
+
+      	case MatchingScheme.GR_MATCH_PROPER_SUBGRAPH:
+      		if (((numFirstConcepts > 0) && (numSecondConcepts == 0)) ||
+      			((numFirstRelations > 0) && (numSecondRelations == 0)) || (numFirst >= numSecond) ||
+      			(mapConcepts && (numFirstConcepts >= numSecondConcepts)) ||
+      			(mapRelations && (numFirstRelations >= numSecondRelations)))
+      			exhausted = true;
+      		break;
+      	}
+
+      if (!mapConcepts && !mapRelations)
+      	exhausted = true;
+
+      if (exhausted)
+      	return;
+
+      // Relation candidates may compare the same concepts again on their arcs.
+      context = MatchContext.createFor(matchScheme);
+
+      if (mapConcepts)
+      	{
+      	conceptResults = new MatchResult[numFirstConcepts][];
+      	conceptCandidates = findCandidates(true, context);
+      	if (conceptCandidates == null)
+      		{
+      		exhausted = true;
+      		return;
+      		}
+      	}
+
+      if (mapRelations)
+      	{
+      	relationCandidates = findCandidates(false, context);
+      	if (relationCandidates == null)
+      		{
+      		exhausted = true;
+      		return;
+      		}
+      	}
+
+      checkArguments = (matchScheme.getConnectedFlag() == MatchingScheme.CONN_MATCH_ON) &&
+      	mapConcepts && mapRelations;
+
+      if (mapRelations)
+      	{
+      	numRelationLevels = numFirstRelations;
+      	relationImages = new int[numFirstRelations];
+      	usedSecondRelations = new boolean[numSecondRelations];
+      	Arrays.fill(relationImages, -1);
+      	}
+
+      symmetry = GraphSymmetry.findSymmetry(firstForm, matchScheme);
+
+      numLevels = numRelationLevels;
+      if (mapConcepts)
+      	{
+      	numLevels += numFirstConcepts;
+      	conceptImages = new int[numFirstConcepts];
+      	conceptBindings = new int[numFirstConcepts];
+      	conceptPreimages = new int[numSecondConcepts];
+      	Arrays.fill(conceptImages, -1);
+      	Arrays.fill(conceptPreimages, -1);
+      	}
+
+      if (constrainedOrder)
+      	levelNodes = findConstrainedOrder();
+      else
+      	{
+      	levelNodes = new int[numLevels];
+      	for (int level = 0; level < numLevels; level++)
+      		if (level < numRelationLevels)
+      			levelNodes[level] = level;
+      		else
+      			levelNodes[level] = level - numRelationLevels;
+      	}
+
+      positions = new int[numLevels];
+      goalLevel = numLevels;
+      }
+
+    	/**
+    	 * Constructs a search sharing the graphs and candidates of the specified search,
+    	 * but with its own state.  The new search is restricted to the specified prefix.
+    	 *
+    	 * @param prototype  the search whose graphs and candidates are shared.
+    	 * @param newPrefix  the positions the first levels are restricted to, or null.
+    	 * @param newGoalLevel  the level at which the search is complete.
+    	 */
+    private MappingSearch(MappingSearch prototype, int newPrefix[], int newGoalLevel)
+      {
+      firstGraph = prototype.firstGraph;
+      secondGraph = prototype.secondGraph;
+      firstForm = prototype.firstForm;
+      secondForm = prototype.secondForm;
+      matchScheme = prototype.matchScheme;
+      searchBudget = prototype.searchBudget;
+      symmetry = prototype.symmetry;
+      firstConcepts = prototype.firstConcepts;
+      secondConcepts = prototype.secondConcepts;
+      firstRelations = prototype.firstRelations;
+      secondRelations = prototype.secondRelations;
+      mapConcepts = prototype.mapConcepts;
+      mapRelations = prototype.mapRelations;
+      checkArguments = prototype.checkArguments;
+      conceptCandidates = prototype.conceptCandidates;
+      relationCandidates = prototype.relationCandidates;
+      conceptResults = prototype.conceptResults;
+      numRelationLevels = prototype.numRelationLevels;
+      numLevels = prototype.numLevels;
+      levelNodes = prototype.levelNodes;
+      exhausted = prototype.exhausted;
+      prefix = newPrefix;
+      goalLevel = newGoalLevel;
+
+      if (exhausted)
+      	return;
+
+      if (mapRelations)
+      	{
+      	relationImages = new int[firstRelations.length];
+      	usedSecondRelations = new boolean[secondRelations.length];
+      	Arrays.fill(relationImages, -1);
+      	}
+
+      if (mapConcepts)
+      	{
+      	conceptImages = new int[firstConcepts.length];
+      	conceptBindings = new int[firstConcepts.length];
+      	conceptPreimages = new int[secondConcepts.length];
+      	Arrays.fill(conceptImages, -1);
+      	Arrays.fill(conceptPreimages, -1);
+      	}
+
+      positions = new int[numLevels];
+      }
+
+    	/**
+    	 * Returns the node mapped at each level when the most constrained nodes are
+    	 * mapped first.  Each relation is the one with the most arguments bound by the
+    	 * relations before it, then the one with the fewest candidates, then the first in
+    	 * the graph.  Arguments are only bound when they are checked.  Concepts bound by
+    	 * some relation have a single choice and come first among the concepts, and the
+    	 * rest follow with the fewest candidates first.
+    	 *
+    	 * @return the id of the first node mapped at each level.
+    	 */
+    private int[] findConstrainedOrder()
+      {
+      int order[], chosen, chosenBound, numBound, next, numArgs;
+      boolean ordered[], bound[];
+
+      order = new int[numLevels];
+      next = 0;
+
+      if (mapRelations)
+      	{
+      	ordered = new boolean[firstRelations.length];
+      	bound = new boolean[firstConcepts.length];
+
+      	for (int level = 0; level < numRelationLevels; level++)
+      		{
+      		chosen = -1;
+      		chosenBound = -1;
+      		for (int rel = 0; rel < firstRelations.length; rel++)
+      			{
+      			if (ordered[rel])
+      				continue;
+
+      			numBound = 0;
+      			if (checkArguments)
+      				for (int arg = 0; arg < firstForm.getNumberOfArguments(rel); arg++)
+      					if (bound[firstForm.getArgumentId(rel, arg)])
+      						numBound++;
+
+      			if ((numBound > chosenBound) || ((numBound == chosenBound) &&
+      				(relationCandidates[rel].length < relationCandidates[chosen].length)))
+      				{
+      				chosen = rel;
+      				chosenBound = numBound;
+      				}
+      			}
+
+      		ordered[chosen] = true;
+      		order[next] = chosen;
+      		next++;
+
+      		if (checkArguments)
+      			{
+      			numArgs = firstForm.getNumberOfArguments(chosen);
+      			for (int arg = 0; arg < numArgs; arg++)
+      				bound[firstForm.getArgumentId(chosen, arg)] = true;
+      			}
+      		}
+
+      	if (mapConcepts)
+      		for (int con = 0; con < firstConcepts.length; con++)
+      			if (bound[con])
+      				{
+      				order[next] = con;
+      				next++;
+      				}
+      	}
+
+      if (mapConcepts)
+      	{
+				// The concepts no relation binds, fewest candidates first.
+      	ordered = new boolean[firstConcepts.length];
+      	for (int level = numRelationLevels; level < next; level++)
+      		ordered[order[level]] = true;
+
+      	while (next < numLevels)
+      		{
+      		chosen = -1;
+      		for (int con = 0; con < firstConcepts.length; con++)
+      			if (!ordered[con] && ((chosen == -1) ||
+      				(conceptCandidates[con].length < conceptCandidates[chosen].length)))
+      				chosen = con;
+
+      		ordered[chosen] = true;
+      		order[next] = chosen;
+      		next++;
+      		}
+      	}
+
+      return order;
+      }
+
+    	/**
+    	 * Returns the number of levels in this search.
+    	 *
+    	 * @return the number of levels in this search.
+    	 */
+    int getNumberOfLevels()
+      {
+      return numLevels;
+      }
+
+    	/**
+    	 * Returns, in search order, every prefix of the specified length that the search
+    	 * can reach.  Each is an array of positions for the first levels.
+    	 *
+    	 * @param length  the number of levels in each prefix.
+    	 * @return a vector of the reachable prefixes.
+    	 */
+    Vector findPrefixes(int length)
+      {
+      MappingSearch prefixSearch;
+      Vector prefixes = new Vector();
+      int found[];
+
+      prefixSearch = new MappingSearch(this, null, length);
+      while (prefixSearch.findNextMapping())
+      	{
+      	found = new int[length];
+      	System.arraycopy(prefixSearch.positions, 0, found, 0, length);
+      	prefixes.addElement(found);
+      	}
+
+      return prefixes;
+      }
+
+    	/**
+    	 * Returns a new search over the mappings that begin with the specified prefix,
+    	 * sharing the graphs and candidates of this search.
+    	 *
+    	 * @param newPrefix  the positions the first levels are restricted to.
+    	 * @return the new search, not yet started.
+    	 */
+    MappingSearch restrictTo(int newPrefix[])
+      {
+      return new MappingSearch(this, newPrefix, numLevels);
+      }
+
+    	/**
+    	 * Stops this search.  It may be called from any thread, and the search ends at
+    	 * its next choice point as though its mappings were exhausted.
+    	 */
+    void cancel()
+      {
+      cancelled = true;
+      }
+
+    	/**
+    	 * Returns a table listing, for each first node, the ids of the second nodes it
+    	 * matches in increasing order, or null if some first node matches none.  For
+    	 * concepts, the MatchResult of each pair is recorded as well.
+    	 *
+    	 * @param forConcepts  true to list concept candidates, false to list relation candidates.
+    	 * @param context  the context of the match, or null if comparisons are not kept.
+    	 * @return the candidate table or null if some first node has no candidates.
+    	 */
+    private int[][] findCandidates(boolean forConcepts, MatchContext context)
+      {
+      int typeCandidates[][], allSeconds[], secondIds[], candidates[], candidateTable[][];
+      int numFirst, numSecond, numCand, snode;
+      MatchResult results[] = null, matchResult;
+      CompiledMatchingScheme compiledScheme;
+
+      if (forConcepts)
+      	{
+      	numFirst = firstConcepts.length;
+      	numSecond = secondConcepts.length;
+      	results = new MatchResult[numSecond];
+      	}
+      else
+      	{
+      	numFirst = firstRelations.length;
+      	numSecond = secondRelations.length;
+      	}
+
+      typeCandidates = NodeMappingGenerator.findTypeCandidates(firstForm, secondForm,
+      	forConcepts, matchScheme);
+      compiledScheme = matchScheme.compile();
+
+      allSeconds = new int[numSecond];
+      for (snode = 0; snode < numSecond; snode++)
+      	allSeconds[snode] = snode;
+
+      candidateTable = new int[numFirst][];
+      candidates = new int[numSecond];
+
+      for (int fnode = 0; fnode < numFirst; fnode++)
+      	{
+      	if (typeCandidates == null)
+      		secondIds = allSeconds;
+      	else
+      		secondIds = typeCandidates[fnode];
+
+      	numCand = 0;
+      	for (int sindex = 0; sindex < secondIds.length; sindex++)
+      		{
+      		snode = secondIds[sindex];
+
+      		if (forConcepts)
+      			{
+      			matchResult = compiledScheme.matchConcepts(firstConcepts[fnode],
+      				secondConcepts[snode], context);
+
+      			if (matchResult.matchSucceeded())
+      				{
+      				candidates[numCand] = snode;
+
+      				// Only results that carry nested mappings are kept with the pair.
+      				if (matchResult.getMappings() == null)
+      					results[numCand] = null;
+      				else
+      					results[numCand] = matchResult;
+
+      				numCand++;
+      				}
+      			}
+      		else
+      			if (compiledScheme.matchRelations(firstRelations[fnode], secondRelations[snode],
+      				context))
+      				{
+      				candidates[numCand] = snode;
+      				numCand++;
+      				}
+      		}
+
+      	if (numCand == 0)
+      		return null;
+
+      	candidateTable[fnode] = new int[numCand];
+      	System.arraycopy(candidates, 0, candidateTable[fnode], 0, numCand);
+
+      	if (forConcepts)
+      		{
+      		conceptResults[fnode] = new MatchResult[numCand];
+      		System.arraycopy(results, 0, conceptResults[fnode], 0, numCand);
+      		}
+      	}
+
+      return candidateTable;
+      }
+
+    public boolean hasMoreElements()
+      {
+      if ((nextMapping == null) && findNextMapping())
+      	nextMapping = buildMapping();
+
+      return nextMapping != null;
+      }
+
+    public Object nextElement()
+      {
+      NodeMapping mapping;
+
+      if (!hasMoreElements())
+      	throw new NoSuchElementException();
+
+      mapping = nextMapping;
+      nextMapping = null;
+      return mapping;
+      }
+
+    	/**
+    	 * Advances the search to the next complete mapping.
+    	 *
+    	 * @return true if a mapping was found, false if the mappings are exhausted.
+    	 */
+    private boolean findNextMapping()
+      {
+      int level;
+
+      if (exhausted)
+      	return false;
+
+      if (started)
+      	{
+      	// Resume from the last mapping found by undoing its deepest choice.
+      	level = goalLevel - 1;
+      	retract(level);
+      	}
+      else
+      	{
+      	started = true;
+      	level = 0;
+      	positions[0] = -1;
+      	}
+
+      while (true)
+      	{
+				// Each step is one choice point.  A spent budget ends the search early.
+      	if (cancelled || ((searchBudget != null) && !searchBudget.spend()))
+      		{
+      		exhausted = true;
+      		return false;
+      		}
+
+      	if (advance(level))
+      		{
+      		level++;
+      		if (level == goalLevel)
+      			return true;
+      		positions[level] = -1;
+      		}
+      	else
+      		{
+      		level--;
+      		if (level < 0)
+      			{
+      			exhausted = true;
+      			return false;
+      			}
+      		retract(level);
+      		}
+      	}
+      }
+
+    	/**
+    	 * Makes the next valid choice at the specified level, after the one last made.
+    	 *
+    	 * @param level  the level at which a choice is made.
+    	 * @return true if a choice was made, false if the level's choices are exhausted.
+    	 */
+    private boolean advance(int level)
+      {
+      int candidates[], firstNode, secondNode, position, start, end;
+
+      firstNode = levelNodes[level];
+      if (level < numRelationLevels)
+      	candidates = relationCandidates[firstNode];
+      else
+      	candidates = conceptCandidates[firstNode];
+
+			// A level in the prefix may only make its one choice.
+      start = positions[level] + 1;
+      end = candidates.length;
+      if ((prefix != null) && (level < prefix.length))
+      	{
+      	start = Math.max(start, prefix[level]);
+      	end = prefix[level] + 1;
+      	}
+
+      if (level < numRelationLevels)
+      	{
+      	for (position = start; position < end; position++)
+      		{
+      		secondNode = candidates[position];
+      		if (usedSecondRelations[secondNode])
+      			continue;
+
+      		if ((symmetry != null) && !symmetry.allowsRelation(firstNode, secondNode, relationImages))
+      			continue;
+
+      		if (checkArguments && !bindArguments(firstNode, secondNode))
+      			continue;
+
+      		usedSecondRelations[secondNode] = true;
+      		relationImages[firstNode] = secondNode;
+      		positions[level] = position;
+      		return true;
+      		}
+
+      	positions[level] = position;
+      	return false;
+      	}
+
+			// A concept bound by the relations already has its only choice.
+      if (conceptBindings[firstNode] > 0)
+      	{
+      	if (positions[level] != -1)
+      		return false;
+
+      	if ((symmetry != null) &&
+      		!symmetry.allowsConcept(firstNode, conceptImages[firstNode], conceptImages))
+      		return false;
+
+      	positions[level] = Arrays.binarySearch(candidates, conceptImages[firstNode]);
+      	return true;
+      	}
+
+      for (position = start; position < end; position++)
+      	{
+      	secondNode = candidates[position];
+      	if (conceptPreimages[secondNode] != -1)
+      		continue;
+
+      	if ((symmetry != null) && !symmetry.allowsConcept(firstNode, secondNode, conceptImages))
+      		continue;
+
+      	conceptImages[firstNode] = secondNode;
+      	conceptPreimages[secondNode] = firstNode;
+      	positions[level] = position;
+      	return true;
+      	}
+
+      positions[level] = position;
+      return false;
+      }
+
+    	/**
+    	 * Undoes the choice last made at the specified level.
+    	 *
+    	 * @param level  the level whose choice is undone.
+    	 */
+    private void retract(int level)
+      {
+      int firstNode, secondNode;
+
+      firstNode = levelNodes[level];
+      if (level < numRelationLevels)
+      	{
+      	secondNode = relationImages[firstNode];
+      	usedSecondRelations[secondNode] = false;
+      	relationImages[firstNode] = -1;
+      	if (checkArguments)
+      		unbindArguments(firstNode, firstForm.getNumberOfArguments(firstNode));
+      	return;
+      	}
+
+      if (conceptBindings[firstNode] == 0)
+      	{
+      	conceptPreimages[conceptImages[firstNode]] = -1;
+      	conceptImages[firstNode] = -1;
+      	}
+      }
+
+    	/**
+    	 * Binds each argument of a first relation to the argument in the same position of
+    	 * a second relation.  If any argument cannot be bound, the arguments already bound
+    	 * are released and the relations may not be mapped.
+    	 *
+    	 * @param firstRel  the id of the first relation.
+    	 * @param secondRel  the id of the second relation.
+    	 * @return true if all of the arguments were bound.
+    	 */
+    private boolean bindArguments(int firstRel, int secondRel)
+      {
+      int numArgs, firstCon, secondCon;
+
+      numArgs = firstForm.getNumberOfArguments(firstRel);
+      if (numArgs > secondForm.getNumberOfArguments(secondRel))
+      	return false;
+
+      for (int arg = 0; arg < numArgs; arg++)
+      	{
+      	firstCon = firstForm.getArgumentId(firstRel, arg);
+      	secondCon = secondForm.getArgumentId(secondRel, arg);
+
+      	if (conceptBindings[firstCon] > 0)
+      		{
+      		if (conceptImages[firstCon] != secondCon)
+      			{
+      			unbindArguments(firstRel, arg);
+      			return false;
+      			}
+      		}
+      	else
+      		{
+      		if ((conceptPreimages[secondCon] != -1) ||
+      			(Arrays.binarySearch(conceptCandidates[firstCon], secondCon) < 0))
+      			{
+      			unbindArguments(firstRel, arg);
+      			return false;
+      			}
+
+      		conceptImages[firstCon] = secondCon;
+      		conceptPreimages[secondCon] = firstCon;
+      		}
+
+      	conceptBindings[firstCon]++;
+      	}
+
+      return true;
+      }
+
+    	/**
+    	 * Releases the bindings made by the leading arguments of a first relation.
+    	 *
+    	 * @param firstRel  the id of the first relation.
+    	 * @param numArgs  the number of leading arguments whose bindings are released.
+    	 */
+    private void unbindArguments(int firstRel, int numArgs)
+      {
+      int firstCon;
+
+      for (int arg = 0; arg < numArgs; arg++)
+      	{
+      	firstCon = firstForm.getArgumentId(firstRel, arg);
+      	conceptBindings[firstCon]--;
+      	if (conceptBindings[firstCon] == 0)
+      		{
+      		conceptPreimages[conceptImages[firstCon]] = -1;
+      		conceptImages[firstCon] = -1;
+      		}
+      	}
+      }
+
+    	/**
+    	 * Returns a node mapping for the choices currently made at every level.
+    	 *
+    	 * @return the current node mapping.
+    	 */
+    private NodeMapping buildMapping()
+      {
+      Concept chosenFirstConcepts[] = null, chosenSecondConcepts[] = null;
+      Relation chosenFirstRelations[] = null, chosenSecondRelations[] = null;
+      MatchResult chosenResults[] = null;
+      int con;
+
+      if (mapConcepts)
+      	{
+      	chosenFirstConcepts = firstConcepts;
+      	chosenSecondConcepts = new Concept[firstConcepts.length];
+      	chosenResults = new MatchResult[firstConcepts.length];
+      	for (int level = numRelationLevels; level < numLevels; level++)
+      		{
+      		con = levelNodes[level];
+      		chosenSecondConcepts[con] = secondConcepts[conceptImages[con]];
+      		chosenResults[con] = conceptResults[con][positions[level]];
+      		}
+      	}
+
+      if (mapRelations)
+      	{
+      	chosenFirstRelations = firstRelations;
+      	chosenSecondRelations = new Relation[firstRelations.length];
+      	for (int rel = 0; rel < firstRelations.length; rel++)
+      		chosenSecondRelations[rel] = secondRelations[relationImages[rel]];
+      	}
+
+      return new NodeMapping(firstGraph, secondGraph,
+      	chosenFirstConcepts, chosenSecondConcepts,
+      	chosenFirstRelations, chosenSecondRelations,
+      	chosenResults);
+      }
+    }
+  }
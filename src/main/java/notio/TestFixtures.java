@@ -1,6 +1,7 @@
 package notio;
 
 import notio.*;
+import java.util.*;
 
     /** 
      * Abstract class used to contain various static inner classes that construct 
@@ -22,6 +23,15 @@ import notio.*;
      */
 abstract public class TestFixtures
   {
+  /** Chain shape: each concept is joined to the next, the relations added in order. **/
+  public final static int CHAIN_OPEN = 0;
+  /** Chain shape: an open chain with another relation joining the last concept to the first. **/
+  public final static int CHAIN_CLOSED = 1;
+  /** Chain shape: an open chain whose last relation points back along the chain. **/
+  public final static int CHAIN_REVERSE_LAST = 2;
+  /** Chain shape: an open chain whose relations are added every other link first. **/
+  public final static int CHAIN_ALTERNATE = 3;
+
   	/**
   	 * An inner class that builds concept types and a concept type hierarchy to act as 
   	 * a testing fixture.
@@ -413,4 +423,224 @@ abstract public class TestFixtures
   		sg5Rels[0] = sg5R1;
   		}
   	}
+
+  	/**
+  	 * Builds a graph of unrelated, untyped concepts.
+  	 *
+  	 * @param numConcepts  the number of concepts in the graph.
+  	 * @return the new graph.
+  	 */
+  public static Graph buildUntyped(int numConcepts)
+  	{
+  	Graph graph;
+  	Concept concepts[] = new Concept[numConcepts];
+
+  	graph = new Graph();
+  	for (int con = 0; con < numConcepts; con++)
+  		concepts[con] = new Concept();
+  	graph.addConcepts(concepts);
+  	return graph;
+  	}
+
+  	/**
+  	 * Builds a graph of separate pairs of concepts, each pair joined by one relation.
+  	 *
+  	 * @param conceptType  the type of every concept.
+  	 * @param relationType  the type of every relation.
+  	 * @param pairs  an array to receive the concepts, two for each pair.
+  	 * @param links  an array to receive the relations, one for each pair.
+  	 * @return the new graph.
+  	 */
+  public static Graph buildPairs(ConceptType conceptType, RelationType relationType,
+  	Concept pairs[], Relation links[])
+  	{
+  	Graph graph;
+  	Concept args[] = new Concept[2];
+
+  	graph = new Graph();
+  	for (int pair = 0; pair < links.length; pair++)
+  		{
+  		pairs[2 * pair] = new Concept(conceptType);
+  		pairs[2 * pair + 1] = new Concept(conceptType);
+  		args[0] = pairs[2 * pair];
+  		args[1] = pairs[2 * pair + 1];
+  		links[pair] = new Relation(relationType, args);
+  		graph.addRelation(links[pair]);
+  		}
+
+  	return graph;
+  	}
+
+  	/**
+  	 * Builds a chain of concepts of the specified types, each joined to the next by a
+  	 * dyadic relation of the specified type.
+  	 *
+  	 * @param types  the types of the concepts, in order.
+  	 * @param relationType  the type of every relation.
+  	 * @param shape  one of CHAIN_OPEN, CHAIN_CLOSED, CHAIN_REVERSE_LAST or CHAIN_ALTERNATE.
+  	 * @return the new graph.
+  	 */
+  public static Graph buildChain(ConceptType types[], RelationType relationType, int shape)
+  	{
+  	Graph graph;
+  	Concept concepts[], args[];
+  	int numConcepts, numRelations, link;
+
+  	graph = new Graph();
+  	numConcepts = types.length;
+  	concepts = new Concept[numConcepts];
+  	for (int con = 0; con < numConcepts; con++)
+  		concepts[con] = new Concept(types[con]);
+  	graph.addConcepts(concepts);
+
+  	numRelations = (shape == CHAIN_CLOSED) ? numConcepts : (numConcepts - 1);
+  	for (int rel = 0; rel < numRelations; rel++)
+  		{
+  		link = rel;
+  		if (shape == CHAIN_ALTERNATE)
+  			link = (rel < numConcepts / 2) ? (2 * rel) : (2 * (rel - numConcepts / 2) + 1);
+
+  		args = new Concept[2];
+  		if ((shape == CHAIN_REVERSE_LAST) && (rel == numConcepts - 2))
+  			{
+  			args[0] = concepts[link + 1];
+  			args[1] = concepts[link];
+  			}
+  		else
+  			{
+  			args[0] = concepts[link];
+  			args[1] = concepts[(link + 1) % numConcepts];
+  			}
+  		graph.addRelation(new Relation(relationType, args));
+  		}
+
+  	return graph;
+  	}
+
+  	/**
+  	 * Builds a chain of concepts all of one type, each joined to the next by a dyadic
+  	 * relation of the specified type.
+  	 *
+  	 * @param conceptType  the type of every concept.
+  	 * @param numConcepts  the number of concepts in the chain.
+  	 * @param relationType  the type of every relation.
+  	 * @param shape  one of CHAIN_OPEN, CHAIN_CLOSED, CHAIN_REVERSE_LAST or CHAIN_ALTERNATE.
+  	 * @return the new graph.
+  	 */
+  public static Graph buildChain(ConceptType conceptType, int numConcepts,
+  	RelationType relationType, int shape)
+  	{
+  	ConceptType types[];
+
+  	types = new ConceptType[numConcepts];
+  	Arrays.fill(types, conceptType);
+  	return buildChain(types, relationType, shape);
+  	}
+
+  	/**
+  	 * Builds a graph with the specified numbers of concepts and dyadic relations, with
+  	 * types and arguments chosen at random.
+  	 *
+  	 * @param random  the source of random choices.
+  	 * @param conceptTypes  the concept types to choose from.  A null type is allowed.
+  	 * @param relationTypes  the relation types to choose from.
+  	 * @param numConcepts  the number of concepts in the graph.
+  	 * @param numRelations  the number of relations in the graph.
+  	 * @return the new graph.
+  	 */
+  public static Graph buildRandomGraph(Random random, ConceptType conceptTypes[],
+  	RelationType relationTypes[], int numConcepts, int numRelations)
+  	{
+  	Graph graph;
+  	Concept concepts[], args[];
+  	ConceptType type;
+
+  	graph = new Graph();
+  	concepts = new Concept[numConcepts];
+  	for (int con = 0; con < numConcepts; con++)
+  		{
+  		type = conceptTypes[random.nextInt(conceptTypes.length)];
+  		if (type == null)
+  			concepts[con] = new Concept();
+  		else
+  			concepts[con] = new Concept(type);
+  		}
+  	graph.addConcepts(concepts);
+
+  	for (int rel = 0; rel < numRelations; rel++)
+  		{
+  		args = new Concept[2];
+  		args[0] = concepts[random.nextInt(numConcepts)];
+  		args[1] = concepts[random.nextInt(numConcepts)];
+  		graph.addRelation(new Relation(relationTypes[random.nextInt(relationTypes.length)], args));
+  		}
+
+  	return graph;
+  	}
+
+  	/**
+  	 * Builds a scheme matching concepts and relations by type, without folding, for
+  	 * the default match engine.
+  	 *
+  	 * @param graphFlag  the graph matching flag.
+  	 * @param typeFlag  the concept type matching flag, also used for relation types.
+  	 * @param connectedFlag  the connected matching flag.
+  	 * @return the new scheme.
+  	 */
+  public static MatchingScheme buildScheme(int graphFlag, int typeFlag, int connectedFlag)
+  	{
+  	return buildScheme(graphFlag, typeFlag, connectedFlag, null);
+  	}
+
+  	/**
+  	 * Builds a scheme matching concepts and relations by type, without folding, for
+  	 * the specified match engine.
+  	 *
+  	 * @param graphFlag  the graph matching flag.
+  	 * @param typeFlag  the concept type matching flag, also used for relation types.
+  	 * @param connectedFlag  the connected matching flag.
+  	 * @param engine  the match engine, or null for the default.
+  	 * @return the new scheme.
+  	 */
+  public static MatchingScheme buildScheme(int graphFlag, int typeFlag, int connectedFlag,
+  	MatchEngine engine)
+  	{
+  	return buildScheme(graphFlag, MatchingScheme.CN_MATCH_TYPES, typeFlag, connectedFlag,
+  		MatchingScheme.FOLD_MATCH_OFF, engine);
+  	}
+
+  	/**
+  	 * Builds a scheme matching relations by type, with the relation type flag
+  	 * corresponding to the concept type flag, and the other flags as specified.
+  	 *
+  	 * @param graphFlag  the graph matching flag.
+  	 * @param conceptFlag  the concept matching flag.
+  	 * @param typeFlag  the concept type matching flag, also used for relation types.
+  	 * @param connectedFlag  the connected matching flag.
+  	 * @param foldingFlag  the folding matching flag.
+  	 * @param engine  the match engine, or null for the default.
+  	 * @return the new scheme.
+  	 */
+  public static MatchingScheme buildScheme(int graphFlag, int conceptFlag, int typeFlag,
+  	int connectedFlag, int foldingFlag, MatchEngine engine)
+  	{
+  	return new MatchingScheme(
+			graphFlag,
+			conceptFlag,
+			MatchingScheme.RN_MATCH_TYPES,
+			typeFlag,
+			typeFlag - MatchingScheme.CT_MATCH_INSTANCE + MatchingScheme.RT_MATCH_INSTANCE,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			foldingFlag,
+			connectedFlag,
+			0,
+			null,
+			null,
+			engine);
+  	}
   }
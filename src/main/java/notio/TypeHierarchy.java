@@ -42,6 +42,8 @@ class TypeHierarchy implements Serializable
   private boolean caseSensitiveLabels = false;
   /** A vector containing the all unlabelled types. **/
 	private Vector unlabelledTypeVec = new Vector();
+  /** A count of the changes to the type order, used to tell when cached comparisons are stale. **/
+  private transient volatile int orderVersion = 0;
  
 	  public JsonObject toJSON() {
 		  JsonObject result = new JsonObject();
@@ -162,6 +164,7 @@ class TypeHierarchy implements Serializable
 	    addSubTypesToType(newType, subtypes);   
 
     newType.setHierarchy(this);
+    orderVersion++;
     }
 
     /**
@@ -251,6 +254,7 @@ class TypeHierarchy implements Serializable
         {
         throw new TypeChangeError("Addition of parent creates an order conflict.", e);
         }
+      orderVersion++;
       }
     }
 
@@ -304,6 +308,7 @@ class TypeHierarchy implements Serializable
         {
         throw new TypeChangeError("Addition of child creates an order conflict.", e);
         }
+      orderVersion++;
       }
     }
 
@@ -395,6 +400,19 @@ class TypeHierarchy implements Serializable
 	    
 	  typeTable.remove(deadType);
     deadType.setHierarchy(null);
+    orderVersion++;
+    }
+
+    /**
+     * Returns a count that changes whenever a type is added to or removed from this
+     * hierarchy, or gains a supertype or subtype.  Comparisons between types remain
+     * valid for as long as the count is unchanged.
+     *
+     * @return the current version of the type order.
+     */
+  final int getOrderVersion()
+    {
+    return orderVersion;
     }
     
     /**
@@ -0,0 +1,220 @@
+package notio.test;
+
+import notio.*;
+import java.util.Random;
+
+    /**
+     * Application that times node comparisons through the static matching methods,
+     * which read the scheme's flags on every call, against the same comparisons
+     * through a compiled scheme.  Each pair of nodes in a set of random typed concepts
+     * and relations is compared under a few common schemes.  Every measurement is
+     * repeated after a warm-up and the best time is reported in nanoseconds per
+     * comparison.  It is not part of the standard tests, since timings depend on the
+     * machine.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class CompiledSchemeBenchmark
+  {
+  /** The number of concepts, and of relations, compared pairwise. **/
+  private static final int NUM_NODES = 400;
+
+  /** The number of timed rounds, of which the best is reported. **/
+  private static final int ROUNDS = 10;
+
+  /** The number of matches found, kept so the comparisons cannot be optimized away. **/
+  private static int matches;
+
+  	/**
+  	 * Runs the benchmark and prints the results.
+  	 *
+  	 * @param args  the command line arguments, which are ignored.
+  	 */
+  public static void main(String args[])
+  	{
+  	KnowledgeBase kBase;
+  	ConceptType conceptTypes[];
+  	RelationType relationTypes[];
+  	Concept concepts[];
+  	Relation relations[];
+  	Random random;
+
+  	kBase = new KnowledgeBase();
+  	random = new Random(1999);
+
+  	// A small hierarchy in which half the types are subtypes of the others.
+  	conceptTypes = new ConceptType[8];
+  	relationTypes = new RelationType[8];
+  	for (int type = 0; type < conceptTypes.length; type++)
+  		{
+  		conceptTypes[type] = new ConceptType("BenchConcept" + type);
+  		relationTypes[type] = new RelationType("BenchRelation" + type);
+  		if (type < 4)
+  			{
+  			kBase.getConceptTypeHierarchy().addTypeToHierarchy(conceptTypes[type]);
+  			kBase.getRelationTypeHierarchy().addTypeToHierarchy(relationTypes[type]);
+  			}
+  		else
+  			{
+  			kBase.getConceptTypeHierarchy().addTypeToHierarchy(conceptTypes[type],
+  				conceptTypes[type - 4], null);
+  			kBase.getRelationTypeHierarchy().addTypeToHierarchy(relationTypes[type],
+  				relationTypes[type - 4], null);
+  			}
+  		}
+
+  	concepts = new Concept[NUM_NODES];
+  	for (int con = 0; con < NUM_NODES; con++)
+  		concepts[con] = new Concept(conceptTypes[random.nextInt(conceptTypes.length)]);
+
+  	relations = new Relation[NUM_NODES];
+  	for (int rel = 0; rel < NUM_NODES; rel++)
+  		relations[rel] = new Relation(relationTypes[random.nextInt(relationTypes.length)],
+  			new Concept[] {concepts[random.nextInt(NUM_NODES)], concepts[random.nextInt(NUM_NODES)]});
+
+  	System.out.println("Nanoseconds per comparison (flag switch / compiled):");
+  	timeConcepts("concepts by subtype", concepts, buildScheme(MatchingScheme.CN_MATCH_TYPES,
+  		MatchingScheme.RN_MATCH_TYPES, MatchingScheme.ARC_MATCH_ANYTHING));
+  	timeConcepts("concepts by type and referent", concepts, buildScheme(MatchingScheme.CN_MATCH_ALL,
+  		MatchingScheme.RN_MATCH_TYPES, MatchingScheme.ARC_MATCH_ANYTHING));
+  	timeRelations("relations by subtype", relations, buildScheme(MatchingScheme.CN_MATCH_TYPES,
+  		MatchingScheme.RN_MATCH_TYPES, MatchingScheme.ARC_MATCH_ANYTHING));
+  	timeRelations("relations by type and arcs", relations, buildScheme(MatchingScheme.CN_MATCH_TYPES,
+  		MatchingScheme.RN_MATCH_ALL, MatchingScheme.ARC_MATCH_CONCEPT));
+  	}
+
+  	/**
+  	 * Times the comparison of every pair of concepts through both paths and prints
+  	 * the best times.
+  	 *
+  	 * @param name  the name of the measurement.
+  	 * @param concepts  the concepts compared.
+  	 * @param scheme  the scheme under which they are compared.
+  	 */
+  private static void timeConcepts(String name, Concept concepts[], MatchingScheme scheme)
+  	{
+  	CompiledMatchingScheme compiledScheme;
+  	long start, flagTime, compiledTime;
+
+  	compiledScheme = scheme.compile();
+  	flagTime = Long.MAX_VALUE;
+  	compiledTime = Long.MAX_VALUE;
+
+  	// The first rounds are run twice over so that both paths are compiled first.
+  	for (int round = -ROUNDS; round < ROUNDS; round++)
+  		{
+  		start = System.nanoTime();
+	  	for (int first = 0; first < concepts.length; first++)
+	  		for (int second = 0; second < concepts.length; second++)
+	  			if (Concept.matchConcepts(concepts[first], concepts[second], scheme).matchSucceeded())
+	  				matches++;
+	  	if (round >= 0)
+	  		flagTime = Math.min(flagTime, System.nanoTime() - start);
+
+  		start = System.nanoTime();
+	  	for (int first = 0; first < concepts.length; first++)
+	  		for (int second = 0; second < concepts.length; second++)
+	  			if (compiledScheme.matchConcepts(concepts[first], concepts[second]).matchSucceeded())
+	  				matches++;
+	  	if (round >= 0)
+	  		compiledTime = Math.min(compiledTime, System.nanoTime() - start);
+	  	}
+
+  	report(name, flagTime, compiledTime, concepts.length);
+  	}
+
+  	/**
+  	 * Times the comparison of every pair of relations through both paths and prints
+  	 * the best times.
+  	 *
+  	 * @param name  the name of the measurement.
+  	 * @param relations  the relations compared.
+  	 * @param scheme  the scheme under which they are compared.
+  	 */
+  private static void timeRelations(String name, Relation relations[], MatchingScheme scheme)
+  	{
+  	CompiledMatchingScheme compiledScheme;
+  	long start, flagTime, compiledTime;
+
+  	compiledScheme = scheme.compile();
+  	flagTime = Long.MAX_VALUE;
+  	compiledTime = Long.MAX_VALUE;
+
+  	for (int round = -ROUNDS; round < ROUNDS; round++)
+  		{
+  		start = System.nanoTime();
+	  	for (int first = 0; first < relations.length; first++)
+	  		for (int second = 0; second < relations.length; second++)
+	  			if (Relation.matchRelations(relations[first], relations[second], scheme))
+	  				matches++;
+	  	if (round >= 0)
+	  		flagTime = Math.min(flagTime, System.nanoTime() - start);
+
+  		start = System.nanoTime();
+	  	for (int first = 0; first < relations.length; first++)
+	  		for (int second = 0; second < relations.length; second++)
+	  			if (compiledScheme.matchRelations(relations[first], relations[second]))
+	  				matches++;
+	  	if (round >= 0)
+	  		compiledTime = Math.min(compiledTime, System.nanoTime() - start);
+	  	}
+
+  	report(name, flagTime, compiledTime, relations.length);
+  	}
+
+  	/**
+  	 * Prints the times per comparison of one measurement.
+  	 *
+  	 * @param name  the name of the measurement.
+  	 * @param flagTime  the best time through the static methods, in nanoseconds.
+  	 * @param compiledTime  the best time through the compiled scheme, in nanoseconds.
+  	 * @param numNodes  the number of nodes compared pairwise.
+  	 */
+  private static void report(String name, long flagTime, long compiledTime, int numNodes)
+  	{
+  	double pairs;
+
+  	pairs = (double)numNodes * numNodes;
+  	System.out.println("  " + name + ": " + (flagTime / pairs) + " / " + (compiledTime / pairs));
+  	}
+
+  	/**
+  	 * Builds a subgraph scheme matching types by subtype.
+  	 *
+  	 * @param conceptFlag  the concept flag.
+  	 * @param relationFlag  the relation flag.
+  	 * @param arcFlag  the arc flag.
+  	 * @return the new scheme.
+  	 */
+  private static MatchingScheme buildScheme(int conceptFlag, int relationFlag, int arcFlag)
+  	{
+  	return new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			conceptFlag,
+			relationFlag,
+			MatchingScheme.CT_MATCH_SUBTYPE,
+			MatchingScheme.RT_MATCH_SUBTYPE,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			arcFlag,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_OFF,
+			0,
+			null,
+			null);
+  	}
+  }
@@ -0,0 +1,126 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Application that measures how the time taken to build and dismantle a graph
+     * grows with its size.  Chains of concepts joined by relations are built, have
+     * their relations and then their concepts removed one by one, at sizes growing by
+     * a factor of ten.  Every measurement is repeated after a warm-up and the best time
+     * is reported in nanoseconds per node, which stays roughly level when the work is
+     * linear in the number of nodes.  It is not part of the standard tests, since
+     * timings depend on the machine.
+     * <p>
+     * The only argument is the number of nodes in the largest chain, 1000000 by
+     * default.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class GraphScalingBenchmark
+  {
+  /** The number of sizes measured, each a tenth of the next. **/
+  private static final int NUM_SIZES = 3;
+
+  /** The number of timed rounds, of which the best is reported. **/
+  private static final int ROUNDS = 3;
+
+  	/**
+  	 * Runs the benchmark and prints the results.
+  	 *
+  	 * @param args  the number of nodes in the largest chain.
+  	 * @exception ConceptRemoveException  if a concept cannot be removed.
+  	 */
+  public static void main(String args[]) throws ConceptRemoveException
+  	{
+  	ConceptType ct;
+  	RelationType rt;
+  	int maxNodes = 1000000;
+  	int numNodes;
+  	long best;
+
+  	if (args.length > 0)
+  		maxNodes = Integer.parseInt(args[0]);
+
+		ct = new ConceptType("ScaleConcept");
+		rt = new RelationType("ScaleRelation");
+
+  	numNodes = maxNodes;
+  	for (int size = 1; size < NUM_SIZES; size++)
+  		numNodes /= 10;
+
+		System.out.println("Nanoseconds per node to build and dismantle a chain:");
+  	for (int size = 0; size < NUM_SIZES; size++)
+  		{
+  		// The first rounds are not timed, so that every path is compiled first.
+  		best = Long.MAX_VALUE;
+  		for (int round = -ROUNDS; round < ROUNDS; round++)
+  			if (round >= 0)
+  				best = Math.min(best, buildChain(numNodes, ct, rt));
+  			else
+  				buildChain(numNodes, ct, rt);
+
+  		System.out.println("  " + numNodes + " nodes: " + (best / numNodes));
+  		numNodes *= 10;
+  		}
+  	}
+
+  	/**
+  	 * Builds a chain of concepts joined by relations and removes it again.
+  	 *
+  	 * @param numNodes  the total number of concepts and relations in the chain.
+  	 * @param ct  the type of the concepts.
+  	 * @param rt  the type of the relations.
+  	 * @return the time taken in nanoseconds.
+  	 * @exception ConceptRemoveException  if a concept cannot be removed.
+  	 */
+  private static long buildChain(int numNodes, ConceptType ct, RelationType rt)
+  	throws ConceptRemoveException
+  	{
+  	Graph graph;
+  	Concept chain[], args[];
+  	Relation links[];
+  	int numConcepts;
+  	long start;
+
+  	numConcepts = (numNodes + 1) / 2;
+  	chain = new Concept[numConcepts];
+  	links = new Relation[numConcepts - 1];
+  	for (int con = 0; con < numConcepts; con++)
+  		chain[con] = new Concept(ct);
+
+  	start = System.nanoTime();
+
+  	graph = new Graph();
+  	args = new Concept[2];
+  	graph.addConcept(chain[0]);
+  	for (int con = 1; con < numConcepts; con++)
+  		{
+  		graph.addConcept(chain[con]);
+  		args[0] = chain[con - 1];
+  		args[1] = chain[con];
+  		links[con - 1] = new Relation(rt, args);
+  		graph.addRelation(links[con - 1]);
+  		}
+
+		// Removing every other relation first leaves gaps in the middle of the nodes.
+		for (int rel = 0; rel < links.length; rel += 2)
+			graph.removeRelation(links[rel]);
+		for (int rel = 1; rel < links.length; rel += 2)
+			graph.removeRelation(links[rel]);
+		for (int con = 0; con < numConcepts; con++)
+			graph.removeConcept(chain[con]);
+
+  	return System.nanoTime() - start;
+  	}
+  }
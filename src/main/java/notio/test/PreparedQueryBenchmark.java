@@ -0,0 +1,223 @@
+package notio.test;
+
+import notio.*;
+import notio.translators.CGIFParser;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+    /**
+     * Application that measures the throughput of matching one query against many
+     * graphs.  The graphs of the level files in the graphs directory are parsed and
+     * replicated to form a corpus, and each graph in turn is matched as a subgraph
+     * against the whole corpus: with Graph.matchGraphs(), with a PreparedQuery, and
+     * with a PreparedQuery running the corpus on the common pool.  Every measurement
+     * is repeated after a warm-up and the best time is reported as matches per
+     * second.  It is not part of the standard tests, since timings depend on the
+     * machine.
+     * <p>
+     * The first argument is the number of copies of each graph in the corpus, 20 by
+     * default.  The remaining arguments are the files to be read, the level files by
+     * default.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class PreparedQueryBenchmark
+  {
+  /** The number of timed rounds, of which the best is reported. **/
+  private static final int ROUNDS = 10;
+
+  /** The number of matches found, kept so the matching cannot be optimized away. **/
+  private static int matches;
+
+  	/**
+  	 * Runs the benchmark and prints the results.
+  	 *
+  	 * @param args  the number of copies of each graph, followed by the files to be read.
+  	 * @exception IOException  if a file cannot be read.
+  	 */
+  public static void main(String args[]) throws IOException
+  	{
+  	KnowledgeBase kBase;
+  	Vector queries, corpus;
+  	CopyingScheme copyScheme;
+  	MatchingScheme scheme;
+  	String files[];
+  	int copies = 20;
+  	long start, loopTime, preparedTime, pooledTime;
+  	MatchResult results[];
+
+  	if (args.length > 0)
+  		copies = Integer.parseInt(args[0]);
+
+  	if (args.length > 1)
+  		{
+  		files = new String[args.length - 1];
+  		System.arraycopy(args, 1, files, 0, files.length);
+  		}
+  	else
+  		{
+  		files = new String[5];
+  		for (int level = 0; level < files.length; level++)
+  			files[level] = "graphs" + File.separator + "final_graphs_level" + (level + 1) + ".cgf";
+  		}
+
+  	kBase = new KnowledgeBase();
+  	queries = new Vector();
+  	for (int file = 0; file < files.length; file++)
+  		readGraphs(files[file], kBase, queries);
+
+  	copyScheme = new CopyingScheme(
+  		CopyingScheme.GR_COPY_DUPLICATE,
+  		CopyingScheme.CN_COPY_DUPLICATE,
+  		CopyingScheme.RN_COPY_DUPLICATE,
+  		CopyingScheme.DG_COPY_DUPLICATE,
+  		CopyingScheme.COMM_COPY_ON,
+  		null);
+
+  	corpus = new Vector(queries);
+  	for (int copy = 1; copy < copies; copy++)
+  		for (int graph = 0; graph < queries.size(); graph++)
+  			corpus.addElement(((Graph)queries.elementAt(graph)).copy(copyScheme));
+
+  	scheme = new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CN_MATCH_TYPES,
+			MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_SUBTYPE,
+			MatchingScheme.RT_MATCH_SUBTYPE,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_ON,
+			0,
+			null,
+			null);
+
+  	loopTime = Long.MAX_VALUE;
+  	preparedTime = Long.MAX_VALUE;
+  	pooledTime = Long.MAX_VALUE;
+
+  	// The first rounds are run twice over so that every path is compiled first.
+  	for (int round = -ROUNDS; round < ROUNDS; round++)
+  		{
+  		start = System.nanoTime();
+  		for (int query = 0; query < queries.size(); query++)
+  			for (int graph = 0; graph < corpus.size(); graph++)
+  				if (Graph.matchGraphs((Graph)queries.elementAt(query),
+  					(Graph)corpus.elementAt(graph), scheme).matchSucceeded())
+  					matches++;
+  		if (round >= 0)
+  			loopTime = Math.min(loopTime, System.nanoTime() - start);
+
+  		start = System.nanoTime();
+  		for (int query = 0; query < queries.size(); query++)
+  			{
+  			results = Graph.prepareMatch((Graph)queries.elementAt(query), scheme).matchAll(corpus);
+  			for (int result = 0; result < results.length; result++)
+  				if (results[result].matchSucceeded())
+  					matches++;
+  			}
+  		if (round >= 0)
+  			preparedTime = Math.min(preparedTime, System.nanoTime() - start);
+
+  		start = System.nanoTime();
+  		for (int query = 0; query < queries.size(); query++)
+  			{
+  			results = Graph.prepareMatch((Graph)queries.elementAt(query), scheme).matchAll(corpus,
+  				ForkJoinPool.commonPool());
+  			for (int result = 0; result < results.length; result++)
+  				if (results[result].matchSucceeded())
+  					matches++;
+  			}
+  		if (round >= 0)
+  			pooledTime = Math.min(pooledTime, System.nanoTime() - start);
+  		}
+
+  	System.out.println(queries.size() + " queries against " + corpus.size() +
+  		" graphs, matches per second:");
+  	report("Graph.matchGraphs()", loopTime, queries.size(), corpus.size());
+  	report("PreparedQuery.matchAll()", preparedTime, queries.size(), corpus.size());
+  	report("PreparedQuery.matchAll() on the common pool", pooledTime, queries.size(),
+  		corpus.size());
+  	}
+
+  	/**
+  	 * Reads the graphs in a file of CGIF graphs, each ended by a period, and adds
+  	 * them to a vector.  Graphs that cannot be parsed are skipped.
+  	 *
+  	 * @param fileName  the name of the file.
+  	 * @param kBase  the knowledge base used while parsing.
+  	 * @param graphs  the vector to which the graphs are added.
+  	 * @exception IOException  if the file cannot be read.
+  	 */
+  private static void readGraphs(String fileName, KnowledgeBase kBase, Vector graphs)
+  	throws IOException
+  	{
+  	BufferedReader reader;
+  	StringBuffer text;
+  	String line;
+  	CGIFParser parser;
+
+  	reader = new BufferedReader(new FileReader(fileName));
+  	text = new StringBuffer();
+  	try
+  		{
+	  	while ((line = reader.readLine()) != null)
+	  		{
+	  		line = line.trim();
+	  		if (!line.endsWith("."))
+	  			{
+	  			text.append(line).append('\n');
+	  			continue;
+	  			}
+
+	  		text.append(line.substring(0, line.length() - 1));
+	  		parser = new CGIFParser();
+	  		try
+	  			{
+	  			parser.initializeParser(new StringReader(text.toString()), kBase,
+	  				new TranslationContext());
+	  			graphs.addElement(parser.parseGraph());
+	  			}
+	  		catch (ParserException e)
+	  			{
+	  			}
+	  		text.setLength(0);
+	  		}
+	  	}
+	  finally
+	  	{
+	  	reader.close();
+	  	}
+  	}
+
+  	/**
+  	 * Prints the throughput of one measurement.
+  	 *
+  	 * @param name  the name of the measurement.
+  	 * @param time  the best time, in nanoseconds.
+  	 * @param numQueries  the number of queries.
+  	 * @param numGraphs  the number of graphs each query is matched against.
+  	 */
+  private static void report(String name, long time, int numQueries, int numGraphs)
+  	{
+  	System.out.println("  " + name + ": " +
+  		(long)((double)numQueries * numGraphs * 1000000000 / time));
+  	}
+  }
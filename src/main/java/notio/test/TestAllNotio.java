@@ -36,9 +36,22 @@ public class TestAllNotio extends TesterBase
 			new TestTypeHierarchies(),  	
 			new TestCoreferenceSet(),  	
 			new TestGraphQueries(),
+			new TestGraphReference(),
+			new TestFrozenGraph(),
+			new TestGraphFingerprints(),
+			new TestGraphBuilder(),
+			new TestTypeCandidates(),
+			new TestStreamMatches(),
+			new TestPreparedQuery(),
+			new TestMatchRejections(),
 			new TestSimplify(),
 			new TestJoin(),
-			new TestSerialization()
+			new TestMatchEngines(),
+			new TestCompiledSchemes(),
+			new TestCommonSubgraphs(),
+			new TestProjection(),
+			new TestSerialization(),
+			new TestGraphScaling()
   		};
   	
   	passed = true;
@@ -0,0 +1,480 @@
+package notio.test;
+
+import notio.*;
+import java.util.*;
+
+    /**
+     * Class used to test common subgraph matching and matching in either direction.
+     * Maximum common subgraphs of small graphs are checked against known sizes and
+     * against an exhaustive search of graphs built at random from a fixed seed.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestCommonSubgraphs extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/** The compiled scheme used by the exhaustive search to compare nodes. **/
+  private CompiledMatchingScheme compiledScheme;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testKnownSizes();
+		testRandomGraphs();
+		testEitherDirection();
+		testEitherFolding();
+		testEitherDescriptors();
+		testBudget();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests common subgraphs of two small chains whose sizes are known.
+  	 */
+  public void testKnownSizes()
+  	{
+  	ConceptType types[];
+  	Graph first, second;
+  	MatchingScheme scheme;
+  	MatchResult result;
+  	NodeMapping mapping;
+
+  	types = new ConceptType[3];
+  	types[0] = simpleGraphs.cHierFixture.ctA;
+  	types[1] = simpleGraphs.cHierFixture.ctB;
+  	types[2] = simpleGraphs.cHierFixture.ctE;
+
+		// [A]->(r)->[B]->(r)->[E] and [A]->(r)->[B]<-(r)<-[E] share [A]->(r)->[B] and [E].
+  	first = TestFixtures.buildChain(new ConceptType[] {types[0], types[1], types[2]},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	second = TestFixtures.buildChain(new ConceptType[] {types[0], types[1], types[2]},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_REVERSE_LAST);
+  	scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_COMMON_SUBGRAPH,
+  		MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON);
+
+  	result = Graph.matchGraphs(first, second, scheme);
+  	if (!result.matchSucceeded() || result.isTruncated() || (result.getMappings().length != 1))
+  		{
+  		passed = false;
+  		logMessage("Common subgraph of two chains was not found.");
+  		return;
+  		}
+
+  	mapping = result.getMappings()[0];
+  	if ((mapping.getFirstConcepts().length != 3) || (mapping.getFirstRelations().length != 1) ||
+  		(mapping.getFirstGraph() != first) || (mapping.getSecondGraph() != second) ||
+  		!consistent(mapping))
+  		{
+  		passed = false;
+  		logMessage("Common subgraph of two chains has the wrong nodes.");
+  		}
+
+		// Ignoring arcs, every node has a partner.
+  	result = Graph.matchGraphs(first, second, TestFixtures.buildScheme(
+  		MatchingScheme.GR_MATCH_COMMON_SUBGRAPH, MatchingScheme.CT_MATCH_LABEL,
+  		MatchingScheme.CONN_MATCH_OFF));
+  	mapping = result.getMappings()[0];
+  	if ((mapping.getFirstConcepts().length != 3) || (mapping.getFirstRelations().length != 2))
+  		{
+  		passed = false;
+  		logMessage("Unconnected common subgraph of two chains has the wrong size.");
+  		}
+
+		// Graphs with nothing in common do not match.
+  	second = TestFixtures.buildChain(new ConceptType[] {simpleGraphs.cHierFixture.ctK},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	result = Graph.matchGraphs(first, second, scheme);
+  	if (result.matchSucceeded() || (Graph.streamMatches(first, second, scheme).count() != 0))
+  		{
+  		passed = false;
+  		logMessage("Graphs with no common node matched.");
+  		}
+
+  	if (Graph.matchGraphs(first, null, scheme).matchSucceeded())
+  		{
+  		passed = false;
+  		logMessage("A graph had a common subgraph with a null graph.");
+  		}
+  	}
+
+  	/**
+  	 * Tests that the common subgraphs of random graphs are as large as an exhaustive
+  	 * search finds, and as large as the first graph when it is a subgraph of the second.
+  	 */
+  public void testRandomGraphs()
+  	{
+  	ConceptType conceptTypes[];
+  	RelationType relationTypes[];
+  	int typeFlags[] = {MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CT_MATCH_SUBTYPE};
+  	Random random;
+  	Graph first, second;
+  	MatchingScheme scheme;
+  	NodeMapping mappings[];
+  	int size, expected;
+
+		conceptTypes = new ConceptType[4];
+		conceptTypes[0] = simpleGraphs.cHierFixture.ctA;
+		conceptTypes[1] = simpleGraphs.cHierFixture.ctB;
+		conceptTypes[2] = simpleGraphs.cHierFixture.ctE;
+		conceptTypes[3] = simpleGraphs.cHierFixture.ctK;
+		relationTypes = new RelationType[2];
+		relationTypes[0] = simpleGraphs.rHierFixture.rtA;
+		relationTypes[1] = simpleGraphs.rHierFixture.rtB;
+
+		random = new Random(1999);
+		for (int trial = 0; trial < 60; trial++)
+			{
+			first = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				2 + random.nextInt(3), 1 + random.nextInt(3));
+			second = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				2 + random.nextInt(3), 1 + random.nextInt(3));
+
+			for (int typeFlag = 0; typeFlag < typeFlags.length; typeFlag++)
+				{
+				scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_COMMON_SUBGRAPH,
+					typeFlags[typeFlag], MatchingScheme.CONN_MATCH_ON);
+				compiledScheme = scheme.compile();
+
+				mappings = Graph.matchGraphs(first, second, scheme).getMappings();
+				size = 0;
+				if (mappings != null)
+					{
+					size = mappings[0].getFirstConcepts().length + mappings[0].getFirstRelations().length;
+					if (!consistent(mappings[0]))
+						{
+						passed = false;
+						logMessage("Common subgraph of random graphs does not preserve arcs.");
+						}
+					}
+
+				expected = exhaustiveSize(first.getConcepts(), second.getConcepts(),
+					first.getRelations(), second.getRelations(), new Hashtable(), new Vector(), 0);
+				if (size != expected)
+					{
+					passed = false;
+					logMessage("Common subgraph of random graphs has size " + size + " instead of " +
+						expected + " for concept type flag " + typeFlags[typeFlag] + ".");
+					}
+
+				if (Graph.matchGraphs(first, second, TestFixtures.buildScheme(
+					MatchingScheme.GR_MATCH_SUBGRAPH, typeFlags[typeFlag],
+					MatchingScheme.CONN_MATCH_ON)).matchSucceeded() &&
+					(size != first.getNumberOfConcepts() + first.getNumberOfRelations()))
+					{
+					passed = false;
+					logMessage("Common subgraph is smaller than a subgraph of the second graph.");
+					}
+				}
+			}
+  	}
+
+  	/**
+  	 * Tests matching in either direction, with and without proper subgraphs.
+  	 */
+  public void testEitherDirection()
+  	{
+  	Graph small, large, copy;
+  	MatchingScheme either, eitherProper;
+  	MatchResult result;
+  	ConceptType types[];
+
+  	types = new ConceptType[] {simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctB};
+  	small = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	large = TestFixtures.buildChain(new ConceptType[] {types[0], types[1], types[0]},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	copy = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	either = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_EITHER_SUBGRAPH,
+  		MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON);
+  	eitherProper = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_EITHER_PROPER_SUBGRAPH,
+  		MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON);
+
+  	result = Graph.matchGraphs(large, small, either);
+  	if (!result.matchSucceeded() || !result.isReversed() ||
+  		(result.getMappings()[0].getFirstGraph() != small))
+  		{
+  		passed = false;
+  		logMessage("A larger graph did not match the graph inside it in either direction.");
+  		}
+
+  	result = Graph.matchGraphs(small, large, either);
+  	if (!result.matchSucceeded() || result.isReversed() ||
+  		(result.getMappings()[0].getFirstGraph() != small))
+  		{
+  		passed = false;
+  		logMessage("A graph did not match a larger graph in either direction.");
+  		}
+
+  	if (!Graph.matchGraphs(small, copy, either).matchSucceeded() ||
+  		Graph.matchGraphs(small, copy, eitherProper).matchSucceeded() ||
+  		!Graph.matchGraphs(large, small, eitherProper).matchSucceeded())
+  		{
+  		passed = false;
+  		logMessage("Proper subgraphs in either direction were not told apart.");
+  		}
+
+  	if (!Graph.matchGraphs(small, null, either).matchSucceeded() ||
+  		!Graph.matchGraphs(null, null, either).matchSucceeded() ||
+  		!Graph.matchGraphs(null, small, eitherProper).matchSucceeded() ||
+  		Graph.matchGraphs(null, null, eitherProper).matchSucceeded())
+  		{
+  		passed = false;
+  		logMessage("Null graphs were not matched in either direction as expected.");
+  		}
+  	}
+
+  	/**
+  	 * Tests proper subgraph matching in either direction with folding, where the
+  	 * structures of the mappings are compared.
+  	 */
+  public void testEitherFolding()
+  	{
+  	Graph small, large;
+  	MatchResult result;
+  	ConceptType types[];
+  	int connectedFlags[] = {MatchingScheme.CONN_MATCH_ON, MatchingScheme.CONN_MATCH_OFF};
+  	int expected[] = {1, 4};
+
+  	types = new ConceptType[] {simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctB};
+  	small = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	large = TestFixtures.buildChain(new ConceptType[] {types[0], types[1], types[0]},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+
+		// The large graph cannot fold into the small one leaving a node of each kind out,
+		// so the small one is matched into it.  Kept connected, it lands on the first
+		// relation; otherwise its concepts and relation may land anywhere their types allow.
+		for (int flag = 0; flag < connectedFlags.length; flag++)
+			{
+	  	result = Graph.matchGraphs(large, small, TestFixtures.buildScheme(
+	  		MatchingScheme.GR_MATCH_EITHER_PROPER_SUBGRAPH, MatchingScheme.CN_MATCH_TYPES,
+	  		MatchingScheme.CT_MATCH_LABEL, connectedFlags[flag], MatchingScheme.FOLD_MATCH_ON, null));
+	  	if (!result.matchSucceeded() || !result.isReversed() ||
+	  		(result.getMappings().length != expected[flag]) ||
+	  		(result.getMappings()[0].getFirstGraph() != small))
+	  		{
+	  		passed = false;
+	  		logMessage("A proper subgraph with folding was not found in either direction " +
+	  			"with connected flag " + connectedFlags[flag] + ".");
+	  		}
+	  	}
+  	}
+
+  	/**
+  	 * Tests that matching in either direction matches descriptors with the same one way
+  	 * scheme as the graphs that hold them, when the scheme has no nested scheme.
+  	 */
+  public void testEitherDescriptors()
+  	{
+  	Graph small, large, outerSmall, outerLarge;
+  	MatchResult result;
+  	ConceptType types[];
+
+  	types = new ConceptType[] {simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctB};
+  	small = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	large = TestFixtures.buildChain(new ConceptType[] {types[0], types[1], types[0]},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	outerSmall = new Graph();
+  	outerSmall.addConcept(new Concept(types[0], new Referent(small)));
+  	outerLarge = new Graph();
+  	outerLarge.addConcept(new Concept(types[0], new Referent(large)));
+
+		// The larger descriptor is not a subgraph of the smaller, so only the reverse
+		// direction succeeds.
+  	result = Graph.matchGraphs(outerLarge, outerSmall, TestFixtures.buildScheme(
+  		MatchingScheme.GR_MATCH_EITHER_SUBGRAPH, MatchingScheme.CN_MATCH_ALL,
+  		MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON, MatchingScheme.FOLD_MATCH_OFF,
+  		null));
+  	if (!result.matchSucceeded() || !result.isReversed())
+  		{
+  		passed = false;
+  		logMessage("Descriptors were not matched one way within a match in either direction.");
+  		}
+  	}
+
+  	/**
+  	 * Tests that a search stopped by its budget returns the best mapping found so far.
+  	 */
+  public void testBudget()
+  	{
+  	Graph first, second;
+  	MatchingScheme scheme;
+  	MatchResult result;
+  	SearchBudget budget;
+
+		// Long chains of one type have many partial mappings of every size.
+		first = TestFixtures.buildChain(simpleGraphs.cHierFixture.ctA, 12,
+			simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+		second = TestFixtures.buildChain(simpleGraphs.cHierFixture.ctA, 12,
+			simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_REVERSE_LAST);
+		scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_COMMON_SUBGRAPH,
+			MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON);
+
+		budget = new SearchBudget(50, 0);
+		result = Graph.matchGraphs(first, second, new MatchingScheme(scheme, budget));
+		if (!result.isTruncated() || !budget.isExhausted() || !result.matchSucceeded() ||
+			!consistent(result.getMappings()[0]))
+			{
+			passed = false;
+			logMessage("A common subgraph search did not stop at its budget with a mapping.");
+			}
+
+		budget = new SearchBudget();
+		budget.cancel();
+		result = Graph.matchGraphs(first, second, new MatchingScheme(scheme, budget));
+		if (!result.isTruncated() || result.matchSucceeded())
+			{
+			passed = false;
+			logMessage("A cancelled common subgraph search returned a mapping.");
+			}
+  	}
+
+  	/**
+  	 * Returns the size of the largest common subgraph found by trying every way of
+  	 * mapping each first node, in order, to a second node or to nothing.
+  	 *
+  	 * @param firstConcepts  the first concepts.
+  	 * @param secondConcepts  the second concepts.
+  	 * @param firstRelations  the first relations.
+  	 * @param secondRelations  the second relations.
+  	 * @param images  the image of each mapped first concept.
+  	 * @param used  the second nodes already mapped to.
+  	 * @param next  the index of the next first node, concepts before relations.
+  	 * @return the size of the largest common subgraph extending the current mapping.
+  	 */
+  private int exhaustiveSize(Concept firstConcepts[], Concept secondConcepts[],
+  	Relation firstRelations[], Relation secondRelations[], Hashtable images, Vector used, int next)
+  	{
+  	int best, size;
+  	Relation relation;
+
+  	if (next == firstConcepts.length + firstRelations.length)
+  		return 0;
+
+		// Leave the node out.
+  	best = exhaustiveSize(firstConcepts, secondConcepts, firstRelations, secondRelations,
+  		images, used, next + 1);
+
+  	if (next < firstConcepts.length)
+  		{
+  		for (int con = 0; con < secondConcepts.length; con++)
+  			if (!used.contains(secondConcepts[con]) &&
+  				compiledScheme.matchConcepts(firstConcepts[next], secondConcepts[con]).matchSucceeded())
+  				{
+  				images.put(firstConcepts[next], secondConcepts[con]);
+  				used.addElement(secondConcepts[con]);
+  				size = 1 + exhaustiveSize(firstConcepts, secondConcepts, firstRelations,
+  					secondRelations, images, used, next + 1);
+  				best = Math.max(best, size);
+  				used.removeElement(secondConcepts[con]);
+  				images.remove(firstConcepts[next]);
+  				}
+  		}
+  	else
+  		{
+  		relation = firstRelations[next - firstConcepts.length];
+  		for (int rel = 0; rel < secondRelations.length; rel++)
+  			if (!used.contains(secondRelations[rel]) &&
+  				argumentsMapped(relation, secondRelations[rel], images) &&
+  				compiledScheme.matchRelations(relation, secondRelations[rel]))
+  				{
+  				used.addElement(secondRelations[rel]);
+  				size = 1 + exhaustiveSize(firstConcepts, secondConcepts, firstRelations,
+  					secondRelations, images, used, next + 1);
+  				best = Math.max(best, size);
+  				used.removeElement(secondRelations[rel]);
+  				}
+  		}
+
+  	return best;
+  	}
+
+  	/**
+  	 * Returns true if each argument of the first relation is mapped to the argument
+  	 * in the same place of the second relation.
+  	 *
+  	 * @param first  the first relation.
+  	 * @param second  the second relation.
+  	 * @param images  the image of each mapped first concept.
+  	 * @return true if the arguments are mapped.
+  	 */
+  private boolean argumentsMapped(Relation first, Relation second, Hashtable images)
+  	{
+  	if (first.getValence() != second.getValence())
+  		return false;
+
+  	for (int arg = 0; arg < first.getValence(); arg++)
+  		if (images.get(first.getArgument(arg)) != second.getArgument(arg))
+  			return false;
+
+  	return true;
+  	}
+
+  	/**
+  	 * Returns true if every relation in a mapping has its arguments mapped to the
+  	 * arguments of its partner.
+  	 *
+  	 * @param mapping  the mapping checked.
+  	 * @return true if the mapping preserves arcs.
+  	 */
+  private boolean consistent(NodeMapping mapping)
+  	{
+  	Hashtable images;
+  	Concept firstConcepts[], secondConcepts[];
+  	Relation firstRelations[], secondRelations[];
+
+  	images = new Hashtable();
+  	firstConcepts = mapping.getFirstConcepts();
+  	secondConcepts = mapping.getSecondConcepts();
+  	for (int con = 0; con < firstConcepts.length; con++)
+  		images.put(firstConcepts[con], secondConcepts[con]);
+
+  	firstRelations = mapping.getFirstRelations();
+  	secondRelations = mapping.getSecondRelations();
+  	for (int rel = 0; rel < firstRelations.length; rel++)
+  		if (!argumentsMapped(firstRelations[rel], secondRelations[rel], images))
+  			return false;
+
+  	return true;
+  	}
+
+  public String getTestName()
+  	{
+  	return "Common Subgraph Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestCommonSubgraphs test;
+
+  	test = new TestCommonSubgraphs();
+  	test.runAndReport();
+  	}
+  }
@@ -0,0 +1,298 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Class used to test that compiled matching schemes give the same results as the
+     * static matching methods.  Every pair of concepts and every pair of relations in
+     * the fixture graphs, plus a few coreferent concepts, is compared under each
+     * combination of the flags that affect node comparisons.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestCompiledSchemes extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The concepts and relations compared. **/
+  private Concept concepts[];
+  private Relation relations[];
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+  	TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+  	Graph graphs[];
+  	MatchingScheme scheme;
+
+		passed = true;
+
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+		graphs = new Graph[6];
+		graphs[0] = simpleGraphs.firstSimpleGraph;
+		graphs[1] = simpleGraphs.secondSimpleGraph;
+		graphs[2] = simpleGraphs.thirdSimpleGraph;
+		graphs[3] = simpleGraphs.fourthSimpleGraph;
+		graphs[4] = simpleGraphs.fifthSimpleGraph;
+		graphs[5] = buildCoreferentGraph(simpleGraphs);
+		collectNodes(graphs);
+
+		for (int conceptFlag = MatchingScheme.CN_MATCH_INSTANCE;
+			conceptFlag <= MatchingScheme.CN_MATCH_ANYTHING; conceptFlag++)
+			for (int typeFlag = MatchingScheme.CT_MATCH_INSTANCE;
+				typeFlag <= MatchingScheme.CT_MATCH_ANYTHING; typeFlag++)
+				for (int autoMatchFlag = MatchingScheme.COREF_AUTOMATCH_OFF;
+					autoMatchFlag <= MatchingScheme.COREF_AUTOMATCH_ON; autoMatchFlag++)
+					for (int agreementFlag = MatchingScheme.COREF_AGREE_OFF;
+						agreementFlag <= MatchingScheme.COREF_AGREE_ON; agreementFlag++)
+						compareConcepts(buildScheme(conceptFlag, MatchingScheme.RN_MATCH_TYPES, typeFlag,
+							MatchingScheme.RT_MATCH_INSTANCE, MatchingScheme.ARC_MATCH_ANYTHING,
+							autoMatchFlag, agreementFlag));
+
+		for (int relationFlag = MatchingScheme.RN_MATCH_INSTANCE;
+			relationFlag <= MatchingScheme.RN_MATCH_ANYTHING; relationFlag++)
+			for (int typeFlag = MatchingScheme.RT_MATCH_INSTANCE;
+				typeFlag <= MatchingScheme.RT_MATCH_ANYTHING; typeFlag++)
+				for (int arcFlag = MatchingScheme.ARC_MATCH_INSTANCE;
+					arcFlag <= MatchingScheme.ARC_MATCH_ANYTHING; arcFlag++)
+					compareRelations(buildScheme(MatchingScheme.CN_MATCH_ALL, relationFlag,
+						MatchingScheme.CT_MATCH_SUBTYPE, typeFlag, arcFlag,
+						MatchingScheme.COREF_AUTOMATCH_OFF, MatchingScheme.COREF_AGREE_ON));
+
+		scheme = buildScheme(MatchingScheme.CN_MATCH_TYPES, MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_SUBTYPE, MatchingScheme.RT_MATCH_SUBTYPE,
+			MatchingScheme.ARC_MATCH_ANYTHING, MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF);
+		if ((scheme.compile() != scheme.compile()) || (scheme.compile().getMatchingScheme() != scheme))
+			{
+			passed = false;
+			logMessage("MatchingScheme.compile() did not reuse its compiled scheme.");
+			}
+
+		return passed;
+  	}
+
+  	/**
+  	 * Builds a graph of typed concepts, two of them coreferent, so that coreference
+  	 * agreement and automatic matching have something to compare.
+  	 *
+  	 * @param simpleGraphs  the fixture providing the types.
+  	 * @return the new graph.
+  	 */
+  private Graph buildCoreferentGraph(TestFixtures.SimpleGraphFixtureOne simpleGraphs)
+  	{
+  	Graph graph;
+  	Concept corefConcepts[] = new Concept[3];
+  	CoreferenceSet corefSet;
+
+  	graph = new Graph();
+  	corefConcepts[0] = new Concept(simpleGraphs.cHierFixture.ctB);
+  	corefConcepts[1] = new Concept(simpleGraphs.cHierFixture.ctE);
+  	corefConcepts[2] = new Concept();
+  	graph.addConcepts(corefConcepts);
+
+  	corefSet = new CoreferenceSet();
+		try
+			{
+			corefSet.addCoreferentConcept(corefConcepts[0]);
+			corefSet.addCoreferentConcept(corefConcepts[1]);
+			}
+		catch (CorefAddException e)
+			{
+			passed = false;
+			logMessage("Could not build the coreference set for the test.");
+			}
+
+		return graph;
+  	}
+
+  	/**
+  	 * Collects the concepts and relations of the specified graphs into the arrays
+  	 * of nodes to be compared.
+  	 *
+  	 * @param graphs  the graphs whose nodes are compared.
+  	 */
+  private void collectNodes(Graph graphs[])
+  	{
+  	int numConcepts = 0, numRelations = 0;
+
+  	for (int graph = 0; graph < graphs.length; graph++)
+  		{
+  		numConcepts += graphs[graph].getNumberOfConcepts();
+  		numRelations += graphs[graph].getNumberOfRelations();
+  		}
+
+  	concepts = new Concept[numConcepts];
+  	relations = new Relation[numRelations];
+  	numConcepts = 0;
+  	numRelations = 0;
+  	for (int graph = 0; graph < graphs.length; graph++)
+  		{
+  		System.arraycopy(graphs[graph].getConcepts(), 0, concepts, numConcepts,
+  			graphs[graph].getNumberOfConcepts());
+  		numConcepts += graphs[graph].getNumberOfConcepts();
+  		System.arraycopy(graphs[graph].getRelations(), 0, relations, numRelations,
+  			graphs[graph].getNumberOfRelations());
+  		numRelations += graphs[graph].getNumberOfRelations();
+  		}
+  	}
+
+  	/**
+  	 * Compares every pair of concepts with the static and compiled methods.
+  	 *
+  	 * @param scheme  the scheme under which the concepts are compared.
+  	 */
+  private void compareConcepts(MatchingScheme scheme)
+  	{
+  	CompiledMatchingScheme compiledScheme;
+  	Object expected, actual;
+
+  	compiledScheme = scheme.compile();
+
+  	for (int first = 0; first < concepts.length; first++)
+  		for (int second = 0; second < concepts.length; second++)
+  			{
+  			try
+  				{
+  				expected = Boolean.valueOf(Concept.matchConcepts(concepts[first], concepts[second],
+  					scheme).matchSucceeded());
+  				}
+  			catch (RuntimeException e)
+  				{
+  				expected = e.getClass();
+  				}
+
+  			try
+  				{
+  				actual = Boolean.valueOf(compiledScheme.matchConcepts(concepts[first],
+  					concepts[second]).matchSucceeded());
+  				}
+  			catch (RuntimeException e)
+  				{
+  				actual = e.getClass();
+  				}
+
+  			if (!expected.equals(actual))
+  				{
+  				passed = false;
+  				logMessage("Compiled concept match differs for concept flag " +
+  					scheme.getConceptFlag() + " and type flag " + scheme.getConceptTypeFlag() + ".");
+  				return;
+  				}
+  			}
+  	}
+
+  	/**
+  	 * Compares every pair of relations with the static and compiled methods.
+  	 *
+  	 * @param scheme  the scheme under which the relations are compared.
+  	 */
+  private void compareRelations(MatchingScheme scheme)
+  	{
+  	CompiledMatchingScheme compiledScheme;
+  	Object expected, actual;
+
+  	compiledScheme = scheme.compile();
+
+  	for (int first = 0; first < relations.length; first++)
+  		for (int second = 0; second < relations.length; second++)
+  			{
+  			try
+  				{
+  				expected = Boolean.valueOf(Relation.matchRelations(relations[first],
+  					relations[second], scheme));
+  				}
+  			catch (RuntimeException e)
+  				{
+  				expected = e.getClass();
+  				}
+
+  			try
+  				{
+  				actual = Boolean.valueOf(compiledScheme.matchRelations(relations[first],
+  					relations[second]));
+  				}
+  			catch (RuntimeException e)
+  				{
+  				actual = e.getClass();
+  				}
+
+  			if (!expected.equals(actual))
+  				{
+  				passed = false;
+  				logMessage("Compiled relation match differs for relation flag " +
+  					scheme.getRelationFlag() + ", type flag " + scheme.getRelationTypeFlag() +
+  					" and arc flag " + scheme.getArcFlag() + ".");
+  				return;
+  				}
+  			}
+  	}
+
+  	/**
+  	 * Builds a scheme from the flags that affect node comparisons.
+  	 *
+  	 * @param conceptFlag  the concept flag.
+  	 * @param relationFlag  the relation flag.
+  	 * @param conceptTypeFlag  the concept type flag.
+  	 * @param relationTypeFlag  the relation type flag.
+  	 * @param arcFlag  the arc flag.
+  	 * @param autoMatchFlag  the coreference automatic match flag.
+  	 * @param agreementFlag  the coreference agreement flag.
+  	 * @return the new scheme.
+  	 */
+  private MatchingScheme buildScheme(int conceptFlag, int relationFlag, int conceptTypeFlag,
+  	int relationTypeFlag, int arcFlag, int autoMatchFlag, int agreementFlag)
+  	{
+  	return new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			conceptFlag,
+			relationFlag,
+			conceptTypeFlag,
+			relationTypeFlag,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			arcFlag,
+			autoMatchFlag,
+			agreementFlag,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_OFF,
+			0,
+			null,
+			null);
+  	}
+
+  public String getTestName()
+  	{
+  	return "Compiled Scheme Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestCompiledSchemes test;
+
+  	test = new TestCompiledSchemes();
+  	test.runAndReport();
+  	}
+  }
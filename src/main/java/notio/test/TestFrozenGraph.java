@@ -0,0 +1,117 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Class used to test FrozenGraph, the compact immutable snapshot of a graph made by
+     * Graph.freeze().
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestFrozenGraph extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testFrozen();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that the frozen form of a graph agrees with the graph and is replaced once
+  	 * the graph changes.
+  	 */
+  public void testFrozen()
+  	{
+  	Graph g2;
+  	FrozenGraph frozen;
+  	Concept pairs[] = new Concept[6];
+  	Relation links[] = new Relation[3];
+  	boolean agrees;
+
+  	g2 = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA, simpleGraphs.rHierFixture.rtA,
+  		pairs, links);
+  	links[2].setType(simpleGraphs.rHierFixture.rtB);
+  	frozen = g2.freeze();
+
+		agrees = (frozen == g2.freeze()) && (frozen.getNumberOfConcepts() == 6) &&
+			(frozen.getNumberOfRelations() == 3) && (frozen.getNumberOfComponents() == 3);
+		for (int rel = 0; rel < links.length; rel++)
+			{
+			agrees = agrees && (frozen.getRelation(rel) == links[rel]) &&
+				(frozen.getType(frozen.getRelationTypeId(rel)) == links[rel].getType()) &&
+				(frozen.getNumberOfArguments(rel) == 2);
+			for (int arg = 0; arg < 2; arg++)
+				agrees = agrees && (frozen.getConcept(frozen.getArgumentId(rel, arg)) == 
+					links[rel].getArgument(arg));
+			}
+		for (int con = 0; con < pairs.length; con++)
+			agrees = agrees && (frozen.getConceptId(pairs[con]) == con) &&
+				compareArrays(frozen.getRelators(pairs[con]), g2.getRelators(pairs[con])) &&
+				(frozen.getComponentId(con) == con / 2);
+		agrees = agrees && 
+			compareArrays(frozen.getRelationsWithExactType(simpleGraphs.rHierFixture.rtA),
+				g2.getRelationsWithExactType(simpleGraphs.rHierFixture.rtA)) &&
+			compareArrays(frozen.getRelationsWithExactType(simpleGraphs.rHierFixture.rtB),
+				g2.getRelationsWithExactType(simpleGraphs.rHierFixture.rtB)) &&
+			compareArrays(frozen.getConceptsWithSubType(simpleGraphs.cHierFixture.ctA),
+				g2.getConceptsWithSubType(simpleGraphs.cHierFixture.ctA)) &&
+			(frozen.getRelationsWithExactType(simpleGraphs.rHierFixture.rtC).length == 0);
+		if (!agrees)
+			{
+			passed = false;
+			logMessage("Graph.freeze() produced a frozen form that does not agree with the graph.");
+			}
+
+		links[0].setArgument(1, pairs[2]);
+		if ((g2.freeze() == frozen) || (g2.freeze().getArgumentId(0, 1) != 2) ||
+			(g2.freeze().getNumberOfComponents() != 3) || (frozen.getArgumentId(0, 1) != 1))
+			{
+			passed = false;
+			logMessage("Graph.freeze() did not replace the frozen form after the graph changed.");
+			}
+  	}
+
+  public String getTestName()
+  	{
+  	return "Frozen Graph Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestFrozenGraph test;
+
+  	test = new TestFrozenGraph();
+  	test.runAndReport();
+  	}
+  }
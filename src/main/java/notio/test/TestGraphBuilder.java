@@ -0,0 +1,135 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Class used to test GraphBuilder, which adds the nodes and coreferences of a graph
+     * all at once.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestGraphBuilder extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testBuilder();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that GraphBuilder links nodes and coreferences correctly and leaves the graph
+  	 * unchanged when it finds an error.
+  	 */
+  public void testBuilder()
+  	{
+  	GraphBuilder builder;
+  	Graph g2, other;
+  	Concept pairs[] = new Concept[2];
+  	Relation links[] = new Relation[1];
+  	int ids[] = new int[3], args[] = new int[2];
+
+  	builder = new GraphBuilder();
+  	for (int con = 0; con < ids.length; con++)
+  		ids[con] = builder.addConcept(simpleGraphs.cHierFixture.ctA);
+  	args[0] = ids[0];
+  	args[1] = ids[1];
+  	builder.addRelation(simpleGraphs.rHierFixture.rtA, args);
+  	args[0] = ids[1];
+  	args[1] = ids[2];
+  	builder.addRelation(simpleGraphs.rHierFixture.rtB, args);
+  	builder.addCoreference(ids[2], ids[0]);
+  	try
+  		{
+  		g2 = builder.build();
+  		}
+  	catch (CorefAddException e)
+  		{
+			passed = false;
+			logMessage("GraphBuilder.build() failed to link coreferent concepts.");
+			return;
+  		}
+
+		if ((g2.getNumberOfConcepts() != 3) || (g2.getNumberOfRelations() != 2) ||
+			(g2.relationAt(1) != builder.getRelation(1)) ||
+			(g2.getRelators(builder.getConcept(1)).length != 2) ||
+			!g2.areConnected(builder.getConcept(0), builder.getConcept(2)) ||
+			(g2.getRelationsWithExactType(simpleGraphs.rHierFixture.rtB)[0].getArgument(1) !=
+			builder.getConcept(2)) ||
+			!Concept.testCoreference(builder.getConcept(0), builder.getConcept(2)) ||
+			Concept.testCoreference(builder.getConcept(0), builder.getConcept(1)))
+			{
+			passed = false;
+			logMessage("GraphBuilder.build() did not link the graph correctly.");
+			}
+
+		// A relation from another graph must be refused before anything is added.
+		other = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA, simpleGraphs.rHierFixture.rtA,
+			pairs, links);
+		builder = new GraphBuilder();
+		builder.addConcept(simpleGraphs.cHierFixture.ctC);
+		builder.addRelation(links[0]);
+		try
+			{
+			builder.build(g2);
+			passed = false;
+			logMessage("GraphBuilder.build() accepted a relation from another graph.");
+			}
+		catch (RelationAddError e)
+			{
+			if ((g2.getNumberOfConcepts() != 3) || (g2.getNumberOfRelations() != 2))
+				{
+				passed = false;
+				logMessage("GraphBuilder.build() changed the graph before refusing a relation.");
+				}
+			}
+		catch (CorefAddException e)
+			{
+			passed = false;
+			logMessage("GraphBuilder.build() reported an unexpected coreference error.");
+			}
+  	}
+
+  public String getTestName()
+  	{
+  	return "Graph Builder Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestGraphBuilder test;
+
+  	test = new TestGraphBuilder();
+  	test.runAndReport();
+  	}
+  }
@@ -0,0 +1,130 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Class used to test the structural fingerprints of graphs and their use in rejecting
+     * complete matches.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestGraphFingerprints extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testFingerprints();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that fingerprints agree for graphs that differ only in node identity and order,
+  	 * and that they let complete matching reject graphs of different structure.
+  	 */
+  public void testFingerprints()
+  	{
+  	Graph g2, g3;
+  	Concept pairs[] = new Concept[6], otherPairs[] = new Concept[6];
+  	Relation links[] = new Relation[3], otherLinks[] = new Relation[3], reversed[];
+  	MatchingScheme scheme;
+  	long fingerprint;
+
+  	g2 = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA, simpleGraphs.rHierFixture.rtA,
+  		pairs, links);
+  	g3 = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA, simpleGraphs.rHierFixture.rtA,
+  		otherPairs, otherLinks);
+  	g3.removeRelations(otherLinks);
+  	reversed = new Relation[3];
+  	for (int rel = 0; rel < 3; rel++)
+  		reversed[rel] = otherLinks[2 - rel];
+  	g3.addRelations(reversed);
+
+		scheme = new MatchingScheme(
+			MatchingScheme.GR_MATCH_COMPLETE,
+			MatchingScheme.CN_MATCH_TYPES,
+			MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_LABEL,
+			MatchingScheme.RT_MATCH_LABEL,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_ON,
+			0,
+			null,
+			null);
+
+		fingerprint = g2.getFingerprint();
+		if ((fingerprint != g3.getFingerprint()) || !Graph.matchGraphs(g2, g3, scheme).matchSucceeded())
+			{
+			passed = false;
+			logMessage("Graph.getFingerprint() differs for graphs that differ only in node order.");
+			}
+
+		// Joining two pairs into a chain keeps the labels and counts but changes the structure.
+		otherLinks[0].setArgument(1, otherPairs[2]);
+		otherLinks[1].setArgument(1, otherPairs[1]);
+		if ((fingerprint == g3.getFingerprint()) || Graph.matchGraphs(g2, g3, scheme).matchSucceeded())
+			{
+			passed = false;
+			logMessage("Graph.getFingerprint() did not distinguish graphs of different structure.");
+			}
+
+		otherLinks[0].setType(simpleGraphs.rHierFixture.rtB);
+		g3.removeRelation(otherLinks[1]);
+		g3.addRelation(otherLinks[1]);
+		otherLinks[1].setArgument(1, otherPairs[3]);
+		otherLinks[0].setArgument(1, otherPairs[1]);
+		if (fingerprint == g3.getFingerprint())
+			{
+			passed = false;
+			logMessage("Graph.getFingerprint() did not distinguish graphs with different labels.");
+			}
+  	}
+
+  public String getTestName()
+  	{
+  	return "Graph Fingerprint Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestGraphFingerprints test;
+
+  	test = new TestGraphFingerprints();
+  	test.runAndReport();
+  	}
+  }
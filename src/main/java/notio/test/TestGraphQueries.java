@@ -1,6 +1,7 @@
 package notio.test;
 
 import notio.*;
+import java.util.*;
 
     /** 
      * Class used to test various query methods in Graph.
@@ -124,10 +125,515 @@ public class TestGraphQueries extends TesterBase
 			passed = false;
 			logMessage("Failed to obtain correct results from Graph.getRelationsWithExactType().");
 			}
+
+		testRelators();
+		testTypeBuckets();
+		testViews();
+		testComponents();
+		testPaths();
 						
 		return passed;
   	}
 
+  	/**
+  	 * Tests that the relators of concepts are kept current as relations are added, 
+  	 * removed and have their arguments changed.
+  	 */
+  public void testRelators()
+  	{
+  	Relation first, second;
+  	Concept args[] = new Concept[2];
+
+  	args[0] = c[0];
+  	args[1] = c[1];
+  	first = new Relation(args);
+  	args[1] = c[0];
+  	second = new Relation(args);
+  	g1.addRelation(first);
+  	g1.addRelation(second);
+
+		relCorrect = new Relation[2];
+		relCorrect[0] = first;
+		relCorrect[1] = second;
+		if (!compareArrays(c[0].getRelators(), relCorrect))
+			{
+			passed = false;
+			logMessage("Failed to obtain correct results from Concept.getRelators().");
+			}
+
+		// Moving one arc of a relation that relates the concept twice must not unrelate it.
+		second.setArgument(1, c[2]);
+		if (!compareArrays(c[0].getRelators(), relCorrect) || (c[2].getRelators().length != 1))
+			{
+			passed = false;
+			logMessage("Relators not updated correctly by Relation.setArgument().");
+			}
+
+		first.replaceArgument(c[1], c[3]);
+		if ((c[1].getRelators().length != 0) || (c[3].getRelators().length != 1))
+			{
+			passed = false;
+			logMessage("Relators not updated correctly by Relation.replaceArgument().");
+			}
+
+		try
+			{
+			g1.removeConcept(c[3]);
+			passed = false;
+			logMessage("Graph.removeConcept() removed a concept that is part of a relation.");
+			}
+		catch (ConceptRemoveException e)
+			{
+			}
+
+		g1.removeRelation(first);
+		g1.removeRelation(second);
+		if ((c[0].getRelators().length != 0) || (c[2].getRelators().length != 0) ||
+			(c[3].getRelators().length != 0))
+			{
+			passed = false;
+			logMessage("Relators not updated correctly by Graph.removeRelation().");
+			}
+  	}
+
+  	/**
+  	 * Tests that the type queries follow the hierarchy and are kept current as 
+  	 * nodes change type or are removed.
+  	 */
+  public void testTypeBuckets()
+  	{
+  	ConceptTypeHierarchy cHier;
+  	ConceptType ct4;
+  	Concept sub;
+
+  	cHier = kBase.getConceptTypeHierarchy();
+  	ct4 = new ConceptType("CTypeD");
+  	cHier.addTypeToHierarchy(ct4, ct1, null);
+  	sub = new Concept(ct4);
+  	g1.addConcept(sub);
+
+		conCorrect = new Concept[4];
+		conCorrect[0] = c[0];
+		conCorrect[1] = c[1];
+		conCorrect[2] = c[2];
+		conCorrect[3] = sub;
+		if (!compareArrays(g1.getConceptsWithSuperType(ct1), conCorrect))
+			{
+			passed = false;
+			logMessage("Failed to obtain correct results from Graph.getConceptsWithSuperType().");
+			}
+
+		if (!compareArrays(g1.getConceptsWithSubType(ct4), conCorrect))
+			{
+			passed = false;
+			logMessage("Failed to obtain correct results from Graph.getConceptsWithSubType().");
+			}
+
+		sub.setType(ct2);
+		conCorrect = new Concept[4];
+		conCorrect[0] = c[3];
+		conCorrect[1] = c[4];
+		conCorrect[2] = c[5];
+		conCorrect[3] = sub;
+		if ((g1.getConceptsWithExactType(ct4).length != 0) || 
+			!compareArrays(g1.getConceptsWithExactType(ct2), conCorrect))
+			{
+			passed = false;
+			logMessage("Type queries not updated correctly by Concept.setType().");
+			}
+
+		r[0].setType(rt2);
+		if ((g1.getRelationsWithExactType(rt1).length != 2) || 
+			(g1.getRelationsWithExactType(rt2).length != 4))
+			{
+			passed = false;
+			logMessage("Type queries not updated correctly by Relation.setType().");
+			}
+		r[0].setType(rt1);
+
+		try
+			{
+			g1.removeConcept(sub);
+			}
+		catch (ConceptRemoveException e)
+			{
+			passed = false;
+			logMessage("Graph.removeConcept() failed to remove an unrelated concept.");
+			}
+
+		if (g1.getConceptsWithExactType(ct2).length != 3)
+			{
+			passed = false;
+			logMessage("Type queries not updated correctly by Graph.removeConcept().");
+			}
+  	}
+
+  	/**
+  	 * Tests the live views of a graph's nodes against the array methods.
+  	 */
+  public void testViews()
+  	{
+  	Concept extra, conArr[];
+  	Relation relArr[];
+  	Iterator conEnum;
+  	int numSeen;
+
+		// Leave a gap in the concepts so that indexed reads must skip it.
+		extra = new Concept(ct1);
+		g1.addConcept(extra);
+		try
+			{
+			g1.removeConcept(c[4]);
+			}
+		catch (ConceptRemoveException e)
+			{
+			passed = false;
+			logMessage("Graph.removeConcept() failed to remove an unrelated concept.");
+			}
+
+		conArr = g1.getConcepts();
+		numSeen = 0;
+		conEnum = g1.conceptView().iterator();
+		while (conEnum.hasNext())
+			{
+			if ((conEnum.next() != conArr[numSeen]) || (g1.conceptAt(numSeen) != conArr[numSeen]))
+				{
+				passed = false;
+				logMessage("Graph.conceptView() and Graph.conceptAt() do not follow Graph.getConcepts().");
+				}
+			numSeen++;
+			}
+
+		if ((numSeen != conArr.length) || (g1.conceptStream().count() != conArr.length))
+			{
+			passed = false;
+			logMessage("Graph.conceptView() or Graph.conceptStream() returned the wrong number of concepts.");
+			}
+
+		relArr = g1.getRelations();
+		numSeen = 0;
+		for (Relation relation : g1.relationView())
+			{
+			if ((relation != relArr[numSeen]) || (g1.relationAt(numSeen) != relation))
+				{
+				passed = false;
+				logMessage("Graph.relationView() and Graph.relationAt() do not follow Graph.getRelations().");
+				}
+			numSeen++;
+			}
+
+		numSeen = 0;
+		for (Relation relation : g1.normalRelationView())
+			numSeen++;
+		if ((numSeen != g1.getNormalRelations().length) || g1.actorView().iterator().hasNext())
+			{
+			passed = false;
+			logMessage("Graph.normalRelationView() or Graph.actorView() returned the wrong relations.");
+			}
+
+		try
+			{
+			conEnum = g1.conceptView().iterator();
+			conEnum.next();
+			g1.removeConcept(extra);
+			conEnum.next();
+			passed = false;
+			logMessage("Graph.conceptView() iterator did not fail on concurrent modification.");
+			}
+		catch (ConcurrentModificationException e)
+			{
+			}
+		catch (ConceptRemoveException e)
+			{
+			passed = false;
+			logMessage("Graph.removeConcept() failed to remove an unrelated concept.");
+			}
+
+		g1.addConcept(c[4]);
+  	}
+
+  	/**
+  	 * Tests that connected components are kept current as the graph changes and that
+  	 * connected matching only produces mappings that keep components together.
+  	 */
+  public void testComponents()
+  	{
+  	Graph g2, g3;
+  	Concept pairs[] = new Concept[6], otherPairs[] = new Concept[6], lone;
+  	Relation links[] = new Relation[3], otherLinks[] = new Relation[3];
+  	MatchingScheme scheme;
+  	NodeMapping mappings[];
+  	Concept firstMapped[], secondMapped[];
+
+  	g2 = TestFixtures.buildPairs(ct1, rt1, pairs, links);
+
+		if ((g2.getConnectedComponents().length != 3) || !g2.areConnected(pairs[0], links[0]) ||
+			g2.areConnected(pairs[0], pairs[2]) || (g2.getComponentOf(pairs[3]).length != 3))
+			{
+			passed = false;
+			logMessage("Incorrect components from Graph.getConnectedComponents() or Graph.areConnected().");
+			}
+
+		// Adding an argument joins two components, removing a relation splits one.
+		links[0].setArgument(1, pairs[2]);
+		lone = new Concept(ct1);
+		g2.addConcept(lone);
+		if ((g2.getConnectedComponents().length != 4) || !g2.areConnected(pairs[0], pairs[3]) ||
+			!g2.areConnected(pairs[1], pairs[1]) || g2.areConnected(pairs[1], pairs[0]))
+			{
+			passed = false;
+			logMessage("Components not updated correctly by Relation.setArgument().");
+			}
+
+		g2.removeRelation(links[1]);
+		if ((g2.getConnectedComponents().length != 5) || g2.areConnected(pairs[0], pairs[3]) ||
+			g2.areConnected(lone, pairs[4]) || (g2.getComponentOf(lone).length != 1))
+			{
+			passed = false;
+			logMessage("Components not updated correctly by Graph.removeRelation().");
+			}
+
+		// Connected matching of two graphs of separate pairs must map pairs onto pairs,
+		// giving one mapping for each permutation of the relations.
+		g2 = TestFixtures.buildPairs(ct1, rt1, pairs, links);
+		g3 = TestFixtures.buildPairs(ct1, rt1, otherPairs, otherLinks);
+		scheme = new MatchingScheme(
+			MatchingScheme.GR_MATCH_COMPLETE,
+			MatchingScheme.CN_MATCH_TYPES,
+			MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_LABEL,
+			MatchingScheme.RT_MATCH_LABEL,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_ON,
+			0,
+			null,
+			null);
+		mappings = Graph.matchGraphs(g2, g3, scheme).getMappings();
+		if (mappings.length != 6)
+			{
+			passed = false;
+			logMessage("Connected matching produced " + mappings.length + " mappings instead of 6.");
+			}
+
+		for (int map = 0; map < mappings.length; map++)
+			{
+			firstMapped = mappings[map].getFirstConcepts();
+			secondMapped = mappings[map].getSecondConcepts();
+			for (int con = 0; con < firstMapped.length; con++)
+				for (int other = 0; other < firstMapped.length; other++)
+					if (g2.areConnected(firstMapped[con], firstMapped[other]) != 
+						g3.areConnected(secondMapped[con], secondMapped[other]))
+						{
+						passed = false;
+						logMessage("Connected matching produced a mapping that splits a component.");
+						}
+			}
+  	}
+
+  	/**
+  	 * Counts the paths between two nodes by exhaustive search, for comparison with
+  	 * Graph.findPaths().
+  	 *
+  	 * @param path  the path so far, from index 0 to depth.
+  	 * @param depth  the index of the last node in the path.
+  	 * @param to  the node at which paths end.
+  	 * @param maxLength  the maximum length of the paths.
+  	 * @return the number of simple paths that extend the path to the end node.
+  	 */
+  int countPaths(Node path[], int depth, Node to, int maxLength)
+  	{
+  	Node neighbours[];
+  	int count, prev;
+
+  	if (path[depth] == to)
+  		return 1;
+  	if (depth == maxLength)
+  		return 0;
+
+  	if (path[depth] instanceof Concept)
+  		neighbours = ((Concept)path[depth]).getRelators();
+  	else
+  		neighbours = ((Relation)path[depth]).getArguments();
+
+  	count = 0;
+  	for (int next = 0; next < neighbours.length; next++)
+  		{
+  		prev = 0;
+  		while ((prev < next) && (neighbours[prev] != neighbours[next]))
+  			prev++;
+  		if (prev < next)
+  			continue;
+
+  		prev = 0;
+  		while ((prev <= depth) && (path[prev] != neighbours[next]))
+  			prev++;
+  		if (prev <= depth)
+  			continue;
+
+  		path[depth + 1] = neighbours[next];
+  		count += countPaths(path, depth + 1, to, maxLength);
+  		}
+
+  	return count;
+  	}
+
+  	/**
+  	 * Tests Graph.findPaths() on a small graph with known paths and against an 
+  	 * exhaustive search on a random graph.
+  	 */
+  public void testPaths()
+  	{
+  	Graph g2;
+  	Concept cons[] = new Concept[4], args[] = new Concept[2], lone;
+  	Relation rels[] = new Relation[4];
+  	Node paths[][], path[];
+  	Random random;
+  	Graph searched;
+  	Node starts[], ends[];
+  	Relation extra;
+  	int expected[], mismatches[];
+  	Thread searchers[];
+
+  	g2 = new Graph();
+  	for (int con = 0; con < cons.length; con++)
+  		cons[con] = new Concept(ct1);
+  	args[0] = cons[0];
+  	args[1] = cons[1];
+  	rels[0] = new Relation(rt1, args);
+  	args[0] = cons[1];
+  	args[1] = cons[2];
+  	rels[1] = new Relation(rt1, args);
+  	args[0] = cons[0];
+  	args[1] = cons[2];
+  	rels[2] = new Relation(rt2, args);
+  	args[0] = cons[2];
+  	args[1] = cons[3];
+  	rels[3] = new Relation(rt1, args);
+  	g2.addRelations(rels);
+  	lone = new Concept(ct1);
+  	g2.addConcept(lone);
+
+		paths = g2.findPaths(cons[0], cons[2], 4, 0);
+		if ((paths.length != 2) || (paths[0].length + paths[1].length != 8))
+			{
+			passed = false;
+			logMessage("Graph.findPaths() did not find both paths.");
+			}
+
+		paths = g2.findPaths(cons[0], cons[2], 3, 0);
+		if ((paths.length != 1) || (paths[0][1] != rels[2]))
+			{
+			passed = false;
+			logMessage("Graph.findPaths() did not respect the maximum length.");
+			}
+
+		paths = g2.findPaths(cons[0], cons[3], 10, 0, rt1);
+		if ((paths.length != 1) || (paths[0].length != 7))
+			{
+			passed = false;
+			logMessage("Graph.findPaths() did not respect the relation type.");
+			}
+
+		if ((g2.findPaths(cons[0], cons[3], 10, 1).length != 1) || 
+			(g2.findPaths(cons[0], lone, 10, 0).length != 0) ||
+			(g2.findPaths(cons[1], cons[1], 10, 0).length != 1))
+			{
+			passed = false;
+			logMessage("Graph.findPaths() gave incorrect results for limited, unconnected or empty paths.");
+			}
+
+		// Compare with an exhaustive search on a random graph.
+		random = new Random(6);
+		g2 = new Graph();
+		cons = new Concept[30];
+		for (int con = 0; con < cons.length; con++)
+			{
+			cons[con] = new Concept(ct1);
+			g2.addConcept(cons[con]);
+			}
+		for (int rel = 0; rel < 45; rel++)
+			{
+			args[0] = cons[random.nextInt(cons.length)];
+			args[1] = cons[random.nextInt(cons.length)];
+			g2.addRelation(new Relation(rt1, args));
+			}
+
+		path = new Node[11];
+		starts = new Node[20];
+		ends = new Node[20];
+		expected = new int[20];
+		for (int trial = 0; trial < 20; trial++)
+			{
+			path[0] = cons[random.nextInt(cons.length)];
+			lone = cons[random.nextInt(cons.length)];
+			for (int maxLength = 0; maxLength <= 10; maxLength++)
+				if (g2.findPaths(path[0], lone, maxLength, 0).length != countPaths(path, 0, lone, maxLength))
+					{
+					passed = false;
+					logMessage("Graph.findPaths() does not agree with an exhaustive search.");
+					}
+			starts[trial] = path[0];
+			ends[trial] = lone;
+			expected[trial] = countPaths(path, 0, lone, 8);
+			}
+
+		// Searches running at once on the same graph must not disturb each other, even
+		// when the graph has changed since it was last searched.
+		args[0] = cons[0];
+		args[1] = cons[1];
+		extra = new Relation(rt1, args);
+		g2.addRelation(extra);
+		g2.removeRelation(extra);
+		searched = g2;
+		mismatches = new int[1];
+		searchers = new Thread[4];
+		for (int thread = 0; thread < searchers.length; thread++)
+			{
+			final int offset = thread;
+			searchers[thread] = new Thread(new Runnable()
+				{
+				public void run()
+					{
+					for (int round = 0; round < 200; round++)
+						for (int trial = 0; trial < starts.length; trial++)
+							{
+							int query = (trial + offset) % starts.length;
+
+							if (searched.findPaths(starts[query], ends[query], 8, 0).length != expected[query])
+								synchronized (mismatches)
+									{
+									mismatches[0]++;
+									}
+							}
+					}
+				});
+			searchers[thread].start();
+			}
+
+		for (int thread = 0; thread < searchers.length; thread++)
+			try
+				{
+				searchers[thread].join();
+				}
+			catch (InterruptedException e)
+				{
+				passed = false;
+				logMessage("Interrupted while waiting for concurrent path searches.");
+				}
+
+		if (mismatches[0] != 0)
+			{
+			passed = false;
+			logMessage("Concurrent calls to Graph.findPaths() on one graph gave different results.");
+			}
+  	}
+
   public String getTestName()
   	{
   	return "Graph Queries Test";
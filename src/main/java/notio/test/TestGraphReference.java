@@ -0,0 +1,177 @@
+package notio.test;
+
+import notio.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+    /**
+     * Class used to test GraphReference, which shares the body of a graph between several
+     * contexts.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestGraphReference extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testReferences();
+		testReferenceDelegation();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that graph references share one body while keeping separate contexts, and
+  	 * that copying with GR_COPY_REFERENCE shares nested graphs rather than duplicating them.
+  	 */
+  public void testReferences()
+  	{
+  	Graph body, outer;
+  	GraphReference ref1, ref2;
+  	Concept cons[] = new Concept[2], context1, context2, contextCopy, extra;
+  	Relation links[] = new Relation[1];
+  	CopyingScheme copyScheme;
+
+  	body = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA, simpleGraphs.rHierFixture.rtA,
+  		cons, links);
+  	ref1 = new GraphReference(body);
+  	ref2 = new GraphReference(ref1);
+  	context1 = new Concept(simpleGraphs.cHierFixture.ctA, new Referent(ref1));
+  	context2 = new Concept(simpleGraphs.cHierFixture.ctB, new Referent(ref2));
+  	outer = new Graph();
+  	outer.addConcept(context1);
+  	outer.addConcept(context2);
+
+		if ((ref2.getBody() != body) || (ref1.getContext() != context1) || 
+			(ref2.getContext() != context2) || (body.getEnclosingReferent() != null) ||
+			(ref1.getContextGraph() != outer) || (ref2.getContextDepth() != 1))
+			{
+			passed = false;
+			logMessage("Graph references do not keep their own context information.");
+			}
+
+		extra = new Concept(simpleGraphs.cHierFixture.ctC);
+		ref2.addConcept(extra);
+		if (!ref1.hasConcept(extra) || (ref1.getNumberOfConcepts() != 3) ||
+			(body.getNumberOfConcepts() != 3) || !ref1.areConnected(cons[0], cons[1]) ||
+			(ref1.getRelators(cons[0])[0] != links[0]))
+			{
+			passed = false;
+			logMessage("Graph references do not share the content of their body.");
+			}
+
+		// Copying the context by reference shares the body, copying by duplicate does not.
+		copyScheme = new CopyingScheme(
+			CopyingScheme.GR_COPY_REFERENCE,
+			CopyingScheme.CN_COPY_DUPLICATE,
+			CopyingScheme.RN_COPY_DUPLICATE,
+			CopyingScheme.DG_COPY_DUPLICATE,
+			CopyingScheme.COMM_COPY_ON,
+			null);
+		contextCopy = context1.copy(copyScheme);
+		if (!(contextCopy.getReferent().getDescriptor() instanceof GraphReference) ||
+			(((GraphReference)contextCopy.getReferent().getDescriptor()).getBody() != body) ||
+			(contextCopy.getReferent().getDescriptor().getContext() != contextCopy))
+			{
+			passed = false;
+			logMessage("Copying with GR_COPY_REFERENCE did not produce a reference to the same body.");
+			}
+
+		copyScheme = new CopyingScheme(
+			CopyingScheme.GR_COPY_DUPLICATE,
+			CopyingScheme.CN_COPY_DUPLICATE,
+			CopyingScheme.RN_COPY_DUPLICATE,
+			CopyingScheme.DG_COPY_DUPLICATE,
+			CopyingScheme.COMM_COPY_ON,
+			null);
+		contextCopy = context1.copy(copyScheme);
+		if (contextCopy.getReferent().getDescriptor().hasConcept(extra) ||
+			(contextCopy.getReferent().getDescriptor().getNumberOfConcepts() != 3))
+			{
+			passed = false;
+			logMessage("Copying a graph reference with GR_COPY_DUPLICATE did not copy its body.");
+			}
+  	}
+
+  	/**
+  	 * Tests that GraphReference passes on every public instance method of Graph other
+  	 * than those concerning the graph's own context, since a reference holds no nodes.
+  	 */
+  public void testReferenceDelegation()
+  	{
+  	String contextMethods[] = {"getContext", "getContextGraph", "getEnclosingReferent",
+  		"getContextDepth", "isEnclosedBy"};
+  	Method methods[];
+  	int modifiers, name;
+
+  	methods = Graph.class.getDeclaredMethods();
+  	for (int method = 0; method < methods.length; method++)
+  		{
+  		modifiers = methods[method].getModifiers();
+  		if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) ||
+  			methods[method].isSynthetic())
+  			continue;
+
+  		name = 0;
+  		while ((name < contextMethods.length) &&
+  			!contextMethods[name].equals(methods[method].getName()))
+  			name++;
+  		if (name < contextMethods.length)
+  			continue;
+
+  		try
+  			{
+  			GraphReference.class.getDeclaredMethod(methods[method].getName(),
+  				methods[method].getParameterTypes());
+  			}
+  		catch (NoSuchMethodException e)
+  			{
+  			passed = false;
+  			logMessage("GraphReference does not pass on Graph." + methods[method].getName() + "().");
+  			}
+  		}
+  	}
+
+  public String getTestName()
+  	{
+  	return "Graph Reference Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestGraphReference test;
+
+  	test = new TestGraphReference();
+  	test.runAndReport();
+  	}
+  }
@@ -0,0 +1,154 @@
+package notio.test;
+
+import notio.*;
+
+    /** 
+     * Class used to test that a large graph keeps its nodes, in order, while it is
+     * built, searched and dismantled.  The time taken is measured separately by
+     * GraphScalingBenchmark, since it depends on the machine.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestGraphScaling extends TesterBase
+  {
+  /** The number of nodes built by the test. **/
+  static final int NUM_NODES = 20000;
+
+  /** Variables needed for the test. **/
+ 	boolean passed;
+ 	ConceptType ct;
+ 	RelationType rt;
+ 	
+  	/**
+  	 * Builds a chain of concepts joined by relations, checks it, and removes it again.
+  	 *
+  	 * @param numNodes  the total number of concepts and relations in the chain.
+  	 */
+  public void buildChain(int numNodes)
+  	{
+  	Graph graph;
+  	Concept chain[], args[], result[];
+  	Relation links[];
+  	int numConcepts;
+
+  	numConcepts = (numNodes + 1) / 2;
+  	chain = new Concept[numConcepts];
+  	links = new Relation[numConcepts - 1];
+  	for (int con = 0; con < numConcepts; con++)
+  		chain[con] = new Concept(ct);
+
+  	graph = new Graph();
+  	args = new Concept[2];
+  	graph.addConcept(chain[0]);
+  	for (int con = 1; con < numConcepts; con++)
+  		{
+  		graph.addConcept(chain[con]);
+  		args[0] = chain[con - 1];
+  		args[1] = chain[con];
+  		links[con - 1] = new Relation(rt, args);
+  		graph.addRelation(links[con - 1]);
+  		}
+
+		if (!graph.hasConcepts(chain) || !graph.hasRelations(links))
+			{
+			passed = false;
+			logMessage("Graph does not contain all nodes added to it.");
+			}
+		
+		// A bounded path search must only explore the neighbourhood of its end points.
+		if (graph.findPaths(chain[numConcepts / 2], chain[numConcepts / 2 + 2], 4, 0).length != 1)
+			{
+			passed = false;
+			logMessage("Graph.findPaths() failed to find the path along the chain.");
+			}
+
+		// Removal from the middle must leave the remaining nodes in order.
+		for (int rel = 0; rel < links.length; rel += 2)
+			graph.removeRelation(links[rel]);
+
+		// Indexed reads must skip the empty slots left behind without closing them.
+		for (int rel = 1; rel < links.length; rel += 2)
+			if (graph.relationAt(rel / 2) != links[rel])
+				{
+				passed = false;
+				logMessage("Graph.relationAt() does not skip removed relations.");
+				break;
+				}
+
+		try
+			{
+			graph.removeConcept(chain[0]);
+			result = graph.getConcepts();
+			for (int con = 1; con < numConcepts; con++)
+				if (result[con - 1] != chain[con])
+					{
+					passed = false;
+					logMessage("Graph.getConcepts() does not preserve insertion order after removal.");
+					break;
+					}
+	
+			for (int rel = 1; rel < links.length; rel += 2)
+				graph.removeRelation(links[rel]);
+			
+			for (int con = 1; con < numConcepts; con++)
+				graph.removeConcept(chain[con]);
+			}
+		catch (ConceptRemoveException e)
+			{
+			passed = false;
+			logMessage("Graph.removeConcept() failed to remove an unrelated concept.");
+			}
+
+		if (!graph.isBlank())
+			{
+			passed = false;
+			logMessage("Graph is not blank after all nodes have been removed.");
+			}
+  	}
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{	
+		passed = true;
+		
+		ct = new ConceptType("ScaleConcept");
+		rt = new RelationType("ScaleRelation");
+		
+		buildChain(NUM_NODES);
+						
+		return passed;
+  	}
+
+  public String getTestName()
+  	{
+  	return "Graph Scaling Test";
+  	}
+  	
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestGraphScaling test;
+  	
+  	test = new TestGraphScaling();
+  	test.runAndReport();
+  	}  	
+  }
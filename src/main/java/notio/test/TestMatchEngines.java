@@ -0,0 +1,1138 @@
+package notio.test;
+
+import notio.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+    /** 
+     * Class used to test that the match engines agree.  The fixture graphs, and graphs
+     * built at random from a fixed seed, are matched with the GeneratorMatchEngine and
+     * each of the other engines under a range of schemes, and the mappings must be the
+     * same.  They must also be in the same order, except for an unordered
+     * ParallelMatchEngine.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestMatchEngines extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The reference engine. **/
+  private MatchEngine referenceEngine;
+
+  	/** The engines compared with the reference engine. **/
+  private MatchEngine testEngines[];
+
+  	/** Flags indicating which of the engines must keep the reference engine's order. **/
+  private boolean orderedEngines[] = {true, true, false, false};
+
+  	/** The pool the parallel engines run on. **/
+  private ForkJoinPool pool;
+
+  	/** The graph flags, concept type flags and connected flags the schemes are built from. **/
+  private int graphFlags[] = {MatchingScheme.GR_MATCH_COMPLETE, MatchingScheme.GR_MATCH_SUBGRAPH,
+  	MatchingScheme.GR_MATCH_PROPER_SUBGRAPH};
+  private int typeFlags[] = {MatchingScheme.CT_MATCH_INSTANCE, MatchingScheme.CT_MATCH_LABEL,
+  	MatchingScheme.CT_MATCH_SUBTYPE, MatchingScheme.CT_MATCH_ANYTHING};
+  private int connectedFlags[] = {MatchingScheme.CONN_MATCH_ON, MatchingScheme.CONN_MATCH_OFF};
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+  	TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+  	Graph fixtureGraphs[], first, second;
+  	ConceptType conceptTypes[];
+  	RelationType relationTypes[];
+  	Random random;
+
+		passed = true;
+		referenceEngine = new GeneratorMatchEngine();
+
+		// The pool has several threads even on one processor, so searches are split.
+		pool = new ForkJoinPool(4);
+		testEngines = new MatchEngine[4];
+		testEngines[0] = new StateSpaceMatchEngine();
+		testEngines[1] = new ParallelMatchEngine(pool, true);
+		testEngines[2] = new ParallelMatchEngine(pool, false);
+		testEngines[3] = new StateSpaceMatchEngine(true);
+
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+		fixtureGraphs = new Graph[5];
+		fixtureGraphs[0] = simpleGraphs.firstSimpleGraph;
+		fixtureGraphs[1] = simpleGraphs.secondSimpleGraph;
+		fixtureGraphs[2] = simpleGraphs.thirdSimpleGraph;
+		fixtureGraphs[3] = simpleGraphs.fourthSimpleGraph;
+		fixtureGraphs[4] = simpleGraphs.fifthSimpleGraph;
+
+		for (int firstGraph = 0; firstGraph < fixtureGraphs.length; firstGraph++)
+			for (int secondGraph = 0; secondGraph < fixtureGraphs.length; secondGraph++)
+				compareEngines(fixtureGraphs[firstGraph], fixtureGraphs[secondGraph]);
+
+		// Random graphs use a few types, some related, so that many mappings exist.
+		conceptTypes = new ConceptType[5];
+		conceptTypes[0] = simpleGraphs.cHierFixture.ctA;
+		conceptTypes[1] = simpleGraphs.cHierFixture.ctB;
+		conceptTypes[2] = simpleGraphs.cHierFixture.ctE;
+		conceptTypes[3] = simpleGraphs.cHierFixture.ctK;
+		conceptTypes[4] = null;
+		relationTypes = new RelationType[3];
+		relationTypes[0] = simpleGraphs.rHierFixture.rtA;
+		relationTypes[1] = simpleGraphs.rHierFixture.rtB;
+		relationTypes[2] = simpleGraphs.rHierFixture.rtE;
+
+		random = new Random(1999);
+		for (int trial = 0; trial < 40; trial++)
+			{
+			first = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				3 + random.nextInt(2), 2 + random.nextInt(3));
+
+			// Match against a larger random graph and against a copy of the first.
+			second = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				first.getNumberOfConcepts() + random.nextInt(2),
+				first.getNumberOfRelations() + random.nextInt(2));
+			compareEngines(first, second);
+
+			second = first.copy(new CopyingScheme(
+				CopyingScheme.GR_COPY_DUPLICATE,
+				CopyingScheme.CN_COPY_DUPLICATE,
+				CopyingScheme.RN_COPY_DUPLICATE,
+				CopyingScheme.DG_COPY_DUPLICATE,
+				CopyingScheme.COMM_COPY_ON,
+				null));
+			compareEngines(first, second);
+			}
+
+		testCoreferenceAgreement();
+		testNestedDescriptors();
+		testNestedMatchCache();
+		testSearchBudgets();
+		testEarlyStop();
+		testConstrainedOrder(simpleGraphs);
+		testSymmetryBreaking(simpleGraphs);
+		testWideCandidateRows(simpleGraphs);
+		testFolding(simpleGraphs);
+
+		pool.shutdown();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that every engine finds the right mappings under coreference agreement,
+  	 * and compares each pair of single concepts only once in a match however often
+  	 * the pair is needed to check agreement.
+  	 */
+  public void testCoreferenceAgreement()
+  	{
+  	KnowledgeBase kBase;
+  	Graph first, second;
+  	Concept firstConcepts[], secondConcepts[];
+  	CountingComparator comparator;
+  	MatchEngine engines[];
+  	NodeMapping mappings[];
+
+  	kBase = new KnowledgeBase();
+  	firstConcepts = new Concept[4];
+  	secondConcepts = new Concept[6];
+  	first = buildMarkedGraph(kBase, firstConcepts, new int[] {2, 2});
+  	second = buildMarkedGraph(kBase, secondConcepts, new int[] {3, 2, 1});
+  	comparator = new CountingComparator(firstConcepts[1], secondConcepts[4]);
+
+  	engines = new MatchEngine[testEngines.length + 1];
+  	engines[0] = referenceEngine;
+  	System.arraycopy(testEngines, 0, engines, 1, testEngines.length);
+
+		for (int engine = 0; engine < engines.length; engine++)
+			{
+			comparator.reset();
+			mappings = Graph.matchGraphs(first, second, new MatchingScheme(
+				MatchingScheme.GR_MATCH_SUBGRAPH,
+				MatchingScheme.CN_MATCH_REFERENTS,
+				MatchingScheme.RN_MATCH_TYPES,
+				MatchingScheme.CT_MATCH_ANYTHING,
+				MatchingScheme.RT_MATCH_ANYTHING,
+				MatchingScheme.QF_MATCH_ANYTHING,
+				MatchingScheme.DG_MATCH_INDIVIDUAL,
+				MatchingScheme.MARKER_MATCH_COMPARATOR,
+				MatchingScheme.ARC_MATCH_ANYTHING,
+				MatchingScheme.COREF_AUTOMATCH_OFF,
+				MatchingScheme.COREF_AGREE_ON,
+				MatchingScheme.FOLD_MATCH_OFF,
+				MatchingScheme.CONN_MATCH_OFF,
+				0,
+				comparator,
+				null,
+				engines[engine])).getMappings();
+
+			// The first pair of coreferent concepts cannot map to the second pair of coreferent
+			// targets, leaving 4 * 3 choices for the first pair and 4 * 3 for the second.
+			if ((mappings == null) || (mappings.length != 144))
+				{
+				passed = false;
+				logMessage(engines[engine].getClass().getName() +
+					" found the wrong number of mappings under coreference agreement.");
+				}
+
+			if (comparator.repeats > 0)
+				{
+				passed = false;
+				logMessage(engines[engine].getClass().getName() +
+					" compared the same concepts more than once under coreference agreement.");
+				}
+			}
+  	}
+
+  	/**
+  	 * Tests that every engine matches each pair of descriptors only once in a match,
+  	 * however many pairs of concepts share them, and still finds every mapping.
+  	 */
+  public void testNestedDescriptors()
+  	{
+  	KnowledgeBase kBase;
+  	Graph first, second;
+  	Concept firstConcepts[], secondConcepts[], refusedConcepts[];
+  	CountingComparator comparator;
+  	MatchEngine engines[];
+  	NodeMapping mappings[];
+
+  	kBase = new KnowledgeBase();
+  	firstConcepts = new Concept[1];
+  	secondConcepts = new Concept[1];
+  	refusedConcepts = new Concept[2];
+
+		// Each level has three concepts sharing one descriptor, so without reuse the
+		// innermost markers would be compared 3 * 3 times for each of 3 * 3 outer pairs.
+  	first = buildNested(buildMarkedGraph(kBase, firstConcepts, new int[] {1}), 2, 3);
+  	second = buildNested(buildMarkedGraph(kBase, secondConcepts, new int[] {1}), 2, 3);
+  	buildMarkedGraph(kBase, refusedConcepts, new int[] {1, 1});
+  	comparator = new CountingComparator(refusedConcepts[0], refusedConcepts[1]);
+
+  	engines = new MatchEngine[testEngines.length + 1];
+  	engines[0] = referenceEngine;
+  	System.arraycopy(testEngines, 0, engines, 1, testEngines.length);
+
+		for (int engine = 0; engine < engines.length; engine++)
+			{
+			comparator.reset();
+			mappings = Graph.matchGraphs(first, second,
+				buildNestedScheme(comparator, engines[engine])).getMappings();
+
+			if ((mappings == null) || (mappings.length != 6))
+				{
+				passed = false;
+				logMessage(engines[engine].getClass().getName() +
+					" found the wrong number of mappings between nested graphs.");
+				}
+
+			if (comparator.repeats > 0)
+				{
+				passed = false;
+				logMessage(engines[engine].getClass().getName() +
+					" matched the same descriptors more than once in a match.");
+				}
+			}
+  	}
+
+  	/**
+  	 * Tests that a sequential match reuses the results of the descriptors it has
+  	 * matched, and that the results are dropped when the match returns.
+  	 */
+  public void testNestedMatchCache()
+  	{
+  	KnowledgeBase kBase;
+  	Graph first, second;
+  	Concept firstConcepts[], secondConcepts[], refusedConcepts[];
+  	CountingComparator comparator;
+  	MatchingScheme scheme;
+  	int comparisons;
+
+  	kBase = new KnowledgeBase();
+  	firstConcepts = new Concept[1];
+  	secondConcepts = new Concept[1];
+  	refusedConcepts = new Concept[2];
+  	first = buildNested(buildMarkedGraph(kBase, firstConcepts, new int[] {1}), 2, 3);
+  	second = buildNested(buildMarkedGraph(kBase, secondConcepts, new int[] {1}), 2, 3);
+  	buildMarkedGraph(kBase, refusedConcepts, new int[] {1, 1});
+  	comparator = new CountingComparator(refusedConcepts[0], refusedConcepts[1]);
+  	scheme = buildNestedScheme(comparator, referenceEngine);
+
+		// Every pair of outer concepts shares the same descriptors, so all but the first
+		// comparison of each pair of descriptors are found in the cache.
+		comparator.reset();
+		Graph.matchGraphs(first, second, scheme);
+		if ((comparator.comparisons == 0) || (comparator.repeats > 0))
+			{
+			passed = false;
+			logMessage("A sequential match did not reuse the descriptors it had matched.");
+			}
+
+		// A second match starts with a new cache and compares the markers again.
+		comparisons = comparator.comparisons;
+		Graph.matchGraphs(first, second, scheme);
+		if (comparator.repeats != comparisons)
+			{
+			passed = false;
+			logMessage("Descriptor results were kept after the match that found them.");
+			}
+  	}
+
+  	/**
+  	 * Tests that every engine stops when its search budget runs out, is cancelled or
+  	 * passes its deadline, and reports the result as truncated, while a budget that is
+  	 * not used up changes nothing.
+  	 */
+  public void testSearchBudgets()
+  	{
+  	Graph query, target, smallQuery, smallTarget;
+  	MatchEngine engines[];
+  	MatchingScheme scheme;
+  	SearchBudget budget;
+  	MatchResult result;
+  	NodeMapping mappings[];
+
+		// Four query concepts against two hundred targets have over a billion mappings, so
+		// these matches only finish if the budget stops them.
+  	query = TestFixtures.buildUntyped(4);
+  	target = TestFixtures.buildUntyped(200);
+  	smallQuery = TestFixtures.buildUntyped(2);
+  	smallTarget = TestFixtures.buildUntyped(5);
+
+  	engines = new MatchEngine[testEngines.length + 1];
+  	engines[0] = referenceEngine;
+  	System.arraycopy(testEngines, 0, engines, 1, testEngines.length);
+
+  	for (int engine = 0; engine < engines.length; engine++)
+  		{
+  		scheme = buildUntypedScheme(engines[engine]);
+
+  		budget = new SearchBudget(1000, 0);
+  		result = Graph.matchGraphs(query, target, new MatchingScheme(scheme, budget));
+  		if (!result.isTruncated() || !budget.isExhausted() || (result.getMappings() == null))
+  			{
+  			passed = false;
+  			logMessage(engines[engine].getClass().getName() +
+  				" did not stop at its choice point limit.");
+  			}
+
+  		budget = new SearchBudget();
+  		budget.cancel();
+  		result = Graph.matchGraphs(query, target, new MatchingScheme(scheme, budget));
+  		if (!result.isTruncated() || (result.getMappings() != null))
+  			{
+  			passed = false;
+  			logMessage(engines[engine].getClass().getName() +
+  				" did not stop when its budget was cancelled.");
+  			}
+
+  		budget = new SearchBudget(0, 1);
+  		result = Graph.matchGraphs(query, target, new MatchingScheme(scheme, budget));
+  		if (!result.isTruncated())
+  			{
+  			passed = false;
+  			logMessage(engines[engine].getClass().getName() +
+  				" did not stop at its deadline.");
+  			}
+
+  		budget = new SearchBudget(1000000, System.currentTimeMillis() + 3600000);
+  		result = Graph.matchGraphs(smallQuery, smallTarget, new MatchingScheme(scheme, budget));
+  		mappings = Graph.matchGraphs(smallQuery, smallTarget, scheme).getMappings();
+  		if (result.isTruncated() || budget.isExhausted() || (budget.getChoicePointsUsed() == 0) ||
+  			!sameMappings(mappings, result.getMappings(),
+  				(engine == 0) || orderedEngines[engine - 1]) ||
+  			(mappings.length != 20))
+  			{
+  			passed = false;
+  			logMessage(engines[engine].getClass().getName() +
+  				" gave different results with an unused budget.");
+  			}
+  		}
+  	}
+
+  	/**
+  	 * Tests that taking the first mapping from a stream of a parallel engine's matches,
+  	 * and closing the stream, stops the engine's tasks without them searching for the
+  	 * rest of the mappings.
+  	 */
+  public void testEarlyStop()
+  	{
+  	Graph query, target;
+  	SearchBudget budget;
+  	Stream<NodeMapping> matches;
+  	Optional<NodeMapping> first;
+  	NodeMapping expected;
+  	Object expectedPrefix[], prefix[];
+  	int numSame;
+
+		// Four query concepts against two hundred targets have over a billion mappings.  The
+		// budget stops a search that does not stop by itself well before it is used up.
+  	query = TestFixtures.buildUntyped(4);
+  	target = TestFixtures.buildUntyped(200);
+  	expected = Graph.streamMatches(query, target, buildUntypedScheme(testEngines[0]))
+  		.findFirst().get();
+  	expectedPrefix = Graph.streamMatches(query, target, buildUntypedScheme(testEngines[0]))
+  		.limit(20000).toArray();
+
+  	for (int engine = 0; engine < testEngines.length; engine++)
+  		{
+  		if (!(testEngines[engine] instanceof ParallelMatchEngine))
+  			continue;
+
+  		budget = new SearchBudget(10000000, 0);
+  		matches = Graph.streamMatches(query, target,
+  			new MatchingScheme(buildUntypedScheme(testEngines[engine]), budget));
+  		first = matches.findFirst();
+  		matches.close();
+  		pool.awaitQuiescence(1, TimeUnit.MINUTES);
+
+  		if (!first.isPresent() || budget.isExhausted() || (budget.getChoicePointsUsed() > 1000000))
+  			{
+  			passed = false;
+  			logMessage(testEngines[engine].getClass().getName() +
+  				" kept searching after the first mapping was taken from its stream.");
+  			}
+  		else
+  			if (orderedEngines[engine] && !sameMapping(expected, first.get()))
+  				{
+  				passed = false;
+  				logMessage(testEngines[engine].getClass().getName() +
+  					" did not stream the first mapping of the sequential search first.");
+  				}
+
+			// Reading far more mappings than the tasks hold at once must resume them.
+  		matches = Graph.streamMatches(query, target, buildUntypedScheme(testEngines[engine]));
+  		prefix = matches.limit(20000).toArray();
+  		matches.close();
+  		numSame = 0;
+  		while ((numSame < prefix.length) && (numSame < expectedPrefix.length) &&
+  			sameMapping((NodeMapping)expectedPrefix[numSame], (NodeMapping)prefix[numSame]))
+  			numSame++;
+  		if ((prefix.length != expectedPrefix.length) ||
+  			(orderedEngines[engine] && (numSame != prefix.length)))
+  			{
+  			passed = false;
+  			logMessage(testEngines[engine].getClass().getName() +
+  				" did not resume its tasks as their mappings were read.");
+  			}
+  		}
+  	}
+
+  	/**
+  	 * Tests that mapping the most constrained relations first finds the same mappings
+  	 * of a chain whose relations are listed out of order with far fewer choices.
+  	 *
+  	 * @param simpleGraphs  the fixture providing the types.
+  	 */
+  public void testConstrainedOrder(TestFixtures.SimpleGraphFixtureOne simpleGraphs)
+  	{
+  	Graph query, target;
+  	MatchingScheme scheme, constrainedScheme;
+  	SearchBudget budget, constrainedBudget;
+  	NodeMapping mappings[], constrainedMappings[];
+
+		// Every other link of the query chain is listed first, so in graph order no two
+		// neighbouring relations share an argument until half the query is mapped.
+		query = TestFixtures.buildChain(simpleGraphs.cHierFixture.ctA, 8,
+			simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_ALTERNATE);
+		target = TestFixtures.buildChain(simpleGraphs.cHierFixture.ctA, 20,
+			simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+
+		scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON, new StateSpaceMatchEngine());
+		constrainedScheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CONN_MATCH_ON,
+			new StateSpaceMatchEngine(true));
+
+		budget = new SearchBudget();
+		constrainedBudget = new SearchBudget();
+		mappings = Graph.matchGraphs(query, target,
+			new MatchingScheme(scheme, budget)).getMappings();
+		constrainedMappings = Graph.matchGraphs(query, target,
+			new MatchingScheme(constrainedScheme, constrainedBudget)).getMappings();
+
+		if ((mappings == null) || (mappings.length != 13) ||
+			!sameMappings(mappings, constrainedMappings, false) ||
+			(constrainedBudget.getChoicePointsUsed() * 10 > budget.getChoicePointsUsed()))
+			{
+			passed = false;
+			logMessage("Mapping the most constrained relations first did not cut the search.");
+			}
+  	}
+
+  	/**
+  	 * Tests mappings into a graph with enough concepts that the candidates of a first
+  	 * concept span several words, and start after the first, of the generator's rows.
+  	 *
+  	 * @param simpleGraphs  the fixture providing the types.
+  	 */
+  public void testWideCandidateRows(TestFixtures.SimpleGraphFixtureOne simpleGraphs)
+  	{
+  	Graph pair, chain, target;
+  	Concept concepts[], args[];
+  	NodeMapping mappings[];
+  	MatchEngine engine;
+
+		// A chain of seventy concepts of one type comes before a hundred unrelated concepts
+		// of another.
+		target = new Graph();
+		concepts = new Concept[170];
+		for (int con = 0; con < concepts.length; con++)
+			concepts[con] = new Concept((con < 70) ? simpleGraphs.cHierFixture.ctA :
+				simpleGraphs.cHierFixture.ctB);
+		target.addConcepts(concepts);
+		for (int con = 0; con < 69; con++)
+			{
+			args = new Concept[2];
+			args[0] = concepts[con];
+			args[1] = concepts[con + 1];
+			target.addRelation(new Relation(simpleGraphs.rHierFixture.rtA, args));
+			}
+
+		pair = new Graph();
+		pair.addConcept(new Concept(simpleGraphs.cHierFixture.ctB));
+		pair.addConcept(new Concept(simpleGraphs.cHierFixture.ctB));
+		chain = TestFixtures.buildChain(simpleGraphs.cHierFixture.ctA, 3,
+			simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+
+		for (int engineNum = -1; engineNum < testEngines.length; engineNum++)
+			{
+			engine = (engineNum < 0) ? referenceEngine : testEngines[engineNum];
+
+			// No second concept may be used twice, wherever its word is.
+			mappings = Graph.matchGraphs(pair, target, TestFixtures.buildScheme(
+				MatchingScheme.GR_MATCH_SUBGRAPH, MatchingScheme.CT_MATCH_LABEL,
+				MatchingScheme.CONN_MATCH_OFF, engine)).getMappings();
+			if ((mappings == null) || (mappings.length != 100 * 99))
+				{
+				passed = false;
+				logMessage(engine.getClass().getName() +
+					" did not map two concepts onto every ordered pair of a hundred.");
+				}
+
+			mappings = Graph.matchGraphs(chain, target, TestFixtures.buildScheme(
+				MatchingScheme.GR_MATCH_SUBGRAPH, MatchingScheme.CT_MATCH_LABEL,
+				MatchingScheme.CONN_MATCH_ON, engine)).getMappings();
+			if ((mappings == null) || (mappings.length != 68))
+				{
+				passed = false;
+				logMessage(engine.getClass().getName() +
+					" did not map a chain of three onto each place in a chain of seventy.");
+				}
+			}
+  	}
+
+  	/**
+  	 * Tests that every engine maps each first node exactly once under folding, so that
+  	 * the mappings are functions that need not be one to one.  Complete matches must
+  	 * use every second node and proper subgraph matches must leave one out.
+  	 *
+  	 * @param simpleGraphs  the fixture providing the types.
+  	 */
+  public void testFolding(TestFixtures.SimpleGraphFixtureOne simpleGraphs)
+  	{
+  	Graph firsts[], seconds[];
+  	ConceptType conceptType;
+  	RelationType relationType;
+  	int graphFlags[], connectedFlags[], expected[];
+  	NodeMapping mappings[];
+  	MatchEngine engine;
+  	int numFound;
+
+  	conceptType = simpleGraphs.cHierFixture.ctA;
+  	relationType = simpleGraphs.rHierFixture.rtA;
+
+		// Untyped concepts fold freely.  A chain of three folds onto itself only when its
+		// relations need not keep their arguments.
+		firsts = new Graph[] {TestFixtures.buildUntyped(3), TestFixtures.buildUntyped(3),
+			TestFixtures.buildUntyped(3), TestFixtures.buildUntyped(2),
+			TestFixtures.buildChain(conceptType, 3, relationType, TestFixtures.CHAIN_OPEN),
+			TestFixtures.buildChain(conceptType, 3, relationType, TestFixtures.CHAIN_OPEN),
+			TestFixtures.buildChain(conceptType, 3, relationType, TestFixtures.CHAIN_OPEN)};
+		seconds = new Graph[] {TestFixtures.buildUntyped(2), TestFixtures.buildUntyped(2),
+			TestFixtures.buildUntyped(3), TestFixtures.buildUntyped(3),
+			TestFixtures.buildChain(conceptType, 3, relationType, TestFixtures.CHAIN_OPEN),
+			TestFixtures.buildChain(conceptType, 3, relationType, TestFixtures.CHAIN_OPEN),
+			TestFixtures.buildChain(conceptType, 4, relationType, TestFixtures.CHAIN_OPEN)};
+		graphFlags = new int[] {MatchingScheme.GR_MATCH_COMPLETE, MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.GR_MATCH_PROPER_SUBGRAPH, MatchingScheme.GR_MATCH_COMPLETE,
+			MatchingScheme.GR_MATCH_COMPLETE, MatchingScheme.GR_MATCH_COMPLETE,
+			MatchingScheme.GR_MATCH_SUBGRAPH};
+		connectedFlags = new int[] {MatchingScheme.CONN_MATCH_OFF, MatchingScheme.CONN_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_OFF, MatchingScheme.CONN_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_ON, MatchingScheme.CONN_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_ON};
+		// Onto functions from three to two, all functions from three to two, functions from
+		// three to three less the permutations, none from two onto three, the identity,
+		// every permutation of the concepts with either of the relations, and the two
+		// places of a chain of three in a chain of four.
+		expected = new int[] {6, 8, 21, 0, 1, 12, 2};
+
+		for (int engineNum = -1; engineNum < testEngines.length; engineNum++)
+			{
+			engine = (engineNum < 0) ? referenceEngine : testEngines[engineNum];
+
+			for (int test = 0; test < expected.length; test++)
+				{
+				mappings = Graph.matchGraphs(firsts[test], seconds[test],
+					TestFixtures.buildScheme(graphFlags[test], MatchingScheme.CN_MATCH_TYPES,
+					MatchingScheme.CT_MATCH_ANYTHING, connectedFlags[test], MatchingScheme.FOLD_MATCH_ON,
+					engine)).getMappings();
+				numFound = (mappings == null) ? 0 : mappings.length;
+				if (numFound != expected[test])
+					{
+					passed = false;
+					logMessage(engine.getClass().getName() + " found " + numFound +
+						" folding mappings instead of " + expected[test] + " in case " + test + ".");
+					}
+				}
+			}
+  	}
+
+  	/**
+  	 * Tests that every engine returns exactly one mapping of each set of mappings that
+  	 * differ by an automorphism of the first graph when symmetry is broken.
+  	 *
+  	 * @param simpleGraphs  the fixture providing the types.
+  	 */
+  public void testSymmetryBreaking(TestFixtures.SimpleGraphFixtureOne simpleGraphs)
+  	{
+  	ConceptType conceptTypes[];
+  	RelationType relationTypes[];
+  	Random random;
+  	Graph first, second;
+
+		// Four blocks on a table can be placed among five blocks on a table in 5 * 4 * 3 * 2
+		// ways, of which only the choice of blocks left out differs.
+		checkSymmetryBreaking(buildStar(simpleGraphs, 4), buildStar(simpleGraphs, 5), 5);
+
+		// Random graphs from two types of each kind have many symmetries.
+		conceptTypes = new ConceptType[2];
+		conceptTypes[0] = simpleGraphs.cHierFixture.ctA;
+		conceptTypes[1] = simpleGraphs.cHierFixture.ctB;
+		relationTypes = new RelationType[2];
+		relationTypes[0] = simpleGraphs.rHierFixture.rtA;
+		relationTypes[1] = simpleGraphs.rHierFixture.rtB;
+
+		random = new Random(1999);
+		for (int trial = 0; trial < 30; trial++)
+			{
+			first = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				3 + random.nextInt(2), 1 + random.nextInt(3));
+			second = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				first.getNumberOfConcepts() + random.nextInt(3),
+				first.getNumberOfRelations() + random.nextInt(3));
+			checkSymmetryBreaking(first, second, -1);
+			}
+  	}
+
+  	/**
+  	 * Matches two graphs with every engine, with and without breaking symmetry, and
+  	 * logs any engine whose distinct mappings are not one from each set of mappings
+  	 * that differ by an automorphism of the first graph.
+  	 *
+  	 * @param first  the first graph being matched.
+  	 * @param second  the second graph being matched.
+  	 * @param expected  the number of sets of mappings expected, or -1 if not known.
+  	 */
+  private void checkSymmetryBreaking(Graph first, Graph second, int expected)
+  	{
+  	MatchEngine engines[];
+  	MatchingScheme scheme;
+  	NodeMapping all[], distinct[], automorphisms[];
+  	Hashtable classes, distinctClasses;
+  	int typeFlags[] = {MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CT_MATCH_SUBTYPE};
+
+  	engines = new MatchEngine[testEngines.length + 1];
+  	engines[0] = referenceEngine;
+  	System.arraycopy(testEngines, 0, engines, 1, testEngines.length);
+
+		automorphisms = Graph.matchGraphs(first, first, TestFixtures.buildScheme(
+			MatchingScheme.GR_MATCH_COMPLETE, MatchingScheme.CT_MATCH_LABEL,
+			MatchingScheme.CONN_MATCH_ON, referenceEngine)).getMappings();
+
+		for (int typeFlag = 0; typeFlag < typeFlags.length; typeFlag++)
+			for (int engine = 0; engine < engines.length; engine++)
+				{
+				scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+					typeFlags[typeFlag], MatchingScheme.CONN_MATCH_ON, engines[engine]);
+				all = Graph.matchGraphs(first, second, scheme).getMappings();
+				distinct = Graph.matchGraphs(first, second,
+					new MatchingScheme(scheme, MatchingScheme.SYM_MATCH_DISTINCT)).getMappings();
+
+				classes = new Hashtable();
+				if (all != null)
+					for (int map = 0; map < all.length; map++)
+						classes.put(classKey(all[map], automorphisms, first, second), all[map]);
+
+				distinctClasses = new Hashtable();
+				if (distinct != null)
+					for (int map = 0; map < distinct.length; map++)
+						distinctClasses.put(classKey(distinct[map], automorphisms, first, second),
+							distinct[map]);
+
+				if ((distinctClasses.size() != classes.size()) ||
+					((distinct != null) && (distinct.length != classes.size())) ||
+					((expected != -1) && (classes.size() != expected)))
+					{
+					passed = false;
+					logMessage(engines[engine].getClass().getName() + " returned " +
+						((distinct == null) ? 0 : distinct.length) + " mappings, not one for each of " +
+						classes.size() + " sets of symmetric mappings.");
+					}
+				}
+  	}
+
+  	/**
+  	 * Returns a key that is the same for two mappings exactly when they differ by an
+  	 * automorphism of the first graph: the least of the keys of the mapping composed
+  	 * with each automorphism.
+  	 *
+  	 * @param mapping  the mapping.
+  	 * @param automorphisms  every automorphism of the first graph.
+  	 * @param first  the first graph.
+  	 * @param second  the second graph.
+  	 * @return the key of the mapping's set.
+  	 */
+  private String classKey(NodeMapping mapping, NodeMapping automorphisms[], Graph first,
+  	Graph second)
+  	{
+  	Hashtable images, positions;
+  	Node firstNodes[], secondNodes[];
+  	String least = null, key;
+  	StringBuffer buffer;
+
+  	images = new Hashtable();
+  	addPairs(images, mapping.getFirstConcepts(), mapping.getSecondConcepts());
+  	addPairs(images, mapping.getFirstRelations(), mapping.getSecondRelations());
+
+  	positions = new Hashtable();
+  	secondNodes = second.getConcepts();
+  	for (int node = 0; node < secondNodes.length; node++)
+  		positions.put(secondNodes[node], "c" + node);
+  	secondNodes = second.getRelations();
+  	for (int node = 0; node < secondNodes.length; node++)
+  		positions.put(secondNodes[node], "r" + node);
+
+  	for (int aut = 0; aut < automorphisms.length; aut++)
+  		{
+  		Hashtable perm = new Hashtable();
+
+  		addPairs(perm, automorphisms[aut].getFirstConcepts(), automorphisms[aut].getSecondConcepts());
+  		addPairs(perm, automorphisms[aut].getFirstRelations(), automorphisms[aut].getSecondRelations());
+
+  		buffer = new StringBuffer();
+  		firstNodes = first.getConcepts();
+  		for (int node = 0; node < firstNodes.length; node++)
+  			buffer.append(positions.get(images.get(perm.get(firstNodes[node])))).append(',');
+  		firstNodes = first.getRelations();
+  		for (int node = 0; node < firstNodes.length; node++)
+  			buffer.append(positions.get(images.get(perm.get(firstNodes[node])))).append(',');
+
+  		key = buffer.toString();
+  		if ((least == null) || (key.compareTo(least) < 0))
+  			least = key;
+  		}
+
+  	return least;
+  	}
+
+  	/**
+  	 * Records each pair of nodes of a mapping in a table.
+  	 *
+  	 * @param table  the table mapping each first node to its image.
+  	 * @param firstNodes  the first nodes, or null.
+  	 * @param secondNodes  the images of the first nodes, or null.
+  	 */
+  private void addPairs(Hashtable table, Node firstNodes[], Node secondNodes[])
+  	{
+  	if (firstNodes == null)
+  		return;
+
+  	for (int node = 0; node < firstNodes.length; node++)
+  		table.put(firstNodes[node], secondNodes[node]);
+  	}
+
+  	/**
+  	 * Builds a table of one type with blocks of another type related to it.
+  	 *
+  	 * @param simpleGraphs  the fixture providing the types.
+  	 * @param numBlocks  the number of blocks.
+  	 * @return the new graph.
+  	 */
+  private Graph buildStar(TestFixtures.SimpleGraphFixtureOne simpleGraphs, int numBlocks)
+  	{
+  	Graph graph;
+  	Concept table, block, args[];
+
+  	graph = new Graph();
+  	table = new Concept(simpleGraphs.cHierFixture.ctA);
+  	graph.addConcept(table);
+  	for (int blockNum = 0; blockNum < numBlocks; blockNum++)
+  		{
+  		block = new Concept(simpleGraphs.cHierFixture.ctB);
+  		graph.addConcept(block);
+  		args = new Concept[2];
+  		args[0] = block;
+  		args[1] = table;
+  		graph.addRelation(new Relation(simpleGraphs.rHierFixture.rtA, args));
+  		}
+
+  	return graph;
+  	}
+
+  	/**
+  	 * Builds a scheme matching untyped concepts in subgraphs with the specified engine.
+  	 *
+  	 * @param engine  the match engine.
+  	 * @return the new scheme.
+  	 */
+  private MatchingScheme buildUntypedScheme(MatchEngine engine)
+  	{
+		return new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CN_MATCH_ALL,
+			MatchingScheme.RN_MATCH_ALL,
+			MatchingScheme.CT_MATCH_ANYTHING,
+			MatchingScheme.RT_MATCH_ANYTHING,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_OFF,
+			0,
+			null,
+			null,
+			engine);
+  	}
+
+  	/**
+  	 * Builds a scheme that matches concepts by their referents, comparing markers with
+  	 * the specified comparator, with the specified engine.
+  	 *
+  	 * @param comparator  the marker comparator.
+  	 * @param engine  the match engine.
+  	 * @return the new scheme.
+  	 */
+  private MatchingScheme buildNestedScheme(MarkerComparator comparator, MatchEngine engine)
+  	{
+		return new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CN_MATCH_REFERENTS,
+			MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_ANYTHING,
+			MatchingScheme.RT_MATCH_ANYTHING,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_EQUIVALENT,
+			MatchingScheme.MARKER_MATCH_COMPARATOR,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_OFF,
+			0,
+			comparator,
+			null,
+			engine);
+  	}
+
+  	/**
+  	 * Builds a graph of untyped concepts, each with its own marker, divided into groups
+  	 * of coreferent concepts.
+  	 *
+  	 * @param kBase  the knowledge base providing the marker set.
+  	 * @param concepts  the array filled with the new concepts, in order.
+  	 * @param groupSizes  the sizes of the groups of coreferent concepts, in order.
+  	 * @return the new graph.
+  	 */
+  private Graph buildMarkedGraph(KnowledgeBase kBase, Concept concepts[], int groupSizes[])
+  	{
+  	Graph graph;
+  	CoreferenceSet corefSet;
+  	int con;
+
+  	graph = new Graph();
+  	for (con = 0; con < concepts.length; con++)
+  		concepts[con] = new Concept(new Referent(new MarkerDesignator(
+  			new Marker(kBase.getMarkerSet()))));
+  	graph.addConcepts(concepts);
+
+  	con = 0;
+  	for (int group = 0; group < groupSizes.length; group++)
+  		{
+  		if (groupSizes[group] > 1)
+  			{
+	  		corefSet = new CoreferenceSet();
+	  		for (int member = 0; member < groupSizes[group]; member++)
+	  			try
+	  				{
+	  				corefSet.addCoreferentConcept(concepts[con + member]);
+	  				}
+	  			catch (CorefAddException e)
+	  				{
+	  				passed = false;
+	  				logMessage("Could not build a coreference set for the agreement test.");
+	  				}
+	  		}
+  		con += groupSizes[group];
+  		}
+
+  	return graph;
+  	}
+
+  	/**
+  	 * Builds a graph by repeatedly making a graph of untyped concepts that all have the
+  	 * previous graph as their descriptor.
+  	 *
+  	 * @param innermost  the graph at the bottom of the nesting.
+  	 * @param numLevels  the number of levels built above the innermost graph.
+  	 * @param numConcepts  the number of concepts in each level.
+  	 * @return the graph at the top of the nesting.
+  	 */
+  private Graph buildNested(Graph innermost, int numLevels, int numConcepts)
+  	{
+  	Graph graph, descriptor;
+
+  	graph = innermost;
+  	for (int level = 0; level < numLevels; level++)
+  		{
+  		descriptor = graph;
+  		graph = new Graph();
+  		for (int con = 0; con < numConcepts; con++)
+  			graph.addConcept(new Concept(new Referent(descriptor)));
+  		}
+
+  	return graph;
+  	}
+
+  	/**
+  	 * A marker comparator that matches every pair of markers but one, and counts the
+  	 * pairs it is asked to compare more than once.
+  	 */
+  private static class CountingComparator implements MarkerComparator
+  	{
+  		/** The markers of the one pair that does not match. **/
+  	private Marker firstRefused, secondRefused;
+
+  		/** Maps each first marker to the set of second markers compared with it. **/
+  	private IdentityHashMap compared = new IdentityHashMap();
+
+  		/** The number of comparisons of pairs compared before. **/
+  	int repeats;
+
+  		/** The number of comparisons of any pair. **/
+  	int comparisons;
+
+  	CountingComparator(Concept firstConcept, Concept secondConcept)
+  		{
+  		firstRefused = ((MarkerDesignator)firstConcept.getReferent().getDesignator()).getMarker();
+  		secondRefused = ((MarkerDesignator)secondConcept.getReferent().getDesignator()).getMarker();
+  		}
+
+  	void reset()
+  		{
+  		compared.clear();
+  		repeats = 0;
+  		comparisons = 0;
+  		}
+
+  	public boolean compareMarkers(Marker firstMarker, Marker secondMarker)
+  		{
+  		IdentityHashMap seconds;
+
+  		seconds = (IdentityHashMap)compared.get(firstMarker);
+  		if (seconds == null)
+  			{
+  			seconds = new IdentityHashMap();
+  			compared.put(firstMarker, seconds);
+  			}
+
+  		comparisons++;
+  		if (seconds.put(secondMarker, secondMarker) != null)
+  			repeats++;
+
+  		return (firstMarker != firstRefused) || (secondMarker != secondRefused);
+  		}
+  	}
+
+  	/**
+  	 * Matches two graphs with both engines under every combination of the flags being
+  	 * tested and logs any difference in the mappings found.
+  	 *
+  	 * @param first  the first graph being matched.
+  	 * @param second  the second graph being matched.
+  	 */
+  private void compareEngines(Graph first, Graph second)
+  	{
+  	NodeMapping referenceMappings[], testMappings[];
+  	RuntimeException referenceError, testError;
+
+		for (int graphFlag = 0; graphFlag < graphFlags.length; graphFlag++)
+			for (int typeFlag = 0; typeFlag < typeFlags.length; typeFlag++)
+				for (int connectedFlag = 0; connectedFlag < connectedFlags.length; connectedFlag++)
+					{
+					referenceMappings = null;
+					referenceError = null;
+
+					try
+						{
+						referenceMappings = Graph.matchGraphs(first, second, TestFixtures.buildScheme(
+							graphFlags[graphFlag], typeFlags[typeFlag], connectedFlags[connectedFlag],
+							referenceEngine)).getMappings();
+						}
+					catch (RuntimeException e)
+						{
+						// Label matching of untyped relations fails in both engines.
+						referenceError = e;
+						}
+
+					for (int engine = 0; engine < testEngines.length; engine++)
+						{
+						testMappings = null;
+						testError = null;
+
+						try
+							{
+							testMappings = Graph.matchGraphs(first, second, TestFixtures.buildScheme(
+								graphFlags[graphFlag], typeFlags[typeFlag], connectedFlags[connectedFlag],
+								testEngines[engine])).getMappings();
+							}
+						catch (RuntimeException e)
+							{
+							testError = e;
+							}
+
+						if (((referenceError == null) != (testError == null)) ||
+							((referenceError != null) && (referenceError.getClass() != testError.getClass())) ||
+							!sameMappings(referenceMappings, testMappings, orderedEngines[engine]))
+							{
+							passed = false;
+							logMessage(testEngines[engine].getClass().getName() +
+								" disagrees with the reference engine for graph flag " +
+								graphFlags[graphFlag] + ", concept type flag " + typeFlags[typeFlag] +
+								" and connected flag " + connectedFlags[connectedFlag] + ".");
+							}
+						}
+					}
+  	}
+
+  	/**
+  	 * Returns true if two arrays of mappings hold the same mappings, in the same order
+  	 * if required.
+  	 *
+  	 * @param first  the first array of mappings, or null.
+  	 * @param second  the second array of mappings, or null.
+  	 * @param ordered  true if the mappings must be in the same order.
+  	 * @return true if the mappings are the same.
+  	 */
+  private boolean sameMappings(NodeMapping first[], NodeMapping second[], boolean ordered)
+  	{
+  	boolean used[], found;
+
+  	if ((first == null) || (second == null))
+  		return first == second;
+
+  	if (first.length != second.length)
+  		return false;
+
+  	if (ordered)
+  		{
+	  	for (int mapping = 0; mapping < first.length; mapping++)
+	  		if (!sameMapping(first[mapping], second[mapping]))
+	  			return false;
+
+	  	return true;
+	  	}
+
+  	used = new boolean[second.length];
+  	for (int mapping = 0; mapping < first.length; mapping++)
+  		{
+  		found = false;
+  		for (int other = 0; (other < second.length) && !found; other++)
+  			if (!used[other] && sameMapping(first[mapping], second[other]))
+  				{
+  				used[other] = true;
+  				found = true;
+  				}
+
+  		if (!found)
+  			return false;
+  		}
+
+  	return true;
+  	}
+
+  	/**
+  	 * Returns true if two mappings map the same nodes in the same order.
+  	 *
+  	 * @param first  the first mapping.
+  	 * @param second  the second mapping.
+  	 * @return true if the mappings are the same.
+  	 */
+  private boolean sameMapping(NodeMapping first, NodeMapping second)
+  	{
+  	return sameNodes(first.getFirstConcepts(), second.getFirstConcepts()) &&
+  		sameNodes(first.getSecondConcepts(), second.getSecondConcepts()) &&
+  		sameNodes(first.getFirstRelations(), second.getFirstRelations()) &&
+  		sameNodes(first.getSecondRelations(), second.getSecondRelations());
+  	}
+
+  	/**
+  	 * Returns true if two arrays hold the same nodes in the same order.
+  	 *
+  	 * @param first  the first array, or null.
+  	 * @param second  the second array, or null.
+  	 * @return true if the arrays hold the same nodes.
+  	 */
+  private boolean sameNodes(Node first[], Node second[])
+  	{
+  	if ((first == null) || (second == null))
+  		return first == second;
+
+  	if (first.length != second.length)
+  		return false;
+
+  	for (int node = 0; node < first.length; node++)
+  		if (first[node] != second[node])
+  			return false;
+
+  	return true;
+  	}
+
+  public String getTestName()
+  	{
+  	return "Match Engine Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestMatchEngines test;
+
+  	test = new TestMatchEngines();
+  	test.runAndReport();
+  	}
+  }
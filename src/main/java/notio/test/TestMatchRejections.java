@@ -0,0 +1,176 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Class used to test that matches ruled out by the invariants of two graphs are
+     * rejected before searching, with the reason given in the result.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestMatchRejections extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testRejections();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that matches ruled out by the numbers of nodes, their labels or their degrees
+  	 * are rejected before searching, with the reason given in the result.
+  	 */
+  public void testRejections()
+  	{
+  	Graph pairs, smallPairs, star;
+  	Concept pairConcepts[] = new Concept[6], smallConcepts[] = new Concept[4];
+  	Concept centre, leaf, args[];
+  	Relation links[] = new Relation[3], smallLinks[] = new Relation[2];
+  	MatchResult result;
+
+  	pairs = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA, simpleGraphs.rHierFixture.rtA,
+  		pairConcepts, links);
+  	smallPairs = TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA,
+  		simpleGraphs.rHierFixture.rtA, smallConcepts, smallLinks);
+
+		// A star of three links has as many relations as the pairs but needs a concept
+		// with three relators.
+		star = new Graph();
+		centre = new Concept(simpleGraphs.cHierFixture.ctA);
+		for (int link = 0; link < 3; link++)
+			{
+			leaf = new Concept(simpleGraphs.cHierFixture.ctA);
+			args = new Concept[2];
+			args[0] = centre;
+			args[1] = leaf;
+			star.addRelation(new Relation(simpleGraphs.rHierFixture.rtA, args));
+			}
+
+		result = Graph.matchGraphs(star, pairs, buildRejectionScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH, MatchingScheme.CONN_MATCH_ON));
+		if (result.matchSucceeded() || (result.getRejectionReason() == null) ||
+			(result.getRejectionReason().indexOf("relators") == -1))
+			{
+			passed = false;
+			logMessage("Subgraph matching did not reject a query needing a concept of higher degree.");
+			}
+
+		// Without connected matching the relations need not share arguments.
+		result = Graph.matchGraphs(star, pairs, buildRejectionScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH, MatchingScheme.CONN_MATCH_OFF));
+		if (!result.matchSucceeded() || (result.getRejectionReason() != null))
+			{
+			passed = false;
+			logMessage("Unconnected subgraph matching rejected a query by degree.");
+			}
+
+		result = Graph.matchGraphs(smallPairs, pairs, buildRejectionScheme(
+			MatchingScheme.GR_MATCH_COMPLETE, MatchingScheme.CONN_MATCH_ON));
+		if (result.matchSucceeded() || (result.getRejectionReason() == null))
+			{
+			passed = false;
+			logMessage("Complete matching did not reject graphs of different sizes.");
+			}
+
+		result = Graph.matchGraphs(pairs, pairs, buildRejectionScheme(
+			MatchingScheme.GR_MATCH_PROPER_SUBGRAPH, MatchingScheme.CONN_MATCH_ON));
+		if (result.matchSucceeded() || (result.getRejectionReason() == null))
+			{
+			passed = false;
+			logMessage("Proper subgraph matching did not reject a graph of the same size.");
+			}
+
+		// One concept of another type is left over, but only complete matching must use it.
+		pairConcepts[5].setType(simpleGraphs.cHierFixture.ctB);
+		result = Graph.matchGraphs(smallPairs, pairs, buildRejectionScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH, MatchingScheme.CONN_MATCH_ON));
+		if (!result.matchSucceeded() || (result.getRejectionReason() != null))
+			{
+			passed = false;
+			logMessage("Subgraph matching rejected a query whose types are contained in the graph.");
+			}
+
+		result = Graph.matchGraphs(TestFixtures.buildPairs(simpleGraphs.cHierFixture.ctA,
+			simpleGraphs.rHierFixture.rtA, new Concept[6], new Relation[3]), pairs,
+			buildRejectionScheme(MatchingScheme.GR_MATCH_COMPLETE, MatchingScheme.CONN_MATCH_ON));
+		if (result.matchSucceeded() || (result.getRejectionReason() == null) ||
+			(result.getRejectionReason().indexOf("type " +
+			simpleGraphs.cHierFixture.ctA.getLabel()) == -1))
+			{
+			passed = false;
+			logMessage("Complete matching did not reject graphs with different numbers of a type.");
+			}
+  	}
+
+  	/**
+  	 * Builds a scheme matching nodes by type label with the specified flags.
+  	 *
+  	 * @param graphFlag  the graph matching flag.
+  	 * @param connectedFlag  the connected matching flag.
+  	 * @return the new scheme.
+  	 */
+  private MatchingScheme buildRejectionScheme(int graphFlag, int connectedFlag)
+  	{
+		return new MatchingScheme(
+			graphFlag,
+			MatchingScheme.CN_MATCH_TYPES,
+			MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_LABEL,
+			MatchingScheme.RT_MATCH_LABEL,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			connectedFlag,
+			0,
+			null,
+			null);
+  	}
+
+  public String getTestName()
+  	{
+  	return "Match Rejections Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestMatchRejections test;
+
+  	test = new TestMatchRejections();
+  	test.runAndReport();
+  	}
+  }
@@ -0,0 +1,221 @@
+package notio.test;
+
+import notio.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+    /**
+     * Class used to test PreparedQuery, which matches one query against many graphs.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestPreparedQuery extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testPreparedQuery();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that a prepared query gives the same results as Graph.matchGraphs() against
+  	 * graphs whose types are related to the query's in different ways, whether the
+  	 * graphs are matched in turn or on a pool.
+  	 */
+  public void testPreparedQuery()
+  	{
+  	Graph query, unlinked;
+  	ConceptType addedType;
+  	Vector targets;
+  	MatchingScheme scheme;
+  	PreparedQuery prepared;
+  	MatchResult expected, sequential[], pooled[], before[], after[];
+  	ForkJoinPool pool;
+  	int numMatched = 0;
+
+		// The query's types with a relation that joins nothing, then pairs whose types are
+		// the query's, reversed, or the subtype I of B.
+  	unlinked = new Graph();
+  	unlinked.addConcept(new Concept(simpleGraphs.cHierFixture.ctA));
+  	unlinked.addConcept(new Concept(simpleGraphs.cHierFixture.ctB));
+  	unlinked.addRelation(new Relation(simpleGraphs.rHierFixture.rtA));
+
+  	query = buildPair(simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctB);
+  	targets = new Vector();
+  	targets.addElement(unlinked);
+  	targets.addElement(buildPair(simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctB));
+  	targets.addElement(buildPair(simpleGraphs.cHierFixture.ctB, simpleGraphs.cHierFixture.ctA));
+  	targets.addElement(buildPair(simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctI));
+  	targets.addElement(buildPair(simpleGraphs.cHierFixture.ctI, simpleGraphs.cHierFixture.ctA));
+  	targets.addElement(buildPair(simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctC));
+  	targets.addElement(null);
+  	targets.addElement(query);
+
+  	scheme = new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CN_MATCH_TYPES,
+			MatchingScheme.RN_MATCH_TYPES,
+			MatchingScheme.CT_MATCH_SUBTYPE,
+			MatchingScheme.RT_MATCH_SUBTYPE,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_ON,
+			0,
+			null,
+			null);
+
+  	prepared = Graph.prepareMatch(query, scheme);
+  	sequential = prepared.matchAll(targets);
+
+  	pool = new ForkJoinPool(4);
+  	pooled = prepared.matchAll(targets, pool);
+  	pool.shutdown();
+
+  	if ((sequential.length != targets.size()) || (pooled.length != targets.size()))
+  		{
+  		passed = false;
+  		logMessage("PreparedQuery.matchAll() returned the wrong number of results.");
+  		return;
+  		}
+
+  	for (int target = 0; target < targets.size(); target++)
+  		{
+  		expected = Graph.matchGraphs(query, (Graph)targets.elementAt(target), scheme);
+  		if (expected.matchSucceeded())
+  			numMatched++;
+
+  		if (!sameResult(expected, sequential[target]) || !sameResult(expected, pooled[target]))
+  			{
+  			passed = false;
+  			logMessage("PreparedQuery.matchAll() disagreed with Graph.matchGraphs() on target " +
+  				target + ".");
+  			}
+  		}
+
+		// Some targets must match and some must not for the comparison to mean anything.
+  	if ((numMatched < 2) || (numMatched > targets.size() - 3))
+  		{
+  		passed = false;
+  		logMessage("Graph.matchGraphs() matched " + numMatched +
+  			" targets in the prepared query test.");
+  		}
+
+		// A change to the type order must not leave the query's cached comparisons in use.
+  	addedType = new ConceptType("O");
+  	simpleGraphs.cHierFixture.cHier.addTypeToHierarchy(addedType);
+  	targets = new Vector();
+  	targets.addElement(buildPair(simpleGraphs.cHierFixture.ctA, addedType));
+  	before = prepared.matchAll(targets);
+  	simpleGraphs.cHierFixture.cHier.addSuperTypeToType(simpleGraphs.cHierFixture.ctB, addedType);
+  	after = prepared.matchAll(targets);
+  	expected = Graph.matchGraphs(query, (Graph)targets.elementAt(0), scheme);
+  	if (before[0].matchSucceeded() || !expected.matchSucceeded() ||
+  		!sameResult(expected, after[0]))
+  		{
+  		passed = false;
+  		logMessage("PreparedQuery kept type comparisons made before the hierarchy changed.");
+  		}
+  	}
+
+  	/**
+  	 * Builds a graph of two concepts linked by a relation.
+  	 *
+  	 * @param firstType  the type of the relation's first argument.
+  	 * @param secondType  the type of the relation's second argument.
+  	 * @return the new graph.
+  	 */
+  private Graph buildPair(ConceptType firstType, ConceptType secondType)
+  	{
+  	Graph graph;
+  	Concept concepts[] = new Concept[2];
+
+  	graph = new Graph();
+  	concepts[0] = new Concept(firstType);
+  	concepts[1] = new Concept(secondType);
+  	graph.addConcepts(concepts);
+  	graph.addRelation(new Relation(simpleGraphs.rHierFixture.rtA, concepts));
+  	return graph;
+  	}
+
+  	/**
+  	 * Returns true if two match results agree and hold the same mappings in the same
+  	 * order.
+  	 *
+  	 * @param first  the first result.
+  	 * @param second  the second result.
+  	 * @return true if the results are the same.
+  	 */
+  private boolean sameResult(MatchResult first, MatchResult second)
+  	{
+  	NodeMapping firstMappings[], secondMappings[];
+
+  	if (first.matchSucceeded() != second.matchSucceeded())
+  		return false;
+
+  	firstMappings = first.getMappings();
+  	secondMappings = second.getMappings();
+  	if ((firstMappings == null) || (secondMappings == null))
+  		return firstMappings == secondMappings;
+
+  	if (firstMappings.length != secondMappings.length)
+  		return false;
+
+  	for (int mapping = 0; mapping < firstMappings.length; mapping++)
+  		if (!Arrays.equals(firstMappings[mapping].getFirstConcepts(),
+  			secondMappings[mapping].getFirstConcepts()) ||
+  			!Arrays.equals(firstMappings[mapping].getSecondConcepts(),
+  			secondMappings[mapping].getSecondConcepts()))
+  			return false;
+
+  	return true;
+  	}
+
+  public String getTestName()
+  	{
+  	return "Prepared Query Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestPreparedQuery test;
+
+  	test = new TestPreparedQuery();
+  	test.runAndReport();
+  	}
+  }
@@ -0,0 +1,464 @@
+package notio.test;
+
+import notio.*;
+import java.util.*;
+
+    /**
+     * Class used to test projection, subgraph matching with folding.  Projections of
+     * small graphs are checked against known counts and against an exhaustive search of
+     * graphs built at random from a fixed seed, and a query is projected into a large
+     * graph whose projections can be counted by hand.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestProjection extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/** The projection engine, which schemes must name to use. **/
+  private MatchEngine projectionEngine = new ProjectionMatchEngine();
+
+  	/** The engines tested: the reference engine and the projection engine. **/
+  private MatchEngine engines[] = {new GeneratorMatchEngine(), projectionEngine};
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testKnownProjections();
+		testRandomGraphs();
+		testLargeGraph();
+		testBudget();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests projections of a chain onto a cycle, whose numbers are known.
+  	 */
+  public void testKnownProjections()
+  	{
+  	Graph first, second;
+  	ConceptType types[];
+  	MatchingScheme scheme;
+  	NodeMapping mappings[];
+
+		// [A]->(r)->[A]->(r)->[A] folds onto [A]->(r)->[A]->(r)->back to the start in two ways.
+  	types = new ConceptType[] {simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctA,
+  		simpleGraphs.cHierFixture.ctA};
+  	first = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	second = TestFixtures.buildChain(new ConceptType[] {types[0], types[1]},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_CLOSED);
+
+  	for (int engine = 0; engine < engines.length; engine++)
+  		{
+	  	scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+	  		MatchingScheme.CN_MATCH_TYPES, MatchingScheme.CT_MATCH_LABEL,
+	  		MatchingScheme.CONN_MATCH_ON, MatchingScheme.FOLD_MATCH_ON, engines[engine]);
+	  	mappings = Graph.matchGraphs(first, second, scheme).getMappings();
+	  	if ((mappings == null) || (mappings.length != 2) || !consistent(mappings[0]) ||
+	  		!consistent(mappings[1]))
+	  		{
+	  		passed = false;
+	  		logMessage("A chain did not project onto a cycle in two ways.");
+	  		}
+
+			// Ignoring arcs, each of three concepts and two relations has two images.
+	  	scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+	  		MatchingScheme.CN_MATCH_TYPES, MatchingScheme.CT_MATCH_LABEL,
+	  		MatchingScheme.CONN_MATCH_OFF, MatchingScheme.FOLD_MATCH_ON, engines[engine]);
+	  	if (Graph.matchGraphs(first, second, scheme).getMappings().length != 32)
+	  		{
+	  		passed = false;
+	  		logMessage("Unconnected projections of a chain onto a cycle were miscounted.");
+	  		}
+	  	}
+
+		// A general query projects onto a specialization, but not the other way around.
+  	first = TestFixtures.buildChain(new ConceptType[] {simpleGraphs.cHierFixture.ctA,
+  		simpleGraphs.cHierFixture.ctB}, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	second = TestFixtures.buildChain(new ConceptType[] {simpleGraphs.cHierFixture.ctK,
+  		simpleGraphs.cHierFixture.ctB}, simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+  		MatchingScheme.CN_MATCH_TYPES, MatchingScheme.CT_MATCH_SUPERTYPE,
+  		MatchingScheme.CONN_MATCH_ON, MatchingScheme.FOLD_MATCH_ON, projectionEngine);
+  	if (!Graph.matchGraphs(first, second, scheme).matchSucceeded() ||
+  		Graph.matchGraphs(second, first, scheme).matchSucceeded())
+  		{
+  		passed = false;
+  		logMessage("Projection did not follow the type hierarchy.");
+  		}
+  	}
+
+  	/**
+  	 * Tests that every engine finds exactly the projections of random graphs that an
+  	 * exhaustive search finds.
+  	 */
+  public void testRandomGraphs()
+  	{
+  	ConceptType conceptTypes[];
+  	RelationType relationTypes[];
+  	int typeFlags[] = {MatchingScheme.CT_MATCH_LABEL, MatchingScheme.CT_MATCH_SUPERTYPE};
+  	int connectedFlags[] = {MatchingScheme.CONN_MATCH_ON, MatchingScheme.CONN_MATCH_OFF};
+  	Random random;
+  	Graph first, second;
+  	MatchingScheme scheme;
+  	NodeMapping mappings[];
+  	Hashtable expected;
+  	int numFound;
+
+		conceptTypes = new ConceptType[4];
+		conceptTypes[0] = simpleGraphs.cHierFixture.ctA;
+		conceptTypes[1] = simpleGraphs.cHierFixture.ctB;
+		conceptTypes[2] = simpleGraphs.cHierFixture.ctE;
+		conceptTypes[3] = simpleGraphs.cHierFixture.ctK;
+		relationTypes = new RelationType[2];
+		relationTypes[0] = simpleGraphs.rHierFixture.rtA;
+		relationTypes[1] = simpleGraphs.rHierFixture.rtB;
+
+		random = new Random(1999);
+		for (int trial = 0; trial < 40; trial++)
+			{
+			first = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				2 + random.nextInt(3), 1 + random.nextInt(3));
+			second = TestFixtures.buildRandomGraph(random, conceptTypes, relationTypes,
+				2 + random.nextInt(3), 1 + random.nextInt(3));
+
+			for (int typeFlag = 0; typeFlag < typeFlags.length; typeFlag++)
+				for (int connectedFlag = 0; connectedFlag < connectedFlags.length; connectedFlag++)
+					{
+					scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+						MatchingScheme.CN_MATCH_TYPES, typeFlags[typeFlag], connectedFlags[connectedFlag],
+						MatchingScheme.FOLD_MATCH_ON, projectionEngine);
+					expected = new Hashtable();
+					findProjections(first, second, scheme.compile(),
+						connectedFlags[connectedFlag] == MatchingScheme.CONN_MATCH_ON,
+						new Concept[first.getNumberOfConcepts()], 0,
+						new Relation[first.getNumberOfRelations()], 0, expected);
+
+					for (int engine = 0; engine < engines.length; engine++)
+						{
+						scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+							MatchingScheme.CN_MATCH_TYPES, typeFlags[typeFlag], connectedFlags[connectedFlag],
+							MatchingScheme.FOLD_MATCH_ON, engines[engine]);
+						mappings = Graph.matchGraphs(first, second, scheme).getMappings();
+
+						numFound = 0;
+						if (mappings != null)
+							for (int map = 0; map < mappings.length; map++)
+								if (expected.containsKey(mappingKey(mappings[map], first, second)))
+									numFound++;
+
+						if ((numFound != expected.size()) ||
+							((mappings != null) && (mappings.length != numFound)))
+							{
+							passed = false;
+							logMessage("Projections of random graphs do not agree with an exhaustive " +
+								"search for concept type flag " + typeFlags[typeFlag] +
+								" and connected flag " + connectedFlags[connectedFlag] + ".");
+							}
+						}
+					}
+			}
+  	}
+
+  	/**
+  	 * Tests projection into a cycle of a hundred thousand concepts, in which a few
+  	 * concepts of one type are separated by long runs of another.
+  	 */
+  public void testLargeGraph()
+  	{
+  	ConceptType types[];
+  	Graph first, second;
+  	NodeMapping mappings[];
+  	int numConcepts = 100000, spacing = 1000;
+
+  	types = new ConceptType[numConcepts];
+  	for (int con = 0; con < numConcepts; con++)
+  		if ((con % spacing) == 0)
+  			types[con] = simpleGraphs.cHierFixture.ctB;
+  		else
+  			types[con] = simpleGraphs.cHierFixture.ctK;
+  	second = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA,
+  		TestFixtures.CHAIN_CLOSED);
+
+		// [A]->(r)->[A]->(r)->[B] lands on the two concepts before each [B].
+  	first = TestFixtures.buildChain(new ConceptType[] {simpleGraphs.cHierFixture.ctA,
+  		simpleGraphs.cHierFixture.ctA, simpleGraphs.cHierFixture.ctB},
+  		simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+  	mappings = Graph.matchGraphs(first, second, TestFixtures.buildScheme(
+  		MatchingScheme.GR_MATCH_SUBGRAPH, MatchingScheme.CN_MATCH_TYPES,
+  		MatchingScheme.CT_MATCH_SUPERTYPE, MatchingScheme.CONN_MATCH_ON,
+  		MatchingScheme.FOLD_MATCH_ON, projectionEngine)).getMappings();
+  	if ((mappings == null) || (mappings.length != numConcepts / spacing))
+  		{
+  		passed = false;
+  		logMessage("A query was projected into a large graph " +
+  			((mappings == null) ? 0 : mappings.length) + " times instead of " +
+  			(numConcepts / spacing) + ".");
+  		}
+  	else
+  		for (int map = 0; map < mappings.length; map++)
+  			if (!consistent(mappings[map]) ||
+  				(mappings[map].getSecondConcepts()[2].getType() != simpleGraphs.cHierFixture.ctB))
+  				{
+  				passed = false;
+  				logMessage("A projection into a large graph does not preserve arcs and types.");
+  				break;
+  				}
+  	}
+
+  	/**
+  	 * Tests that a projection search stops when its budget is spent.
+  	 */
+  public void testBudget()
+  	{
+  	ConceptType types[];
+  	Graph first, second;
+  	MatchingScheme scheme;
+  	MatchResult result;
+  	SearchBudget budget;
+
+		types = new ConceptType[200];
+		Arrays.fill(types, simpleGraphs.cHierFixture.ctA);
+		second = TestFixtures.buildChain(types, simpleGraphs.rHierFixture.rtA,
+			TestFixtures.CHAIN_CLOSED);
+		first = TestFixtures.buildChain(new ConceptType[] {types[0], types[1], types[2]},
+			simpleGraphs.rHierFixture.rtA, TestFixtures.CHAIN_OPEN);
+		scheme = TestFixtures.buildScheme(MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CN_MATCH_TYPES, MatchingScheme.CT_MATCH_LABEL,
+			MatchingScheme.CONN_MATCH_ON, MatchingScheme.FOLD_MATCH_ON, projectionEngine);
+
+		result = Graph.matchGraphs(first, second, scheme);
+		if (result.isTruncated() || (result.getMappings().length != types.length))
+			{
+			passed = false;
+			logMessage("A chain was not projected onto every position of a cycle.");
+			}
+
+		budget = new SearchBudget(50, 0);
+		result = Graph.matchGraphs(first, second, new MatchingScheme(scheme, budget));
+		if (!result.isTruncated() || !budget.isExhausted() || !result.matchSucceeded() ||
+			(result.getMappings().length >= types.length))
+			{
+			passed = false;
+			logMessage("A projection search did not stop at its budget.");
+			}
+
+		budget = new SearchBudget();
+		budget.cancel();
+		result = Graph.matchGraphs(first, second, new MatchingScheme(scheme, budget));
+		if (!result.isTruncated() || result.matchSucceeded())
+			{
+			passed = false;
+			logMessage("A cancelled projection search returned a mapping.");
+			}
+  	}
+
+  	/**
+  	 * Adds the key of every projection that extends the partial projection given to a
+  	 * table, choosing an image for each first concept and then for each first relation.
+  	 *
+  	 * @param first  the graph being projected.
+  	 * @param second  the graph being projected into.
+  	 * @param compiledScheme  the compiled scheme used to compare nodes.
+  	 * @param connected  true if arguments must be preserved.
+  	 * @param conceptImages  the images chosen for the first concepts.
+  	 * @param numConcepts  the number of first concepts with images chosen.
+  	 * @param relationImages  the images chosen for the first relations.
+  	 * @param numRelations  the number of first relations with images chosen.
+  	 * @param keys  the table to which the keys of projections are added.
+  	 */
+  private void findProjections(Graph first, Graph second, CompiledMatchingScheme compiledScheme,
+  	boolean connected, Concept conceptImages[], int numConcepts, Relation relationImages[],
+  	int numRelations, Hashtable keys)
+  	{
+  	Concept firstConcepts[], secondConcepts[];
+  	Relation firstRelations[], secondRelations[];
+  	Hashtable images;
+  	StringBuffer key;
+
+  	firstConcepts = first.getConcepts();
+  	secondConcepts = second.getConcepts();
+  	firstRelations = first.getRelations();
+  	secondRelations = second.getRelations();
+
+  	if (numConcepts < firstConcepts.length)
+  		{
+  		for (int con = 0; con < secondConcepts.length; con++)
+  			if (compiledScheme.matchConcepts(firstConcepts[numConcepts],
+  				secondConcepts[con]).matchSucceeded())
+  				{
+  				conceptImages[numConcepts] = secondConcepts[con];
+  				findProjections(first, second, compiledScheme, connected, conceptImages,
+  					numConcepts + 1, relationImages, numRelations, keys);
+  				}
+  		return;
+  		}
+
+  	if (numRelations < firstRelations.length)
+  		{
+  		images = new Hashtable();
+  		for (int con = 0; con < firstConcepts.length; con++)
+  			images.put(firstConcepts[con], conceptImages[con]);
+
+  		for (int rel = 0; rel < secondRelations.length; rel++)
+  			if (compiledScheme.matchRelations(firstRelations[numRelations], secondRelations[rel]) &&
+  				(!connected || argumentsMapped(firstRelations[numRelations], secondRelations[rel], images)))
+  				{
+  				relationImages[numRelations] = secondRelations[rel];
+  				findProjections(first, second, compiledScheme, connected, conceptImages,
+  					numConcepts, relationImages, numRelations + 1, keys);
+  				}
+  		return;
+  		}
+
+  	key = new StringBuffer();
+  	for (int con = 0; con < conceptImages.length; con++)
+  		key.append(indexOf(secondConcepts, conceptImages[con])).append(',');
+  	key.append('|');
+  	for (int rel = 0; rel < relationImages.length; rel++)
+  		key.append(indexOf(secondRelations, relationImages[rel])).append(',');
+  	keys.put(key.toString(), key.toString());
+  	}
+
+  	/**
+  	 * Returns the key of a mapping in the form used by findProjections.
+  	 *
+  	 * @param mapping  the mapping.
+  	 * @param first  the graph being projected.
+  	 * @param second  the graph being projected into.
+  	 * @return the key of the mapping.
+  	 */
+  private String mappingKey(NodeMapping mapping, Graph first, Graph second)
+  	{
+  	Hashtable images;
+  	Node firstNodes[], secondNodes[];
+  	StringBuffer key;
+
+  	images = new Hashtable();
+  	firstNodes = mapping.getFirstConcepts();
+  	secondNodes = mapping.getSecondConcepts();
+  	for (int node = 0; node < firstNodes.length; node++)
+  		images.put(firstNodes[node], secondNodes[node]);
+  	firstNodes = mapping.getFirstRelations();
+  	secondNodes = mapping.getSecondRelations();
+  	if (firstNodes != null)
+  		for (int node = 0; node < firstNodes.length; node++)
+  			images.put(firstNodes[node], secondNodes[node]);
+
+  	key = new StringBuffer();
+  	firstNodes = first.getConcepts();
+  	for (int node = 0; node < firstNodes.length; node++)
+  		key.append(indexOf(second.getConcepts(), (Node)images.get(firstNodes[node]))).append(',');
+  	key.append('|');
+  	firstNodes = first.getRelations();
+  	for (int node = 0; node < firstNodes.length; node++)
+  		key.append(indexOf(second.getRelations(), (Node)images.get(firstNodes[node]))).append(',');
+
+  	return key.toString();
+  	}
+
+  	/**
+  	 * Returns the position of a node in an array, or -1 if it is not there.
+  	 *
+  	 * @param nodes  the array searched.
+  	 * @param node  the node sought.
+  	 * @return the position of the node.
+  	 */
+  private int indexOf(Node nodes[], Node node)
+  	{
+  	for (int index = 0; index < nodes.length; index++)
+  		if (nodes[index] == node)
+  			return index;
+
+  	return -1;
+  	}
+
+  	/**
+  	 * Returns true if each argument of the first relation maps onto the argument in the
+  	 * same position of the second.
+  	 *
+  	 * @param first  the first relation.
+  	 * @param second  the second relation.
+  	 * @param images  the image of each first concept.
+  	 * @return true if the arguments are mapped.
+  	 */
+  private boolean argumentsMapped(Relation first, Relation second, Hashtable images)
+  	{
+  	if (first.getValence() != second.getValence())
+  		return false;
+
+  	for (int arg = 0; arg < first.getValence(); arg++)
+  		if (images.get(first.getArgument(arg)) != second.getArgument(arg))
+  			return false;
+
+  	return true;
+  	}
+
+  	/**
+  	 * Returns true if the mapping preserves the arguments of every mapped relation.
+  	 *
+  	 * @param mapping  the mapping being checked.
+  	 * @return true if the mapping preserves arguments.
+  	 */
+  private boolean consistent(NodeMapping mapping)
+  	{
+  	Hashtable images;
+  	Concept firstConcepts[], secondConcepts[];
+  	Relation firstRelations[], secondRelations[];
+
+  	images = new Hashtable();
+  	firstConcepts = mapping.getFirstConcepts();
+  	secondConcepts = mapping.getSecondConcepts();
+  	for (int con = 0; con < firstConcepts.length; con++)
+  		images.put(firstConcepts[con], secondConcepts[con]);
+
+  	firstRelations = mapping.getFirstRelations();
+  	secondRelations = mapping.getSecondRelations();
+  	for (int rel = 0; rel < firstRelations.length; rel++)
+  		if (!argumentsMapped(firstRelations[rel], secondRelations[rel], images))
+  			return false;
+
+  	return true;
+  	}
+
+  public String getTestName()
+  	{
+  	return "Projection Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestProjection test;
+
+  	test = new TestProjection();
+  	test.runAndReport();
+  	}
+  }
@@ -0,0 +1,146 @@
+package notio.test;
+
+import notio.*;
+import java.util.*;
+
+    /**
+     * Class used to test Graph.streamMatches(), which returns the mappings between two
+     * graphs as a lazy stream.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestStreamMatches extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+
+		testStreamMatches();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that streaming matches gives the same mappings as matchGraphs(), respects
+  	 * the maximum number of matches, and finds the first of a huge number of mappings
+  	 * without searching for the rest.
+  	 */
+  public void testStreamMatches()
+  	{
+  	Graph query, target;
+  	NodeMapping expected[];
+  	Object streamed[];
+  	Optional first;
+
+  	// Two query concepts against five targets give twenty mappings.
+  	query = TestFixtures.buildUntyped(2);
+  	target = TestFixtures.buildUntyped(5);
+
+  	expected = Graph.matchGraphs(query, target, buildStreamScheme(0)).getMappings();
+  	streamed = Graph.streamMatches(query, target, buildStreamScheme(0)).toArray();
+  	if ((expected == null) || (expected.length != 20) || (streamed.length != expected.length))
+  		{
+  		passed = false;
+  		logMessage("Graph.streamMatches() found the wrong number of mappings.");
+  		}
+  	else
+  		for (int mapping = 0; mapping < expected.length; mapping++)
+  			if (!Arrays.equals(expected[mapping].getFirstConcepts(),
+  				((NodeMapping)streamed[mapping]).getFirstConcepts()) ||
+  				!Arrays.equals(expected[mapping].getSecondConcepts(),
+  				((NodeMapping)streamed[mapping]).getSecondConcepts()))
+  				{
+  				passed = false;
+  				logMessage("Graph.streamMatches() did not follow the order of Graph.matchGraphs().");
+  				break;
+  				}
+
+  	if (Graph.streamMatches(query, target, buildStreamScheme(3)).count() != 3)
+  		{
+  		passed = false;
+  		logMessage("Graph.streamMatches() ignored the maximum number of matches.");
+  		}
+
+  	if (Graph.streamMatches(null, target, buildStreamScheme(0)).count() != 0)
+  		{
+  		passed = false;
+  		logMessage("Graph.streamMatches() returned mappings for a null graph.");
+  		}
+
+  	// Four query concepts against two hundred targets have over a billion mappings, so
+  	// this only finishes if the search stops at the first one.
+  	query = TestFixtures.buildUntyped(4);
+  	target = TestFixtures.buildUntyped(200);
+
+  	first = Graph.streamMatches(query, target, buildStreamScheme(0)).findFirst();
+  	if (!first.isPresent() || (((NodeMapping)first.get()).getSecondConcepts().length != 4))
+  		{
+  		passed = false;
+  		logMessage("Graph.streamMatches() did not find the first of many mappings.");
+  		}
+  	}
+
+  	/**
+  	 * Builds a scheme matching untyped concepts in subgraphs for testStreamMatches().
+  	 *
+  	 * @param maxMatches  the maximum number of matches, or 0 for no limit.
+  	 * @return the new scheme.
+  	 */
+  private MatchingScheme buildStreamScheme(int maxMatches)
+  	{
+		return new MatchingScheme(
+			MatchingScheme.GR_MATCH_SUBGRAPH,
+			MatchingScheme.CN_MATCH_ALL,
+			MatchingScheme.RN_MATCH_ALL,
+			MatchingScheme.CT_MATCH_ANYTHING,
+			MatchingScheme.RT_MATCH_ANYTHING,
+			MatchingScheme.QF_MATCH_ANYTHING,
+			MatchingScheme.DG_MATCH_ANYTHING,
+			MatchingScheme.MARKER_MATCH_ANYTHING,
+			MatchingScheme.ARC_MATCH_ANYTHING,
+			MatchingScheme.COREF_AUTOMATCH_OFF,
+			MatchingScheme.COREF_AGREE_OFF,
+			MatchingScheme.FOLD_MATCH_OFF,
+			MatchingScheme.CONN_MATCH_OFF,
+			maxMatches,
+			null,
+			null);
+  	}
+
+  public String getTestName()
+  	{
+  	return "Stream Matches Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestStreamMatches test;
+
+  	test = new TestStreamMatches();
+  	test.runAndReport();
+  	}
+  }
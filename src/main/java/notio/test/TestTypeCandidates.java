@@ -0,0 +1,134 @@
+package notio.test;
+
+import notio.*;
+
+    /**
+     * Class used to test the candidates that matching by type picks from the type buckets
+     * of a graph.
+     *
+     * @author agent
+		 * @legal Copyright (c) agent, 2026
+		 *	This program is free software; you can redistribute it and/or modify it 
+		 *	under the terms of the GNU Library General Public License as published 
+		 *	by the Free Software Foundation; either version 2 of the License, or 
+		 *	(at your option) any later version.  This program is distributed in the 
+		 *	hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+		 *	implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+		 *	See the GNU Library General Public License for more details.  You should 
+		 *	have received a copy of the GNU Library General Public License along 
+		 *	with this program; if not, write to the Free Software Foundation, Inc., 
+		 *	675 Mass Ave, Cambridge, MA 02139, USA.
+     */
+public class TestTypeCandidates extends TesterBase
+  {
+  	/** Flag indicating whether or not this test has passed. **/
+  private boolean passed;
+
+  	/** The fixture whose types the graphs are built from. **/
+  private TestFixtures.SimpleGraphFixtureOne simpleGraphs;
+
+  	/**
+  	 * Standard test access method.
+  	 *
+  	 * @return true if test was passed, false otherwise.
+  	 */
+  public boolean runTest()
+  	{
+		passed = true;
+		simpleGraphs = new TestFixtures.SimpleGraphFixtureOne();
+
+		testTypeCandidates();
+
+		return passed;
+  	}
+
+  	/**
+  	 * Tests that matching by type finds the same candidates whether they are compared
+  	 * in full or picked from the type buckets, including untyped concepts.
+  	 */
+  public void testTypeCandidates()
+  	{
+  	Graph query, target;
+  	Concept queried[] = new Concept[2], targets[] = new Concept[5];
+  	NodeMapping mappings[];
+  	ConceptType mappedType;
+  	int expected[] = {12, 8};
+  	int typeFlags[] = {MatchingScheme.CT_MATCH_SUBTYPE, MatchingScheme.CT_MATCH_INSTANCE};
+
+		// E is a subtype of A and unrelated to B and C.
+  	query = new Graph();
+  	queried[0] = new Concept(simpleGraphs.cHierFixture.ctE);
+  	queried[1] = new Concept();
+  	query.addConcepts(queried);
+
+  	target = new Graph();
+  	targets[0] = new Concept(simpleGraphs.cHierFixture.ctA);
+  	targets[1] = new Concept(simpleGraphs.cHierFixture.ctB);
+  	targets[2] = new Concept(simpleGraphs.cHierFixture.ctE);
+  	targets[3] = new Concept();
+  	targets[4] = new Concept(simpleGraphs.cHierFixture.ctC);
+  	target.addConcepts(targets);
+
+		for (int flag = 0; flag < typeFlags.length; flag++)
+			{
+			mappings = Graph.matchGraphs(query, target, new MatchingScheme(
+				MatchingScheme.GR_MATCH_SUBGRAPH,
+				MatchingScheme.CN_MATCH_TYPES,
+				MatchingScheme.RN_MATCH_TYPES,
+				typeFlags[flag],
+				MatchingScheme.RT_MATCH_LABEL,
+				MatchingScheme.QF_MATCH_ANYTHING,
+				MatchingScheme.DG_MATCH_ANYTHING,
+				MatchingScheme.MARKER_MATCH_ANYTHING,
+				MatchingScheme.ARC_MATCH_ANYTHING,
+				MatchingScheme.COREF_AUTOMATCH_OFF,
+				MatchingScheme.COREF_AGREE_OFF,
+				MatchingScheme.FOLD_MATCH_OFF,
+				MatchingScheme.CONN_MATCH_OFF,
+				0,
+				null,
+				null)).getMappings();
+
+			if ((mappings == null) || (mappings.length != expected[flag]))
+				{
+				passed = false;
+				logMessage("Wrong number of mappings when matching concepts by type.");
+				continue;
+				}
+
+			for (int mapping = 0; mapping < mappings.length; mapping++)
+				{
+				if (mappings[mapping].getFirstConcepts()[0] == queried[0])
+					mappedType = mappings[mapping].getSecondConcepts()[0].getType();
+				else
+					mappedType = mappings[mapping].getSecondConcepts()[1].getType();
+
+				if ((mappedType != null) && (mappedType != simpleGraphs.cHierFixture.ctE) &&
+					((typeFlags[flag] == MatchingScheme.CT_MATCH_INSTANCE) ||
+					(mappedType != simpleGraphs.cHierFixture.ctA)))
+					{
+					passed = false;
+					logMessage("A concept was mapped to a concept of an incompatible type.");
+					}
+				}
+			}
+  	}
+
+  public String getTestName()
+  	{
+  	return "Type Candidates Test";
+  	}
+
+  	/**
+  	 * A main method so this test can be run independently as an application.
+  	 *
+  	 * @param args  the command line arguments.
+  	 */
+  public static void main(String args[])
+  	{
+  	TestTypeCandidates test;
+
+  	test = new TestTypeCandidates();
+  	test.runAndReport();
+  	}
+  }
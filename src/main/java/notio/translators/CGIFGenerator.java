@@ -213,8 +213,8 @@ public class CGIFGenerator extends SimpleGenerator implements Generator
      */
   void Graph(Graph graph, DefiningLabelTable definingLabelTable) throws GeneratorException
     {
-    Concept concepts[];
-    Relation relations[];
+    Concept concept;
+    Relation relation;
     String comments[];
     int numConcepts, numRelations, numComments;
 
@@ -223,14 +223,13 @@ public class CGIFGenerator extends SimpleGenerator implements Generator
 
     // Generate concepts, defining concepts first, non-defining dominant next,
     // and subordinate last.
-    concepts = graph.getConcepts();
-    numConcepts = concepts.length;
+    numConcepts = graph.getNumberOfConcepts();
    
     for (int con = 0; con < numConcepts; con++)
     	{
     	CoreferenceSet corefSets[];
     	
-    	corefSets = concepts[con].getCoreferenceSets();
+    	corefSets = graph.conceptAt(con).getCoreferenceSets();
     	
     	for (int set = 0; set < corefSets.length; set++)
     		{
@@ -251,28 +250,39 @@ public class CGIFGenerator extends SimpleGenerator implements Generator
     	
     // Generate defining concepts
     for (int con = 0; con < numConcepts; con++)
-      if (concepts[con].isDefiningConcept())
-        Concept(concepts[con], definingLabelTable);
+    	{
+    	concept = graph.conceptAt(con);
+      if (concept.isDefiningConcept())
+        Concept(concept, definingLabelTable);
+      }
 
 		// Generate non-defining dominant concepts
     for (int con = 0; con < numConcepts; con++)
-      if (!concepts[con].isDefiningConcept() && concepts[con].isDominantConcept())
-        Concept(concepts[con], definingLabelTable);
+    	{
+    	concept = graph.conceptAt(con);
+      if (!concept.isDefiningConcept() && concept.isDominantConcept())
+        Concept(concept, definingLabelTable);
+      }
 
 		// Generate subordinate concepts
     for (int con = 0; con < numConcepts; con++)
-      if (!concepts[con].isDominantConcept())
-        Concept(concepts[con], definingLabelTable);
+    	{
+    	concept = graph.conceptAt(con);
+      if (!concept.isDominantConcept())
+        Concept(concept, definingLabelTable);
+      }
 
 		// Generate relations and actors.
-    relations = graph.getRelations();
-    numRelations = relations.length;
+    numRelations = graph.getNumberOfRelations();
 
     for (int rel = 0; rel < numRelations; rel++)
-    	if (relations[rel] instanceof Actor)
-	    	Actor((Actor)relations[rel], definingLabelTable);
+    	{
+    	relation = graph.relationAt(rel);
+    	if (relation instanceof Actor)
+	    	Actor((Actor)relation, definingLabelTable);
 	    else
-	      Relation(relations[rel], definingLabelTable);
+	      Relation(relation, definingLabelTable);
+	    }
 		
 		// Generate graph comments if not supressed
 		if (!supressGraphComments)
@@ -372,12 +382,12 @@ public class CGIFGenerator extends SimpleGenerator implements Generator
     	// label for it and establish it as a defining concept in the table
     	if (corefSets == null || corefSets.length == 0)
       	{
-      	Relation relators[];
+      	Graph graph;
 	     
      		// Check to see if it has one or more relators before bothering to create a label 
 				// for it
-      	relators = concept.getRelators();
-      	if ((relators != null) && (relators.length > 0))
+      	graph = concept.getEnclosingGraph();
+      	if ((graph != null) && (graph.getNumberOfRelators(concept) > 0))
       		{      
 					corefLabel = definingLabelTable.getNextAvailableDefiningLabel();
 
@@ -1856,6 +1856,7 @@ private static final String MARKER_TABLE_NAME = "MARKER_TABLE";
 			Relation relation = null;
 			Actor actor = null;
 			String comment = null;
+			GraphBuilder builder = new GraphBuilder();
 
 			if (newGraph == null)
 				newGraph = new Graph();{
@@ -1943,7 +1944,7 @@ __jjstate.guessing = __jjV8;
 if (!__jjV9) {
 relation = NegatedConcept(newGraph, definingLabelTable);if (!__jjstate.guessing)
 {
-					newGraph.addRelation(relation);
+					builder.addRelation(relation);
 					}}
 }
   } catch (com.metamata.parse.GuessSucc __jjGC) {
@@ -1981,7 +1982,7 @@ for (;;) {
   try {
 relation = Relation(newGraph, definingLabelTable);if (!__jjstate.guessing)
 {
-				newGraph.addRelation(relation);
+				builder.addRelation(relation);
 				}  } catch (com.metamata.parse.GuessSucc __jjGC) {
     if (__jjV12) {
       throw __jjGC;
@@ -2017,7 +2018,7 @@ for (;;) {
   try {
 actor = Actor(newGraph, definingLabelTable);if (!__jjstate.guessing)
 {
-				newGraph.addRelation(actor);
+				builder.addRelation(actor);
 				}  } catch (com.metamata.parse.GuessSucc __jjGC) {
     if (__jjV16) {
       throw __jjGC;
@@ -2142,7 +2143,7 @@ __jjstate.guessing = __jjV32;
 if (!__jjV33) {
 relation = NegatedConcept(newGraph, definingLabelTable);if (!__jjstate.guessing)
 {
-					newGraph.addRelation(relation);
+					builder.addRelation(relation);
 					}}
 }
   } catch (com.metamata.parse.GuessSucc __jjGC) {
@@ -2180,7 +2181,7 @@ for (;;) {
   try {
 relation = Relation(newGraph, definingLabelTable);if (!__jjstate.guessing)
 {
-				newGraph.addRelation(relation);
+				builder.addRelation(relation);
 				}  } catch (com.metamata.parse.GuessSucc __jjGC) {
     if (__jjV36) {
       throw __jjGC;
@@ -2216,7 +2217,7 @@ for (;;) {
   try {
 actor = Actor(newGraph, definingLabelTable);if (!__jjstate.guessing)
 {
-				newGraph.addRelation(actor);
+				builder.addRelation(actor);
 				}  } catch (com.metamata.parse.GuessSucc __jjGC) {
     if (__jjV40) {
       throw __jjGC;
@@ -2264,7 +2265,16 @@ if (!__jjV23) {
 }
 if (!__jjstate.guessing)
 {
-			
+			try
+				{
+				builder.build(newGraph);
+				}
+			catch (CorefAddException e)
+				{
+				// Note: This should never happen since the builder is given no coreference links.
+				throw new ParserException("Error adding relations to graph.", e);
+				}
+
 			return newGraph;
 			}return null;
 
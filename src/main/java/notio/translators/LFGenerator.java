@@ -94,14 +94,12 @@ public class LFGenerator extends SimpleGenerator implements Generator
      */
   public void generateGraph(Graph graph) throws GeneratorException
     {
-    Concept concepts[];
-    int numConcepts;
+    Concept concept;
+    int numConcepts, numRelators;
     Vector primaryConcepts, secondaryConcepts;
 		Enumeration primaryEnum, secondaryEnum;		
-    Relation relators[];
     
-    concepts = graph.getConcepts();
-    numConcepts = concepts.length;
+    numConcepts = graph.getNumberOfConcepts();
 
 		primaryConcepts = new Vector(numConcepts);
 		secondaryConcepts = new Vector(numConcepts);
@@ -113,21 +111,22 @@ public class LFGenerator extends SimpleGenerator implements Generator
     // For each concept, decide if it is primary or secondary
     for (int con = 0; con < numConcepts; con++)
     	{
-			relators = concepts[con].getRelators();
+			concept = graph.conceptAt(con);
+			numRelators = graph.getNumberOfRelators(concept);
 			
-			if (relators.length > 0)
+			if (numRelators > 0)
 				{
 				int rel = 0;
-				while ((rel < relators.length) && (relators[rel].getArguments()[0] != concepts[con]))
+				while ((rel < numRelators) && (graph.relatorAt(concept, rel).getArgument(0) != concept))
 					rel++;
 					
-				if (rel < relators.length)
-					primaryConcepts.addElement(concepts[con]);
+				if (rel < numRelators)
+					primaryConcepts.addElement(concept);
 				else
-					secondaryConcepts.addElement(concepts[con]);
+					secondaryConcepts.addElement(concept);
 				}
 			else
-				secondaryConcepts.addElement(concepts[con]);
+				secondaryConcepts.addElement(concept);
 			}				
 		
 		// Generate primary concepts
@@ -135,8 +134,6 @@ public class LFGenerator extends SimpleGenerator implements Generator
 
 		while (primaryEnum.hasMoreElements())
 			{
-			Concept concept;
-			
 			concept = (Concept)primaryEnum.nextElement();
 			
     	// If concept has not already been generated
@@ -153,8 +150,6 @@ public class LFGenerator extends SimpleGenerator implements Generator
 
 		while (secondaryEnum.hasMoreElements())
 			{
-			Concept concept;
-			
 			concept = (Concept)secondaryEnum.nextElement();
 			
     	// If concept has not already been generated
@@ -199,9 +194,10 @@ public class LFGenerator extends SimpleGenerator implements Generator
     {
     String label;
 		ConceptType conType;
-		Relation relators[], primaryRelators[];
+		Relation primaryRelators[], relator;
 		Vector relVec;
-		int refCount = 0;
+		Graph graph;
+		int numRelators, refCount = 0;
 		
     // If concept has not already been generated
     label = (String)conceptToLabel.get(concept);
@@ -225,19 +221,20 @@ public class LFGenerator extends SimpleGenerator implements Generator
     	// Must add something to the table in any event so we add a dummy
     	// label to start.
     	conceptToLabel.put(concept, "__DUMMY");
-    	relators = concept.getRelators();
-    	if (relators.length > 0)
+    	graph = concept.getEnclosingGraph();
+    	numRelators = graph.getNumberOfRelators(concept);
+    	if (numRelators > 0)
     		{
-    		if (relators.length == 1)
+    		if (numRelators == 1)
     			{
-    			Concept args[] = relators[0].getArguments();
+    			relator = graph.relatorAt(concept, 0);
     			
-    			for (int arg = 0; arg < args.length; arg++)
-    				if (args[arg] == concept)
+    			for (int arg = 0; arg < relator.getValence(); arg++)
+    				if (relator.getArgument(arg) == concept)
     					refCount++;
     			}
     			
-    		if ((relators.length > 1) || (refCount > 1))
+    		if ((numRelators > 1) || (refCount > 1))
     			{
 					label = getDefiningLabelTable(translationContext).getNextAvailableDefiningLabel();
 					// Monstrous hack
@@ -257,17 +254,20 @@ public class LFGenerator extends SimpleGenerator implements Generator
   	  generate("]");
   	  
   	  // Find all relators for which this concept is the first arg (primary relators).
-			relVec = new Vector(relators.length);
+			relVec = new Vector(numRelators);
 
-			for (int rel = 0; rel < relators.length; rel++)
-				if (relators[rel].getArguments()[0] == concept)
-					relVec.addElement(relators[rel]);
+			for (int rel = 0; rel < numRelators; rel++)
+				{
+				relator = graph.relatorAt(concept, rel);
+				if (relator.getArgument(0) == concept)
+					relVec.addElement(relator);
+				}
 
 			primaryRelators = new Relation[relVec.size()];
 			relVec.copyInto(primaryRelators);
 			
 			// If there are no relators, we are finished generating the concept.
-			if (relators.length == 0)
+			if (numRelators == 0)
 				return;
 				
 			// If there are some relators, but no primary relators, we are finished generating.
@@ -278,12 +278,13 @@ public class LFGenerator extends SimpleGenerator implements Generator
 			if (primaryRelators.length == 1)
 				{
 	    	// Generate arc followed by relation
-	    	if (relators[0].getValence() == 1)
+	    	relator = graph.relatorAt(concept, 0);
+	    	if (relator.getValence() == 1)
 		    	generate("<-1-");
 		    else
 		    	generate("-1->");
 
-				generateRelation(relators[0]);    
+				generateRelation(relator);    
 				return;
 	    	}
 